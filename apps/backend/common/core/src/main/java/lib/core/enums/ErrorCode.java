@@ -23,6 +23,8 @@ public enum ErrorCode {
         + " without providing password."),
     ITEM_WRONG_PASSWORD("ITEM-04", "Wrong password provided for the item."),
     MOVE_ITEM_FAILED("MOVE-01", "Failed to move the item."),
+    QUOTA_EXCEEDED("QUOTA-01", "Storage quota exceeded."),
+    MULTIPART_UPLOAD_ERROR("UPLOAD-01", "Multipart upload could not be processed."),
 
     DATABASE_ERROR("DB-02", "Database error occurred."),
     
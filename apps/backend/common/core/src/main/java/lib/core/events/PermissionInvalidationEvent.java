@@ -0,0 +1,21 @@
+package lib.core.events;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Schema(description = "Tells every file-service instance that permissions on the subtrees rooted "
+    + "at the given items have changed and must no longer be served from cache.")
+@Data
+@Builder
+@AllArgsConstructor
+public class PermissionInvalidationEvent {
+    private List<UUID> itemIds;
+    
+    public PermissionInvalidationEvent() {
+        // Default constructor for deserialization
+    }
+}
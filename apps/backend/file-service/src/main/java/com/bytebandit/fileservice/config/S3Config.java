@@ -1,17 +1,28 @@
 package com.bytebandit.fileservice.config;
 
+import java.net.URI;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 @Configuration
 public class S3Config {
     @Value("${aws.region}")
     private String awsRegion;
-    
+
+    /**
+     * Endpoint of an S3 compatible store such as MinIO or LocalStack. When set, buckets are
+     * addressed by path since these stores do not resolve bucket subdomains.
+     */
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+
     /**
      * Configures and provides a bean of type S3Presigner that can be used to generate presigned
      * URLs for accessing Amazon S3 objects.
@@ -21,9 +32,33 @@ public class S3Config {
      */
     @Bean
     public S3Presigner s3Presigner() {
-        return S3Presigner.builder()
+        S3Presigner.Builder builder = S3Presigner.builder()
+            .region(Region.of(awsRegion))
+            .credentialsProvider(DefaultCredentialsProvider.create());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint))
+                .serviceConfiguration(
+                    S3Configuration.builder().pathStyleAccessEnabled(true).build()
+                );
+        }
+        return builder.build();
+    }
+
+    /**
+     * Configures and provides a bean of type S3Client used for the calls that cannot be presigned,
+     * such as starting, completing and aborting multipart uploads.
+     *
+     * @return an instance of S3Client configured with the specified AWS region and default
+     *     credentials provider.
+     */
+    @Bean
+    public S3Client s3Client() {
+        S3ClientBuilder builder = S3Client.builder()
             .region(Region.of(awsRegion))
-            .credentialsProvider(DefaultCredentialsProvider.create())
-            .build();
+            .credentialsProvider(DefaultCredentialsProvider.create());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        return builder.build();
     }
 }
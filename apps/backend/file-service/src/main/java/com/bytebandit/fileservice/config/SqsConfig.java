@@ -0,0 +1,42 @@
+package com.bytebandit.fileservice.config;
+
+import java.net.URI;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.SqsClientBuilder;
+
+@Configuration
+@ConditionalOnProperty(name = "aws.sqs.enabled", havingValue = "true")
+public class SqsConfig {
+    @Value("${aws.region}")
+    private String awsRegion;
+
+    /**
+     * Endpoint of an SQS compatible queue such as LocalStack.
+     */
+    @Value("${aws.sqs.endpoint:}")
+    private String endpoint;
+
+    /**
+     * Configures and provides a bean of type SqsClient used to receive the S3 event notifications
+     * of completed uploads.
+     *
+     * @return an instance of SqsClient configured with the specified AWS region and default
+     *     credentials provider.
+     */
+    @Bean
+    public SqsClient sqsClient() {
+        SqsClientBuilder builder = SqsClient.builder()
+            .region(Region.of(awsRegion))
+            .credentialsProvider(DefaultCredentialsProvider.create());
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.bytebandit.fileservice.controller;
+
+import static com.bytebandit.fileservice.utils.HttpHeaderUtils.getUserIdHeader;
+
+import com.bytebandit.fileservice.dto.BulkDownloadUrlRequest;
+import com.bytebandit.fileservice.dto.DownloadUrlRequest;
+import com.bytebandit.fileservice.dto.DownloadUrlResponse;
+import com.bytebandit.fileservice.service.DownloadProxyService;
+import com.bytebandit.fileservice.service.DownloadUrlService;
+import com.bytebandit.fileservice.service.ReadAheadStreamer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+import java.util.UUID;
+import lib.core.dto.response.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/download")
+@RequiredArgsConstructor
+@Tag(
+    name = "Download",
+    description = "File download operations"
+)
+public class DownloadController {
+
+    private final DownloadUrlService downloadUrlService;
+    private final DownloadProxyService downloadProxyService;
+    private final ReadAheadStreamer readAheadStreamer;
+
+    /**
+     * Generates a presigned URL to download a file.
+     */
+    @Operation(
+        summary = "Generate presigned URL for file download",
+        description = "Generates a presigned URL for downloading a file the user may view."
+    )
+    @PostMapping("/presigned-url")
+    public ResponseEntity<ApiResponse<DownloadUrlResponse>> getDownloadUrl(
+        @Valid @RequestBody DownloadUrlRequest request,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        return ResponseEntity.ok(
+            ApiResponse.<DownloadUrlResponse>builder()
+                .status(200)
+                .message("Pre-signed URL generated successfully")
+                .data(downloadUrlService.getDownloadUrl(request, userId))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path("/download/presigned-url")
+                .build()
+        );
+    }
+
+    /**
+     * Generates presigned URLs to download the files of a folder page.
+     */
+    @Operation(
+        summary = "Generate presigned URLs for a folder page",
+        description = "Generates presigned URLs for downloading the given files of a folder."
+    )
+    @PostMapping("/presigned-urls")
+    public ResponseEntity<ApiResponse<List<DownloadUrlResponse>>> getDownloadUrls(
+        @Valid @RequestBody BulkDownloadUrlRequest request,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        return ResponseEntity.ok(
+            ApiResponse.<List<DownloadUrlResponse>>builder()
+                .status(200)
+                .message("Pre-signed URLs generated successfully")
+                .data(downloadUrlService.getDownloadUrls(request, userId))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path("/download/presigned-urls")
+                .build()
+        );
+    }
+
+    /**
+     * Streams the content of a file through the service.
+     */
+    @Operation(
+        summary = "Stream file content",
+        description = "Serves the content of a file the user may view, with support for single "
+            + "byte ranges and ETag revalidation. Protected files need an unlock token."
+    )
+    @GetMapping("/stream/{itemId}")
+    public ResponseEntity<StreamingResponseBody> streamFile(
+        @PathVariable String itemId,
+        @RequestParam(required = false) String unlockToken,
+        @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        DownloadProxyService.ObjectDownload download = downloadProxyService.open(
+            itemId,
+            unlockToken,
+            userId,
+            range,
+            ifNoneMatch,
+            ifRange
+        );
+        ResponseEntity.BodyBuilder response =
+            ResponseEntity.status(download.status()).headers(download.headers());
+        if (download.content() == null) {
+            return response.build();
+        }
+        return response.body(
+            outputStream -> readAheadStreamer.copy(download.content(), outputStream)
+        );
+    }
+}
@@ -1,5 +1,6 @@
 package com.bytebandit.fileservice.controller;
 
+import com.bytebandit.fileservice.dto.ChildrenPageRequest;
 import com.bytebandit.fileservice.dto.ItemViewRequest;
 import com.bytebandit.fileservice.dto.ItemViewResponse;
 import com.bytebandit.fileservice.service.ItemViewService;
@@ -14,12 +15,14 @@ import java.util.UUID;
 import lib.core.dto.response.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
@@ -60,17 +63,48 @@ public class ItemViewController {
             .build());
     }
     
+    /**
+     * Handles the item view request and streams the item view response. The children of the
+     * item are written as they are read from the database, which keeps memory flat for folders
+     * with a very large number of children.
+     *
+     * @param request        the item view request
+     * @param servletRequest the HTTP servlet request
+     *
+     * @return the streamed item view response
+     */
+    @Operation(
+        summary = "Stream item view",
+        description = "Same response as the item view endpoint, with all children streamed in "
+            + "name order instead of being built in memory."
+    )
+    @PostMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamItem(
+        @Valid @RequestBody ItemViewRequest request,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        final String userId = HttpHeaderUtils.getUserIdHeader(servletRequest);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(itemViewService.streamItemView(request, UUID.fromString(userId)));
+    }
+    
     /**
      * Handles the request to get all items of a user.
      *
+     * @param pageRequest    the optional paging of the children, bound from query parameters
+     * @param servletRequest the HTTP servlet request
+     *
      * @return the response entity containing the item view response
      */
     @Operation(
         summary = "Get all items of a user",
-        description = "Retrieves all items associated with the authenticated user."
+        description = "Retrieves all items associated with the authenticated user. Children are "
+            + "returned page by page when pageSize or cursor is given."
     )
     @GetMapping
     public ResponseEntity<ApiResponse<ItemViewResponse>> getUserItems(
+        @Valid ChildrenPageRequest pageRequest,
         @NotNull HttpServletRequest servletRequest
     ) {
         final String userId = HttpHeaderUtils.getUserIdHeader(servletRequest);
@@ -78,7 +112,7 @@ public class ItemViewController {
             ApiResponse.<ItemViewResponse>builder()
                 .status(HttpStatus.OK.value())
                 .message("Retrieved all items of the user successfully")
-                .data(itemViewService.getUserItems(userId))
+                .data(itemViewService.getUserItems(userId, pageRequest))
                 .timestamp(String.valueOf(System.currentTimeMillis()))
                 .build()
         );
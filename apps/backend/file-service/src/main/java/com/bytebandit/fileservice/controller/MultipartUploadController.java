@@ -0,0 +1,190 @@
+package com.bytebandit.fileservice.controller;
+
+import static com.bytebandit.fileservice.utils.HttpHeaderUtils.getUserIdHeader;
+
+import com.bytebandit.fileservice.dto.MultipartUploadRequest;
+import com.bytebandit.fileservice.dto.MultipartUploadResponse;
+import com.bytebandit.fileservice.dto.PartUrlResponse;
+import com.bytebandit.fileservice.dto.PartUrlsRequest;
+import com.bytebandit.fileservice.dto.UploadedPartsRequest;
+import com.bytebandit.fileservice.service.MultipartUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+import java.util.UUID;
+import lib.core.dto.response.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/upload/multipart")
+@RequiredArgsConstructor
+@Tag(
+    name = "Multipart Upload",
+    description = "Resumable multipart upload operations for large files"
+)
+public class MultipartUploadController {
+
+    private static final String PATH = "/upload/multipart";
+
+    private final MultipartUploadService multipartUploadService;
+
+    /**
+     * Starts a multipart upload.
+     */
+    @Operation(
+        summary = "Start multipart upload",
+        description = "Creates the file item and starts a multipart upload for it."
+    )
+    @PostMapping
+    public ResponseEntity<ApiResponse<MultipartUploadResponse>> initiate(
+        @Valid @RequestBody MultipartUploadRequest request,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        return ResponseEntity.ok(
+            ApiResponse.<MultipartUploadResponse>builder()
+                .status(200)
+                .message("Multipart upload started successfully")
+                .data(multipartUploadService.initiate(request, userId))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path(PATH)
+                .build()
+        );
+    }
+
+    /**
+     * Returns the state of a multipart upload.
+     */
+    @Operation(
+        summary = "Get multipart upload",
+        description = "Returns the part layout and the parts already recorded, to resume uploads."
+    )
+    @GetMapping("/{itemId}")
+    public ResponseEntity<ApiResponse<MultipartUploadResponse>> getUpload(
+        @PathVariable UUID itemId,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        return ResponseEntity.ok(
+            ApiResponse.<MultipartUploadResponse>builder()
+                .status(200)
+                .message("Fetched multipart upload successfully")
+                .data(multipartUploadService.getUpload(itemId, userId))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path(PATH + "/" + itemId)
+                .build()
+        );
+    }
+
+    /**
+     * Presigns the upload URLs of a batch of parts.
+     */
+    @Operation(
+        summary = "Presign part URLs",
+        description = "Generates presigned URLs to upload the given parts."
+    )
+    @PostMapping("/{itemId}/part-urls")
+    public ResponseEntity<ApiResponse<List<PartUrlResponse>>> presignParts(
+        @PathVariable UUID itemId,
+        @Valid @RequestBody PartUrlsRequest request,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        return ResponseEntity.ok(
+            ApiResponse.<List<PartUrlResponse>>builder()
+                .status(200)
+                .message("Part URLs generated successfully")
+                .data(multipartUploadService.presignParts(
+                    itemId, request.getPartNumbers(), userId
+                ))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path(PATH + "/" + itemId + "/part-urls")
+                .build()
+        );
+    }
+
+    /**
+     * Records the ETags of uploaded parts.
+     */
+    @Operation(
+        summary = "Record uploaded parts",
+        description = "Records the ETags returned by S3 for uploaded parts."
+    )
+    @PutMapping("/{itemId}/parts")
+    public ResponseEntity<ApiResponse<MultipartUploadResponse>> recordParts(
+        @PathVariable UUID itemId,
+        @Valid @RequestBody UploadedPartsRequest request,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        return ResponseEntity.ok(
+            ApiResponse.<MultipartUploadResponse>builder()
+                .status(200)
+                .message("Parts recorded successfully")
+                .data(multipartUploadService.recordParts(itemId, request.getParts(), userId))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path(PATH + "/" + itemId + "/parts")
+                .build()
+        );
+    }
+
+    /**
+     * Completes a multipart upload.
+     */
+    @Operation(
+        summary = "Complete multipart upload",
+        description = "Assembles the recorded parts and marks the file as uploaded."
+    )
+    @PostMapping("/{itemId}/complete")
+    public ResponseEntity<ApiResponse<Void>> complete(
+        @PathVariable UUID itemId,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        multipartUploadService.complete(itemId, userId);
+        return ResponseEntity.ok(
+            ApiResponse.<Void>builder()
+                .status(200)
+                .message("Multipart upload completed successfully")
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path(PATH + "/" + itemId + "/complete")
+                .build()
+        );
+    }
+
+    /**
+     * Aborts a multipart upload.
+     */
+    @Operation(
+        summary = "Abort multipart upload",
+        description = "Discards the uploaded parts and the file item."
+    )
+    @DeleteMapping("/{itemId}")
+    public ResponseEntity<ApiResponse<Void>> abort(
+        @PathVariable UUID itemId,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        multipartUploadService.abort(itemId, userId);
+        return ResponseEntity.ok(
+            ApiResponse.<Void>builder()
+                .status(200)
+                .message("Multipart upload aborted successfully")
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path(PATH + "/" + itemId)
+                .build()
+        );
+    }
+}
@@ -0,0 +1,69 @@
+package com.bytebandit.fileservice.controller;
+
+import static com.bytebandit.fileservice.utils.HttpHeaderUtils.getUserIdHeader;
+
+import com.bytebandit.fileservice.service.ThumbnailService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/thumbnails")
+@RequiredArgsConstructor
+@Tag(
+    name = "Thumbnails",
+    description = "Image thumbnail operations"
+)
+public class ThumbnailController {
+
+    private static final CacheControl CACHE_CONTROL =
+        CacheControl.maxAge(Duration.ofHours(1)).cachePrivate();
+
+    private final ThumbnailService thumbnailService;
+
+    /**
+     * Serves the thumbnail of an image.
+     */
+    @Operation(
+        summary = "Get image thumbnail",
+        description = "Serves the JPEG thumbnail of an image the user may view, with ETag "
+            + "revalidation. Protected files need an unlock token."
+    )
+    @GetMapping("/{itemId}")
+    public ResponseEntity<byte[]> getThumbnail(
+        @PathVariable String itemId,
+        @RequestParam(required = false) String unlockToken,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        ThumbnailService.Thumbnail thumbnail =
+            thumbnailService.getThumbnail(itemId, unlockToken, userId, ifNoneMatch);
+        if (thumbnail.content() == null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(thumbnail.etag())
+                .cacheControl(CACHE_CONTROL)
+                .build();
+        }
+        return ResponseEntity.ok()
+            .eTag(thumbnail.etag())
+            .cacheControl(CACHE_CONTROL)
+            .contentType(MediaType.IMAGE_JPEG)
+            .body(thumbnail.content());
+    }
+}
@@ -1,15 +1,26 @@
 package com.bytebandit.fileservice.controller;
 
+import com.bytebandit.fileservice.dto.BulkDeleteRequest;
+import com.bytebandit.fileservice.dto.BulkItemResult;
+import com.bytebandit.fileservice.dto.BulkMoveRequest;
+import com.bytebandit.fileservice.dto.BulkRenameRequest;
 import com.bytebandit.fileservice.dto.CopyItemRequest;
+import com.bytebandit.fileservice.dto.CopyJobResponse;
 import com.bytebandit.fileservice.dto.MoveItemRequest;
 import com.bytebandit.fileservice.dto.UpdateItemRequest;
+import com.bytebandit.fileservice.service.BulkUpdateItemService;
 import com.bytebandit.fileservice.service.UpdateItemService;
 import com.bytebandit.fileservice.utils.HttpHeaderUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.util.List;
+import java.util.UUID;
 import lib.core.dto.response.ApiResponse;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -20,9 +31,14 @@ import org.springframework.web.bind.annotation.RestController;
 public class UpdateItemController {
     
     private final UpdateItemService updateItemService;
+    private final BulkUpdateItemService bulkUpdateItemService;
     
-    public UpdateItemController(UpdateItemService updateItemService) {
+    public UpdateItemController(
+        UpdateItemService updateItemService,
+        BulkUpdateItemService bulkUpdateItemService
+    ) {
         this.updateItemService = updateItemService;
+        this.bulkUpdateItemService = bulkUpdateItemService;
     }
 
     /**
@@ -78,30 +94,133 @@ public class UpdateItemController {
     }
 
     /**
-     * Handles the request to copy an item.
+     * Handles the request to copy an item. The copy runs in the background, so the response
+     * only carries the job to poll for progress.
      *
      * @param request the request containing the item ID and new location
      * @param servletRequest the HTTP servlet request
      *
-     * @return a response entity containing the result of the copy operation
+     * @return a response entity containing the started copy job
      */
     @PostMapping("/copy")
-    public ResponseEntity<ApiResponse<String>> moveItem(
+    public ResponseEntity<ApiResponse<CopyJobResponse>> copyItem(
         @Valid @RequestBody CopyItemRequest request,
         @NotNull HttpServletRequest servletRequest
     ) {
         final String userId = HttpHeaderUtils.getUserIdHeader(servletRequest);
 
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+            ApiResponse.<CopyJobResponse>builder()
+                .status(HttpStatus.ACCEPTED.value())
+                .message("Copy started")
+                .data(updateItemService.copyItem(request, userId))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path("/update/copy")
+                .build()
+        );
+    }
+
+    /**
+     * Handles the request for the progress of a copy job.
+     *
+     * @param jobId the ID of the copy job
+     * @param servletRequest the HTTP servlet request
+     *
+     * @return a response entity containing the state of the copy job
+     */
+    @GetMapping("/copy/{jobId}")
+    public ResponseEntity<ApiResponse<CopyJobResponse>> getCopyJob(
+        @PathVariable UUID jobId,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        final String userId = HttpHeaderUtils.getUserIdHeader(servletRequest);
+
         return ResponseEntity.ok(
-            ApiResponse.<String>builder()
+            ApiResponse.<CopyJobResponse>builder()
                 .status(200)
-                .message("Moved item successfully")
-                .data(updateItemService.copyItem(request, userId))
+                .message("Fetched copy job successfully")
+                .data(updateItemService.getCopyJob(jobId, userId))
                 .timestamp(String.valueOf(System.currentTimeMillis()))
-                .path("/update/move")
+                .path("/update/copy/" + jobId)
                 .build()
         );
     }
 
+    /**
+     * Handles the request to rename many items at once.
+     *
+     * @param request the request containing the item IDs and their new names
+     * @param servletRequest the HTTP servlet request
+     *
+     * @return a response entity containing the result for each item
+     */
+    @PostMapping("/bulk/rename")
+    public ResponseEntity<ApiResponse<List<BulkItemResult>>> renameItems(
+        @Valid @RequestBody BulkRenameRequest request,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        final String userId = HttpHeaderUtils.getUserIdHeader(servletRequest);
 
+        return ResponseEntity.ok(
+            ApiResponse.<List<BulkItemResult>>builder()
+                .status(200)
+                .message("Processed bulk rename")
+                .data(bulkUpdateItemService.renameItems(request, userId))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path("/update/bulk/rename")
+                .build()
+        );
+    }
+
+    /**
+     * Handles the request to move many items at once.
+     *
+     * @param request the request containing the item IDs and the new parent
+     * @param servletRequest the HTTP servlet request
+     *
+     * @return a response entity containing the result for each item
+     */
+    @PostMapping("/bulk/move")
+    public ResponseEntity<ApiResponse<List<BulkItemResult>>> moveItems(
+        @Valid @RequestBody BulkMoveRequest request,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        final String userId = HttpHeaderUtils.getUserIdHeader(servletRequest);
+
+        return ResponseEntity.ok(
+            ApiResponse.<List<BulkItemResult>>builder()
+                .status(200)
+                .message("Processed bulk move")
+                .data(bulkUpdateItemService.moveItems(request, userId))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path("/update/bulk/move")
+                .build()
+        );
+    }
+
+    /**
+     * Handles the request to delete many items at once, together with their subtrees.
+     *
+     * @param request the request containing the item IDs
+     * @param servletRequest the HTTP servlet request
+     *
+     * @return a response entity containing the result for each item
+     */
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<ApiResponse<List<BulkItemResult>>> deleteItems(
+        @Valid @RequestBody BulkDeleteRequest request,
+        @NotNull HttpServletRequest servletRequest
+    ) {
+        final String userId = HttpHeaderUtils.getUserIdHeader(servletRequest);
+
+        return ResponseEntity.ok(
+            ApiResponse.<List<BulkItemResult>>builder()
+                .status(200)
+                .message("Processed bulk delete")
+                .data(bulkUpdateItemService.deleteItems(request, userId))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path("/update/bulk/delete")
+                .build()
+        );
+    }
 }
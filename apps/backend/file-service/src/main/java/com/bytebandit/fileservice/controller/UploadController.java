@@ -1,9 +1,18 @@
 package com.bytebandit.fileservice.controller;
 
+import static com.bytebandit.fileservice.utils.HttpHeaderUtils.getUserIdHeader;
+
+import com.bytebandit.fileservice.dto.BatchPresignRequest;
 import com.bytebandit.fileservice.dto.FileNameRequest;
+import com.bytebandit.fileservice.dto.PresignedUploadResponse;
+import com.bytebandit.fileservice.service.BatchUploadPresignService;
 import com.bytebandit.fileservice.service.S3FileService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.UUID;
 import lib.core.dto.response.ApiResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,19 +28,53 @@ import org.springframework.web.bind.annotation.RestController;
 )
 public class UploadController {
     private final S3FileService s3FileService;
+    private final BatchUploadPresignService batchUploadPresignService;
     
-    public UploadController(S3FileService s3FileService) {
+    public UploadController(
+        S3FileService s3FileService,
+        BatchUploadPresignService batchUploadPresignService
+    ) {
         this.s3FileService = s3FileService;
+        this.batchUploadPresignService = batchUploadPresignService;
     }
 
     @Operation(
         summary = "Generate presigned URL for file upload",
-        description = "Generates a presigned URL for uploading a file to S3."
+        description = "Generates a presigned URL for uploading a file to S3, provided the file "
+            + "fits in the storage quota of the user."
     )
     @PostMapping("/presigned-url")
     ResponseEntity<ApiResponse<String>> generateUploadPresignedUrl(
-        @RequestBody FileNameRequest fileNameRequest) {
+        @Valid @RequestBody FileNameRequest fileNameRequest,
+        HttpServletRequest servletRequest) {
+        return ResponseEntity.ok(
+            s3FileService.generateUploadPresignedUrl(
+                fileNameRequest.getFileName(),
+                fileNameRequest.getSize(),
+                UUID.fromString(getUserIdHeader(servletRequest))
+            ));
+    }
+
+    @Operation(
+        summary = "Generate presigned URLs for many file uploads",
+        description = "Generates a presigned URL for each file, provided the files fit in the "
+            + "storage quota of the user together."
+    )
+    @PostMapping("/presigned-urls")
+    ResponseEntity<ApiResponse<List<PresignedUploadResponse>>> generateUploadPresignedUrls(
+        @Valid @RequestBody BatchPresignRequest batchPresignRequest,
+        HttpServletRequest servletRequest) {
         return ResponseEntity.ok(
-            s3FileService.generateUploadPresignedUrl(fileNameRequest.getFileName()));
+            ApiResponse.<List<PresignedUploadResponse>>builder()
+                .status(200)
+                .message("Pre-signed URLs generated successfully")
+                .data(batchUploadPresignService.presignUploads(
+                    batchPresignRequest.getFiles(),
+                    UUID.fromString(getUserIdHeader(servletRequest))
+                ))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path("/upload/presigned-urls")
+                .build()
+        );
     }
 }
@@ -0,0 +1,77 @@
+package com.bytebandit.fileservice.controller;
+
+import static com.bytebandit.fileservice.utils.HttpHeaderUtils.getUserIdHeader;
+
+import com.bytebandit.fileservice.dto.MultipartUploadRequest;
+import com.bytebandit.fileservice.dto.MultipartUploadResponse;
+import com.bytebandit.fileservice.exception.InvalidFileNameException;
+import com.bytebandit.fileservice.exception.MultipartUploadException;
+import com.bytebandit.fileservice.service.UploadProxyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
+import java.util.UUID;
+import lib.core.dto.response.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/upload/proxy")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.upload.proxy.enabled", havingValue = "true")
+@Tag(
+    name = "Upload Proxy",
+    description = "Uploads streamed through the service for clients that cannot reach storage"
+)
+public class UploadProxyController {
+
+    private static final String PATH = "/upload/proxy";
+
+    private final UploadProxyService uploadProxyService;
+
+    /**
+     * Uploads the request body as a file. The body is streamed to storage as it arrives, so its
+     * length must be declared up front.
+     */
+    @Operation(
+        summary = "Upload file through the service",
+        description = "Streams the request body into storage and creates the file item. The "
+            + "Content-Length header is required and the Content-Type is stored as MIME type."
+    )
+    @PutMapping
+    public ResponseEntity<ApiResponse<MultipartUploadResponse>> upload(
+        @RequestParam String fileName,
+        @RequestParam UUID parentId,
+        @NotNull HttpServletRequest servletRequest
+    ) throws IOException {
+        UUID userId = UUID.fromString(getUserIdHeader(servletRequest));
+        long size = servletRequest.getContentLengthLong();
+        if (size <= 0) {
+            throw new MultipartUploadException("The Content-Length of the file is required");
+        }
+        if (fileName.isBlank()) {
+            throw new InvalidFileNameException("File name cannot be empty");
+        }
+        MultipartUploadRequest request = new MultipartUploadRequest();
+        request.setFileName(fileName);
+        request.setSize(size);
+        request.setMimeType(servletRequest.getContentType());
+        request.setParentId(parentId.toString());
+        return ResponseEntity.ok(
+            ApiResponse.<MultipartUploadResponse>builder()
+                .status(200)
+                .message("File uploaded successfully")
+                .data(uploadProxyService.upload(request, servletRequest.getInputStream(), userId))
+                .timestamp(String.valueOf(System.currentTimeMillis()))
+                .path(PATH)
+                .build()
+        );
+    }
+}
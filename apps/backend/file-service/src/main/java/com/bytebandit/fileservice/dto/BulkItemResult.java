@@ -0,0 +1,18 @@
+package com.bytebandit.fileservice.dto;
+
+import com.bytebandit.fileservice.enums.BulkItemStatus;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResult {
+    private UUID itemId;
+    private BulkItemStatus status;
+    private String message;
+}
@@ -0,0 +1,20 @@
+package com.bytebandit.fileservice.dto;
+
+import com.bytebandit.fileservice.validator.ValidId;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import java.util.UUID;
+import lombok.Data;
+
+@Data
+public class BulkMoveRequest {
+
+    @NotNull
+    @Size(min = 1, max = 1000, message = "Between 1 and 1000 items must be provided")
+    private List<@NotNull UUID> itemIds;
+
+    @ValidId
+    @NotNull
+    private String parentId;
+}
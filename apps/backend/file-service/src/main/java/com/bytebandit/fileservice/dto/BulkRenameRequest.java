@@ -0,0 +1,15 @@
+package com.bytebandit.fileservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class BulkRenameRequest {
+
+    @NotNull
+    @Size(min = 1, max = 1000, message = "Between 1 and 1000 items must be provided")
+    private List<@NotNull @Valid UpdateItemRequest> items;
+}
@@ -54,4 +54,7 @@ public class ChildResponse {
 
     @JsonProperty("permission")
     private String permission;
+
+    @JsonProperty("thumbnail_url")
+    private String thumbnailUrl;
 }
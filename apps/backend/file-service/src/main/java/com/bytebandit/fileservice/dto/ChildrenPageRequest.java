@@ -0,0 +1,28 @@
+package com.bytebandit.fileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class ChildrenPageRequest {
+
+    @Positive
+    private Integer pageSize;
+
+    private String cursor;
+
+    private String sortBy;
+
+    private Boolean descending;
+
+    /**
+     * Whether the caller asked for the children to be returned page by page.
+     *
+     * @return true if a page size, a cursor or a sort order was provided
+     */
+    @JsonIgnore
+    public boolean isPaged() {
+        return pageSize != null || cursor != null || sortBy != null || descending != null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.bytebandit.fileservice.dto;
+
+import com.bytebandit.fileservice.enums.CopyJobStatus;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CopyJobResponse {
+    private UUID jobId;
+    private CopyJobStatus status;
+    private UUID sourceItemId;
+    private UUID copiedItemId;
+    private long totalItems;
+    private long copiedItems;
+    private String error;
+}
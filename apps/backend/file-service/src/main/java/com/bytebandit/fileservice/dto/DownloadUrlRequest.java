@@ -0,0 +1,18 @@
+package com.bytebandit.fileservice.dto;
+
+import com.bytebandit.fileservice.enums.DownloadDisposition;
+import com.bytebandit.fileservice.validator.ValidId;
+import lombok.Data;
+
+@Data
+public class DownloadUrlRequest {
+
+    @ValidId
+    private String itemId;
+
+    private String password;
+
+    private String unlockToken;
+
+    private DownloadDisposition disposition = DownloadDisposition.ATTACHMENT;
+}
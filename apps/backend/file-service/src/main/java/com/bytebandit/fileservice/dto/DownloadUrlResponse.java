@@ -0,0 +1,14 @@
+package com.bytebandit.fileservice.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class DownloadUrlResponse {
+    private UUID itemId;
+    private String url;
+    private Instant expiresAt;
+}
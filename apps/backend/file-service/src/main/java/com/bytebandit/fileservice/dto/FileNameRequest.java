@@ -1,5 +1,7 @@
 package com.bytebandit.fileservice.dto;
 
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -7,4 +9,8 @@ import lombok.Setter;
 @Setter
 public class FileNameRequest {
     private String fileName;
+
+    @NotNull(message = "File size is required")
+    @PositiveOrZero(message = "File size cannot be negative")
+    private Long size;
 }
@@ -2,12 +2,16 @@ package com.bytebandit.fileservice.dto;
 
 import com.bytebandit.fileservice.validator.ValidId;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 @Data
-public class ItemViewRequest {
+@EqualsAndHashCode(callSuper = true)
+public class ItemViewRequest extends ChildrenPageRequest {
 
     @ValidId
     private String itemId;
 
     private String password;
+
+    private String unlockToken;
 }
@@ -28,5 +28,9 @@ public class ItemViewResponse {
     private UUID parentId;
     private String permission;
     private BigInteger size;
+    private Long fileCount;
+    private Long folderCount;
     private List<ChildResponse> children;
+    private String nextCursor;
+    private String unlockToken;
 }
@@ -0,0 +1,24 @@
+package com.bytebandit.fileservice.dto;
+
+import com.bytebandit.fileservice.validator.ValidId;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class MultipartUploadRequest {
+
+    @NotBlank
+    private String fileName;
+
+    @NotNull(message = "File size is required")
+    @Positive(message = "File size must be positive")
+    private Long size;
+
+    private String mimeType;
+
+    @ValidId
+    @NotNull
+    private String parentId;
+}
@@ -0,0 +1,15 @@
+package com.bytebandit.fileservice.dto;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class MultipartUploadResponse {
+    private UUID itemId;
+    private long partSize;
+    private int partCount;
+    private List<Integer> uploadedParts;
+}
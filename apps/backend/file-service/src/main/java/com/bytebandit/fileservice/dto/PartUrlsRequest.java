@@ -0,0 +1,16 @@
+package com.bytebandit.fileservice.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class PartUrlsRequest {
+
+    @NotNull
+    @Size(min = 1, max = 100, message = "Between 1 and 100 parts must be requested")
+    private List<@NotNull @Min(1) @Max(10000) Integer> partNumbers;
+}
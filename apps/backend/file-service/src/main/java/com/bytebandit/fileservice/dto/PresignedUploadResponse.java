@@ -0,0 +1,11 @@
+package com.bytebandit.fileservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PresignedUploadResponse {
+    private String fileName;
+    private String url;
+}
@@ -0,0 +1,19 @@
+package com.bytebandit.fileservice.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class UploadedPart {
+
+    @NotNull
+    @Min(1)
+    @Max(10000)
+    private Integer partNumber;
+
+    @NotBlank
+    private String etag;
+}
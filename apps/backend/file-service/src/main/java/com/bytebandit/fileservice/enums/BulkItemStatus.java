@@ -0,0 +1,16 @@
+package com.bytebandit.fileservice.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum BulkItemStatus {
+
+    SUCCESS("SUCCESS"),
+    NOT_FOUND("NOT_FOUND"),
+    FORBIDDEN("FORBIDDEN"),
+    REJECTED("REJECTED");
+
+    private final String status;
+}
@@ -0,0 +1,40 @@
+package com.bytebandit.fileservice.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ChildrenSortKey {
+    
+    NAME("name"),
+    UPDATED_AT("updated_at"),
+    SIZE("size"),
+    TYPE("type");
+    
+    private final String key;
+    
+    @JsonValue
+    public String getValue() {
+        return key;
+    }
+    
+    /**
+     * Convert a string value to a ChildrenSortKey enum.
+     *
+     * @param value the string value to convert
+     *
+     * @return the corresponding ChildrenSortKey enum
+     */
+    @JsonCreator
+    public static ChildrenSortKey fromValue(String value) {
+        for (ChildrenSortKey sortKey : ChildrenSortKey.values()) {
+            if (sortKey.key.equalsIgnoreCase(value)) {
+                return sortKey;
+            }
+        }
+        throw new IllegalArgumentException("Invalid sort key: " + value);
+    }
+}
@@ -0,0 +1,16 @@
+package com.bytebandit.fileservice.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum CopyJobStatus {
+
+    PENDING("PENDING"),
+    RUNNING("RUNNING"),
+    COMPLETED("COMPLETED"),
+    FAILED("FAILED");
+
+    private final String status;
+}
@@ -0,0 +1,14 @@
+package com.bytebandit.fileservice.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum DownloadDisposition {
+
+    INLINE("inline"),
+    ATTACHMENT("attachment");
+
+    private final String value;
+}
@@ -44,6 +44,16 @@ public class GlobalExceptionHandler {
             ex.getMessage());
     }
     
+    /**
+     * Handles InvalidPageRequestException and returns a ResponseEntity with an error response.
+     */
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidPageRequestException(
+        InvalidPageRequestException ex, HttpServletRequest request) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ErrorCode.INVALID_INPUT_FORMAT, request,
+            ex.getMessage());
+    }
+    
     /**
      * Handles PublicShareException and returns a ResponseEntity with an error response.
      *
@@ -190,6 +200,51 @@ public class GlobalExceptionHandler {
             ex.getMessage());
     }
     
+    /**
+     * Handles QuotaExceededException and returns a ResponseEntity with an error response.
+     *
+     * @param ex      the QuotaExceededException to handle
+     * @param request the HttpServletRequest object
+     *
+     * @return a ResponseEntity with an error response
+     */
+    @ExceptionHandler(QuotaExceededException.class)
+    public ResponseEntity<ErrorResponse> handleQuotaExceededException(
+        QuotaExceededException ex, HttpServletRequest request) {
+        return buildResponse(HttpStatus.PAYLOAD_TOO_LARGE, ErrorCode.QUOTA_EXCEEDED, request,
+            ex.getMessage());
+    }
+    
+    /**
+     * Handles MultipartUploadException and returns a ResponseEntity with an error response.
+     *
+     * @param ex      the MultipartUploadException to handle
+     * @param request the HttpServletRequest object
+     *
+     * @return a ResponseEntity with an error response
+     */
+    @ExceptionHandler(MultipartUploadException.class)
+    public ResponseEntity<ErrorResponse> handleMultipartUploadException(
+        MultipartUploadException ex, HttpServletRequest request) {
+        return buildResponse(HttpStatus.CONFLICT, ErrorCode.MULTIPART_UPLOAD_ERROR, request,
+            ex.getMessage());
+    }
+    
+    /**
+     * Handles ServiceBusyException and returns a ResponseEntity with an error response.
+     *
+     * @param ex      the ServiceBusyException to handle
+     * @param request the HttpServletRequest object
+     *
+     * @return a ResponseEntity with an error response
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorResponse> handleServiceBusyException(
+        ServiceBusyException ex, HttpServletRequest request) {
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ErrorCode.SERVICE_UNAVAILABLE, request,
+            ex.getMessage());
+    }
+    
     private ResponseEntity<ErrorResponse> buildResponse(HttpStatus status, ErrorCode errorCode,
                                                         HttpServletRequest request,
                                                         String details) {
@@ -0,0 +1,7 @@
+package com.bytebandit.fileservice.exception;
+
+public class InvalidPageRequestException extends RuntimeException {
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.bytebandit.fileservice.exception;
+
+public class MultipartUploadException extends RuntimeException {
+    public MultipartUploadException(String message) {
+        super(message);
+    }
+}
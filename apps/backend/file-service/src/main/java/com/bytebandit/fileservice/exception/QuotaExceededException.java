@@ -0,0 +1,7 @@
+package com.bytebandit.fileservice.exception;
+
+public class QuotaExceededException extends RuntimeException {
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.bytebandit.fileservice.exception;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
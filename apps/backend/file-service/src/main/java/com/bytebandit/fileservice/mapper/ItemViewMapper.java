@@ -6,13 +6,15 @@ import com.bytebandit.fileservice.projection.ItemViewProjection;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.util.ArrayList;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class ItemViewMapper {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<ChildResponse>> CHILDREN_TYPE =
+        new TypeReference<>() {};
 
     private ItemViewMapper() {
 
@@ -33,19 +35,10 @@ public class ItemViewMapper {
 
         String rawChildrenJson = projection.getOutputChildren();
         if (rawChildrenJson != null) {
-            ObjectMapper objectMapper = new ObjectMapper();
-            try {
-                List<ChildResponse> children = objectMapper.readValue(
-                    rawChildrenJson,
-                    new TypeReference<>() {}
-                );
-                response.setChildren(children);
-            } catch (JsonProcessingException e) {
-                log.info("Failed to process child response {}", e.getMessage());
-            }
+            response.setChildren(mapChildren(rawChildrenJson));
         }
 
-        log.info("Child items after mapping: {}", response.getChildren());
+        log.debug("Child items after mapping: {}", response.getChildren());
 
         response.setItemId(projection.getOutputItemId());
         response.setCreatedAt(projection.getOutputCreatedAt());
@@ -58,10 +51,27 @@ public class ItemViewMapper {
         response.setS3Url(projection.getOutputS3Url());
         response.setMimeType(projection.getOutputMimeType());
         response.setSize(projection.getOutputSize());
+        response.setFileCount(projection.getOutputFileCount());
+        response.setFolderCount(projection.getOutputFolderCount());
         response.setIsStarred(projection.getOutputIsStarred());
         response.setParentId(projection.getOutputParentId());
         response.setPermission(projection.getOutputPermission());
 
         return response;
     }
+
+    /**
+     * Maps the JSON array of children produced by the database into ChildResponse objects.
+     *
+     * @param rawChildrenJson the JSON array of children
+     * @return the mapped children, or null if the JSON could not be processed
+     */
+    public static List<ChildResponse> mapChildren(String rawChildrenJson) {
+        try {
+            return OBJECT_MAPPER.readValue(rawChildrenJson, CHILDREN_TYPE);
+        } catch (JsonProcessingException e) {
+            log.info("Failed to process child response {}", e.getMessage());
+            return null;
+        }
+    }
 }
@@ -53,6 +53,24 @@ public class FileSystemItemEntity {
     
     private Long size;
     
+    /**
+     * Total size of everything below a folder, maintained by the database.
+     */
+    @Column(insertable = false, updatable = false)
+    private Long totalSize;
+    
+    /**
+     * Number of files below a folder, maintained by the database.
+     */
+    @Column(insertable = false, updatable = false)
+    private Long fileCount;
+    
+    /**
+     * Number of folders below a folder, maintained by the database.
+     */
+    @Column(insertable = false, updatable = false)
+    private Long folderCount;
+    
     private String mimeType;
     
     @Column(nullable = false)
@@ -79,6 +97,20 @@ public class FileSystemItemEntity {
     
     private String s3Url;
     
+    /**
+     * Key of the stored object of a file, used to match storage events to the item. Once the
+     * upload completes it only changes through the database, when the object is deduplicated.
+     */
+    @Column(updatable = false)
+    private String objectKey;
+    
+    /**
+     * SHA-256 of the content of a file, referencing its blob. Set by the database when the
+     * upload completes.
+     */
+    @Column(insertable = false, updatable = false)
+    private String contentHash;
+    
     @ManyToOne(
         cascade = CascadeType.MERGE,
         fetch = FetchType.LAZY
@@ -0,0 +1,11 @@
+package com.bytebandit.fileservice.projection;
+
+import java.util.UUID;
+
+public interface ChildrenPageProjection {
+    String getOutputChildren();
+
+    String getOutputNextValue();
+
+    UUID getOutputNextId();
+}
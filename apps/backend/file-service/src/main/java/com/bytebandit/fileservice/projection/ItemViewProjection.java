@@ -34,4 +34,8 @@ public interface ItemViewProjection {
     String getOutputChildren();
 
     BigInteger getOutputSize();
+
+    Long getOutputFileCount();
+
+    Long getOutputFolderCount();
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.bytebandit.fileservice.projection;
+
+import java.sql.Timestamp;
+
+public interface PermissionProjection {
+    String getOutputPermission();
+
+    Timestamp getOutputExpiresAt();
+}
@@ -0,0 +1,135 @@
+package com.bytebandit.fileservice.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Stores the blobs holding the content of files, keyed by the SHA-256 of the content. Reference
+ * counts are kept by triggers on file_system_items.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BlobRepository {
+
+    private static final String REGISTER_QUERY = """
+        insert into blobs (content_hash, object_key, size)
+        values (?, ?, ?)
+        on conflict (content_hash) do update set updated_at = now()
+        returning object_key
+        """;
+
+    private static final String DELETE_UNREFERENCED_QUERY = """
+        delete
+        from blobs
+        where content_hash in (select content_hash
+                               from blobs
+                               where ref_count = 0
+                                 and updated_at < ?
+                               order by updated_at
+                               limit ? for update skip locked)
+          and ref_count = 0
+        returning object_key, thumbnail_key
+        """;
+
+    private static final String OBJECT_KEY_QUERY =
+        "select object_key from blobs where content_hash = ?";
+
+    private static final String THUMBNAIL_KEY_QUERY =
+        "select thumbnail_key from blobs where content_hash = ?";
+
+    private static final String SET_THUMBNAIL_KEY_QUERY =
+        "update blobs set thumbnail_key = ? where content_hash = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Registers the object holding some content, unless the content is already stored. Touching
+     * an existing blob restarts its grace period, so it is not purged while a new file is being
+     * pointed at it.
+     *
+     * @param contentHash the SHA-256 of the content
+     * @param objectKey   the key of the object holding the content
+     * @param size        the size of the content in bytes
+     *
+     * @return the key of the object of the blob, which is another object if the content was
+     *     already stored
+     */
+    public String register(String contentHash, String objectKey, long size) {
+        return jdbcTemplate.queryForObject(
+            REGISTER_QUERY,
+            String.class,
+            contentHash,
+            objectKey,
+            size
+        );
+    }
+
+    /**
+     * Deletes blobs no file has referenced since the given time.
+     *
+     * @param releasedBefore only blobs unreferenced since before this time are deleted
+     * @param limit          the maximum number of blobs to delete
+     *
+     * @return the keys of the objects of the deleted blobs and of their thumbnails
+     */
+    public List<String> deleteUnreferenced(Instant releasedBefore, int limit) {
+        List<String> keys = new ArrayList<>();
+        jdbcTemplate.query(
+            DELETE_UNREFERENCED_QUERY,
+            resultSet -> {
+                keys.add(resultSet.getString("object_key"));
+                String thumbnailKey = resultSet.getString("thumbnail_key");
+                if (thumbnailKey != null) {
+                    keys.add(thumbnailKey);
+                }
+            },
+            Timestamp.from(releasedBefore),
+            limit
+        );
+        return keys;
+    }
+
+    /**
+     * Returns the key of the object holding some content.
+     *
+     * @param contentHash the SHA-256 of the content
+     *
+     * @return the object key, empty if the content is not stored
+     */
+    public Optional<String> findObjectKey(String contentHash) {
+        return jdbcTemplate.queryForList(OBJECT_KEY_QUERY, String.class, contentHash)
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Returns the key of the thumbnail of some content.
+     *
+     * @param contentHash the SHA-256 of the content
+     *
+     * @return the thumbnail key, empty if the content has no thumbnail
+     */
+    public Optional<String> findThumbnailKey(String contentHash) {
+        return jdbcTemplate.queryForList(THUMBNAIL_KEY_QUERY, String.class, contentHash)
+            .stream()
+            .filter(Objects::nonNull)
+            .findFirst();
+    }
+
+    /**
+     * Records the thumbnail of some content.
+     *
+     * @param contentHash  the SHA-256 of the content
+     * @param thumbnailKey the key of the thumbnail object
+     */
+    public void setThumbnailKey(String contentHash, String thumbnailKey) {
+        jdbcTemplate.update(SET_THUMBNAIL_KEY_QUERY, thumbnailKey, contentHash);
+    }
+}
@@ -0,0 +1,217 @@
+package com.bytebandit.fileservice.repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based reads and writes over many items at once, backing the bulk endpoints. Every method
+ * issues a fixed number of statements whatever the number of items.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkItemRepository {
+
+    private static final String PERMISSIONS_QUERY =
+        "select output_item_id, output_permission from get_permissions(?, ?)";
+
+    private static final String PARENTS_QUERY =
+        "select id, parent_id from file_system_items where id = any(?)";
+
+    private static final String ANCESTORS_AMONG_QUERY = """
+        select ancestor_id
+        from file_system_item_closure
+        where descendant_id = ?
+          and ancestor_id = any(?)
+        """;
+
+    private static final String RENAME_QUERY =
+        "update file_system_items set name = ?, updated_at = now() where id = ?";
+
+    private static final String MOVE_QUERY =
+        "update file_system_items set parent_id = ?, updated_at = now() where id = any(?)";
+
+    private static final String SUBTREE = """
+        (select descendant_id from file_system_item_closure where ancestor_id = any(?))
+        """;
+
+    private static final List<String> DELETE_DEPENDENTS_QUERIES = List.of(
+        "delete from shared_items_private where item_id in " + SUBTREE,
+        "delete from shared_items_public where item_id in " + SUBTREE,
+        "delete from items_starred where item_id in " + SUBTREE,
+        "delete from item_views where item_id in " + SUBTREE
+    );
+
+    /**
+     * Deletes the items and returns the objects of deleted files that are outside the blob table
+     * and that no remaining file points at. All parts of the statement see the rows as they were
+     * before the delete, so the deleted files are excluded explicitly.
+     */
+    private static final String DELETE_ITEMS_QUERY = """
+        with deleted as (
+            delete from file_system_items
+            where id in %s
+            returning id, type, object_key, content_hash, chunks
+        )
+        select distinct d.object_key, d.chunks ->> 'uploadId' as upload_id
+        from deleted d
+        where d.type = 'FILE'
+          and d.content_hash is null
+          and d.object_key is not null
+          and not exists (select 1
+                          from file_system_items i
+                          where i.object_key = d.object_key
+                            and i.id not in (select id from deleted))
+          and not exists (select 1 from blobs b where b.object_key = d.object_key)
+        """.formatted(SUBTREE);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Resolves the permission of a user on every given item in a single query.
+     *
+     * @param itemIds the IDs of the items
+     * @param userId  the ID of the user
+     *
+     * @return the permissions keyed by item ID, without the items that do not exist
+     */
+    public Map<UUID, String> getPermissions(Collection<UUID> itemIds, UUID userId) {
+        Map<UUID, String> permissions = new HashMap<>();
+        jdbcTemplate.query(
+            withUuidArray(PERMISSIONS_QUERY, 1, itemIds, userId),
+            resultSet -> {
+                permissions.put(
+                    resultSet.getObject("output_item_id", UUID.class),
+                    resultSet.getString("output_permission")
+                );
+            }
+        );
+        return permissions;
+    }
+
+    /**
+     * Looks up the parents of the given items.
+     *
+     * @param itemIds the IDs of the items
+     *
+     * @return the parent of every existing item, empty for root folders
+     */
+    public Map<UUID, Optional<UUID>> getParents(Collection<UUID> itemIds) {
+        Map<UUID, Optional<UUID>> parents = new HashMap<>();
+        jdbcTemplate.query(
+            withUuidArray(PARENTS_QUERY, 1, itemIds),
+            resultSet -> {
+                parents.put(
+                    resultSet.getObject("id", UUID.class),
+                    Optional.ofNullable(resultSet.getObject("parent_id", UUID.class))
+                );
+            }
+        );
+        return parents;
+    }
+
+    /**
+     * Returns the given items that are the item itself or one of its ancestors.
+     *
+     * @param itemId       the ID of the item
+     * @param candidateIds the IDs of the candidate ancestors
+     *
+     * @return the candidates found on the ancestor chain of the item
+     */
+    public Set<UUID> findAncestorsOrSelfAmong(UUID itemId, Collection<UUID> candidateIds) {
+        return new HashSet<>(jdbcTemplate.query(
+            withUuidArray(ANCESTORS_AMONG_QUERY, 2, candidateIds, itemId),
+            (resultSet, rowNum) -> resultSet.getObject("ancestor_id", UUID.class)
+        ));
+    }
+
+    /**
+     * Renames items in one JDBC batch.
+     *
+     * @param names the new names keyed by item ID
+     */
+    public void renameAll(Map<UUID, String> names) {
+        List<Map.Entry<UUID, String>> entries = new ArrayList<>(names.entrySet());
+        jdbcTemplate.batchUpdate(RENAME_QUERY, entries, entries.size(), (statement, entry) -> {
+            statement.setString(1, entry.getValue());
+            statement.setObject(2, entry.getKey());
+        });
+    }
+
+    /**
+     * Moves items below a new parent in one statement.
+     *
+     * @param itemIds  the IDs of the items
+     * @param parentId the ID of the new parent
+     */
+    public void moveAll(Collection<UUID> itemIds, UUID parentId) {
+        jdbcTemplate.update(withUuidArray(MOVE_QUERY, 2, itemIds, parentId));
+    }
+
+    /**
+     * Deletes items together with their subtrees, and the shares, stars and views of every
+     * deleted item. Content deduplicated into blobs is released by the reference counts of the
+     * blobs, the other stored objects are returned to be deleted by the caller.
+     *
+     * @param itemIds the IDs of the subtree roots
+     *
+     * @return the objects of deleted files no other file points at, with the multipart upload
+     *     still in progress for each of them, if any
+     */
+    public List<DeletedObject> deleteSubtrees(Collection<UUID> itemIds) {
+        for (String query : DELETE_DEPENDENTS_QUERIES) {
+            jdbcTemplate.update(withUuidArray(query, 1, itemIds));
+        }
+        return jdbcTemplate.query(
+            withUuidArray(DELETE_ITEMS_QUERY, 1, itemIds),
+            (resultSet, rowNum) -> new DeletedObject(
+                resultSet.getString("object_key"),
+                resultSet.getString("upload_id")
+            )
+        );
+    }
+
+    /**
+     * Builds a statement binding the IDs as a uuid array at the given position and the other
+     * arguments, in order, at the remaining positions.
+     */
+    private PreparedStatementCreator withUuidArray(
+        String query,
+        int arrayPosition,
+        Collection<UUID> ids,
+        Object... otherArguments
+    ) {
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(query);
+            int argument = 0;
+            for (int position = 1; position <= otherArguments.length + 1; position++) {
+                if (position == arrayPosition) {
+                    statement.setArray(position, connection.createArrayOf("uuid", ids.toArray()));
+                } else {
+                    statement.setObject(position, otherArguments[argument++]);
+                }
+            }
+            return statement;
+        };
+    }
+
+    /**
+     * The stored object of a deleted file.
+     *
+     * @param objectKey the key of the object
+     * @param uploadId  the ID of the multipart upload still in progress, null once uploaded
+     */
+    public record DeletedObject(String objectKey, String uploadId) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.bytebandit.fileservice.repository;
+
+import com.bytebandit.fileservice.dto.ChildResponse;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Repository
+@RequiredArgsConstructor
+public class ChildrenStreamRepository {
+
+    private static final String CHILDREN_QUERY =
+        "select * from children_of(?, ?, ?) c order by c.name, c.item_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.view.stream-fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Streams the children of a folder to the given consumer as rows are read from the database.
+     * The query runs inside a transaction so that the driver fetches rows through a cursor, in
+     * batches of the configured fetch size, instead of loading the whole result into memory.
+     *
+     * @param parentId the ID of the folder
+     * @param userId the ID of the user viewing the folder
+     * @param parentPermission the permission of the user on the folder, resolved again if null
+     * @param consumer the consumer receiving each child in name order
+     */
+    public void streamChildren(
+        UUID parentId,
+        UUID userId,
+        String parentPermission,
+        Consumer<ChildResponse> consumer
+    ) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+            connection -> {
+                PreparedStatement statement = connection.prepareStatement(CHILDREN_QUERY);
+                statement.setFetchSize(fetchSize);
+                statement.setObject(1, parentId);
+                statement.setObject(2, userId);
+                statement.setString(3, parentPermission);
+                return statement;
+            },
+            resultSet -> consumer.accept(mapRow(resultSet))
+        ));
+    }
+
+    private ChildResponse mapRow(ResultSet resultSet) throws SQLException {
+        Long size = resultSet.getObject("size", Long.class);
+
+        ChildResponse child = new ChildResponse();
+        child.setItemId(resultSet.getObject("item_id", UUID.class));
+        child.setCreatedAt(resultSet.getTimestamp("created_at"));
+        child.setUpdatedAt(resultSet.getTimestamp("updated_at"));
+        child.setOwnerEmail(resultSet.getString("owner_email"));
+        child.setSharedByEmail(resultSet.getString("shared_by_email"));
+        child.setItemType(resultSet.getString("item_type"));
+        child.setIsItemPasswordProtected(resultSet.getBoolean("is_item_password_protected"));
+        child.setName(resultSet.getString("name"));
+        child.setS3Url(resultSet.getString("s3url"));
+        child.setMimeType(resultSet.getString("mime_type"));
+        child.setIsStarred(resultSet.getString("is_starred"));
+        child.setParentId(resultSet.getObject("parent_id", UUID.class));
+        child.setPermission(resultSet.getString("permission"));
+        child.setSize(size == null ? null : BigInteger.valueOf(size));
+        child.setThumbnailUrl(resultSet.getString("thumbnail_url"));
+        return child;
+    }
+}
@@ -1,14 +1,19 @@
 package com.bytebandit.fileservice.repository;
 
 import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.projection.ChildrenPageProjection;
 import com.bytebandit.fileservice.projection.ItemViewProjection;
+import com.bytebandit.fileservice.projection.PermissionProjection;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface FileSystemItemRepository extends JpaRepository<FileSystemItemEntity, UUID> {
@@ -33,6 +38,55 @@ public interface FileSystemItemRepository extends JpaRepository<FileSystemItemEn
         @Param("input_user_id") UUID inputUserId
     );
     
+    /**
+     * Get the permission of a file system item together with the earliest expiry of the public
+     * shares found on its ancestor chain, after which the permission may change on its own.
+     *
+     * @param inputItemId the ID of the item
+     * @param inputUserId the ID of the user
+     *
+     * @return the permission and the earliest public share expiry, if any
+     */
+    @Query(
+        value = "select get_permission_recursive("
+            + "CAST(:input_item_id AS UUID), "
+            + "CAST(:input_user_id AS UUID)"
+            + ") as output_permission, "
+            + "(select min(pub.expires_at) "
+            + "from file_system_item_closure c "
+            + "join shared_items_public pub on pub.item_id = c.ancestor_id "
+            + "where c.descendant_id = CAST(:input_item_id AS UUID) "
+            + "and pub.expires_at > now()) as output_expires_at",
+        nativeQuery = true
+    )
+    PermissionProjection getPermissionWithExpiry(
+        @Param("input_item_id") UUID inputItemId,
+        @Param("input_user_id") UUID inputUserId
+    );
+    
+    /**
+     * Find the items in the subtree of an item, including the item itself, ordered by ID and
+     * starting after the given ID, so that a large subtree can be read in pages.
+     *
+     * @param ancestorId the ID of the subtree root
+     * @param after only items with a greater ID are returned
+     * @param limit the maximum number of items to return
+     *
+     * @return the IDs of the items in the subtree
+     */
+    @Query(
+        value = "select descendant_id from file_system_item_closure "
+            + "where ancestor_id = :ancestor_id and descendant_id > :after "
+            + "order by descendant_id "
+            + "limit :limit",
+        nativeQuery = true
+    )
+    List<UUID> findDescendantsAfter(
+        @Param("ancestor_id") UUID ancestorId,
+        @Param("after") UUID after,
+        @Param("limit") int limit
+    );
+    
     /**
      * Get the permission of a file system item.
      */
@@ -40,33 +94,166 @@ public interface FileSystemItemRepository extends JpaRepository<FileSystemItemEn
         value = "select * from item_view("
             + ":input_item_id, "
             + ":input_user_id, "
-            + ":input_user_permission"
+            + ":input_user_permission, "
+            + ":input_include_children"
             + ")",
         nativeQuery = true
     )
     ItemViewProjection viewItems(
         @Param("input_item_id") UUID itemId,
         @Param("input_user_id") UUID userId,
-        @Param("input_user_permission") String permission
+        @Param("input_user_permission") String permission,
+        @Param("input_include_children") boolean includeChildren
+    );
+    
+    /**
+     * Get one page of the children of a folder, ordered by the given sort key and the item id.
+     *
+     * @param parentId the ID of the folder
+     * @param userId the ID of the user
+     * @param sortKey the column to sort by
+     * @param descending whether to sort in descending order
+     * @param afterValue the sort value of the last child of the previous page, if any
+     * @param afterId the ID of the last child of the previous page, if any
+     * @param pageSize the maximum number of children to return
+     * @param parentPermission the permission of the user on the folder, resolved again if null
+     *
+     * @return the page of children and the position of its last child
+     */
+    @Query(
+        value = "select * from get_children_page("
+            + ":input_parent_id, "
+            + ":input_user_id, "
+            + ":input_sort_key, "
+            + ":input_descending, "
+            + "CAST(:input_after_value AS TEXT), "
+            + "CAST(:input_after_id AS UUID), "
+            + ":input_page_size, "
+            + "CAST(:input_parent_permission AS TEXT)"
+            + ")",
+        nativeQuery = true
+    )
+    ChildrenPageProjection childrenPage(
+        @Param("input_parent_id") UUID parentId,
+        @Param("input_user_id") UUID userId,
+        @Param("input_sort_key") String sortKey,
+        @Param("input_descending") boolean descending,
+        @Param("input_after_value") String afterValue,
+        @Param("input_after_id") UUID afterId,
+        @Param("input_page_size") int pageSize,
+        @Param("input_parent_permission") String parentPermission
     );
     
     boolean existsByOwnerAndParentIsNull(UUID userId);
     
+    /**
+     * Check whether an item is the same as, or an ancestor of, another item.
+     *
+     * @param ancestorId the ID of the possible ancestor
+     * @param descendantId the ID of the possible descendant
+     *
+     * @return true if the first item contains the second one in its subtree
+     */
+    @Query(
+        value = "select exists("
+            + "select 1 from file_system_item_closure "
+            + "where ancestor_id = :ancestor_id and descendant_id = :descendant_id"
+            + ")",
+        nativeQuery = true
+    )
+    boolean isAncestorOrSelf(
+        @Param("ancestor_id") UUID ancestorId,
+        @Param("descendant_id") UUID descendantId
+    );
+    
+    /**
+     * Merge uploaded parts into the multipart upload recorded in the chunks of an item. The merge
+     * happens in the database so that parts recorded concurrently are all kept.
+     *
+     * @param itemId the ID of the item
+     * @param parts a JSON object mapping part numbers to their ETags
+     *
+     * @return the number of updated rows, zero if the item has no multipart upload in progress
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(
+        value = "update file_system_items "
+            + "set chunks = jsonb_set("
+            + "chunks, '{parts}', "
+            + "coalesce(chunks -> 'parts', cast('{}' as jsonb)) || cast(:parts as jsonb)"
+            + "), "
+            + "updated_at = now() "
+            + "where id = :item_id and chunks -> 'uploadId' is not null",
+        nativeQuery = true
+    )
+    int recordUploadedParts(
+        @Param("item_id") UUID itemId,
+        @Param("parts") String parts
+    );
+    
+    /**
+     * Check whether any file is stored in an object.
+     *
+     * @param objectKey the key of the object
+     *
+     * @return true if a file references the object
+     */
+    boolean existsByObjectKey(String objectKey);
+    
+    /**
+     * Mark the files stored in an object as uploaded, with the size and MIME type of the object,
+     * and point them at the blob holding their content. When the content was already stored in
+     * another object, the files move to that object. Applying the same values again leaves the
+     * files unchanged, so repeated events are harmless.
+     *
+     * @param objectKey the key of the uploaded object
+     * @param storedKey the key of the object of the blob, which differs when deduplicated
+     * @param contentHash the SHA-256 of the content
+     * @param size the size of the object in bytes
+     * @param mimeType the content type of the object, or null to keep the recorded one
+     *
+     * @return the number of updated files, zero if no file is stored in the object yet
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(
+        value = "update file_system_items "
+            + "set status = 'UPLOADED', "
+            + "size = :size, "
+            + "mime_type = coalesce(cast(:mime_type as text), mime_type), "
+            + "object_key = :stored_key, "
+            + "s3url = case when object_key = :stored_key then s3url else :stored_key end, "
+            + "content_hash = :content_hash, "
+            + "updated_at = now() "
+            + "where object_key = :object_key and type = 'FILE'",
+        nativeQuery = true
+    )
+    int markUploaded(
+        @Param("object_key") String objectKey,
+        @Param("stored_key") String storedKey,
+        @Param("content_hash") String contentHash,
+        @Param("size") long size,
+        @Param("mime_type") String mimeType
+    );
+    
     /**
      * Get all items of a user.
      *
      * @param userId the ID of the user
+     * @param includeChildren whether the children should be embedded in the result
      *
      * @return the list of items
      */
     @Query(
         value = "select * from user_items("
-            + ":input_user_id"
+            + ":input_user_id, "
+            + ":input_include_children"
             + ")",
         nativeQuery = true
     )
     ItemViewProjection userItems(
-        @Param("input_user_id") UUID userId
+        @Param("input_user_id") UUID userId,
+        @Param("input_include_children") boolean includeChildren
     );
     
     /**
@@ -83,6 +270,28 @@ public interface FileSystemItemRepository extends JpaRepository<FileSystemItemEn
         nativeQuery = true
     )
     List<ItemViewProjection> sharedWithUser(@Param("input_user_id") UUID uuid);
+
+    /**
+     * Get the files whose multipart upload was started before the given time and is still in
+     * progress, oldest first.
+     *
+     * @param startedBefore only uploads started before this time are returned
+     * @param limit the maximum number of files to return
+     *
+     * @return the list of files
+     */
+    @Query(
+        value = "select * from file_system_items "
+            + "where chunks -> 'uploadId' is not null "
+            + "and created_at < :started_before "
+            + "order by created_at "
+            + "limit :limit",
+        nativeQuery = true
+    )
+    List<FileSystemItemEntity> findUploadsStartedBefore(
+        @Param("started_before") Timestamp startedBefore,
+        @Param("limit") int limit
+    );
     
     
     Optional<FileSystemItemEntity> findByOwnerAndParent(UUID owner, FileSystemItemEntity parent);
@@ -0,0 +1,46 @@
+package com.bytebandit.fileservice.repository;
+
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads the storage used by each user. The usage is kept by triggers on file_system_items,
+ * spread over a few striped rows per user.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StorageUsageRepository {
+
+    private static final String USED_BYTES_QUERY =
+        "select coalesce(sum(used_bytes), 0) from user_storage_usage where user_id = ?";
+
+    private static final String LOCK_QUERY =
+        "select pg_advisory_xact_lock(hashtextextended(?, 0))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns the number of bytes used by the files a user owns.
+     *
+     * @param userId the ID of the user
+     *
+     * @return the used bytes, zero for users without files
+     */
+    public long getUsedBytes(UUID userId) {
+        Long usedBytes = jdbcTemplate.queryForObject(USED_BYTES_QUERY, Long.class, userId);
+        return usedBytes == null ? 0 : usedBytes;
+    }
+
+    /**
+     * Locks the usage of a user until the current transaction ends, so that the quota checks of
+     * the user run one at a time. The stripe rows are left alone, so uploads recording their size
+     * are not held up.
+     *
+     * @param userId the ID of the user
+     */
+    public void lock(UUID userId) {
+        jdbcTemplate.queryForList(LOCK_QUERY, userId.toString());
+    }
+}
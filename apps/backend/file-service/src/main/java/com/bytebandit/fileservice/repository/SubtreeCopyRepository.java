@@ -0,0 +1,316 @@
+package com.bytebandit.fileservice.repository;
+
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Repository
+@RequiredArgsConstructor
+public class SubtreeCopyRepository {
+
+    private static final String COUNT_SUBTREE_QUERY =
+        "select count(*) from file_system_item_closure where ancestor_id = ?";
+
+    private static final String SUBTREE_SIZE_QUERY =
+        "select coalesce(size, 0) + total_size from file_system_items where id = ?";
+
+    private static final String COLUMNS = """
+        id, parent_id, name, size, mime_type, status, type, chunks::text as chunks, s3url,
+        object_key, content_hash, total_size, file_count, folder_count
+        """;
+
+    /**
+     * Uploads still in progress are left out, since their multipart upload belongs to the owner
+     * of the original.
+     */
+    private static final String CHILDREN_QUERY = "select " + COLUMNS + " from file_system_items "
+        + "where parent_id = any(?) and chunks -> 'uploadId' is null";
+
+    private static final String ITEM_QUERY =
+        "select " + COLUMNS + " from file_system_items where id = ?";
+
+    private static final String INSERT_QUERY = """
+        insert into file_system_items (id, parent_id, name, size, mime_type, owner, status, type,
+                                       chunks, s3url, object_key, content_hash, total_size,
+                                       file_count, folder_count, created_at, updated_at)
+        values (?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?, ?, ?, ?, now(), now())
+        """;
+
+    private static final String DEFER_ROLLUPS = "set local app.defer_rollups = 'on'";
+
+    private static final String DELETE_SUBTREE_QUERY = """
+        delete
+        from file_system_items
+        where id in (select descendant_id from file_system_item_closure where ancestor_id = ?)
+        """;
+
+    /**
+     * Locks a subtree together with the ancestors of its root, in ID order like the rollup
+     * triggers, so no trigger changes the rollups while they are recomputed.
+     */
+    private static final String LOCK_ROLLUPS_QUERY = """
+        select 1
+        from file_system_items
+        where id in (select descendant_id from file_system_item_closure where ancestor_id = ?
+                     union
+                     select ancestor_id from file_system_item_closure where descendant_id = ?)
+        order by id
+            for update
+        """;
+
+    /**
+     * Adds the difference between the rollups of a subtree root and the items actually below it
+     * to the root and every ancestor of the root.
+     */
+    private static final String RECONCILE_ROOT_QUERY = """
+        select apply_rollup_delta(
+                   i.id,
+                   actual.total_size - i.total_size,
+                   actual.file_count - i.file_count,
+                   actual.folder_count - i.folder_count
+               )
+        from file_system_items i,
+             lateral (select coalesce(sum(d.size), 0)                  as total_size,
+                             count(*) filter (where d.type = 'FILE')   as file_count,
+                             count(*) filter (where d.type = 'FOLDER') as folder_count
+                      from file_system_item_closure c
+                               join file_system_items d on d.id = c.descendant_id
+                      where c.ancestor_id = i.id
+                        and c.depth > 0) actual
+        where i.id = ?
+        """;
+
+    private static final String RECONCILE_DESCENDANTS_QUERY = """
+        update file_system_items i
+        set total_size   = actual.total_size,
+            file_count   = actual.file_count,
+            folder_count = actual.folder_count
+        from (select c.ancestor_id,
+                     coalesce(sum(d.size) filter (where c.depth > 0), 0)        as total_size,
+                     count(*) filter (where c.depth > 0 and d.type = 'FILE')   as file_count,
+                     count(*) filter (where c.depth > 0 and d.type = 'FOLDER') as folder_count
+              from file_system_item_closure c
+                       join file_system_items d on d.id = c.descendant_id
+              where c.ancestor_id in (select descendant_id
+                                      from file_system_item_closure
+                                      where ancestor_id = ?
+                                        and depth > 0)
+              group by c.ancestor_id) actual
+        where i.id = actual.ancestor_id
+          and (i.total_size, i.file_count, i.folder_count)
+            is distinct from (actual.total_size, actual.file_count, actual.folder_count)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.copy.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Counts the items in the subtree of an item, the item itself included.
+     *
+     * @param rootId the ID of the subtree root
+     *
+     * @return the number of items in the subtree
+     */
+    public long countSubtree(UUID rootId) {
+        Long count = jdbcTemplate.queryForObject(COUNT_SUBTREE_QUERY, Long.class, rootId);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Returns the size of the files in the subtree of an item, the item itself included.
+     *
+     * @param rootId the ID of the subtree root
+     *
+     * @return the size of the subtree in bytes, zero if the item does not exist
+     */
+    public long subtreeSize(UUID rootId) {
+        return jdbcTemplate.queryForList(SUBTREE_SIZE_QUERY, Long.class, rootId)
+            .stream()
+            .findFirst()
+            .orElse(0L);
+    }
+
+    /**
+     * Inserts a copy of a single item below the given parent. The copy carries the rollups of
+     * the original, which are added to every ancestor of the new parent, so the whole subtree is
+     * accounted for before its other items are copied. Since the original can change during the
+     * copy and uploads in progress are not copied, {@link #reconcileRollups(UUID)} corrects them
+     * once the subtree is in place. Copied files reference the stored object
+     * of their original, so no content is copied.
+     *
+     * @param itemId   the ID of the item to copy
+     * @param copyId   the ID of the copy
+     * @param parentId the ID of the parent of the copy
+     * @param ownerId  the ID of the user owning the copy
+     *
+     * @return the type of the copied item
+     */
+    public FileSystemItemType copyItem(UUID itemId, UUID copyId, UUID parentId, UUID ownerId) {
+        ItemRow item = jdbcTemplate.queryForObject(ITEM_QUERY, this::mapRow, itemId);
+        transactionTemplate.executeWithoutResult(status ->
+            insert(List.of(item.copy(copyId, parentId)), ownerId)
+        );
+        return FileSystemItemType.valueOf(item.type());
+    }
+
+    /**
+     * Copies every child of the given folders below the matching copies, except uploads still in
+     * progress. Children are read through a cursor and inserted in JDBC batches with IDs generated
+     * up front, all inside one transaction, so the parent of every row inserted is already
+     * present. Each copy carries the rollups of its original, which the copy of the subtree root
+     * already accounted for, so the rollup triggers are skipped until
+     * {@link #reconcileRollups(UUID)} recomputes them.
+     *
+     * @param copies         the IDs of the copies keyed by the IDs of the folders they copy
+     * @param ownerId        the ID of the user owning the copies
+     * @param folderConsumer receives the ID of every copied folder and the ID of its copy
+     * @param progress       receives the number of items inserted by each batch
+     */
+    public void copyChildren(
+        Map<UUID, UUID> copies,
+        UUID ownerId,
+        BiConsumer<UUID, UUID> folderConsumer,
+        LongConsumer progress
+    ) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(DEFER_ROLLUPS);
+            List<ItemRow> batch = new ArrayList<>(batchSize);
+            jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(CHILDREN_QUERY);
+                    statement.setFetchSize(batchSize);
+                    Array parentIds = connection.createArrayOf("uuid", copies.keySet().toArray());
+                    statement.setArray(1, parentIds);
+                    return statement;
+                },
+                resultSet -> {
+                    ItemRow child = mapRow(resultSet, 0);
+                    UUID copyId = UUID.randomUUID();
+                    batch.add(child.copy(copyId, copies.get(child.parentId())));
+                    if (FileSystemItemType.FOLDER.name().equals(child.type())) {
+                        folderConsumer.accept(child.id(), copyId);
+                    }
+                    if (batch.size() == batchSize) {
+                        insert(batch, ownerId);
+                        progress.accept(batch.size());
+                        batch.clear();
+                    }
+                }
+            );
+            if (!batch.isEmpty()) {
+                insert(batch, ownerId);
+                progress.accept(batch.size());
+            }
+        });
+    }
+
+    /**
+     * Recomputes the rollups of a copied subtree from the items actually copied, in one
+     * transaction. Folders inside the subtree get the totals of the items below them, and the
+     * difference for the root is applied to the root and its ancestors, which were credited with
+     * the rollups of the original when the root was copied.
+     *
+     * @param rootId the ID of the copy of the subtree root
+     */
+    public void reconcileRollups(UUID rootId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList(LOCK_ROLLUPS_QUERY, rootId, rootId);
+            jdbcTemplate.queryForList(RECONCILE_ROOT_QUERY, rootId);
+            jdbcTemplate.update(RECONCILE_DESCENDANTS_QUERY, rootId);
+        });
+    }
+
+    /**
+     * Deletes an item and its whole subtree in a single statement.
+     *
+     * @param rootId the ID of the subtree root
+     */
+    public void deleteSubtree(UUID rootId) {
+        jdbcTemplate.update(DELETE_SUBTREE_QUERY, rootId);
+    }
+
+    private void insert(List<ItemRow> rows, UUID ownerId) {
+        jdbcTemplate.batchUpdate(INSERT_QUERY, rows, rows.size(), (statement, row) -> {
+            statement.setObject(1, row.id());
+            statement.setObject(2, row.parentId());
+            statement.setString(3, row.name());
+            if (row.size() == null) {
+                statement.setNull(4, Types.BIGINT);
+            } else {
+                statement.setLong(4, row.size());
+            }
+            statement.setString(5, row.mimeType());
+            statement.setObject(6, ownerId);
+            statement.setString(7, row.status());
+            statement.setString(8, row.type());
+            statement.setString(9, row.chunks());
+            statement.setString(10, row.s3Url());
+            statement.setString(11, row.objectKey());
+            statement.setString(12, row.contentHash());
+            statement.setLong(13, row.totalSize());
+            statement.setLong(14, row.fileCount());
+            statement.setLong(15, row.folderCount());
+        });
+    }
+
+    private ItemRow mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return new ItemRow(
+            resultSet.getObject("id", UUID.class),
+            resultSet.getObject("parent_id", UUID.class),
+            resultSet.getString("name"),
+            resultSet.getObject("size", Long.class),
+            resultSet.getString("mime_type"),
+            resultSet.getString("status"),
+            resultSet.getString("type"),
+            resultSet.getString("chunks"),
+            resultSet.getString("s3url"),
+            resultSet.getString("object_key"),
+            resultSet.getString("content_hash"),
+            resultSet.getLong("total_size"),
+            resultSet.getLong("file_count"),
+            resultSet.getLong("folder_count")
+        );
+    }
+
+    private record ItemRow(
+        UUID id,
+        UUID parentId,
+        String name,
+        Long size,
+        String mimeType,
+        String status,
+        String type,
+        String chunks,
+        String s3Url,
+        String objectKey,
+        String contentHash,
+        long totalSize,
+        long fileCount,
+        long folderCount
+    ) {
+
+        ItemRow copy(UUID copyId, UUID copyParentId) {
+            return new ItemRow(
+                copyId, copyParentId, name, size, mimeType, status, type, chunks, s3Url,
+                objectKey, contentHash, totalSize, fileCount, folderCount
+            );
+        }
+    }
+}
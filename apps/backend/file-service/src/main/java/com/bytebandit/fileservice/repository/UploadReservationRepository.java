@@ -0,0 +1,118 @@
+package com.bytebandit.fileservice.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Stores the objects reserved for upload through presigned URLs, with the user and size they were
+ * presigned for.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UploadReservationRepository {
+
+    private static final String INSERT_QUERY =
+        "insert into upload_reservations (object_key, user_id, size, expires_at) "
+            + "values (?, ?, ?, ?)";
+
+    private static final String CONSUME_QUERY = """
+        delete
+        from upload_reservations
+        where object_key = ?
+          and user_id = ?
+          and expires_at > now()
+        returning size
+        """;
+
+    private static final String RELEASE_QUERY =
+        "delete from upload_reservations where object_key = ?";
+
+    private static final String RESERVED_BYTES_QUERY = """
+        select coalesce(sum(size), 0)
+        from upload_reservations
+        where user_id = ?
+          and expires_at > now()
+        """;
+
+    private static final String DELETE_EXPIRED_QUERY = """
+        delete
+        from upload_reservations
+        where object_key in (select object_key
+                             from upload_reservations
+                             where expires_at < ?
+                             limit ? for update skip locked)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reserves objects for a user.
+     *
+     * @param userId    the ID of the user
+     * @param sizes     the sizes the objects are presigned for, by object key
+     * @param expiresAt the time the reservations expire
+     */
+    public void reserve(UUID userId, Map<String, Long> sizes, Instant expiresAt) {
+        Timestamp expiry = Timestamp.from(expiresAt);
+        List<Object[]> rows = sizes.entrySet().stream()
+            .map(entry -> new Object[] {entry.getKey(), userId, entry.getValue(), expiry})
+            .toList();
+        jdbcTemplate.batchUpdate(INSERT_QUERY, rows);
+    }
+
+    /**
+     * Ends the reservation of an object, provided it was reserved for the user and has not
+     * expired.
+     *
+     * @param objectKey the key of the object
+     * @param userId    the ID of the user
+     *
+     * @return the size the object was presigned for, empty if it is not reserved for the user
+     */
+    public Optional<Long> consume(String objectKey, UUID userId) {
+        return jdbcTemplate.queryForList(CONSUME_QUERY, Long.class, objectKey, userId)
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Ends the reservation of an object, whoever it was reserved for.
+     *
+     * @param objectKey the key of the object
+     */
+    public void release(String objectKey) {
+        jdbcTemplate.update(RELEASE_QUERY, objectKey);
+    }
+
+    /**
+     * Returns the number of bytes reserved by the presigned uploads of a user that are not
+     * expired yet.
+     *
+     * @param userId the ID of the user
+     *
+     * @return the reserved bytes
+     */
+    public long getReservedBytes(UUID userId) {
+        Long reservedBytes = jdbcTemplate.queryForObject(RESERVED_BYTES_QUERY, Long.class, userId);
+        return reservedBytes == null ? 0 : reservedBytes;
+    }
+
+    /**
+     * Deletes reservations that expired before the given time.
+     *
+     * @param expiredBefore only reservations expired before this time are deleted
+     * @param limit         the maximum number of reservations to delete
+     *
+     * @return the number of deleted reservations
+     */
+    public int deleteExpired(Instant expiredBefore, int limit) {
+        return jdbcTemplate.update(DELETE_EXPIRED_QUERY, Timestamp.from(expiredBefore), limit);
+    }
+}
@@ -0,0 +1,129 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.dto.FileNameRequest;
+import com.bytebandit.fileservice.dto.PresignedUploadResponse;
+import com.bytebandit.fileservice.exception.InvalidFileNameException;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Presigns the uploads of many files in one call. The objects are reserved for the user in one
+ * batch, provided the total size of the batch fits in the quota, and the URLs are signed in
+ * slices on a bounded pool shared by all requests. When the pool and its queue are full, the
+ * request thread signs the slice itself.
+ */
+@Service
+public class BatchUploadPresignService {
+
+    private final S3FileService s3FileService;
+    private final UploadReservationService uploadReservationService;
+    private final ExecutorService signingExecutor;
+    private final int parallelism;
+
+    /**
+     * Constructor for BatchUploadPresignService.
+     *
+     * @param s3FileService            S3FileService
+     * @param uploadReservationService UploadReservationService
+     * @param parallelism              number of threads signing URLs across all requests
+     * @param queueCapacity            number of slices waiting for a signing thread
+     */
+    public BatchUploadPresignService(
+        S3FileService s3FileService,
+        UploadReservationService uploadReservationService,
+        @Value("${app.upload.presign.parallelism:4}") int parallelism,
+        @Value("${app.upload.presign.queue-capacity:64}") int queueCapacity
+    ) {
+        this.s3FileService = s3FileService;
+        this.uploadReservationService = uploadReservationService;
+        this.parallelism = parallelism;
+        this.signingExecutor = new ThreadPoolExecutor(
+            parallelism, parallelism,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("upload-presign-"),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    @PreDestroy
+    void shutdown() {
+        signingExecutor.shutdownNow();
+    }
+
+    /**
+     * Presigns an upload URL for each file, provided the files fit in the remaining storage quota
+     * of the user together.
+     *
+     * @param files  the names and sizes of the files
+     * @param userId the ID of the user uploading the files
+     *
+     * @return a URL for each file, in request order
+     */
+    public List<PresignedUploadResponse> presignUploads(List<FileNameRequest> files, UUID userId) {
+        for (FileNameRequest file : files) {
+            if (file.getFileName() == null || file.getFileName().trim().isEmpty()) {
+                throw new InvalidFileNameException("File name cannot be empty");
+            }
+        }
+
+        List<String> keys = new ArrayList<>(files.size());
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        for (FileNameRequest file : files) {
+            String key = S3FileService.objectKey(file.getFileName());
+            keys.add(key);
+            sizes.put(key, file.getSize());
+        }
+        uploadReservationService.reserve(userId, sizes);
+
+        int sliceSize = (files.size() + parallelism - 1) / parallelism;
+        List<CompletableFuture<List<PresignedUploadResponse>>> slices = new ArrayList<>();
+        for (int start = 0; start < files.size(); start += sliceSize) {
+            int end = Math.min(start + sliceSize, files.size());
+            List<FileNameRequest> slice = files.subList(start, end);
+            List<String> sliceKeys = keys.subList(start, end);
+            slices.add(CompletableFuture.supplyAsync(
+                () -> presign(slice, sliceKeys),
+                signingExecutor
+            ));
+        }
+
+        List<PresignedUploadResponse> urls = new ArrayList<>(files.size());
+        try {
+            for (CompletableFuture<List<PresignedUploadResponse>> slice : slices) {
+                urls.addAll(slice.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return urls;
+    }
+
+    private List<PresignedUploadResponse> presign(List<FileNameRequest> files, List<String> keys) {
+        List<PresignedUploadResponse> urls = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            FileNameRequest file = files.get(i);
+            urls.add(PresignedUploadResponse.builder()
+                .fileName(file.getFileName())
+                .url(s3FileService.presignUpload(keys.get(i), file.getSize()))
+                .build());
+        }
+        return urls;
+    }
+}
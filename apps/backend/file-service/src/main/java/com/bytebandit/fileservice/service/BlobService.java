@@ -0,0 +1,313 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.repository.BlobRepository;
+import com.bytebandit.fileservice.repository.BulkItemRepository.DeletedObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+
+/**
+ * Deduplicates stored content. Uploaded objects are hashed and their content is copied to an
+ * object of the service keyed by the hash, files with the same content share that object, and
+ * objects no file references any longer are deleted once their grace period is over.
+ * Blobs never live at the key of an upload, since whoever holds the presigned URL of the upload
+ * can overwrite it until the URL expires, changing the content of every file sharing the blob.
+ * Objects of deleted files that never made it into a blob are deleted directly.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BlobService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String BLOB_PREFIX = "blobs/";
+
+    /**
+     * The largest object S3 copies with a single request.
+     */
+    private static final long MAX_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+
+    private static final long COPY_PART_SIZE = 512L * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final BlobRepository blobRepository;
+
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    @Value("${app.blobs.purge-grace:PT1H}")
+    private Duration purgeGrace;
+
+    @Value("${app.blobs.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    /**
+     * Returns the hex encoded SHA-256 of the content of an object. The checksum S3 keeps for the
+     * object is used when the upload provided one, otherwise the object is read and hashed.
+     * Multipart uploads only have a checksum of their part checksums, so they are always read,
+     * and only while the object is still the version described by the metadata.
+     *
+     * @param bucket the bucket of the object
+     * @param key    the key of the object
+     * @param object the metadata of the object
+     *
+     * @return the content hash
+     */
+    public String contentHash(String bucket, String key, HeadObjectResponse object) {
+        String checksum = object.checksumSHA256();
+        if (checksum != null && !checksum.contains("-")) {
+            return HexFormat.of().formatHex(Base64.getDecoder().decode(checksum));
+        }
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream content = s3Client.getObject(request -> request
+            .bucket(bucket)
+            .key(key)
+            .ifMatch(object.eTag())
+        )) {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read object " + key, e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Stores the content of an uploaded object as a blob, unless the content is already stored.
+     * The object is copied to the key of the blob only if it is still the version that was
+     * hashed, so an upload overwritten meanwhile fails and is handled again from its new
+     * version. Registering the same content twice copies the same bytes to the same key.
+     *
+     * @param bucket      the bucket of the uploaded object
+     * @param key         the key of the uploaded object
+     * @param contentHash the SHA-256 of the content
+     * @param object      the metadata of the uploaded object
+     *
+     * @return the key of the object files with this content should point at
+     */
+    public String store(
+        String bucket,
+        String key,
+        String contentHash,
+        HeadObjectResponse object
+    ) {
+        String blobKey = blobKey(contentHash);
+        if (blobRepository.findObjectKey(contentHash).isEmpty()) {
+            copy(bucket, key, object, blobKey);
+        }
+        return blobRepository.register(contentHash, blobKey, object.contentLength());
+    }
+
+    /**
+     * Registers an object of the service as the blob of its content, unless the content is
+     * already stored.
+     *
+     * @param contentHash the SHA-256 of the content
+     * @param objectKey   the key of the object holding the content
+     * @param size        the size of the content in bytes
+     *
+     * @return the key of the object files with this content should point at
+     */
+    public String register(String contentHash, String objectKey, long size) {
+        return blobRepository.register(contentHash, objectKey, size);
+    }
+
+    /**
+     * Deletes an uploaded object once its content is stored in the object of its blob. A failure
+     * only leaves the upload behind, so it is logged rather than retried.
+     *
+     * @param bucket the bucket of the object
+     * @param key    the key of the uploaded object
+     */
+    public void deleteUpload(String bucket, String key) {
+        try {
+            s3Client.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            log.warn("Failed to delete uploaded object {}", key, e);
+        }
+    }
+
+    /**
+     * Deletes the objects of deleted files that are outside the blob table once the deleting
+     * transaction commits, aborting the multipart uploads still in progress for them. A failure
+     * only leaves the object or its parts behind, so it is logged rather than retried.
+     *
+     * @param objects the objects of the deleted files
+     */
+    public void deleteObjects(List<DeletedObject> objects) {
+        if (objects.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        deleteNow(objects);
+                    }
+                }
+            );
+        } else {
+            deleteNow(objects);
+        }
+    }
+
+    /**
+     * Returns the key of the object holding some content.
+     *
+     * @param contentHash the SHA-256 of the content
+     *
+     * @return the key of the blob object
+     */
+    public static String blobKey(String contentHash) {
+        return BLOB_PREFIX + contentHash;
+    }
+
+    /**
+     * Tells whether an object is the object of a blob, rather than an upload.
+     *
+     * @param objectKey the key of the object
+     *
+     * @return whether the key is the key of a blob
+     */
+    public static boolean isBlobKey(String objectKey) {
+        return objectKey.startsWith(BLOB_PREFIX);
+    }
+
+    /**
+     * Deletes the blobs no file has referenced for the grace period, together with their objects
+     * and thumbnails.
+     * The grace period covers uploads whose file is not recorded yet and files being pointed at
+     * an existing blob.
+     */
+    @Scheduled(fixedDelayString = "${app.blobs.purge-interval:PT10M}")
+    public void purgeUnreferenced() {
+        List<String> keys;
+        do {
+            keys = blobRepository.deleteUnreferenced(
+                Instant.now().minus(purgeGrace),
+                purgeBatchSize
+            );
+            for (String key : keys) {
+                try {
+                    s3Client.deleteObject(request -> request.bucket(bucketName).key(key));
+                } catch (SdkException e) {
+                    log.warn("Failed to delete unreferenced object {}", key, e);
+                }
+            }
+        } while (keys.size() >= purgeBatchSize);
+    }
+
+    private void deleteNow(List<DeletedObject> objects) {
+        for (DeletedObject object : objects) {
+            try {
+                if (object.uploadId() != null) {
+                    abortUpload(object);
+                }
+                s3Client.deleteObject(request -> request
+                    .bucket(bucketName)
+                    .key(object.objectKey())
+                );
+            } catch (SdkException e) {
+                log.warn("Failed to delete the object {} of a deleted file", object.objectKey(), e);
+            }
+        }
+    }
+
+    private void abortUpload(DeletedObject object) {
+        try {
+            s3Client.abortMultipartUpload(request -> request
+                .bucket(bucketName)
+                .key(object.objectKey())
+                .uploadId(object.uploadId())
+            );
+        } catch (NoSuchUploadException e) {
+            log.debug("Upload of object {} is already gone", object.objectKey());
+        }
+    }
+
+    /**
+     * Copies an object within S3. Objects above the single request limit are copied in parts.
+     */
+    private void copy(String bucket, String key, HeadObjectResponse object, String blobKey) {
+        if (object.contentLength() <= MAX_COPY_SIZE) {
+            s3Client.copyObject(request -> request
+                .sourceBucket(bucket)
+                .sourceKey(key)
+                .copySourceIfMatch(object.eTag())
+                .destinationBucket(bucketName)
+                .destinationKey(blobKey)
+            );
+            return;
+        }
+        String uploadId = s3Client.createMultipartUpload(request -> request
+            .bucket(bucketName)
+            .key(blobKey)
+            .contentType(object.contentType())
+        ).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            for (long offset = 0; offset < object.contentLength(); offset += COPY_PART_SIZE) {
+                int partNumber = parts.size() + 1;
+                String range = "bytes=" + offset + "-"
+                    + (Math.min(offset + COPY_PART_SIZE, object.contentLength()) - 1);
+                String etag = s3Client.uploadPartCopy(request -> request
+                    .sourceBucket(bucket)
+                    .sourceKey(key)
+                    .copySourceIfMatch(object.eTag())
+                    .copySourceRange(range)
+                    .destinationBucket(bucketName)
+                    .destinationKey(blobKey)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                ).copyPartResult().eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+            }
+            s3Client.completeMultipartUpload(request -> request
+                .bucket(bucketName)
+                .key(blobKey)
+                .uploadId(uploadId)
+                .multipartUpload(upload -> upload.parts(parts))
+            );
+        } catch (SdkException e) {
+            s3Client.abortMultipartUpload(request -> request
+                .bucket(bucketName)
+                .key(blobKey)
+                .uploadId(uploadId)
+            );
+            throw e;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.dto.BulkDeleteRequest;
+import com.bytebandit.fileservice.dto.BulkItemResult;
+import com.bytebandit.fileservice.dto.BulkMoveRequest;
+import com.bytebandit.fileservice.dto.BulkRenameRequest;
+import com.bytebandit.fileservice.dto.UpdateItemRequest;
+import com.bytebandit.fileservice.enums.BulkItemStatus;
+import com.bytebandit.fileservice.repository.BulkItemRepository;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Renames, moves and deletes many items per request. Permissions for the whole set are resolved
+ * with one query, every change is applied with batched or set-based statements in a single
+ * transaction, and each item gets its own result so that one forbidden item does not fail the
+ * others.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkUpdateItemService {
+
+    private final BulkItemRepository bulkItemRepository;
+    private final BlobService blobService;
+    private final PermissionResolutionContext permissionResolutionContext;
+    private final PermissionCache permissionCache;
+
+    /**
+     * Renames the given items.
+     *
+     * @param request the items and their new names
+     * @param userId the ID of the user making the request
+     * @return the result for each item, in request order
+     */
+    @Transactional
+    public List<BulkItemResult> renameItems(BulkRenameRequest request, String userId) {
+        Map<UUID, String> names = new LinkedHashMap<>();
+        for (UpdateItemRequest item : request.getItems()) {
+            names.put(UUID.fromString(item.getItemId()), item.getName());
+        }
+        Map<UUID, String> permissions =
+            bulkItemRepository.getPermissions(names.keySet(), UUID.fromString(userId));
+
+        List<BulkItemResult> results = new ArrayList<>();
+        Map<UUID, String> renamed = new LinkedHashMap<>();
+        for (Map.Entry<UUID, String> item : names.entrySet()) {
+            BulkItemResult denied = checkPermission(item.getKey(), permissions, "rename");
+            if (denied != null) {
+                results.add(denied);
+                continue;
+            }
+            renamed.put(item.getKey(), item.getValue());
+            results.add(result(item.getKey(), BulkItemStatus.SUCCESS, "Item updated successfully"));
+        }
+
+        if (!renamed.isEmpty()) {
+            bulkItemRepository.renameAll(renamed);
+        }
+        return results;
+    }
+
+    /**
+     * Moves the given items below a new parent. Items cannot be moved into their own subtree, and
+     * items already in the parent are left alone.
+     *
+     * @param request the items and their new parent
+     * @param userId the ID of the user making the request
+     * @return the result for each item, in request order
+     */
+    @Transactional
+    public List<BulkItemResult> moveItems(BulkMoveRequest request, String userId) {
+        final UUID parentId = UUID.fromString(request.getParentId());
+        final Set<UUID> itemIds = new LinkedHashSet<>(request.getItemIds());
+
+        Set<UUID> lookedUp = new LinkedHashSet<>(itemIds);
+        lookedUp.add(parentId);
+        Map<UUID, String> permissions =
+            bulkItemRepository.getPermissions(lookedUp, UUID.fromString(userId));
+
+        String parentFailure = null;
+        if (!permissions.containsKey(parentId)) {
+            parentFailure = "Parent item not found";
+        } else if (!canModify(permissions.get(parentId))) {
+            parentFailure = "You do not have permission to move items into this folder";
+        }
+
+        Map<UUID, Optional<UUID>> parents = bulkItemRepository.getParents(itemIds);
+        Set<UUID> ancestorsOfParent =
+            bulkItemRepository.findAncestorsOrSelfAmong(parentId, itemIds);
+
+        List<BulkItemResult> results = new ArrayList<>();
+        List<UUID> moved = new ArrayList<>();
+        for (UUID itemId : itemIds) {
+            BulkItemResult denied = checkPermission(itemId, permissions, "move");
+            if (denied != null) {
+                results.add(denied);
+            } else if (parentFailure != null) {
+                results.add(result(itemId, BulkItemStatus.REJECTED, parentFailure));
+            } else if (ancestorsOfParent.contains(itemId)) {
+                results.add(result(itemId, BulkItemStatus.REJECTED,
+                    "Item cannot be moved into itself or one of its descendants"));
+            } else if (parents.get(itemId).filter(parentId::equals).isPresent()) {
+                results.add(result(itemId, BulkItemStatus.REJECTED,
+                    "Item is already in the requested parent"));
+            } else {
+                moved.add(itemId);
+                results.add(result(itemId, BulkItemStatus.SUCCESS, "Item moved successfully"));
+            }
+        }
+
+        if (!moved.isEmpty()) {
+            bulkItemRepository.moveAll(moved, parentId);
+            permissionResolutionContext.invalidate();
+            permissionCache.evictSubtrees(moved);
+        }
+        return results;
+    }
+
+    /**
+     * Deletes the given items with everything below them, including the shares, stars and views
+     * of every deleted item. Uploads in progress below them are aborted and stored objects no
+     * other file points at are deleted once the deletion commits. Home folders cannot be deleted.
+     *
+     * @param request the items to delete
+     * @param userId the ID of the user making the request
+     * @return the result for each item, in request order
+     */
+    @Transactional
+    public List<BulkItemResult> deleteItems(BulkDeleteRequest request, String userId) {
+        final Set<UUID> itemIds = new LinkedHashSet<>(request.getItemIds());
+        Map<UUID, String> permissions =
+            bulkItemRepository.getPermissions(itemIds, UUID.fromString(userId));
+        Map<UUID, Optional<UUID>> parents = bulkItemRepository.getParents(itemIds);
+
+        List<BulkItemResult> results = new ArrayList<>();
+        List<UUID> deleted = new ArrayList<>();
+        for (UUID itemId : itemIds) {
+            BulkItemResult denied = checkPermission(itemId, permissions, "delete");
+            if (denied != null) {
+                results.add(denied);
+            } else if (parents.get(itemId).isEmpty()) {
+                results.add(result(itemId, BulkItemStatus.REJECTED,
+                    "The home folder cannot be deleted"));
+            } else {
+                deleted.add(itemId);
+                results.add(result(itemId, BulkItemStatus.SUCCESS, "Item deleted successfully"));
+            }
+        }
+
+        if (!deleted.isEmpty()) {
+            blobService.deleteObjects(bulkItemRepository.deleteSubtrees(deleted));
+            permissionResolutionContext.invalidate();
+        }
+        return results;
+    }
+
+    /**
+     * Returns the failed result of an item the user may not change, or null if the user may.
+     */
+    private BulkItemResult checkPermission(
+        UUID itemId,
+        Map<UUID, String> permissions,
+        String action
+    ) {
+        String permission = permissions.get(itemId);
+        if (permission == null) {
+            return result(itemId, BulkItemStatus.NOT_FOUND, "Item not found");
+        }
+        if (!canModify(permission)) {
+            return result(itemId, BulkItemStatus.FORBIDDEN,
+                "You do not have permission to " + action + " this item");
+        }
+        return null;
+    }
+
+    private boolean canModify(String permission) {
+        return permission.equals("OWNER") || permission.equals("EDITOR");
+    }
+
+    private BulkItemResult result(UUID itemId, BulkItemStatus status, String message) {
+        return BulkItemResult.builder()
+            .itemId(itemId)
+            .status(status)
+            .message(message)
+            .build();
+    }
+}
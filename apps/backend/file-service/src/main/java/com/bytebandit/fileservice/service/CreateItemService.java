@@ -12,7 +12,9 @@ import com.bytebandit.fileservice.model.FileSystemItemEntity;
 import com.bytebandit.fileservice.repository.FileSystemItemRepository;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -20,13 +22,28 @@ public class CreateItemService {
 
     private final FileSystemItemRepository fileSystemItemRepository;
     private final FileSystemItemsMapper fileSystemItemsMapper;
+    private final RoleBasedAccessControlService roleBasedAccessControlService;
+    private final StorageQuotaService storageQuotaService;
+    private final S3FileService s3FileService;
+    private final UploadReservationService uploadReservationService;
 
     /**
-     * Creates a new item in the file system.
+     * Whether uploads are confirmed by storage events, in which case new files stay pending
+     * until the event for their object arrives, whatever status the client claims.
+     */
+    @Value("${aws.sqs.enabled:false}")
+    private boolean uploadEventsEnabled;
+
+    /**
+     * Creates a new item in the file system. Files stored in an object are only recorded on an
+     * object presigned for the owner, whose reservation ends with it, and take the size the
+     * object was presigned for, which already counts against the quota of the owner. Any other
+     * item is only recorded when its size fits in the storage quota of the owner.
      *
      * @param createItemRequest the request containing item details
      * @return the response containing created item details
      */
+    @Transactional
     public CreateItemResponse createItem(CreateItemRequest createItemRequest) {
         UUID parentId = UUID.fromString(createItemRequest.getParentId());
         UUID ownerId = createItemRequest.getOwnerId();
@@ -35,6 +52,11 @@ public class CreateItemService {
         validateUserPermission(parentId, ownerId);
 
         FileSystemItemEntity newItem = buildFileSystemItem(createItemRequest, parent);
+        if (newItem.getObjectKey() != null) {
+            newItem.setSize(uploadReservationService.consume(newItem.getObjectKey(), ownerId));
+        } else if (newItem.getSize() != null) {
+            storageQuotaService.checkQuota(ownerId, newItem.getSize());
+        }
         return fileSystemItemsMapper.toCreateItemResponse(fileSystemItemRepository.save(newItem));
     }
 
@@ -44,8 +66,10 @@ public class CreateItemService {
     }
 
     private void validateUserPermission(UUID parentId, UUID ownerId) {
-        String permission = fileSystemItemRepository.getPermissionRecursive(parentId, ownerId)
-            .toLowerCase();
+        String permission = roleBasedAccessControlService.getPermission(
+            parentId.toString(),
+            ownerId
+        ).toLowerCase();
         if ("no_user_found".equals(permission)) {
             throw new UserNotFoundException("User not found.");
         }
@@ -56,18 +80,35 @@ public class CreateItemService {
         }
     }
 
+    /**
+     * Builds the new item. Only files are stored in objects, so the location sent for any other
+     * item is ignored.
+     */
     private FileSystemItemEntity buildFileSystemItem(
         CreateItemRequest request, FileSystemItemEntity parent) {
+        FileSystemItemType type = FileSystemItemType.valueOf(request.getType());
+        String objectKey = type == FileSystemItemType.FILE
+            ? s3FileService.objectKeyOf(request.getS3Url())
+            : null;
         return FileSystemItemEntity.builder()
             .chunks(request.getChunks())
             .mimeType(request.getMimeType())
             .name(request.getName())
             .owner(request.getOwnerId())
-            .s3Url(request.getS3Url())
-            .status(UploadStatus.valueOf(request.getStatus()))
-            .type(FileSystemItemType.valueOf(request.getType()))
+            .s3Url(objectKey == null ? null : request.getS3Url())
+            .objectKey(objectKey)
+            .status(resolveStatus(request))
+            .type(type)
             .size(request.getSize())
             .parent(parent)
             .build();
     }
+
+    private UploadStatus resolveStatus(CreateItemRequest request) {
+        if (uploadEventsEnabled
+            && FileSystemItemType.valueOf(request.getType()) == FileSystemItemType.FILE) {
+            return UploadStatus.NOT_UPLOADED;
+        }
+        return UploadStatus.valueOf(request.getStatus());
+    }
 }
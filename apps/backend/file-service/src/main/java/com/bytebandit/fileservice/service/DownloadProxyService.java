@@ -0,0 +1,213 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.enums.UploadStatus;
+import com.bytebandit.fileservice.exception.ItemNotFoundException;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Serves the content of files through the service, for cases where a presigned URL must not be
+ * handed out, such as files reached through a password protected share. Access is checked the
+ * same way as viewing the item, single byte ranges are served as partial content so that media
+ * can be scrubbed and downloads resumed, and the content hash doubles as ETag so that revalidated
+ * files are answered without reaching the storage.
+ */
+@Service
+@RequiredArgsConstructor
+public class DownloadProxyService {
+
+    private final S3Client s3Client;
+    private final FileSystemItemRepository fileSystemItemRepository;
+    private final ItemViewService itemViewService;
+    private final S3FileService s3FileService;
+
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    /**
+     * Opens the content of a file for the given request headers. The returned download carries
+     * the status and headers of the response, and the content to stream unless the status is
+     * 304 or 416.
+     *
+     * @param itemId      the ID of the file
+     * @param unlockToken the unlock token of the file, if protected
+     * @param userId      the ID of the user making the request
+     * @param range       the Range header, if any
+     * @param ifNoneMatch the If-None-Match header, if any
+     * @param ifRange     the If-Range header, if any
+     *
+     * @return the download to send
+     */
+    public ObjectDownload open(
+        String itemId,
+        String unlockToken,
+        UUID userId,
+        String range,
+        String ifNoneMatch,
+        String ifRange
+    ) {
+        itemViewService.authorizeView(itemId, null, unlockToken, userId);
+        FileSystemItemEntity item = fileSystemItemRepository.findById(UUID.fromString(itemId))
+            .filter(this::isDownloadable)
+            .orElseThrow(() -> new ItemNotFoundException("File not found"));
+
+        String etag = item.getContentHash() != null ? "\"" + item.getContentHash() + "\"" : null;
+        if (etag != null && matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+            .bucket(bucketName)
+            .key(objectKey(item));
+        if (etag == null && ifNoneMatch != null) {
+            request.ifNoneMatch(ifNoneMatch);
+        }
+        HttpRange byteRange = singleRange(range, ifRange, etag);
+        long size = item.getSize();
+        if (byteRange != null) {
+            long start;
+            long end;
+            try {
+                start = byteRange.getRangeStart(size);
+                end = byteRange.getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                return rangeNotSatisfiable(size);
+            }
+            request.range("bytes=" + start + "-" + end);
+        }
+
+        ResponseInputStream<GetObjectResponse> content;
+        try {
+            content = s3Client.getObject(request.build());
+        } catch (S3Exception e) {
+            if (e.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                return notModified(e.awsErrorDetails().sdkHttpResponse()
+                    .firstMatchingHeader(HttpHeaders.ETAG)
+                    .orElse(null));
+            }
+            if (e.statusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                return rangeNotSatisfiable(size);
+            }
+            throw e;
+        }
+
+        GetObjectResponse object = content.response();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag != null ? etag : object.eTag());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        headers.setContentType(mediaType(item.getMimeType()));
+        headers.setContentLength(object.contentLength());
+        headers.setContentDisposition(
+            ContentDisposition.inline().filename(item.getName(), StandardCharsets.UTF_8).build()
+        );
+        if (byteRange == null) {
+            return new ObjectDownload(HttpStatus.OK, headers, content);
+        }
+        headers.set(HttpHeaders.CONTENT_RANGE, object.contentRange());
+        return new ObjectDownload(HttpStatus.PARTIAL_CONTENT, headers, content);
+    }
+
+    private boolean isDownloadable(FileSystemItemEntity item) {
+        return item.getType() == FileSystemItemType.FILE
+            && item.getStatus() == UploadStatus.UPLOADED
+            && item.getSize() != null
+            && objectKey(item) != null;
+    }
+
+    private String objectKey(FileSystemItemEntity item) {
+        return item.getObjectKey() != null
+            ? item.getObjectKey()
+            : s3FileService.objectKeyOf(item.getS3Url());
+    }
+
+    /**
+     * Returns the range to serve, or null to serve the whole file. Several ranges are served as
+     * the whole file, which HTTP allows, and so are ranges conditioned on another version of the
+     * file through If-Range.
+     */
+    private HttpRange singleRange(String range, String ifRange, String etag) {
+        if (range == null || (ifRange != null && !ifRange.equals(etag))) {
+            return null;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private MediaType mediaType(String mimeType) {
+        if (mimeType == null) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(mimeType);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    private ObjectDownload notModified(String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        return new ObjectDownload(HttpStatus.NOT_MODIFIED, headers, null);
+    }
+
+    private ObjectDownload rangeNotSatisfiable(long size) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+        return new ObjectDownload(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, headers, null);
+    }
+
+    /**
+     * A download ready to be sent.
+     *
+     * @param status  the status of the response
+     * @param headers the headers of the response
+     * @param content the content to stream, null when the response has no body
+     */
+    public record ObjectDownload(HttpStatus status, HttpHeaders headers, InputStream content) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.dto.BulkDownloadUrlRequest;
+import com.bytebandit.fileservice.dto.DownloadUrlRequest;
+import com.bytebandit.fileservice.dto.DownloadUrlResponse;
+import com.bytebandit.fileservice.enums.DownloadDisposition;
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.enums.UploadStatus;
+import com.bytebandit.fileservice.exception.ItemNotFoundException;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.bytebandit.fileservice.service.ItemViewService.ViewAuthorization;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues presigned download URLs for files. Access is checked the same way as viewing the item,
+ * and signed URLs are shared through the {@link PresignedDownloadCache}.
+ */
+@Service
+@RequiredArgsConstructor
+public class DownloadUrlService {
+
+    private final FileSystemItemRepository fileSystemItemRepository;
+    private final ItemViewService itemViewService;
+    private final RoleBasedAccessControlService roleBasedAccessControlService;
+    private final PresignedDownloadCache presignedDownloadCache;
+    private final S3FileService s3FileService;
+
+    /**
+     * Returns a download URL for a file the user may view.
+     *
+     * @param request the file, the optional password or unlock token and the disposition
+     * @param userId  the ID of the user making the request
+     *
+     * @return the download URL
+     */
+    public DownloadUrlResponse getDownloadUrl(DownloadUrlRequest request, UUID userId) {
+        itemViewService.authorizeView(
+            request.getItemId(),
+            request.getPassword(),
+            request.getUnlockToken(),
+            userId
+        );
+        FileSystemItemEntity item = fileSystemItemRepository
+            .findById(UUID.fromString(request.getItemId()))
+            .filter(this::isDownloadable)
+            .orElseThrow(() -> new ItemNotFoundException("File not found"));
+        return toResponse(item, request.getDisposition());
+    }
+
+    /**
+     * Returns download URLs for the files of a folder page. Access is checked once on the folder,
+     * which grants the same access to its children, and the children are loaded with a single
+     * query. Items that are not uploaded files of the folder are left out, as are files protected
+     * by a password of their own unless the user owns them or the unlock token was issued for them.
+     *
+     * @param request the folder, the files and the disposition
+     * @param userId  the ID of the user making the request
+     *
+     * @return the download URLs, in request order
+     */
+    public List<DownloadUrlResponse> getDownloadUrls(BulkDownloadUrlRequest request, UUID userId) {
+        ViewAuthorization authorization = itemViewService.authorizeView(
+            request.getParentId(),
+            request.getPassword(),
+            request.getUnlockToken(),
+            userId
+        );
+        String unlockToken = authorization.unlockToken() != null
+            ? authorization.unlockToken()
+            : request.getUnlockToken();
+        UUID parentId = UUID.fromString(request.getParentId());
+
+        Map<UUID, FileSystemItemEntity> items = fileSystemItemRepository
+            .findAllById(request.getItemIds())
+            .stream()
+            .filter(item -> item.getParent() != null
+                && parentId.equals(item.getParent().getId())
+                && isDownloadable(item))
+            .collect(Collectors.toMap(FileSystemItemEntity::getId, Function.identity()));
+
+        List<DownloadUrlResponse> urls = new ArrayList<>(items.size());
+        for (UUID itemId : request.getItemIds()) {
+            FileSystemItemEntity item = items.remove(itemId);
+            if (item != null && isUnprotected(item, userId, unlockToken)) {
+                urls.add(toResponse(item, request.getDisposition()));
+            }
+        }
+        return urls;
+    }
+
+    private boolean isDownloadable(FileSystemItemEntity item) {
+        return item.getType() == FileSystemItemType.FILE
+            && item.getStatus() == UploadStatus.UPLOADED
+            && objectKey(item) != null;
+    }
+
+    private boolean isUnprotected(FileSystemItemEntity item, UUID userId, String unlockToken) {
+        return item.getOwner().equals(userId)
+            || !roleBasedAccessControlService.isPasswordProtected(item.getId().toString())
+            || itemViewService.isUnlocked(unlockToken, item.getId(), userId);
+    }
+
+    private String objectKey(FileSystemItemEntity item) {
+        return item.getObjectKey() != null
+            ? item.getObjectKey()
+            : s3FileService.objectKeyOf(item.getS3Url());
+    }
+
+    private DownloadUrlResponse toResponse(
+        FileSystemItemEntity item,
+        DownloadDisposition disposition
+    ) {
+        PresignedDownloadCache.PresignedUrl url = presignedDownloadCache.get(
+            objectKey(item),
+            contentDisposition(disposition, item.getName())
+        );
+        return DownloadUrlResponse.builder()
+            .itemId(item.getId())
+            .url(url.url())
+            .expiresAt(url.expiresAt())
+            .build();
+    }
+
+    /**
+     * Builds a Content-Disposition header carrying the file name, encoded as RFC 6266 requires.
+     */
+    private String contentDisposition(DownloadDisposition disposition, String fileName) {
+        String encoded = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20");
+        return disposition.getValue() + "; filename*=UTF-8''" + encoded;
+    }
+}
@@ -1,18 +1,35 @@
 package com.bytebandit.fileservice.service;
 
+import com.bytebandit.fileservice.dto.ChildrenPageRequest;
 import com.bytebandit.fileservice.dto.ItemViewRequest;
 import com.bytebandit.fileservice.dto.ItemViewResponse;
+import com.bytebandit.fileservice.enums.ChildrenSortKey;
 import com.bytebandit.fileservice.exception.InvalidFileNameException;
+import com.bytebandit.fileservice.exception.InvalidPageRequestException;
+import com.bytebandit.fileservice.exception.ItemNotFoundException;
 import com.bytebandit.fileservice.exception.ItemViewException;
 import com.bytebandit.fileservice.mapper.ItemViewMapper;
+import com.bytebandit.fileservice.projection.ChildrenPageProjection;
 import com.bytebandit.fileservice.projection.ItemViewProjection;
+import com.bytebandit.fileservice.repository.ChildrenStreamRepository;
 import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.bytebandit.fileservice.utils.ChildrenPageCursor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @Service
@@ -21,6 +38,15 @@ public class ItemViewService {
     
     private final FileSystemItemRepository fileSystemItemRepository;
     private final RoleBasedAccessControlService roleBasedAccessControlService;
+    private final ChildrenStreamRepository childrenStreamRepository;
+    private final ObjectMapper objectMapper;
+    private final UnlockTokenService unlockTokenService;
+    
+    @Value("${app.view.default-page-size:100}")
+    private int defaultPageSize;
+    
+    @Value("${app.view.max-page-size:1000}")
+    private int maxPageSize;
     
     /**
      * Retrieves the view of an item based on the provided request, user ID, and permission.
@@ -35,8 +61,127 @@ public class ItemViewService {
         ItemViewRequest itemViewRequest,
         UUID userId
     ) {
-        final String permission = roleBasedAccessControlService.getPermission(
+        final ViewAuthorization authorization = authorizeView(
             itemViewRequest.getItemId(),
+            itemViewRequest.getPassword(),
+            itemViewRequest.getUnlockToken(),
+            userId
+        );
+        
+        try {
+            ItemViewProjection response = fileSystemItemRepository.viewItems(
+                UUID.fromString(itemViewRequest.getItemId()),
+                userId,
+                authorization.permission(),
+                !itemViewRequest.isPaged()
+            );
+            log.info("Item view response childs: {}", response.getOutputItemId());
+            ItemViewResponse itemViewResponse = ItemViewMapper.mapToResponse(response);
+            if (itemViewResponse != null) {
+                itemViewResponse.setUnlockToken(authorization.unlockToken());
+            }
+            return withChildrenPage(itemViewResponse, userId, itemViewRequest);
+        } catch (DataAccessException e) {
+            throw new ItemViewException("Error accessing item with id: {}"
+                + itemViewRequest.getItemId());
+        }
+    }
+    
+    /**
+     * Streams the view of an item. The item itself is loaded up front, while its children are
+     * written to the response one by one as they are read from the database cursor, so neither
+     * the full JSON document nor the list of children is ever held in memory.
+     *
+     * @param itemViewRequest The request containing the item ID and optional password.
+     * @param userId          The ID of the user making the request.
+     *
+     * @return A body writing the same JSON document as the regular item view endpoint.
+     * @throws ItemNotFoundException if the item is not found.
+     * @throws ItemViewException if there are any issues retrieving the item.
+     */
+    public StreamingResponseBody streamItemView(
+        ItemViewRequest itemViewRequest,
+        UUID userId
+    ) {
+        final ViewAuthorization authorization = authorizeView(
+            itemViewRequest.getItemId(),
+            itemViewRequest.getPassword(),
+            itemViewRequest.getUnlockToken(),
+            userId
+        );
+        final String permission = authorization.permission();
+        
+        final ItemViewResponse item;
+        try {
+            item = ItemViewMapper.mapToResponse(fileSystemItemRepository.viewItems(
+                UUID.fromString(itemViewRequest.getItemId()),
+                userId,
+                permission,
+                false
+            ));
+        } catch (DataAccessException e) {
+            throw new ItemViewException("Error accessing item with id: {}"
+                + itemViewRequest.getItemId());
+        }
+        if (item == null) {
+            throw new ItemNotFoundException("Item not found");
+        }
+        item.setUnlockToken(authorization.unlockToken());
+        
+        return outputStream -> {
+            try (JsonGenerator generator =
+                objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                generator.writeNumberField("status", HttpStatus.OK.value());
+                generator.writeStringField("message", "Viewed item successfully");
+                generator.writeObjectFieldStart("data");
+                
+                ObjectNode itemNode = objectMapper.valueToTree(item);
+                itemNode.remove(List.of("children", "nextCursor"));
+                for (Map.Entry<String, JsonNode> field : itemNode.properties()) {
+                    generator.writeFieldName(field.getKey());
+                    generator.writeTree(field.getValue());
+                }
+                
+                generator.writeArrayFieldStart("children");
+                childrenStreamRepository.streamChildren(
+                    item.getItemId(),
+                    userId,
+                    permission,
+                    child -> {
+                        try {
+                            generator.writeObject(child);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                );
+                generator.writeEndArray();
+                
+                generator.writeEndObject();
+                generator.writeStringField(
+                    "timestamp",
+                    String.valueOf(System.currentTimeMillis())
+                );
+                generator.writeEndObject();
+            }
+        };
+    }
+    
+    /**
+     * Checks that the user may view the item and returns the permission of the user on it. For
+     * anyone but the owner, a protected item needs either an unlock token issued for the item
+     * itself, or the password, in which case a fresh unlock token is issued so the next views skip
+     * the password check.
+     */
+    ViewAuthorization authorizeView(
+        String itemIdValue,
+        String password,
+        String unlockToken,
+        UUID userId
+    ) {
+        final String permission = roleBasedAccessControlService.getPermission(
+            itemIdValue,
             userId
         ).toUpperCase();
         
@@ -47,43 +192,52 @@ public class ItemViewService {
         }
         
         boolean isAccessible = permission.equals("OWNER")
-            || !roleBasedAccessControlService.isPasswordProtected(itemViewRequest.getItemId());
+            || !roleBasedAccessControlService.isPasswordProtected(itemIdValue);
         
         log.info("protected? {}", isAccessible);
         
-        if (!isAccessible) {
-            roleBasedAccessControlService.validatePassword(
-                UUID.fromString(itemViewRequest.getItemId()),
-                itemViewRequest.getPassword()
-            );
+        if (isAccessible) {
+            return new ViewAuthorization(permission, null);
         }
         
-        try {
-            ItemViewProjection response = fileSystemItemRepository.viewItems(
-                UUID.fromString(itemViewRequest.getItemId()),
-                userId,
-                permission
-            );
-            log.info("Item view response childs: {}", response.getOutputItemId());
-            return ItemViewMapper.mapToResponse(response);
-        } catch (DataAccessException e) {
-            throw new ItemViewException("Error accessing item with id: {}"
-                + itemViewRequest.getItemId());
+        final UUID itemId = UUID.fromString(itemIdValue);
+        if (isUnlocked(unlockToken, itemId, userId)) {
+            return new ViewAuthorization(permission, null);
         }
+        roleBasedAccessControlService.validatePassword(itemId, password);
+        return new ViewAuthorization(permission, unlockTokenService.issue(itemId, userId));
     }
     
+    /**
+     * Checks that an unlock token was issued to the user for exactly this item. A token never
+     * covers the items below the unlocked one, since those may be protected by passwords of their
+     * own.
+     */
+    boolean isUnlocked(String unlockToken, UUID itemId, UUID userId) {
+        return unlockTokenService.verify(unlockToken, userId)
+            .map(itemId::equals)
+            .orElse(false);
+    }
     
     /**
      * Retrieves all items of a user.
      *
      * @param userId The ID of the user.
+     * @param pageRequest The optional paging of the children of the home folder.
      *
      * @return An ItemViewResponse containing the details of the user's items.
      */
-    public ItemViewResponse getUserItems(String userId) {
+    public ItemViewResponse getUserItems(String userId, ChildrenPageRequest pageRequest) {
         try {
-            return ItemViewMapper.mapToResponse(
-                fileSystemItemRepository.userItems(UUID.fromString(userId))
+            return withChildrenPage(
+                ItemViewMapper.mapToResponse(
+                    fileSystemItemRepository.userItems(
+                        UUID.fromString(userId),
+                        !pageRequest.isPaged()
+                    )
+                ),
+                UUID.fromString(userId),
+                pageRequest
             );
         } catch (DataAccessException e) {
             throw new ItemViewException("Error accessing user items");
@@ -109,6 +263,71 @@ public class ItemViewService {
         }
     }
     
+    /**
+     * Loads one page of children into the response when the request asks for paging. Children
+     * are sorted by the requested key with the item id as a tie-breaker, and the page resumes
+     * right after the position stored in the cursor.
+     */
+    private ItemViewResponse withChildrenPage(
+        ItemViewResponse response,
+        UUID userId,
+        ChildrenPageRequest pageRequest
+    ) {
+        if (response == null || !pageRequest.isPaged()) {
+            return response;
+        }
+        
+        ChildrenPageCursor cursor = pageRequest.getCursor() == null
+            ? null
+            : ChildrenPageCursor.decode(pageRequest.getCursor());
+        ChildrenSortKey sortKey;
+        boolean descending;
+        if (cursor != null) {
+            sortKey = cursor.sortKey();
+            descending = cursor.descending();
+        } else {
+            sortKey = resolveSortKey(pageRequest.getSortBy());
+            descending = Boolean.TRUE.equals(pageRequest.getDescending());
+        }
+        int pageSize = Math.min(
+            pageRequest.getPageSize() == null ? defaultPageSize : pageRequest.getPageSize(),
+            maxPageSize
+        );
+        
+        ChildrenPageProjection page = fileSystemItemRepository.childrenPage(
+            response.getItemId(),
+            userId,
+            sortKey.getValue(),
+            descending,
+            cursor == null ? null : cursor.lastValue(),
+            cursor == null ? null : cursor.lastId(),
+            pageSize,
+            response.getPermission()
+        );
+        
+        response.setChildren(ItemViewMapper.mapChildren(page.getOutputChildren()));
+        if (page.getOutputNextId() != null) {
+            response.setNextCursor(new ChildrenPageCursor(
+                sortKey,
+                descending,
+                page.getOutputNextValue(),
+                page.getOutputNextId()
+            ).encode());
+        }
+        return response;
+    }
+    
+    private ChildrenSortKey resolveSortKey(String sortBy) {
+        if (sortBy == null) {
+            return ChildrenSortKey.NAME;
+        }
+        try {
+            return ChildrenSortKey.fromValue(sortBy);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException(e.getMessage());
+        }
+    }
+    
     /**
      * Retrieves the parent directory of a user's home directory.
      *
@@ -120,4 +339,7 @@ public class ItemViewService {
         return fileSystemItemRepository.findByOwnerAndParentIsNull(
             UUID.fromString(userId)).orElseThrow().getId().toString();
     }
+    
+    record ViewAuthorization(String permission, String unlockToken) {
+    }
 }
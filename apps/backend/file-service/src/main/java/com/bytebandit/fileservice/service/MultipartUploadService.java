@@ -0,0 +1,463 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.dto.MultipartUploadRequest;
+import com.bytebandit.fileservice.dto.MultipartUploadResponse;
+import com.bytebandit.fileservice.dto.PartUrlResponse;
+import com.bytebandit.fileservice.dto.UploadedPart;
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.enums.UploadStatus;
+import com.bytebandit.fileservice.exception.ItemNotFoundException;
+import com.bytebandit.fileservice.exception.MultipartUploadException;
+import com.bytebandit.fileservice.exception.NotEnoughPermissionException;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+
+/**
+ * Drives S3 multipart uploads for large files. The file item is created when the upload starts,
+ * and the upload ID, object key, part layout and the ETag of every uploaded part are kept in its
+ * chunks until the upload is completed. Clients upload parts in parallel through presigned URLs
+ * and can resume an interrupted upload by asking which parts are already recorded.
+ *
+ * <p>Each part URL is signed for the exact length of its part, and the completed object is checked
+ * against the declared size, which is the size counted against the quota. Uploads not completed
+ * within the upload expiry are aborted and their file removed by a periodic sweep.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MultipartUploadService {
+
+    /**
+     * The maximum number of parts S3 accepts for one upload.
+     */
+    private static final int MAX_PARTS = 10000;
+
+    private static final String UPLOAD_ID = "uploadId";
+    private static final String KEY = "key";
+    private static final String PART_SIZE = "partSize";
+    private static final String PART_COUNT = "partCount";
+    private static final String PARTS = "parts";
+
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final FileSystemItemRepository fileSystemItemRepository;
+    private final RoleBasedAccessControlService roleBasedAccessControlService;
+    private final StorageQuotaService storageQuotaService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    @Value("${app.upload.multipart.part-size:64MB}")
+    private DataSize partSize;
+
+    @Value("${app.upload.multipart.part-url-ttl:PT1H}")
+    private Duration partUrlTtl;
+
+    @Value("${app.upload.multipart.upload-expiry:P7D}")
+    private Duration uploadExpiry;
+
+    @Value("${app.upload.multipart.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    /**
+     * Checks whether an item has a multipart upload in progress.
+     *
+     * @param item the item
+     *
+     * @return true if the chunks of the item hold an upload ID
+     */
+    public static boolean isUploading(FileSystemItemEntity item) {
+        return item.getChunks() != null && item.getChunks().hasNonNull(UPLOAD_ID);
+    }
+
+    /**
+     * Starts a multipart upload and creates the file item it uploads, counted against the quota
+     * of the user from the start. Parts are at least the configured part size, and larger when
+     * needed to stay within the S3 part limit.
+     *
+     * @param request the name, size and parent of the file
+     * @param userId  the ID of the user uploading the file
+     *
+     * @return the upload layout
+     */
+    @Transactional
+    public MultipartUploadResponse initiate(MultipartUploadRequest request, UUID userId) {
+        return initiate(request, userId, partSize.toBytes());
+    }
+
+    /**
+     * Starts a multipart upload with parts of at least the given size.
+     *
+     * @param request     the name, size and parent of the file
+     * @param userId      the ID of the user uploading the file
+     * @param minPartSize the smallest part size to use, in bytes
+     *
+     * @return the upload layout
+     */
+    @Transactional
+    public MultipartUploadResponse initiate(
+        MultipartUploadRequest request,
+        UUID userId,
+        long minPartSize
+    ) {
+        UUID parentId = UUID.fromString(request.getParentId());
+        FileSystemItemEntity parent = fileSystemItemRepository.findById(parentId)
+            .orElseThrow(() -> new ItemNotFoundException("Parent item not found."));
+        String permission =
+            roleBasedAccessControlService.getPermission(parentId.toString(), userId);
+        if (!("OWNER".equalsIgnoreCase(permission) || "EDITOR".equalsIgnoreCase(permission))) {
+            throw new NotEnoughPermissionException(
+                "You do not have enough permission to create this item."
+            );
+        }
+        storageQuotaService.checkQuota(userId, request.getSize());
+
+        long size = request.getSize();
+        long chosenPartSize = Math.max(minPartSize, ceilDiv(size, MAX_PARTS));
+        int partCount = (int) ceilDiv(size, chosenPartSize);
+        String key = S3FileService.objectKey(request.getFileName());
+        String uploadId = s3Client.createMultipartUpload(
+            CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(request.getMimeType())
+                .build()
+        ).uploadId();
+
+        ObjectNode chunks = objectMapper.createObjectNode()
+            .put(UPLOAD_ID, uploadId)
+            .put(KEY, key)
+            .put(PART_SIZE, chosenPartSize)
+            .put(PART_COUNT, partCount);
+        chunks.putObject(PARTS);
+
+        FileSystemItemEntity item = fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name(request.getFileName())
+                .owner(userId)
+                .parent(parent)
+                .type(FileSystemItemType.FILE)
+                .status(UploadStatus.NOT_UPLOADED)
+                .mimeType(request.getMimeType())
+                .size(size)
+                .chunks(chunks)
+                .objectKey(key)
+                .build()
+        );
+        return toResponse(item.getId(), chunks);
+    }
+
+    /**
+     * Returns the layout of an upload in progress along with the parts already recorded, so that
+     * an interrupted upload can be resumed.
+     *
+     * @param itemId the ID of the uploaded item
+     * @param userId the ID of the user uploading the file
+     *
+     * @return the upload layout
+     */
+    public MultipartUploadResponse getUpload(UUID itemId, UUID userId) {
+        return toResponse(itemId, getUploadState(itemId, userId));
+    }
+
+    /**
+     * Presigns the upload URLs of the given parts, each for the exact length of its part.
+     *
+     * @param itemId      the ID of the uploaded item
+     * @param partNumbers the numbers of the parts, starting at 1
+     * @param userId      the ID of the user uploading the file
+     *
+     * @return a URL for each part, in request order
+     */
+    public List<PartUrlResponse> presignParts(
+        UUID itemId,
+        List<Integer> partNumbers,
+        UUID userId
+    ) {
+        FileSystemItemEntity item = getUploadItem(itemId, userId);
+        JsonNode chunks = item.getChunks();
+        int partCount = chunks.get(PART_COUNT).asInt();
+        List<PartUrlResponse> urls = new ArrayList<>(partNumbers.size());
+        for (int partNumber : partNumbers) {
+            if (partNumber > partCount) {
+                throw new MultipartUploadException(
+                    "Part " + partNumber + " is beyond the " + partCount + " parts of the upload"
+                );
+            }
+            UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(chunks.get(KEY).asText())
+                .uploadId(chunks.get(UPLOAD_ID).asText())
+                .partNumber(partNumber)
+                .contentLength(partLength(item.getSize(), chunks, partNumber))
+                .build();
+            String url = s3Presigner.presignUploadPart(
+                UploadPartPresignRequest.builder()
+                    .signatureDuration(partUrlTtl)
+                    .uploadPartRequest(uploadPartRequest)
+                    .build()
+            ).url().toString();
+            urls.add(PartUrlResponse.builder().partNumber(partNumber).url(url).build());
+        }
+        return urls;
+    }
+
+    /**
+     * Uploads a part through the service, for clients that cannot reach the storage directly.
+     * The part is not recorded, so that the caller can record all parts at once.
+     *
+     * @param itemId     the ID of the uploaded item
+     * @param partNumber the number of the part, starting at 1
+     * @param content    the content of the part, with its length
+     * @param userId     the ID of the user uploading the file
+     *
+     * @return the uploaded part
+     */
+    public UploadedPart uploadPart(
+        UUID itemId,
+        int partNumber,
+        RequestBody content,
+        UUID userId
+    ) {
+        JsonNode chunks = getUploadState(itemId, userId);
+        int partCount = chunks.get(PART_COUNT).asInt();
+        if (partNumber > partCount) {
+            throw new MultipartUploadException(
+                "Part " + partNumber + " is beyond the " + partCount + " parts of the upload"
+            );
+        }
+        String etag = s3Client.uploadPart(
+            UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(chunks.get(KEY).asText())
+                .uploadId(chunks.get(UPLOAD_ID).asText())
+                .partNumber(partNumber)
+                .build(),
+            content
+        ).eTag();
+        UploadedPart part = new UploadedPart();
+        part.setPartNumber(partNumber);
+        part.setEtag(etag);
+        return part;
+    }
+
+    /**
+     * Records the ETags of uploaded parts. Recording a part again replaces its ETag, which lets
+     * clients re-upload a part that failed midway.
+     *
+     * @param itemId the ID of the uploaded item
+     * @param parts  the uploaded parts
+     * @param userId the ID of the user uploading the file
+     *
+     * @return the upload layout including the newly recorded parts
+     */
+    @Transactional
+    public MultipartUploadResponse recordParts(
+        UUID itemId,
+        List<UploadedPart> parts,
+        UUID userId
+    ) {
+        int partCount = getUploadState(itemId, userId).get(PART_COUNT).asInt();
+        ObjectNode recorded = objectMapper.createObjectNode();
+        for (UploadedPart part : parts) {
+            if (part.getPartNumber() > partCount) {
+                throw new MultipartUploadException(
+                    "Part " + part.getPartNumber() + " is beyond the " + partCount
+                        + " parts of the upload"
+                );
+            }
+            recorded.put(String.valueOf(part.getPartNumber()), part.getEtag());
+        }
+        if (fileSystemItemRepository.recordUploadedParts(itemId, recorded.toString()) == 0) {
+            throw new MultipartUploadException("No multipart upload is in progress for this item");
+        }
+        return getUpload(itemId, userId);
+    }
+
+    /**
+     * Completes an upload once every part is recorded and marks the file as uploaded. When the
+     * completed object does not have the declared size, the object and the file are deleted.
+     *
+     * @param itemId the ID of the uploaded item
+     * @param userId the ID of the user uploading the file
+     */
+    @Transactional(noRollbackFor = MultipartUploadException.class)
+    public void complete(UUID itemId, UUID userId) {
+        FileSystemItemEntity item = getUploadItem(itemId, userId);
+        JsonNode chunks = item.getChunks();
+        Map<Integer, String> parts = recordedParts(chunks);
+        int missing = chunks.get(PART_COUNT).asInt() - parts.size();
+        if (missing > 0) {
+            throw new MultipartUploadException(missing + " parts have not been uploaded yet");
+        }
+
+        List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+        parts.forEach((partNumber, etag) ->
+            completedParts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build())
+        );
+        String key = chunks.get(KEY).asText();
+        s3Client.completeMultipartUpload(
+            CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(chunks.get(UPLOAD_ID).asText())
+                .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                .build()
+        );
+
+        long uploadedSize = s3Client.headObject(request -> request.bucket(bucketName).key(key))
+            .contentLength();
+        if (uploadedSize != item.getSize()) {
+            s3Client.deleteObject(request -> request.bucket(bucketName).key(key));
+            fileSystemItemRepository.delete(item);
+            throw new MultipartUploadException(
+                "The uploaded file has " + uploadedSize + " bytes instead of the declared "
+                    + item.getSize()
+            );
+        }
+
+        item.setChunks(null);
+        // Stored as the URL of the object, like the location of files uploaded in one request
+        item.setS3Url(
+            s3Client.utilities().getUrl(request -> request.bucket(bucketName).key(key)).toString()
+        );
+        item.setStatus(UploadStatus.UPLOADED);
+        fileSystemItemRepository.save(item);
+    }
+
+    /**
+     * Aborts an upload, discarding its uploaded parts together with the file item.
+     *
+     * @param itemId the ID of the uploaded item
+     * @param userId the ID of the user uploading the file
+     */
+    @Transactional
+    public void abort(UUID itemId, UUID userId) {
+        FileSystemItemEntity item = getUploadItem(itemId, userId);
+        s3Client.abortMultipartUpload(
+            AbortMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(item.getChunks().get(KEY).asText())
+                .uploadId(item.getChunks().get(UPLOAD_ID).asText())
+                .build()
+        );
+        fileSystemItemRepository.delete(item);
+    }
+
+    /**
+     * Aborts the uploads started longer than the upload expiry ago, together with their files,
+     * so that abandoned uploads neither count against the quota nor keep their parts stored. An
+     * upload S3 no longer knows is only removed from the files.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.multipart.sweep-interval:PT1H}")
+    public void abortExpired() {
+        Timestamp startedBefore = Timestamp.from(Instant.now().minus(uploadExpiry));
+        List<FileSystemItemEntity> items;
+        do {
+            items = fileSystemItemRepository.findUploadsStartedBefore(
+                startedBefore,
+                sweepBatchSize
+            );
+            for (FileSystemItemEntity item : items) {
+                try {
+                    s3Client.abortMultipartUpload(request -> request
+                        .bucket(bucketName)
+                        .key(item.getChunks().get(KEY).asText())
+                        .uploadId(item.getChunks().get(UPLOAD_ID).asText())
+                    );
+                } catch (NoSuchUploadException e) {
+                    log.debug("Upload of item {} is already gone", item.getId());
+                } catch (SdkException e) {
+                    log.warn("Failed to abort the expired upload of item {}", item.getId(), e);
+                    return;
+                }
+                fileSystemItemRepository.delete(item);
+            }
+        } while (items.size() >= sweepBatchSize);
+    }
+
+    private JsonNode getUploadState(UUID itemId, UUID userId) {
+        return getUploadItem(itemId, userId).getChunks();
+    }
+
+    private FileSystemItemEntity getUploadItem(UUID itemId, UUID userId) {
+        FileSystemItemEntity item = fileSystemItemRepository.findById(itemId)
+            .orElseThrow(() -> new ItemNotFoundException("Item not found"));
+        if (!item.getOwner().equals(userId)) {
+            throw new NotEnoughPermissionException(
+                "You do not have permission to upload this item"
+            );
+        }
+        if (!isUploading(item)) {
+            throw new MultipartUploadException("No multipart upload is in progress for this item");
+        }
+        return item;
+    }
+
+    /**
+     * Returns the ETags of the recorded parts ordered by part number, as S3 requires them.
+     */
+    private Map<Integer, String> recordedParts(JsonNode chunks) {
+        Map<Integer, String> parts = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = chunks.path(PARTS).fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            parts.put(Integer.valueOf(field.getKey()), field.getValue().asText());
+        }
+        return parts;
+    }
+
+    private MultipartUploadResponse toResponse(UUID itemId, JsonNode chunks) {
+        return MultipartUploadResponse.builder()
+            .itemId(itemId)
+            .partSize(chunks.get(PART_SIZE).asLong())
+            .partCount(chunks.get(PART_COUNT).asInt())
+            .uploadedParts(new ArrayList<>(recordedParts(chunks).keySet()))
+            .build();
+    }
+
+    /**
+     * Returns the length of a part: the part size for every part but the last, which holds the
+     * rest of the file.
+     */
+    private static long partLength(long size, JsonNode chunks, int partNumber) {
+        long chosenPartSize = chunks.get(PART_SIZE).asLong();
+        return Math.min(chosenPartSize, size - (partNumber - 1) * chosenPartSize);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+}
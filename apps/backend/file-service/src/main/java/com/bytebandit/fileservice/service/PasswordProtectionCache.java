@@ -0,0 +1,71 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.model.SharedItemsPublicEntity;
+import com.bytebandit.fileservice.repository.SharedItemsPublicRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of whether the public share of an item is protected by a password. Entries
+ * are dropped together with the cached permissions of the item whenever it is shared again.
+ */
+@Component
+public class PasswordProtectionCache {
+
+    private final SharedItemsPublicRepository sharedItemsPublicRepository;
+    private final Cache<UUID, Boolean> cache;
+
+    /**
+     * Constructor for PasswordProtectionCache.
+     *
+     * @param sharedItemsPublicRepository SharedItemsPublicRepository
+     * @param meterRegistry               registry receiving the hit, miss and eviction metrics
+     * @param maximumSize                 maximum number of cached flags
+     * @param ttl                         maximum time a flag is served from cache
+     */
+    public PasswordProtectionCache(
+        SharedItemsPublicRepository sharedItemsPublicRepository,
+        MeterRegistry meterRegistry,
+        @Value("${app.password-protection-cache.maximum-size:100000}") long maximumSize,
+        @Value("${app.password-protection-cache.ttl:PT5M}") Duration ttl
+    ) {
+        this.sharedItemsPublicRepository = sharedItemsPublicRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "password-protection");
+    }
+
+    /**
+     * Returns whether the public share of an item is protected by a password, looking it up and
+     * caching it on a miss.
+     *
+     * @param itemId the ID of the item
+     *
+     * @return true if the item is shared publicly with a password
+     */
+    public boolean isProtected(UUID itemId) {
+        return cache.get(itemId, id -> {
+            SharedItemsPublicEntity entity = sharedItemsPublicRepository.findByItemId(id);
+            return entity != null && entity.getPasswordHash() != null;
+        });
+    }
+
+    /**
+     * Evicts the cached flags of the given items.
+     *
+     * @param itemIds the IDs of the items
+     */
+    public void evict(Collection<UUID> itemIds) {
+        cache.invalidateAll(itemIds);
+    }
+}
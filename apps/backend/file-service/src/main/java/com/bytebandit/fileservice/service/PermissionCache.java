@@ -0,0 +1,278 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.projection.PermissionProjection;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lib.core.events.PermissionInvalidationEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process cache of resolved permissions, keyed by (item, user).
+ *
+ * <p>Entries live for the configured TTL, or until the earliest expiry of a public share on the
+ * ancestor chain of the item if that comes first. Sharing or moving an item evicts every cached
+ * entry whose item lies in the subtree of the changed item. The subtree is read from the closure
+ * table page by page and the cached entries are found through an index by item, so an eviction
+ * costs in the size of the subtree rather than of the cache. When broadcasting is enabled the
+ * eviction is also published on Kafka so that every other instance drops the same entries.
+ * The cached password protection flags of the changed items are dropped along the way.
+ */
+@Slf4j
+@Component
+public class PermissionCache {
+
+    private static final String NO_USER_FOUND = "NO_USER_FOUND";
+    private static final int DESCENDANT_LOOKUP_BATCH_SIZE = 1000;
+    private static final UUID LOWEST_ID = new UUID(0L, 0L);
+
+    private final FileSystemItemRepository fileSystemItemRepository;
+    private final PasswordProtectionCache passwordProtectionCache;
+    private final ObjectProvider<KafkaTemplate<String, PermissionInvalidationEvent>>
+        kafkaTemplateProvider;
+    private final boolean broadcastEnabled;
+    private final String broadcastTopic;
+    private final Cache<PermissionKey, CachedPermission> cache;
+    private final ConcurrentMap<UUID, Set<PermissionKey>> keysByItem = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Constructor for PermissionCache.
+     *
+     * @param fileSystemItemRepository FileSystemItemRepository
+     * @param passwordProtectionCache  cache of password protection flags evicted alongside
+     * @param kafkaTemplateProvider    provider of the template used to broadcast evictions
+     * @param meterRegistry            registry receiving the hit, miss and eviction metrics
+     * @param maximumSize              maximum number of cached permissions
+     * @param ttl                      maximum time a permission is served from cache
+     * @param broadcastEnabled         whether evictions are published to other instances
+     * @param broadcastTopic           Kafka topic carrying the evictions
+     */
+    public PermissionCache(
+        FileSystemItemRepository fileSystemItemRepository,
+        PasswordProtectionCache passwordProtectionCache,
+        ObjectProvider<KafkaTemplate<String, PermissionInvalidationEvent>> kafkaTemplateProvider,
+        MeterRegistry meterRegistry,
+        @Value("${app.permission-cache.maximum-size:100000}") long maximumSize,
+        @Value("${app.permission-cache.ttl:PT5M}") Duration ttl,
+        @Value("${app.permission-cache.broadcast.enabled:false}") boolean broadcastEnabled,
+        @Value("${app.permission-cache.broadcast.topic:file-service-permission-invalidations}")
+        String broadcastTopic
+    ) {
+        this.fileSystemItemRepository = fileSystemItemRepository;
+        this.passwordProtectionCache = passwordProtectionCache;
+        this.kafkaTemplateProvider = kafkaTemplateProvider;
+        this.broadcastEnabled = broadcastEnabled;
+        this.broadcastTopic = broadcastTopic;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new ShareAwareExpiry(ttl))
+            // Runs atomically with the removal, unlike a removal listener
+            .evictionListener(
+                (PermissionKey key, CachedPermission value, RemovalCause cause) -> unindex(key)
+            )
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "permissions");
+    }
+
+    /**
+     * Returns the permission of a user on an item, resolving and caching it on a miss.
+     *
+     * @param itemId the ID of the item
+     * @param userId the ID of the user
+     *
+     * @return the permission of the user on the item
+     */
+    public String get(UUID itemId, UUID userId) {
+        PermissionKey key = new PermissionKey(itemId, userId);
+        CachedPermission cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.permission();
+        }
+
+        long observedGeneration = generation.get();
+        PermissionProjection resolved =
+            fileSystemItemRepository.getPermissionWithExpiry(itemId, userId);
+        String permission = resolved.getOutputPermission();
+
+        // Users missing from the snapshot may show up any moment through Kafka
+        if (!NO_USER_FOUND.equals(permission)) {
+            CachedPermission value = new CachedPermission(
+                permission,
+                resolved.getOutputExpiresAt() == null
+                    ? null
+                    : resolved.getOutputExpiresAt().toInstant()
+            );
+            cache.asMap().compute(key, (cachedKey, previous) -> {
+                index(cachedKey);
+                return value;
+            });
+            // An eviction that raced with the lookup may have missed the entry just written
+            if (generation.get() != observedGeneration) {
+                cache.asMap().computeIfPresent(key, (cachedKey, stale) -> {
+                    unindex(cachedKey);
+                    return null;
+                });
+            }
+        }
+        return permission;
+    }
+
+    /**
+     * Evicts the cached permissions of every item in the subtree of the given item, on this
+     * instance and, when enabled, on every other instance. Inside a transaction the eviction is
+     * deferred until after commit so that the old permission cannot be cached again meanwhile.
+     *
+     * @param itemId the ID of the item whose permissions changed
+     */
+    public void evictSubtree(UUID itemId) {
+        evictSubtrees(List.of(itemId));
+    }
+
+    /**
+     * Evicts the cached permissions of every item in the subtrees of the given items, like
+     * {@link #evictSubtree(UUID)} does for a single item.
+     *
+     * @param itemIds the IDs of the items whose permissions changed
+     */
+    public void evictSubtrees(List<UUID> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        evictAndBroadcast(itemIds);
+                    }
+                }
+            );
+        } else {
+            evictAndBroadcast(itemIds);
+        }
+    }
+
+    /**
+     * Evicts, on this instance only, the cached permissions of every item in the subtrees rooted
+     * at the given items.
+     *
+     * @param rootIds the IDs of the subtree roots
+     */
+    public void evictLocal(Collection<UUID> rootIds) {
+        generation.incrementAndGet();
+        passwordProtectionCache.evict(rootIds);
+
+        for (UUID rootId : rootIds) {
+            UUID after = LOWEST_ID;
+            List<UUID> descendantIds;
+            do {
+                if (keysByItem.isEmpty()) {
+                    return;
+                }
+                descendantIds = fileSystemItemRepository.findDescendantsAfter(
+                    rootId,
+                    after,
+                    DESCENDANT_LOOKUP_BATCH_SIZE
+                );
+                for (UUID descendantId : descendantIds) {
+                    Set<PermissionKey> keys = keysByItem.remove(descendantId);
+                    if (keys != null) {
+                        cache.invalidateAll(keys);
+                    }
+                }
+                if (!descendantIds.isEmpty()) {
+                    after = descendantIds.get(descendantIds.size() - 1);
+                }
+            } while (descendantIds.size() >= DESCENDANT_LOOKUP_BATCH_SIZE);
+        }
+    }
+
+    private void index(PermissionKey key) {
+        keysByItem.compute(key.itemId(), (itemId, keys) -> {
+            Set<PermissionKey> itemKeys = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            itemKeys.add(key);
+            return itemKeys;
+        });
+    }
+
+    private void unindex(PermissionKey key) {
+        keysByItem.computeIfPresent(key.itemId(), (itemId, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private void evictAndBroadcast(List<UUID> itemIds) {
+        evictLocal(itemIds);
+        if (!broadcastEnabled) {
+            return;
+        }
+        KafkaTemplate<String, PermissionInvalidationEvent> kafkaTemplate =
+            kafkaTemplateProvider.getIfAvailable();
+        if (kafkaTemplate == null) {
+            log.warn("Permission cache broadcast is enabled but no Kafka template is available");
+            return;
+        }
+        kafkaTemplate.send(broadcastTopic, new PermissionInvalidationEvent(itemIds));
+    }
+
+    private record PermissionKey(UUID itemId, UUID userId) {
+    }
+
+    private record CachedPermission(String permission, Instant expiresAt) {
+    }
+
+    private record ShareAwareExpiry(Duration ttl)
+        implements Expiry<PermissionKey, CachedPermission> {
+
+        @Override
+        public long expireAfterCreate(PermissionKey key, CachedPermission value, long currentTime) {
+            Instant now = Instant.now();
+            if (value.expiresAt() == null || value.expiresAt().isAfter(now.plus(ttl))) {
+                return ttl.toNanos();
+            }
+            return Math.max(0, Duration.between(now, value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(
+            PermissionKey key,
+            CachedPermission value,
+            long currentTime,
+            long currentDuration
+        ) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(
+            PermissionKey key,
+            CachedPermission value,
+            long currentTime,
+            long currentDuration
+        ) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.bytebandit.fileservice.service;
+
+import lib.core.events.PermissionInvalidationEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Service;
+
+@Service
+@ConditionalOnProperty(name = "app.permission-cache.broadcast.enabled", havingValue = "true")
+public class PermissionInvalidationConsumer {
+    private final PermissionCache permissionCache;
+    
+    public PermissionInvalidationConsumer(PermissionCache permissionCache) {
+        this.permissionCache = permissionCache;
+    }
+    
+    /**
+     * Consumes permission invalidations published by any file-service instance. Every instance
+     * listens with its own consumer group so that each one receives every invalidation.
+     *
+     * @param event the PermissionInvalidationEvent message
+     */
+    @KafkaListener(
+        topics = "${app.permission-cache.broadcast.topic:file-service-permission-invalidations}",
+        groupId = "file-service-permissions-${random.uuid}",
+        properties = "auto.offset.reset=latest",
+        errorHandler = "kafkaErrorHandler"
+    )
+    public void consumePermissionInvalidation(@Payload PermissionInvalidationEvent event) {
+        permissionCache.evictLocal(event.getItemIds());
+    }
+}
@@ -0,0 +1,73 @@
+package com.bytebandit.fileservice.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Remembers the permissions resolved while serving the current HTTP request, so that services
+ * asking for the same (item, user) pair more than once only hit the database the first time.
+ * Outside of a request, for example in Kafka listeners, every lookup goes to the resolver.
+ */
+@Component
+public class PermissionResolutionContext {
+
+    private static final String ATTRIBUTE_NAME =
+        PermissionResolutionContext.class.getName() + ".permissions";
+
+    /**
+     * Returns the permission memoized for the current request, resolving it on first use.
+     *
+     * @param itemId the ID of the item
+     * @param userId the ID of the user
+     * @param resolver the resolver used when the permission is not known yet
+     *
+     * @return the permission of the user on the item
+     */
+    public String resolve(UUID itemId, UUID userId, Supplier<String> resolver) {
+        Map<PermissionKey, String> permissions = currentPermissions();
+        if (permissions == null) {
+            return resolver.get();
+        }
+        PermissionKey key = new PermissionKey(itemId, userId);
+        String permission = permissions.get(key);
+        if (permission == null) {
+            permission = resolver.get();
+            permissions.put(key, permission);
+        }
+        return permission;
+    }
+
+    /**
+     * Forgets every permission memoized for the current request. Called after a write that may
+     * change permissions, such as moving an item or sharing it.
+     */
+    public void invalidate() {
+        Map<PermissionKey, String> permissions = currentPermissions();
+        if (permissions != null) {
+            permissions.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<PermissionKey, String> currentPermissions() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<PermissionKey, String> permissions = (Map<PermissionKey, String>)
+            attributes.getAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+        if (permissions == null) {
+            permissions = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE_NAME, permissions, RequestAttributes.SCOPE_REQUEST);
+        }
+        return permissions;
+    }
+
+    private record PermissionKey(UUID itemId, UUID userId) {
+    }
+}
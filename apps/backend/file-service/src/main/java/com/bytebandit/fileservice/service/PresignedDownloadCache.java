@@ -0,0 +1,98 @@
+package com.bytebandit.fileservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+/**
+ * In-process cache of presigned download URLs per object and content disposition. A URL is
+ * served from cache until shortly before it expires, so clients always get a URL that is valid
+ * for at least the refresh margin, and listing the same folder again does not sign every URL
+ * anew.
+ */
+@Component
+public class PresignedDownloadCache {
+
+    private final S3Presigner s3Presigner;
+    private final Cache<Key, PresignedUrl> cache;
+    private final Duration urlTtl;
+
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    /**
+     * Constructor for PresignedDownloadCache.
+     *
+     * @param s3Presigner   presigner signing the download URLs
+     * @param meterRegistry registry receiving the hit, miss and eviction metrics
+     * @param maximumSize   maximum number of cached URLs
+     * @param urlTtl        time for which a signed URL is valid
+     * @param refreshMargin time before expiry at which a URL is no longer served from cache
+     */
+    public PresignedDownloadCache(
+        S3Presigner s3Presigner,
+        MeterRegistry meterRegistry,
+        @Value("${app.download.cache.maximum-size:100000}") long maximumSize,
+        @Value("${app.download.url-ttl:PT15M}") Duration urlTtl,
+        @Value("${app.download.cache.refresh-margin:PT2M}") Duration refreshMargin
+    ) {
+        if (refreshMargin.compareTo(urlTtl) >= 0) {
+            throw new IllegalArgumentException(
+                "The refresh margin of download URLs must be shorter than their TTL"
+            );
+        }
+        this.s3Presigner = s3Presigner;
+        this.urlTtl = urlTtl;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(urlTtl.minus(refreshMargin))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "presigned-download-urls");
+    }
+
+    /**
+     * Returns a presigned URL to download an object, signing it on a miss.
+     *
+     * @param objectKey          the key of the object
+     * @param contentDisposition the Content-Disposition header S3 should respond with
+     *
+     * @return the URL and the instant it expires at
+     */
+    public PresignedUrl get(String objectKey, String contentDisposition) {
+        return cache.get(new Key(objectKey, contentDisposition), this::sign);
+    }
+
+    private PresignedUrl sign(Key key) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key.objectKey())
+            .responseContentDisposition(key.contentDisposition())
+            .build();
+        PresignedGetObjectRequest presigned = s3Presigner.presignGetObject(
+            GetObjectPresignRequest.builder()
+                .signatureDuration(urlTtl)
+                .getObjectRequest(getObjectRequest)
+                .build()
+        );
+        return new PresignedUrl(presigned.url().toString(), presigned.expiration());
+    }
+
+    private record Key(String objectKey, String contentDisposition) {
+    }
+
+    /**
+     * A presigned URL along with the instant it stops being valid.
+     */
+    public record PresignedUrl(String url, Instant expiresAt) {
+    }
+}
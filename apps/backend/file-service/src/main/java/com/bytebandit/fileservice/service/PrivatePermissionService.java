@@ -17,6 +17,8 @@ public class PrivatePermissionService {
 
     private final SharedItemsPrivateRepository sharedItemsPrivateRepository;
     private final TransactionTemplate transactionTemplate;
+    private final PermissionCache permissionCache;
+    private final PermissionResolutionContext permissionResolutionContext;
 
 
     /**
@@ -58,6 +60,8 @@ public class PrivatePermissionService {
             log.error("Failed to share item with id: {}", request.getItemId());
             throw new IllegalStateException("Failed to share item");
         }
+        permissionResolutionContext.invalidate();
+        permissionCache.evictSubtree(UUID.fromString(request.getItemId()));
         log.info("Item with id: {} shared successfully", request.getItemId());
         ItemSharePrivateResponse response = ItemSharePrivateResponse.builder()
             .permissionForEachUser(Arrays.asList(sharedPermissions))
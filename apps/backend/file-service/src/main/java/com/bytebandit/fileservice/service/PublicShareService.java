@@ -22,6 +22,8 @@ public class PublicShareService {
     private final PasswordEncoder passwordEncoder;
     private final SharedItemsPublicRepository sharedItemsPublicRepository;
     private final RoleBasedAccessControlService roleBasedAccessControlService;
+    private final PermissionCache permissionCache;
+    private final PermissionResolutionContext permissionResolutionContext;
     
     /**
      * Constructor for PublicShareService.
@@ -29,13 +31,19 @@ public class PublicShareService {
      * @param passwordEncoder               PasswordEncoder
      * @param sharedItemsPublicRepository   SharedItemsPublicRepository
      * @param roleBasedAccessControlService RoleBasedAccessControlService
+     * @param permissionCache               PermissionCache
+     * @param permissionResolutionContext   PermissionResolutionContext
      */
     public PublicShareService(PasswordEncoder passwordEncoder,
                               SharedItemsPublicRepository sharedItemsPublicRepository,
-                              RoleBasedAccessControlService roleBasedAccessControlService) {
+                              RoleBasedAccessControlService roleBasedAccessControlService,
+                              PermissionCache permissionCache,
+                              PermissionResolutionContext permissionResolutionContext) {
         this.passwordEncoder = passwordEncoder;
         this.sharedItemsPublicRepository = sharedItemsPublicRepository;
         this.roleBasedAccessControlService = roleBasedAccessControlService;
+        this.permissionCache = permissionCache;
+        this.permissionResolutionContext = permissionResolutionContext;
     }
     
     /**
@@ -87,6 +95,8 @@ public class PublicShareService {
             if (publicLinkId == null) {
                 throw new PublicShareException(status);
             }
+            permissionResolutionContext.invalidate();
+            permissionCache.evictSubtree(request.getItemId());
             
             PublicShareResponse response =
                 PublicShareResponse.builder().link(publicLinkId.toString())
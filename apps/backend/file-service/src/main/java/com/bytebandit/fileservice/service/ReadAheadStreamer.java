@@ -0,0 +1,182 @@
+package com.bytebandit.fileservice.service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.http.Abortable;
+
+/**
+ * Copies a stream to a client while reading ahead of it. A reader thread fills a bounded queue
+ * of chunks from the source as the client drains it, so waiting on the storage and writing to a
+ * slow client overlap instead of alternating. Each copy holds at most the queue depth plus two
+ * chunks, and the number of reader threads is capped; when every reader is busy, the copy runs
+ * on the calling thread without read-ahead.
+ *
+ * <p>The reader always ends the queue, with an error chunk for any failure of the source, and the
+ * client side waits for each chunk no longer than the read timeout. A reader that stalls or dies
+ * therefore never holds the request thread and the storage connection indefinitely.
+ */
+@Component
+public class ReadAheadStreamer {
+
+    private static final Chunk END = new Chunk(new byte[0], 0, null);
+
+    private final int chunkSize;
+    private final int depth;
+    private final long readTimeoutMillis;
+    private final ThreadPoolExecutor readerExecutor;
+
+    /**
+     * Constructor for ReadAheadStreamer.
+     *
+     * @param chunkSize  size of each chunk read ahead
+     * @param depth      number of chunks read ahead of the client
+     * @param maxStreams number of copies reading ahead at the same time
+     * @param readTimeout how long the client side waits for the next chunk
+     */
+    public ReadAheadStreamer(
+        @Value("${app.download.proxy.chunk-size:256KB}") DataSize chunkSize,
+        @Value("${app.download.proxy.read-ahead:4}") int depth,
+        @Value("${app.download.proxy.max-streams:64}") int maxStreams,
+        @Value("${app.download.proxy.read-timeout:PT1M}") Duration readTimeout
+    ) {
+        this.chunkSize = (int) chunkSize.toBytes();
+        this.depth = depth;
+        this.readTimeoutMillis = readTimeout.toMillis();
+        this.readerExecutor = new ThreadPoolExecutor(
+            0, maxStreams,
+            60L, TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            new CustomizableThreadFactory("download-read-ahead-")
+        );
+    }
+
+    @PreDestroy
+    void shutdown() {
+        readerExecutor.shutdownNow();
+    }
+
+    /**
+     * Copies the source to the target and closes the source. A copy that does not reach the end
+     * of the source, for instance because the client went away, aborts the source rather than
+     * draining it.
+     *
+     * @param source the stream to read
+     * @param target the stream to write
+     *
+     * @throws IOException if reading or writing fails
+     */
+    public void copy(InputStream source, OutputStream target) throws IOException {
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(depth);
+        Future<?> reader;
+        try {
+            reader = readerExecutor.submit(() -> readAhead(source, chunks));
+        } catch (RejectedExecutionException e) {
+            copyDirectly(source, target);
+            return;
+        }
+        boolean completed = false;
+        try {
+            Chunk chunk = nextChunk(chunks);
+            while (chunk != END) {
+                if (chunk.error() != null) {
+                    throw chunk.error();
+                }
+                target.write(chunk.bytes(), 0, chunk.length());
+                chunk = nextChunk(chunks);
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while streaming");
+        } finally {
+            reader.cancel(true);
+            release(source, completed);
+        }
+    }
+
+    private Chunk nextChunk(BlockingQueue<Chunk> chunks) throws InterruptedException, IOException {
+        Chunk chunk = chunks.poll(readTimeoutMillis, TimeUnit.MILLISECONDS);
+        if (chunk == null) {
+            throw new IOException("Timed out waiting for the content of the object");
+        }
+        return chunk;
+    }
+
+    private void copyDirectly(InputStream source, OutputStream target) throws IOException {
+        boolean completed = false;
+        try {
+            byte[] buffer = new byte[chunkSize];
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                target.write(buffer, 0, read);
+            }
+            completed = true;
+        } finally {
+            release(source, completed);
+        }
+    }
+
+    private void release(InputStream source, boolean completed) throws IOException {
+        if (!completed && source instanceof Abortable abortable) {
+            abortable.abort();
+        } else {
+            source.close();
+        }
+    }
+
+    private void readAhead(InputStream source, BlockingQueue<Chunk> chunks) {
+        try {
+            Chunk last = END;
+            try {
+                byte[] bytes = new byte[chunkSize];
+                int length = readChunk(source, bytes);
+                while (length > 0) {
+                    chunks.put(new Chunk(bytes, length, null));
+                    bytes = new byte[chunkSize];
+                    length = readChunk(source, bytes);
+                }
+            } catch (IOException e) {
+                last = new Chunk(null, 0, e);
+            } catch (RuntimeException e) {
+                // Such as a checksum mismatch or an aborted request reported by the SDK
+                last = new Chunk(null, 0, new IOException(e.getMessage(), e));
+            }
+            chunks.put(last);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads until the chunk is full or the source ends, so the client gets large writes.
+     */
+    private int readChunk(InputStream source, byte[] bytes) throws IOException {
+        int length = 0;
+        while (length < bytes.length) {
+            int read = source.read(bytes, length, bytes.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    private record Chunk(byte[] bytes, int length, IOException error) {
+    }
+}
@@ -3,7 +3,6 @@ package com.bytebandit.fileservice.service;
 import com.bytebandit.fileservice.exception.ItemPasswordVerificationFailedException;
 import com.bytebandit.fileservice.exception.ItemProtectedWithPasswordException;
 import com.bytebandit.fileservice.model.SharedItemsPublicEntity;
-import com.bytebandit.fileservice.repository.FileSystemItemRepository;
 import com.bytebandit.fileservice.repository.SharedItemsPublicRepository;
 import java.sql.Timestamp;
 import java.time.Instant;
@@ -18,23 +17,30 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class RoleBasedAccessControlService {
 
-    private final FileSystemItemRepository fileSystemItemRepository;
     private final SharedItemsPublicRepository sharedItemsPublicRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PermissionResolutionContext permissionResolutionContext;
+    private final PermissionCache permissionCache;
+    private final PasswordProtectionCache passwordProtectionCache;
 
+    /**
+     * Get the permission of a user on an item, memoized for the rest of the current request and
+     * served from the permission cache across requests.
+     */
     public String getPermission(String itemId, UUID userId) {
-        return fileSystemItemRepository.getPermissionRecursive(
-            UUID.fromString(itemId), userId);
+        final UUID itemUuid = UUID.fromString(itemId);
+        return permissionResolutionContext.resolve(
+            itemUuid,
+            userId,
+            () -> permissionCache.get(itemUuid, userId)
+        );
     }
 
     /**
-     * Check if an item is password protected.
+     * Check if an item is password protected, served from the password protection cache.
      */
     public boolean isPasswordProtected(String itemId) {
-        SharedItemsPublicEntity entity = sharedItemsPublicRepository.findByItemId(
-                UUID.fromString(itemId)
-            );
-        return entity != null && entity.getPasswordHash() != null;
+        return passwordProtectionCache.isProtected(UUID.fromString(itemId));
     }
 
     /**
@@ -1,7 +1,10 @@
 package com.bytebandit.fileservice.service;
 
 import com.bytebandit.fileservice.exception.InvalidFileNameException;
+import java.net.URI;
 import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
 import lib.core.dto.response.ApiResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -13,6 +16,7 @@ import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignReques
 @Service
 public class S3FileService {
     private final S3Presigner s3Presigner;
+    private final UploadReservationService uploadReservationService;
     private static final org.slf4j.Logger logger =
         org.slf4j.LoggerFactory.getLogger(S3FileService.class);
     
@@ -20,33 +24,69 @@ public class S3FileService {
     @Value("${aws.s3.bucket}")
     private String bucketName;
     
-    public S3FileService(S3Presigner s3Presigner) {
+    /**
+     * Constructor for S3FileService.
+     *
+     * @param s3Presigner              S3Presigner
+     * @param uploadReservationService UploadReservationService
+     */
+    public S3FileService(
+        S3Presigner s3Presigner,
+        UploadReservationService uploadReservationService
+    ) {
         this.s3Presigner = s3Presigner;
+        this.uploadReservationService = uploadReservationService;
     }
     
     /**
      * Generates a pre-signed URL for uploading a file to an S3 bucket. The generated URL allows
      * temporary access to upload the specified file with appropriate HTTP PUT permissions. The URL
-     * is valid for 10 minutes.
+     * is valid for 10 minutes. No URL is issued when the file does not fit in the remaining
+     * storage quota of the user, and the URL is signed for the declared size only. The object is
+     * reserved for the user, who is the only one able to create a file on it afterwards, and its
+     * size counts against the quota of the user from now on.
      *
      * @param fileName the name of the file to be uploaded. The file name should not be null or
      *                 empty; invalid file names will result in a 400 status response.
+     * @param size     the size of the file in bytes
+     * @param userId   the ID of the user uploading the file
      *
      * @return an ApiResponse object encapsulating the status, message, and the generated pre-signed
      *     URL along with other metadata. If the file name is invalid, the response will include an
      *     appropriate error message and a 400 status code.
      */
-    public ApiResponse<String> generateUploadPresignedUrl(String fileName) {
+    public ApiResponse<String> generateUploadPresignedUrl(
+        String fileName, long size, UUID userId) {
         if (fileName == null || fileName.trim().isEmpty()) {
             throw new InvalidFileNameException("File name cannot be empty");
         }
-        
-        // sanitize file name
-        String sanitizedFileName =
-            Instant.now().toEpochMilli() + "-" + fileName.replaceAll("[^a-zA-Z0-9.-]", "_");
+        String key = objectKey(fileName);
+        uploadReservationService.reserve(userId, Map.of(key, size));
+        String presignedUrl = presignUpload(key, size);
+        logger.info("Presigned URL to upload a file to: [{}]", presignedUrl);
+        return ApiResponse.<String>builder()
+            .status(200)
+            .message("Pre-signed URL generated successfully")
+            .data(presignedUrl)
+            .timestamp(Instant.now().toString())
+            .path("/api/v1/files/upload/presigned-url")
+            .build();
+    }
+    
+    /**
+     * Presigns a PUT of a new object, valid for 10 minutes and for the given size only. Signing
+     * happens locally, so the shared presigner can be used from several threads.
+     *
+     * @param key  the key of the object, as built by {@link #objectKey(String)}
+     * @param size the size of the file in bytes
+     *
+     * @return the presigned URL
+     */
+    public String presignUpload(String key, long size) {
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
             .bucket(bucketName)
-            .key(sanitizedFileName)
+            .key(key)
+            .contentLength(size)
             .build();
         
         PutObjectPresignRequest presignRequest =
@@ -55,16 +95,47 @@ public class S3FileService {
                 .putObjectRequest(putObjectRequest)
                 .build();
         PresignedPutObjectRequest presignedRequest = s3Presigner.presignPutObject(presignRequest);
-        String presignedUrl = presignedRequest.url().toString();
-        logger.info("Presigned URL to upload a file to: [{}]", presignedUrl);
-        logger.info("HTTP method: [{}]", presignedRequest.httpRequest().method());
-        return ApiResponse.<String>builder()
-            .status(200)
-            .message("Pre-signed URL generated successfully")
-            .data(presignedUrl)
-            .timestamp(Instant.now().toString())
-            .path("/api/v1/files/upload/presigned-url")
-            .build();
+        return presignedRequest.url().toString();
+    }
+    
+    /**
+     * Extracts the object key from the stored location of a file, which is either the key itself,
+     * an s3:// URI or the plain URL of the object in either addressing style.
+     *
+     * @param s3Url the stored location of the file
+     *
+     * @return the object key, or null if the location is empty
+     */
+    public String objectKeyOf(String s3Url) {
+        if (s3Url == null || s3Url.isBlank()) {
+            return null;
+        }
+        if (s3Url.startsWith("s3://")) {
+            int keyStart = s3Url.indexOf('/', "s3://".length());
+            return keyStart < 0 ? null : s3Url.substring(keyStart + 1);
+        }
+        if (s3Url.startsWith("http://") || s3Url.startsWith("https://")) {
+            String path = URI.create(s3Url).getPath();
+            String key = path.startsWith("/") ? path.substring(1) : path;
+            if (key.startsWith(bucketName + "/")) {
+                key = key.substring(bucketName.length() + 1);
+            }
+            return key.isEmpty() ? null : key;
+        }
+        return s3Url;
+    }
+    
+    /**
+     * Builds a unique object key for a file, replacing characters that are unsafe in keys. The
+     * random part keeps files of the same name uploaded in the same millisecond apart.
+     *
+     * @param fileName the name of the file
+     *
+     * @return the object key
+     */
+    static String objectKey(String fileName) {
+        return Instant.now().toEpochMilli() + "-" + UUID.randomUUID() + "-"
+            + fileName.replaceAll("[^a-zA-Z0-9.-]", "_");
     }
     
 }
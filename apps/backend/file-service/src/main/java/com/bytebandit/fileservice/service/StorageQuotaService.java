@@ -0,0 +1,65 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.exception.QuotaExceededException;
+import com.bytebandit.fileservice.repository.StorageUsageRepository;
+import com.bytebandit.fileservice.repository.UploadReservationRepository;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Enforces the storage quota of users. Usage is read from the per-user counters maintained by the
+ * database, so a check costs one indexed lookup however many files the user has. Presigned
+ * uploads whose file is not created yet count through their reservations.
+ *
+ * <p>The checks of a user are serialized by a lock held until the end of the transaction, so a
+ * caller that records the checked size in the same transaction, as a reservation or a file, is
+ * certain that no concurrent check passed against the same usage.
+ */
+@Service
+public class StorageQuotaService {
+
+    private final StorageUsageRepository storageUsageRepository;
+    private final UploadReservationRepository uploadReservationRepository;
+    private final long limitBytes;
+
+    /**
+     * Constructor for StorageQuotaService.
+     *
+     * @param storageUsageRepository      StorageUsageRepository
+     * @param uploadReservationRepository UploadReservationRepository
+     * @param limit                       the storage quota of every user
+     */
+    public StorageQuotaService(
+        StorageUsageRepository storageUsageRepository,
+        UploadReservationRepository uploadReservationRepository,
+        @Value("${app.quota.default-limit:15GB}") DataSize limit
+    ) {
+        this.storageUsageRepository = storageUsageRepository;
+        this.uploadReservationRepository = uploadReservationRepository;
+        this.limitBytes = limit.toBytes();
+    }
+
+    /**
+     * Ensures that a user can store a file of the given size, on top of their files and of their
+     * reserved uploads.
+     *
+     * @param userId the ID of the user
+     * @param size   the size of the file in bytes
+     *
+     * @throws QuotaExceededException if the file does not fit in the remaining quota
+     */
+    @Transactional
+    public void checkQuota(UUID userId, long size) {
+        storageUsageRepository.lock(userId);
+        long usedBytes = storageUsageRepository.getUsedBytes(userId)
+            + uploadReservationRepository.getReservedBytes(userId);
+        if (size > limitBytes - usedBytes) {
+            throw new QuotaExceededException(
+                "Storing this file would exceed the storage quota of " + limitBytes + " bytes"
+            );
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.dto.CopyJobResponse;
+import com.bytebandit.fileservice.enums.CopyJobStatus;
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.exception.ItemNotFoundException;
+import com.bytebandit.fileservice.exception.QuotaExceededException;
+import com.bytebandit.fileservice.exception.ServiceBusyException;
+import com.bytebandit.fileservice.repository.SubtreeCopyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Copies whole subtrees in the background. A copy is started as a job whose progress can be
+ * polled by the user who started it.
+ *
+ * <p>The subtree is walked breadth-first: each level of folders is read through a cursor and
+ * its children are inserted in JDBC batches with IDs generated up front, so a level only needs
+ * the previous one to be in place. Once the children of the copied item are in place, each of
+ * its sub-folders is an independent subtree, and those subtrees are copied concurrently on a
+ * bounded worker pool. When the pool and its queue are full the job copies the subtree itself,
+ * which keeps the number of queued subtrees bounded. Once every subtree is copied, the rollups
+ * of the copy are recomputed from the items actually copied.
+ *
+ * <p>The size of the subtree is reserved against the storage quota of the user when the job is
+ * started, under the same lock as uploads reserve their objects, and released when the job
+ * finishes. Concurrent copies and uploads therefore cannot exceed the quota together, at the
+ * price of counting the files copied so far twice while the job runs.
+ *
+ * <p>Jobs are kept in memory by the instance that runs them, until a while after they finish.
+ * Only a bounded number of jobs can wait for one of the running jobs to finish; beyond that new
+ * copies are refused until the backlog drains.
+ */
+@Slf4j
+@Service
+public class SubtreeCopyService {
+
+    private static final int FRONTIER_CHUNK_SIZE = 500;
+    private static final String RESERVATION_PREFIX = "copies/";
+
+    private final SubtreeCopyRepository subtreeCopyRepository;
+    private final UploadReservationService uploadReservationService;
+    private final Duration reservationTtl;
+    private final ExecutorService jobExecutor;
+    private final ExecutorService workerExecutor;
+    private final Cache<UUID, CopyJob> jobs;
+
+    /**
+     * Constructor for SubtreeCopyService.
+     *
+     * @param subtreeCopyRepository    SubtreeCopyRepository
+     * @param uploadReservationService UploadReservationService
+     * @param maxConcurrentJobs        maximum number of copy jobs running at the same time
+     * @param jobQueueCapacity         number of copy jobs waiting for a running job to finish
+     * @param parallelism              number of subtrees copied at the same time across all jobs
+     * @param queueCapacity            number of subtrees waiting for a worker
+     * @param retention                how long a finished job can still be polled
+     * @param reservationTtl           how long the quota of a job stays reserved if the job is lost
+     */
+    public SubtreeCopyService(
+        SubtreeCopyRepository subtreeCopyRepository,
+        UploadReservationService uploadReservationService,
+        @Value("${app.copy.max-concurrent-jobs:2}") int maxConcurrentJobs,
+        @Value("${app.copy.job-queue-capacity:16}") int jobQueueCapacity,
+        @Value("${app.copy.parallelism:4}") int parallelism,
+        @Value("${app.copy.queue-capacity:64}") int queueCapacity,
+        @Value("${app.copy.job-retention:PT1H}") Duration retention,
+        @Value("${app.copy.reservation-ttl:PT24H}") Duration reservationTtl
+    ) {
+        this.subtreeCopyRepository = subtreeCopyRepository;
+        this.uploadReservationService = uploadReservationService;
+        this.reservationTtl = reservationTtl;
+        this.jobExecutor = new ThreadPoolExecutor(
+            maxConcurrentJobs, maxConcurrentJobs,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(jobQueueCapacity),
+            new CustomizableThreadFactory("copy-job-")
+        );
+        this.workerExecutor = new ThreadPoolExecutor(
+            parallelism, parallelism,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("copy-worker-"),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.jobs = Caffeine.newBuilder()
+            .expireAfter(new FinishedJobExpiry(retention))
+            .build();
+    }
+
+    /**
+     * Starts copying an item and its subtree below a new parent. The copies are owned by the
+     * user starting the job, so the job is only started when the files of the subtree fit in the
+     * remaining storage quota of the user, which they are reserved from until the job finishes.
+     *
+     * @param itemId   the ID of the item to copy
+     * @param parentId the ID of the folder receiving the copy
+     * @param userId   the ID of the user starting the job
+     *
+     * @return the state of the new job
+     * @throws QuotaExceededException if the subtree does not fit in the remaining quota
+     * @throws ServiceBusyException if too many copy jobs are already waiting
+     */
+    public CopyJobResponse startCopy(UUID itemId, UUID parentId, UUID userId) {
+        CopyJob job = new CopyJob(UUID.randomUUID(), itemId, userId);
+        uploadReservationService.reserve(
+            userId,
+            Map.of(reservationKey(job), subtreeCopyRepository.subtreeSize(itemId)),
+            reservationTtl
+        );
+        jobs.put(job.getId(), job);
+        try {
+            jobExecutor.execute(() -> runJob(job, parentId));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.getId());
+            releaseReservation(job);
+            throw new ServiceBusyException("Too many copies are in progress, try again later");
+        }
+        return job.toResponse();
+    }
+
+    /**
+     * Returns the state of a copy job.
+     *
+     * @param jobId  the ID of the job
+     * @param userId the ID of the user asking
+     *
+     * @return the state of the job
+     * @throws ItemNotFoundException if there is no such job for the user
+     */
+    public CopyJobResponse getJob(UUID jobId, UUID userId) {
+        CopyJob job = jobs.getIfPresent(jobId);
+        if (job == null || !job.getUserId().equals(userId)) {
+            throw new ItemNotFoundException("Copy job not found");
+        }
+        return job.toResponse();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+        workerExecutor.shutdownNow();
+    }
+
+    private void runJob(CopyJob job, UUID parentId) {
+        job.start(subtreeCopyRepository.countSubtree(job.getSourceItemId()));
+        UUID copyId = UUID.randomUUID();
+        boolean rootCopied = false;
+        try {
+            FileSystemItemType type = subtreeCopyRepository.copyItem(
+                job.getSourceItemId(), copyId, parentId, job.getUserId()
+            );
+            rootCopied = true;
+            job.setCopiedItemId(copyId);
+            job.addCopied(1);
+
+            if (type == FileSystemItemType.FOLDER) {
+                Map<UUID, UUID> subFolders = new LinkedHashMap<>();
+                subtreeCopyRepository.copyChildren(
+                    Map.of(job.getSourceItemId(), copyId),
+                    job.getUserId(),
+                    subFolders::put,
+                    job::addCopied
+                );
+                CompletableFuture.allOf(subFolders.entrySet().stream()
+                    .map(folder -> CompletableFuture.runAsync(
+                        () -> copySubtree(job, Map.of(folder.getKey(), folder.getValue())),
+                        workerExecutor
+                    ))
+                    .toArray(CompletableFuture[]::new)
+                ).join();
+                subtreeCopyRepository.reconcileRollups(copyId);
+            }
+            finish(job, CopyJobStatus.COMPLETED, null);
+            log.info("Copy job {} copied {} items", job.getId(), job.getCopiedItems());
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null
+                ? e.getCause()
+                : e;
+            log.error("Copy job {} failed", job.getId(), cause);
+            if (rootCopied) {
+                discardPartialCopy(copyId);
+            }
+            finish(job, CopyJobStatus.FAILED, cause.getMessage());
+        }
+    }
+
+    /**
+     * Copies the subtrees below the given folders level by level. The frontier holds the folders
+     * of the current level, mapped to their copies, and is processed in chunks so that the
+     * array of parent IDs sent with each query stays small.
+     */
+    private void copySubtree(CopyJob job, Map<UUID, UUID> frontier) {
+        Map<UUID, UUID> level = frontier;
+        while (!level.isEmpty()) {
+            Map<UUID, UUID> nextLevel = new HashMap<>();
+            List<Map.Entry<UUID, UUID>> folders = new ArrayList<>(level.entrySet());
+            for (int from = 0; from < folders.size(); from += FRONTIER_CHUNK_SIZE) {
+                Map<UUID, UUID> chunk = new HashMap<>();
+                folders.subList(from, Math.min(from + FRONTIER_CHUNK_SIZE, folders.size()))
+                    .forEach(folder -> chunk.put(folder.getKey(), folder.getValue()));
+                subtreeCopyRepository.copyChildren(
+                    chunk,
+                    job.getUserId(),
+                    nextLevel::put,
+                    job::addCopied
+                );
+            }
+            level = nextLevel;
+        }
+    }
+
+    private void discardPartialCopy(UUID copyId) {
+        try {
+            subtreeCopyRepository.deleteSubtree(copyId);
+        } catch (RuntimeException e) {
+            log.error("Failed to discard partial copy {}", copyId, e);
+        }
+    }
+
+    private void releaseReservation(CopyJob job) {
+        try {
+            uploadReservationService.release(reservationKey(job));
+        } catch (RuntimeException e) {
+            log.error("Failed to release the quota reserved by copy job {}", job.getId(), e);
+        }
+    }
+
+    private static String reservationKey(CopyJob job) {
+        return RESERVATION_PREFIX + job.getId();
+    }
+
+    private void finish(CopyJob job, CopyJobStatus status, String error) {
+        releaseReservation(job);
+        job.finish(status, error);
+        // Writing the job again starts its retention period
+        jobs.put(job.getId(), job);
+    }
+
+    private static final class CopyJob {
+
+        private final UUID id;
+        private final UUID sourceItemId;
+        private final UUID userId;
+        private final AtomicLong copiedItems = new AtomicLong();
+        private volatile CopyJobStatus status = CopyJobStatus.PENDING;
+        private volatile long totalItems;
+        private volatile UUID copiedItemId;
+        private volatile String error;
+
+        private CopyJob(UUID id, UUID sourceItemId, UUID userId) {
+            this.id = id;
+            this.sourceItemId = sourceItemId;
+            this.userId = userId;
+        }
+
+        UUID getId() {
+            return id;
+        }
+
+        UUID getSourceItemId() {
+            return sourceItemId;
+        }
+
+        UUID getUserId() {
+            return userId;
+        }
+
+        long getCopiedItems() {
+            return copiedItems.get();
+        }
+
+        boolean isFinished() {
+            return status == CopyJobStatus.COMPLETED || status == CopyJobStatus.FAILED;
+        }
+
+        void start(long totalItems) {
+            this.totalItems = totalItems;
+            this.status = CopyJobStatus.RUNNING;
+        }
+
+        void setCopiedItemId(UUID copiedItemId) {
+            this.copiedItemId = copiedItemId;
+        }
+
+        void addCopied(long count) {
+            copiedItems.addAndGet(count);
+        }
+
+        void finish(CopyJobStatus status, String error) {
+            this.error = error;
+            this.status = status;
+        }
+
+        CopyJobResponse toResponse() {
+            return CopyJobResponse.builder()
+                .jobId(id)
+                .status(status)
+                .sourceItemId(sourceItemId)
+                .copiedItemId(status == CopyJobStatus.FAILED ? null : copiedItemId)
+                .totalItems(totalItems)
+                .copiedItems(copiedItems.get())
+                .error(error)
+                .build();
+        }
+    }
+
+    private record FinishedJobExpiry(Duration retention) implements Expiry<UUID, CopyJob> {
+
+        @Override
+        public long expireAfterCreate(UUID key, CopyJob job, long currentTime) {
+            return job.isFinished() ? retention.toNanos() : Long.MAX_VALUE;
+        }
+
+        @Override
+        public long expireAfterUpdate(
+            UUID key,
+            CopyJob job,
+            long currentTime,
+            long currentDuration
+        ) {
+            return expireAfterCreate(key, job, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(
+            UUID key,
+            CopyJob job,
+            long currentTime,
+            long currentDuration
+        ) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.bytebandit.fileservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Local disk cache of thumbnails, bounded by the total size of the cached files and evicting the
+ * least recently used ones first. Only the index lives on the heap; the files of a previous run
+ * are removed at startup since the index does not survive restarts.
+ */
+@Slf4j
+@Component
+public class ThumbnailCache {
+
+    private final Path directory;
+    private final Cache<String, CachedFile> cache;
+
+    /**
+     * Constructor for ThumbnailCache.
+     *
+     * @param directory     directory holding the cached files
+     * @param maximumSize   maximum total size of the cached files
+     * @param meterRegistry registry receiving the hit, miss and eviction metrics
+     */
+    public ThumbnailCache(
+        @Value("${app.thumbnails.cache.directory:${java.io.tmpdir}/oakcan-thumbnails}")
+        Path directory,
+        @Value("${app.thumbnails.cache.maximum-size:512MB}") DataSize maximumSize,
+        MeterRegistry meterRegistry
+    ) {
+        this.directory = directory;
+        clearDirectory();
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maximumSize.toBytes())
+            .weigher((String key, CachedFile file) -> file.length())
+            // evict on the calling thread, so that the files on disk never outgrow the bound
+            .executor(Runnable::run)
+            .removalListener((String key, CachedFile file, RemovalCause cause) -> {
+                if (file != null) {
+                    deleteQuietly(file.path());
+                }
+            })
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "thumbnails");
+    }
+
+    /**
+     * Returns the content of a thumbnail, loading and caching it on a miss.
+     *
+     * @param key    the key of the thumbnail
+     * @param loader loads the content of the thumbnail on a miss
+     *
+     * @return the content of the thumbnail
+     */
+    public byte[] get(String key, Function<String, byte[]> loader) {
+        CachedFile file = cache.get(key, missing -> store(loader.apply(missing)));
+        try {
+            return Files.readAllBytes(file.path());
+        } catch (NoSuchFileException e) {
+            // evicted between the lookup and the read
+            return loader.apply(key);
+        } catch (IOException e) {
+            cache.invalidate(key);
+            throw new UncheckedIOException("Failed to read cached thumbnail " + key, e);
+        }
+    }
+
+    /**
+     * Writes a loaded thumbnail to a file of its own. The entry is only published once the file
+     * is complete, so readers never see a partial file.
+     */
+    private CachedFile store(byte[] content) {
+        Path path = directory.resolve(UUID.randomUUID() + ".jpg");
+        try {
+            Files.write(path, content);
+        } catch (IOException e) {
+            deleteQuietly(path);
+            throw new UncheckedIOException("Failed to cache thumbnail", e);
+        }
+        return new CachedFile(path, content.length);
+    }
+
+    private void clearDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(this::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to prepare thumbnail cache " + directory, e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete cached thumbnail {}", path, e);
+        }
+    }
+
+    private record CachedFile(Path path, int length) {
+    }
+}
@@ -0,0 +1,272 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.exception.ItemNotFoundException;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.repository.BlobRepository;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import jakarta.annotation.PreDestroy;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Makes and serves thumbnails of images. Thumbnails are made once per stored content, after its
+ * upload completes, on a bounded pool; when the pool and its queue are full, the caller makes the
+ * thumbnail itself, which slows down the upload events instead of piling up work. A thumbnail is
+ * stored next to its original and served through the local {@link ThumbnailCache}.
+ */
+@Slf4j
+@Service
+public class ThumbnailService {
+
+    private static final Set<String> SUPPORTED_TYPES =
+        Set.of("image/jpeg", "image/png", "image/gif", "image/bmp");
+
+    private static final String THUMBNAIL_SUFFIX = ".thumbnail.jpg";
+
+    private final S3Client s3Client;
+    private final BlobRepository blobRepository;
+    private final FileSystemItemRepository fileSystemItemRepository;
+    private final ItemViewService itemViewService;
+    private final ThumbnailCache thumbnailCache;
+    private final int thumbnailSize;
+    private final long maxSourceSize;
+    private final ExecutorService thumbnailExecutor;
+
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    /**
+     * Constructor for ThumbnailService.
+     *
+     * @param s3Client                 S3Client
+     * @param blobRepository           BlobRepository
+     * @param fileSystemItemRepository FileSystemItemRepository
+     * @param itemViewService          ItemViewService
+     * @param thumbnailCache           ThumbnailCache
+     * @param thumbnailSize            length of the longer side of thumbnails, in pixels
+     * @param maxSourceSize            size above which images get no thumbnail
+     * @param workerThreads            number of threads making thumbnails
+     * @param queueCapacity            number of thumbnails waiting for a thread
+     */
+    public ThumbnailService(
+        S3Client s3Client,
+        BlobRepository blobRepository,
+        FileSystemItemRepository fileSystemItemRepository,
+        ItemViewService itemViewService,
+        ThumbnailCache thumbnailCache,
+        @Value("${app.thumbnails.size:256}") int thumbnailSize,
+        @Value("${app.thumbnails.max-source-size:32MB}") DataSize maxSourceSize,
+        @Value("${app.thumbnails.worker-threads:2}") int workerThreads,
+        @Value("${app.thumbnails.queue-capacity:100}") int queueCapacity
+    ) {
+        this.s3Client = s3Client;
+        this.blobRepository = blobRepository;
+        this.fileSystemItemRepository = fileSystemItemRepository;
+        this.itemViewService = itemViewService;
+        this.thumbnailCache = thumbnailCache;
+        this.thumbnailSize = thumbnailSize;
+        this.maxSourceSize = maxSourceSize.toBytes();
+        this.thumbnailExecutor = new ThreadPoolExecutor(
+            workerThreads, workerThreads,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("thumbnail-"),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    @PreDestroy
+    void shutdown() {
+        thumbnailExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the key of the thumbnail of an object, next to the object itself.
+     *
+     * @param objectKey the key of the original object
+     *
+     * @return the key of the thumbnail
+     */
+    public static String thumbnailKey(String objectKey) {
+        return objectKey + THUMBNAIL_SUFFIX;
+    }
+
+    /**
+     * Tells whether an object is a thumbnail written by this service, rather than an upload.
+     *
+     * @param objectKey the key of the object
+     *
+     * @return whether the key is the key of a thumbnail
+     */
+    public static boolean isThumbnailKey(String objectKey) {
+        return objectKey.endsWith(THUMBNAIL_SUFFIX);
+    }
+
+    /**
+     * Schedules the thumbnail of an uploaded image, unless it is not an image, too large, or its
+     * content already has a thumbnail.
+     *
+     * @param contentHash the SHA-256 of the content
+     * @param objectKey   the key of the object holding the content
+     * @param mimeType    the content type of the object
+     * @param size        the size of the object in bytes
+     */
+    public void requestThumbnail(String contentHash, String objectKey, String mimeType, long size) {
+        if (mimeType == null || !SUPPORTED_TYPES.contains(mimeType) || size > maxSourceSize) {
+            return;
+        }
+        thumbnailExecutor.execute(() -> makeThumbnail(contentHash, objectKey));
+    }
+
+    /**
+     * Returns the thumbnail of a file the user may view. The content hash of the file doubles as
+     * ETag, so a revalidated thumbnail is answered without its content.
+     *
+     * @param itemId      the ID of the file
+     * @param unlockToken the unlock token of the file, if protected
+     * @param userId      the ID of the user making the request
+     * @param ifNoneMatch the If-None-Match header, if any
+     *
+     * @return the thumbnail, without content if the client already has it
+     */
+    public Thumbnail getThumbnail(
+        String itemId,
+        String unlockToken,
+        UUID userId,
+        String ifNoneMatch
+    ) {
+        itemViewService.authorizeView(itemId, null, unlockToken, userId);
+        FileSystemItemEntity item = fileSystemItemRepository.findById(UUID.fromString(itemId))
+            .orElseThrow(() -> new ItemNotFoundException("Item not found"));
+        // Folders and files whose upload is not complete have no content yet
+        String contentHash = item.getContentHash();
+        if (contentHash == null) {
+            throw new ItemNotFoundException("Thumbnail not found");
+        }
+        String etag = "\"" + contentHash + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return new Thumbnail(etag, null);
+        }
+        String thumbnailKey = blobRepository.findThumbnailKey(contentHash)
+            .orElseThrow(() -> new ItemNotFoundException("Thumbnail not found"));
+        byte[] content = thumbnailCache.get(thumbnailKey, key -> s3Client.getObjectAsBytes(
+            request -> request.bucket(bucketName).key(key)
+        ).asByteArray());
+        return new Thumbnail(etag, content);
+    }
+
+    private void makeThumbnail(String contentHash, String objectKey) {
+        if (blobRepository.findThumbnailKey(contentHash).isPresent()) {
+            return;
+        }
+        try {
+            BufferedImage image;
+            try (InputStream content = s3Client.getObject(request -> request
+                .bucket(bucketName)
+                .key(objectKey))) {
+                image = readSubsampled(content);
+            }
+            if (image == null) {
+                log.debug("Object {} is not a readable image", objectKey);
+                return;
+            }
+            ByteArrayOutputStream thumbnail = new ByteArrayOutputStream();
+            ImageIO.write(scale(image), "jpg", thumbnail);
+            String thumbnailKey = thumbnailKey(objectKey);
+            s3Client.putObject(
+                request -> request.bucket(bucketName).key(thumbnailKey).contentType("image/jpeg"),
+                RequestBody.fromBytes(thumbnail.toByteArray())
+            );
+            blobRepository.setThumbnailKey(contentHash, thumbnailKey);
+        } catch (IOException | SdkException e) {
+            log.warn("Failed to make the thumbnail of object {}", objectKey, e);
+        }
+    }
+
+    /**
+     * Decodes an image, skipping pixels while reading when it is much larger than the thumbnail,
+     * so that large photos are never fully decoded in memory.
+     */
+    private BufferedImage readSubsampled(InputStream content) throws IOException {
+        try (ImageInputStream input = new MemoryCacheImageInputStream(content)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longerSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longerSide / (thumbnailSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image so that its longer side fits the thumbnail size, on a white background
+     * since JPEG has no transparency.
+     */
+    private BufferedImage scale(BufferedImage image) {
+        double ratio = Math.min(
+            1.0,
+            (double) thumbnailSize / Math.max(image.getWidth(), image.getHeight())
+        );
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(
+                RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR
+            );
+            graphics.setRenderingHint(
+                RenderingHints.KEY_RENDERING,
+                RenderingHints.VALUE_RENDER_QUALITY
+            );
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    /**
+     * A thumbnail ready to be sent.
+     *
+     * @param etag    the ETag of the thumbnail
+     * @param content the JPEG content, null when the client already has it
+     */
+    public record Thumbnail(String etag, byte[] content) {
+    }
+}
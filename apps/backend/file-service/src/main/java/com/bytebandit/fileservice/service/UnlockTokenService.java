@@ -0,0 +1,131 @@
+package com.bytebandit.fileservice.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues and verifies unlock tokens. An unlock token is handed out once a user has entered the
+ * correct password of a protected public share, and lets that user view the shared item until
+ * the token expires without checking the password again. A token unlocks that one item only, as
+ * the items below it may be protected by passwords of their own.
+ *
+ * <p>A token is the item ID, user ID and expiry, followed by an HMAC-SHA256 of those fields.
+ */
+@Slf4j
+@Service
+public class UnlockTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String SEPARATOR = ".";
+    private static final int PAYLOAD_LENGTH = 2 * 2 * Long.BYTES + Long.BYTES;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+
+    /**
+     * Constructor for UnlockTokenService. Without a configured secret a random one is generated,
+     * in which case tokens are only accepted by the instance that issued them.
+     *
+     * @param secret the secret used to sign tokens
+     * @param ttl    how long an issued token stays valid
+     */
+    public UnlockTokenService(
+        @Value("${app.unlock-token.secret:}") String secret,
+        @Value("${app.unlock-token.ttl:PT15M}") Duration ttl
+    ) {
+        byte[] secretBytes;
+        if (secret.isBlank()) {
+            log.warn("No unlock token secret configured, using a random one for this instance");
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.ttl = ttl;
+    }
+
+    /**
+     * Issues a token unlocking an item for a user.
+     *
+     * @param itemId the ID of the unlocked item
+     * @param userId the ID of the user who entered the password
+     *
+     * @return the signed token
+     */
+    public String issue(UUID itemId, UUID userId) {
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+            .putLong(itemId.getMostSignificantBits())
+            .putLong(itemId.getLeastSignificantBits())
+            .putLong(userId.getMostSignificantBits())
+            .putLong(userId.getLeastSignificantBits())
+            .putLong(Instant.now().plus(ttl).getEpochSecond())
+            .array();
+        return ENCODER.encodeToString(payload) + SEPARATOR + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Verifies a token and returns the item it unlocks. Tokens that are malformed, tampered
+     * with, expired or issued to another user unlock nothing.
+     *
+     * @param token  the token sent by the client, may be null
+     * @param userId the ID of the user presenting the token
+     *
+     * @return the ID of the unlocked item, or empty if the token is not valid
+     */
+    public Optional<UUID> verify(String token, UUID userId) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int separator = token.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return Optional.empty();
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (payload.length != PAYLOAD_LENGTH || !MessageDigest.isEqual(sign(payload), signature)) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        UUID itemId = new UUID(buffer.getLong(), buffer.getLong());
+        UUID tokenUserId = new UUID(buffer.getLong(), buffer.getLong());
+        long expiresAt = buffer.getLong();
+        if (!tokenUserId.equals(userId) || Instant.now().getEpochSecond() >= expiresAt) {
+            return Optional.empty();
+        }
+        return Optional.of(itemId);
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign unlock token", e);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.bytebandit.fileservice.service;
 
 import com.bytebandit.fileservice.dto.CopyItemRequest;
+import com.bytebandit.fileservice.dto.CopyJobResponse;
 import com.bytebandit.fileservice.dto.MoveItemRequest;
 import com.bytebandit.fileservice.dto.UpdateItemRequest;
 import com.bytebandit.fileservice.exception.ItemNotFoundException;
 import com.bytebandit.fileservice.exception.MoveItemFailedException;
+import com.bytebandit.fileservice.exception.MultipartUploadException;
 import com.bytebandit.fileservice.exception.NotEnoughPermissionException;
 import com.bytebandit.fileservice.model.FileSystemItemEntity;
 import com.bytebandit.fileservice.repository.FileSystemItemRepository;
@@ -18,6 +20,9 @@ public class UpdateItemService {
 
     private final FileSystemItemRepository fileSystemItemRepository;
     private final RoleBasedAccessControlService roleBasedAccessControlService;
+    private final PermissionResolutionContext permissionResolutionContext;
+    private final PermissionCache permissionCache;
+    private final SubtreeCopyService subtreeCopyService;
 
     /**
      * Updates the item with the given ID.
@@ -58,12 +63,22 @@ public class UpdateItemService {
                 convertToUuid(request.getItemId())
             ).orElseThrow(() -> new ItemNotFoundException("Item not found"));
 
-            if (itemThatWillBeMoved.getParent().getId().equals(
-                convertToUuid(request.getParentId()))
+            if (itemThatWillBeMoved.getParent() != null
+                && itemThatWillBeMoved.getParent().getId().equals(
+                    convertToUuid(request.getParentId()))
             ) {
                 throw new MoveItemFailedException("Item is already in the requested parent");
             }
 
+            if (fileSystemItemRepository.isAncestorOrSelf(
+                itemThatWillBeMoved.getId(),
+                convertToUuid(request.getParentId()))
+            ) {
+                throw new MoveItemFailedException(
+                    "Item cannot be moved into itself or one of its descendants"
+                );
+            }
+
             FileSystemItemEntity parentItem = fileSystemItemRepository.findById(
                 convertToUuid(request.getParentId())
             ).orElseThrow(() -> new ItemNotFoundException("Parent item not found"));
@@ -71,35 +86,57 @@ public class UpdateItemService {
 
             itemThatWillBeMoved.setParent(parentItem);
             fileSystemItemRepository.save(itemThatWillBeMoved);
+            permissionResolutionContext.invalidate();
+            permissionCache.evictSubtree(itemThatWillBeMoved.getId());
+            return "Item moved successfully";
         }
         throw new MoveItemFailedException("You do not have permission to move this item");
     }
 
     /**
-     * Copies the item with the given ID to the specified parent ID.
+     * Starts copying the item with the given ID, together with its whole subtree, to the
+     * specified parent ID. The copy runs in the background and is tracked by the returned job.
      *
      * @param request the copy item request
      * @param userId the ID of the user making the request
-     * @return a message indicating the result of the operation
-     * @throws MoveItemFailedException if the user does not have permission to copy the item
+     * @return the copy job
+     * @throws MoveItemFailedException if the user does not have permission to copy the item or
+     *                                 the parent is inside the copied subtree
      */
-    public String copyItem(CopyItemRequest request, String userId) {
+    public CopyJobResponse copyItem(CopyItemRequest request, String userId) {
         if (checkPermission(request.getItemId(), userId) && checkPermission(request.getParentId(),
             userId)) {
-            FileSystemItemEntity itemThatWillBeCopied = fileSystemItemRepository.findById(
-                convertToUuid(request.getItemId())
-            ).orElseThrow(() -> new ItemNotFoundException("Item not found while copying"));
-
-            FileSystemItemEntity parentItem = fileSystemItemRepository.findById(
-                convertToUuid(request.getParentId())
-            ).orElseThrow(() -> new ItemNotFoundException("Parent item not found while copying."));
+            final UUID itemId = convertToUuid(request.getItemId());
+            final UUID parentId = convertToUuid(request.getParentId());
 
-            itemThatWillBeCopied.setId(null);
-            itemThatWillBeCopied.setParent(parentItem);
+            FileSystemItemEntity item = fileSystemItemRepository.findById(itemId)
+                .orElseThrow(() -> new ItemNotFoundException("Item not found while copying"));
+            if (MultipartUploadService.isUploading(item)) {
+                throw new MultipartUploadException("An upload in progress cannot be copied");
+            }
+            if (!fileSystemItemRepository.existsById(parentId)) {
+                throw new ItemNotFoundException("Parent item not found while copying.");
+            }
+            if (fileSystemItemRepository.isAncestorOrSelf(itemId, parentId)) {
+                throw new MoveItemFailedException(
+                    "Item cannot be copied into itself or one of its descendants"
+                );
+            }
 
-            fileSystemItemRepository.save(itemThatWillBeCopied);
+            return subtreeCopyService.startCopy(itemId, parentId, convertToUuid(userId));
         }
-        throw new MoveItemFailedException("You do not have permission to move this item");
+        throw new MoveItemFailedException("You do not have permission to copy this item");
+    }
+
+    /**
+     * Returns the progress of a copy job started by the user.
+     *
+     * @param jobId the ID of the copy job
+     * @param userId the ID of the user making the request
+     * @return the copy job
+     */
+    public CopyJobResponse getCopyJob(UUID jobId, String userId) {
+        return subtreeCopyService.getJob(jobId, convertToUuid(userId));
     }
 
     private boolean checkPermission(String itemId, String userId) {
@@ -0,0 +1,361 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ChecksumMode;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+/**
+ * Completes uploads from the S3 event notifications delivered to an SQS queue. Pollers long-poll
+ * the queue for batches of messages, the messages of a batch are handled concurrently on a bounded
+ * pool, and the handled messages are deleted with one batch call. Each created object marks the
+ * files stored in it as uploaded, with the size and content type read from the object itself,
+ * deduplicates its content through the {@link BlobService} and requests its thumbnail from the
+ * {@link ThumbnailService}.
+ * A message is kept when its object has no file yet, since the file is usually recorded right
+ * after the upload finishes, and it is handled again once the queue redelivers it. After the
+ * configured number of receives it is dropped, since an upload whose file was never recorded
+ * would otherwise come back until the queue retention expires. Thumbnails written by the
+ * {@link ThumbnailService} and blobs copied by the {@link BlobService} land in the same bucket and
+ * are skipped.
+ *
+ * <p>Messages are received with the configured visibility timeout, and while a batch is being
+ * handled the timeout of its unfinished messages is extended every half timeout. Hashing a large
+ * object can take longer than any fixed timeout, and a message becoming visible meanwhile would
+ * have another handler hash the same object again.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "aws.sqs.enabled", havingValue = "true")
+public class UploadEventConsumer implements SmartLifecycle {
+
+    /**
+     * The maximum number of messages SQS returns for one receive.
+     */
+    private static final int MAX_MESSAGES = 10;
+
+    private static final long RETRY_DELAY_MILLIS = 1000L;
+
+    private final SqsClient sqsClient;
+    private final S3Client s3Client;
+    private final FileSystemItemRepository fileSystemItemRepository;
+    private final BlobService blobService;
+    private final ThumbnailService thumbnailService;
+    private final ObjectMapper objectMapper;
+    private final String queueUrl;
+    private final int pollers;
+    private final int waitTimeSeconds;
+    private final int visibilityTimeoutSeconds;
+    private final int maxReceives;
+    private final ExecutorService handlerExecutor;
+    private final ScheduledExecutorService heartbeatExecutor;
+
+    private ExecutorService pollerExecutor;
+    private volatile boolean running;
+
+    /**
+     * Constructor for UploadEventConsumer.
+     *
+     * @param sqsClient                SqsClient
+     * @param s3Client                 S3Client
+     * @param fileSystemItemRepository FileSystemItemRepository
+     * @param blobService              BlobService
+     * @param thumbnailService         ThumbnailService
+     * @param objectMapper             ObjectMapper
+     * @param queueUrl                 URL of the queue receiving the S3 event notifications
+     * @param pollers                  number of threads long-polling the queue
+     * @param handlerThreads           number of threads handling received messages
+     * @param waitTime                 how long a receive waits for messages, at most 20 seconds
+     * @param visibilityTimeout        how long received messages stay hidden from other
+     *                                 consumers, extended by as much while they are handled
+     * @param maxReceives              number of receives after which a message for an object
+     *                                 without file is dropped
+     */
+    public UploadEventConsumer(
+        SqsClient sqsClient,
+        S3Client s3Client,
+        FileSystemItemRepository fileSystemItemRepository,
+        BlobService blobService,
+        ThumbnailService thumbnailService,
+        ObjectMapper objectMapper,
+        @Value("${aws.sqs.queue-url}") String queueUrl,
+        @Value("${app.upload.events.pollers:1}") int pollers,
+        @Value("${app.upload.events.handler-threads:8}") int handlerThreads,
+        @Value("${app.upload.events.wait-time:PT20S}") Duration waitTime,
+        @Value("${app.upload.events.visibility-timeout:PT2M}") Duration visibilityTimeout,
+        @Value("${app.upload.events.max-receives:10}") int maxReceives
+    ) {
+        this.sqsClient = sqsClient;
+        this.s3Client = s3Client;
+        this.fileSystemItemRepository = fileSystemItemRepository;
+        this.blobService = blobService;
+        this.thumbnailService = thumbnailService;
+        this.objectMapper = objectMapper;
+        this.queueUrl = queueUrl;
+        this.pollers = pollers;
+        this.waitTimeSeconds = (int) waitTime.toSeconds();
+        this.visibilityTimeoutSeconds = (int) visibilityTimeout.toSeconds();
+        this.maxReceives = maxReceives;
+        this.handlerExecutor = new ThreadPoolExecutor(
+            handlerThreads, handlerThreads,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_MESSAGES * pollers),
+            new CustomizableThreadFactory("upload-event-handler-"),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("upload-event-heartbeat-")
+        );
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        pollerExecutor = Executors.newFixedThreadPool(
+            pollers,
+            new CustomizableThreadFactory("upload-event-poller-")
+        );
+        for (int i = 0; i < pollers; i++) {
+            pollerExecutor.execute(this::poll);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        pollerExecutor.shutdownNow();
+        handlerExecutor.shutdown();
+        heartbeatExecutor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void poll() {
+        while (running) {
+            try {
+                receiveAndHandle();
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Failed to receive upload events from {}", queueUrl, e);
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives one batch of messages, handles them concurrently and deletes the handled ones.
+     */
+    private void receiveAndHandle() {
+        List<Message> messages = sqsClient.receiveMessage(request -> request
+            .queueUrl(queueUrl)
+            .maxNumberOfMessages(MAX_MESSAGES)
+            .waitTimeSeconds(waitTimeSeconds)
+            .visibilityTimeout(visibilityTimeoutSeconds)
+            .messageSystemAttributeNames(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT)
+        ).messages();
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            results.add(CompletableFuture.supplyAsync(() -> handle(message), handlerExecutor));
+        }
+        long heartbeatMillis = visibilityTimeoutSeconds * 1000L / 2;
+        ScheduledFuture<?> heartbeat = heartbeatExecutor.scheduleAtFixedRate(
+            () -> extendVisibility(messages, results),
+            heartbeatMillis,
+            heartbeatMillis,
+            TimeUnit.MILLISECONDS
+        );
+        List<DeleteMessageBatchRequestEntry> handled = new ArrayList<>(messages.size());
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                if (results.get(i).join()) {
+                    handled.add(DeleteMessageBatchRequestEntry.builder()
+                        .id(String.valueOf(i))
+                        .receiptHandle(messages.get(i).receiptHandle())
+                        .build());
+                }
+            }
+        } finally {
+            heartbeat.cancel(false);
+        }
+        if (handled.isEmpty()) {
+            return;
+        }
+        DeleteMessageBatchResponse response = sqsClient.deleteMessageBatch(request -> request
+            .queueUrl(queueUrl)
+            .entries(handled)
+        );
+        if (response.hasFailed() && !response.failed().isEmpty()) {
+            log.warn("Failed to delete {} upload events, they will be handled again",
+                response.failed().size());
+        }
+    }
+
+    /**
+     * Extends the visibility timeout of the messages of a batch that are still being handled. A
+     * failure is only logged, since the messages are then handled again at worst.
+     */
+    private void extendVisibility(
+        List<Message> messages,
+        List<CompletableFuture<Boolean>> results
+    ) {
+        List<ChangeMessageVisibilityBatchRequestEntry> pending = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            if (!results.get(i).isDone()) {
+                pending.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(String.valueOf(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .visibilityTimeout(visibilityTimeoutSeconds)
+                    .build());
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            sqsClient.changeMessageVisibilityBatch(request -> request
+                .queueUrl(queueUrl)
+                .entries(pending)
+            );
+        } catch (RuntimeException e) {
+            log.warn("Failed to extend the visibility of {} upload events", pending.size(), e);
+        }
+    }
+
+    /**
+     * Applies the records of one message.
+     *
+     * @return whether the message is done with and can be deleted
+     */
+    private boolean handle(Message message) {
+        JsonNode records;
+        try {
+            records = objectMapper.readTree(message.body()).path("Records");
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping upload event {} that is not valid JSON", message.messageId());
+            return true;
+        }
+        boolean done = true;
+        try {
+            for (JsonNode record : records) {
+                if (!record.path("eventName").asText().startsWith("ObjectCreated:")) {
+                    continue;
+                }
+                JsonNode s3 = record.path("s3");
+                String key = URLDecoder.decode(
+                    s3.path("object").path("key").asText(),
+                    StandardCharsets.UTF_8
+                );
+                if (ThumbnailService.isThumbnailKey(key) || BlobService.isBlobKey(key)) {
+                    continue;
+                }
+                done &= completeUpload(s3.path("bucket").path("name").asText(), key);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to handle upload event {}", message.messageId(), e);
+            return false;
+        }
+        if (!done && receiveCount(message) >= maxReceives) {
+            log.warn("Dropping upload event {} received {} times without a file for its object",
+                message.messageId(), maxReceives);
+            return true;
+        }
+        return done;
+    }
+
+    private int receiveCount(Message message) {
+        String count = message.attributes()
+            .get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT);
+        return count == null ? 1 : Integer.parseInt(count);
+    }
+
+    /**
+     * Marks the files stored in a created object as uploaded and points them at the blob of its
+     * content. The files move to the object of the blob, which is copied from the upload unless
+     * the content is already stored, and the upload is deleted. The object is only hashed once a
+     * file is recorded for it, since an event arriving before its file would be hashed again on
+     * redelivery.
+     */
+    private boolean completeUpload(String bucket, String key) {
+        if (!fileSystemItemRepository.existsByObjectKey(key)) {
+            log.debug("No file is stored in object {} yet, keeping its upload event", key);
+            return false;
+        }
+        HeadObjectResponse object;
+        try {
+            object = s3Client.headObject(request -> request
+                .bucket(bucket)
+                .key(key)
+                .checksumMode(ChecksumMode.ENABLED)
+            );
+        } catch (NoSuchKeyException e) {
+            log.info("Object {} no longer exists, dropping its upload event", key);
+            return true;
+        }
+        String contentHash = blobService.contentHash(bucket, key, object);
+        String storedKey = blobService.store(bucket, key, contentHash, object);
+        int updated = fileSystemItemRepository.markUploaded(
+            key,
+            storedKey,
+            contentHash,
+            object.contentLength(),
+            object.contentType()
+        );
+        if (updated == 0) {
+            log.debug("No file is stored in object {} yet, keeping its upload event", key);
+            return false;
+        }
+        if (!storedKey.equals(key)) {
+            blobService.deleteUpload(bucket, key);
+        }
+        thumbnailService.requestThumbnail(
+            contentHash,
+            storedKey,
+            object.contentType(),
+            object.contentLength()
+        );
+        return true;
+    }
+}
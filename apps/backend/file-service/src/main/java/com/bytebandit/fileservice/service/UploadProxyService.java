@@ -0,0 +1,319 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.dto.MultipartUploadRequest;
+import com.bytebandit.fileservice.dto.MultipartUploadResponse;
+import com.bytebandit.fileservice.dto.UploadedPart;
+import com.bytebandit.fileservice.exception.MultipartUploadException;
+import com.bytebandit.fileservice.exception.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+
+/**
+ * Uploads files streamed through the service, for clients that cannot reach S3 directly. The
+ * request body is cut into parts of a fixed size that are read into direct buffers and uploaded
+ * as an S3 multipart upload while the next parts are read. Buffers come from a pool shared by all
+ * uploads, and each upload has a bounded number of parts in flight, so memory use depends on the
+ * configuration only and never on the size or number of files.
+ *
+ * <p>An upload waits for a buffer, or for a part of its window, no longer than the configured
+ * timeout. When S3 is slow or the pool is held by other uploads, the upload is then aborted and
+ * refused as busy instead of holding its request thread indefinitely.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.upload.proxy.enabled", havingValue = "true")
+public class UploadProxyService {
+
+    /**
+     * The smallest part size S3 accepts for every part but the last.
+     */
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    /**
+     * The maximum number of parts S3 accepts for one upload.
+     */
+    private static final long MAX_PARTS = 10000;
+
+    private final MultipartUploadService multipartUploadService;
+    private final int partSize;
+    private final int window;
+    private final long acquireTimeoutMillis;
+    private final Semaphore bufferPermits;
+    private final ConcurrentLinkedQueue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private final ExecutorService partExecutor;
+
+    /**
+     * Constructor for UploadProxyService.
+     *
+     * @param multipartUploadService MultipartUploadService
+     * @param partSize               size of the parts, and of each buffer
+     * @param window                 number of parts of one upload read or uploading at a time
+     * @param maxBuffers             number of buffers shared by all uploads
+     * @param parallelism            number of threads uploading parts across all uploads
+     * @param acquireTimeout         how long an upload waits for a buffer or a part of its window
+     */
+    public UploadProxyService(
+        MultipartUploadService multipartUploadService,
+        @Value("${app.upload.proxy.part-size:8MB}") DataSize partSize,
+        @Value("${app.upload.proxy.window:4}") int window,
+        @Value("${app.upload.proxy.max-buffers:32}") int maxBuffers,
+        @Value("${app.upload.proxy.parallelism:8}") int parallelism,
+        @Value("${app.upload.proxy.acquire-timeout:PT30S}") Duration acquireTimeout
+    ) {
+        if (partSize.toBytes() < MIN_PART_SIZE || partSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "The proxy part size must be between 5MB and 2GB, got " + partSize
+            );
+        }
+        this.multipartUploadService = multipartUploadService;
+        this.partSize = (int) partSize.toBytes();
+        this.window = window;
+        this.acquireTimeoutMillis = acquireTimeout.toMillis();
+        this.bufferPermits = new Semaphore(maxBuffers);
+        this.partExecutor = new ThreadPoolExecutor(
+            parallelism, parallelism,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(maxBuffers),
+            new CustomizableThreadFactory("upload-proxy-"),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    @PreDestroy
+    void shutdown() {
+        partExecutor.shutdownNow();
+    }
+
+    /**
+     * Streams a file into a new multipart upload and completes it. The upload is aborted, and
+     * the file item removed, when the body ends early, runs past its declared size or a part
+     * fails to upload.
+     *
+     * @param request the name, size, type and parent of the file
+     * @param body    the content of the file, exactly as long as its declared size
+     * @param userId  the ID of the user uploading the file
+     *
+     * @return the layout of the completed upload
+     *
+     * @throws IOException if reading the body fails
+     * @throws ServiceBusyException if no buffer or window part frees up within the timeout
+     */
+    public MultipartUploadResponse upload(
+        MultipartUploadRequest request,
+        InputStream body,
+        UUID userId
+    ) throws IOException {
+        if (request.getSize() > partSize * MAX_PARTS) {
+            throw new MultipartUploadException(
+                "Files larger than " + DataSize.ofBytes(partSize * MAX_PARTS).toGigabytes()
+                    + "GB cannot be uploaded through the service"
+            );
+        }
+        MultipartUploadResponse upload = multipartUploadService.initiate(request, userId, partSize);
+        UUID itemId = upload.getItemId();
+        try {
+            List<UploadedPart> parts =
+                streamParts(upload, Channels.newChannel(body), request.getSize(), userId);
+            multipartUploadService.recordParts(itemId, parts, userId);
+            multipartUploadService.complete(itemId, userId);
+            List<Integer> partNumbers = new ArrayList<>(parts.size());
+            parts.forEach(part -> partNumbers.add(part.getPartNumber()));
+            upload.setUploadedParts(partNumbers);
+            return upload;
+        } catch (IOException | RuntimeException e) {
+            abortQuietly(itemId, userId);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the parts of the body one after the other and uploads each on the part pool. Reading
+     * waits whenever the window of the upload, or the shared buffer pool, is used up, which holds
+     * back the client instead of growing memory. Returns once every part is uploaded; on failure,
+     * waits for the parts still in flight so that the upload can be aborted cleanly.
+     */
+    private List<UploadedPart> streamParts(
+        MultipartUploadResponse upload,
+        ReadableByteChannel channel,
+        long size,
+        UUID userId
+    ) throws IOException {
+        Semaphore inFlight = new Semaphore(window);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<UploadedPart>> parts = new ArrayList<>(upload.getPartCount());
+        try {
+            for (int partNumber = 1; partNumber <= upload.getPartCount(); partNumber++) {
+                int length = (int) Math.min(partSize, size - (long) (partNumber - 1) * partSize);
+                acquire(inFlight);
+                ByteBuffer buffer;
+                try {
+                    buffer = acquireBuffer();
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                try {
+                    fill(channel, buffer, length);
+                } catch (IOException | RuntimeException e) {
+                    releaseBuffer(buffer);
+                    inFlight.release();
+                    throw e;
+                }
+                int number = partNumber;
+                parts.add(CompletableFuture.supplyAsync(
+                    () -> multipartUploadService.uploadPart(
+                        upload.getItemId(),
+                        number,
+                        content(buffer, length),
+                        userId
+                    ),
+                    partExecutor
+                ).whenComplete((part, error) -> {
+                    releaseBuffer(buffer);
+                    inFlight.release();
+                    if (error != null) {
+                        failure.compareAndSet(null, error);
+                    }
+                }));
+                if (failure.get() != null) {
+                    break;
+                }
+            }
+            if (failure.get() == null && channel.read(ByteBuffer.allocate(1)) != -1) {
+                throw new MultipartUploadException(
+                    "The request body is longer than its declared size"
+                );
+            }
+            List<UploadedPart> uploaded = new ArrayList<>(parts.size());
+            for (CompletableFuture<UploadedPart> part : parts) {
+                uploaded.add(part.join());
+            }
+            return uploaded;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .exceptionally(error -> null)
+                .join();
+        }
+    }
+
+    private void fill(ReadableByteChannel channel, ByteBuffer buffer, int length)
+        throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                throw new MultipartUploadException(
+                    "The request body is shorter than its declared size"
+                );
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Exposes a filled buffer as a part body. Every read starts over from the beginning of the
+     * buffer, so the part can be sent again when the request is retried.
+     */
+    private RequestBody content(ByteBuffer buffer, int length) {
+        return RequestBody.fromContentProvider(
+            () -> new ByteBufferInputStream(buffer.asReadOnlyBuffer()),
+            length,
+            "application/octet-stream"
+        );
+    }
+
+    private ByteBuffer acquireBuffer() {
+        acquire(bufferPermits);
+        ByteBuffer buffer = freeBuffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(partSize);
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        freeBuffers.offer(buffer);
+        bufferPermits.release();
+    }
+
+    private void acquire(Semaphore semaphore) {
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MultipartUploadException("The upload was interrupted");
+        }
+        if (!acquired) {
+            throw new ServiceBusyException("Too many uploads are in progress, try again later");
+        }
+    }
+
+    private void abortQuietly(UUID itemId, UUID userId) {
+        try {
+            multipartUploadService.abort(itemId, userId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to abort the proxied upload of item {}", itemId, e);
+        }
+    }
+
+    /**
+     * Hands the content of a buffer to the HTTP client without an intermediate copy of the part.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.bytebandit.fileservice.service;
+
+import com.bytebandit.fileservice.exception.NotEnoughPermissionException;
+import com.bytebandit.fileservice.exception.QuotaExceededException;
+import com.bytebandit.fileservice.repository.UploadReservationRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps track of the objects handed out for upload. Every presigned upload reserves its object
+ * for the user it is presigned for, and a file can only be created on an object reserved for its
+ * owner, so the object keys of files always come from the service and never from the client.
+ * The size an object is presigned for counts against the quota of the user from the moment it is
+ * reserved, and becomes the size of its file. Copy jobs reserve the size of the copied subtree
+ * the same way for as long as they run.
+ */
+@Service
+@RequiredArgsConstructor
+public class UploadReservationService {
+
+    private final UploadReservationRepository uploadReservationRepository;
+    private final StorageQuotaService storageQuotaService;
+
+    @Value("${app.upload.reservation-ttl:PT1H}")
+    private Duration reservationTtl;
+
+    @Value("${app.upload.reservation-purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    /**
+     * Reserves objects for a user until the reservation TTL is over, provided they fit in the
+     * remaining storage quota of the user together.
+     *
+     * @param userId the ID of the user
+     * @param sizes  the sizes the objects are presigned for, by object key
+     *
+     * @throws QuotaExceededException if the objects do not fit in the remaining quota
+     */
+    @Transactional
+    public void reserve(UUID userId, Map<String, Long> sizes) {
+        reserve(userId, sizes, reservationTtl);
+    }
+
+    /**
+     * Reserves objects for a user for the given time, provided they fit in the remaining storage
+     * quota of the user together.
+     *
+     * @param userId the ID of the user
+     * @param sizes  the sizes reserved, by object key
+     * @param ttl    how long the reservations count against the quota unless released before
+     *
+     * @throws QuotaExceededException if the objects do not fit in the remaining quota
+     */
+    @Transactional
+    public void reserve(UUID userId, Map<String, Long> sizes, Duration ttl) {
+        long totalSize = 0;
+        for (long size : sizes.values()) {
+            totalSize = Math.addExact(totalSize, size);
+        }
+        storageQuotaService.checkQuota(userId, totalSize);
+        uploadReservationRepository.reserve(userId, sizes, Instant.now().plus(ttl));
+    }
+
+    /**
+     * Ends the reservation of the object a file is created on.
+     *
+     * @param objectKey the key of the object
+     * @param userId    the ID of the owner of the file
+     *
+     * @return the size the object was presigned for
+     *
+     * @throws NotEnoughPermissionException if the object is not reserved for the user
+     */
+    public long consume(String objectKey, UUID userId) {
+        return uploadReservationRepository.consume(objectKey, userId)
+            .orElseThrow(() -> new NotEnoughPermissionException(
+                "The object of this file was not presigned for you or has expired"
+            ));
+    }
+
+    /**
+     * Ends a reservation that no file is created on, such as the one of a finished copy job.
+     *
+     * @param objectKey the key the reservation was made for
+     */
+    public void release(String objectKey) {
+        uploadReservationRepository.release(objectKey);
+    }
+
+    /**
+     * Deletes the reservations of objects no file was created on in time.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.reservation-purge-interval:PT10M}")
+    public void purgeExpired() {
+        int deleted;
+        do {
+            deleted = uploadReservationRepository.deleteExpired(Instant.now(), purgeBatchSize);
+        } while (deleted >= purgeBatchSize);
+    }
+}
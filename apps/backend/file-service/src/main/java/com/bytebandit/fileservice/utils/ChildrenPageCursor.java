@@ -0,0 +1,66 @@
+package com.bytebandit.fileservice.utils;
+
+import com.bytebandit.fileservice.enums.ChildrenSortKey;
+import com.bytebandit.fileservice.exception.InvalidPageRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque position inside a sorted list of children. It carries the sort order it was issued for
+ * together with the sort value and id of the last child returned, which is where the next page
+ * resumes. A last child without sort value is encoded without the value part, so that it cannot
+ * be mistaken for a child whose sort value is the text "null".
+ */
+public record ChildrenPageCursor(
+    ChildrenSortKey sortKey,
+    boolean descending,
+    String lastValue,
+    UUID lastId
+) {
+
+    private static final String SEPARATOR = "\n";
+    private static final String DESCENDING = "desc";
+    private static final String ASCENDING = "asc";
+
+    /**
+     * Encodes the cursor into a URL safe token.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String raw = sortKey.getValue()
+            + SEPARATOR + (descending ? DESCENDING : ASCENDING)
+            + SEPARATOR + lastId
+            + (lastValue == null ? "" : SEPARATOR + lastValue);
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token previously produced by {@link #encode()}.
+     *
+     * @param token the encoded cursor
+     *
+     * @return the decoded cursor
+     * @throws InvalidPageRequestException if the token is malformed
+     */
+    public static ChildrenPageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length < 3
+                || !(parts[1].equals(DESCENDING) || parts[1].equals(ASCENDING))) {
+                throw new InvalidPageRequestException("Malformed page cursor");
+            }
+            return new ChildrenPageCursor(
+                ChildrenSortKey.fromValue(parts[0]),
+                parts[1].equals(DESCENDING),
+                parts.length == 4 ? parts[3] : null,
+                UUID.fromString(parts[2])
+            );
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Malformed page cursor");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+-- Resolve the permission of a user on an item with a single recursive query over the
+-- parent_id chain instead of issuing five lookups per ancestor level.
+CREATE OR REPLACE FUNCTION get_permission_recursive(
+    input_item_id UUID,
+    input_user_id UUID
+)
+    RETURNS TEXT AS '
+    SELECT CASE
+               WHEN NOT EXISTS (SELECT 1 FROM users_snapshot WHERE user_id = input_user_id)
+                   THEN ''NO_USER_FOUND''
+               ELSE (
+                   WITH RECURSIVE ancestors AS (
+                       SELECT fsi.id, fsi.parent_id, fsi.owner
+                       FROM file_system_items fsi
+                       WHERE fsi.id = input_item_id
+                       UNION
+                       SELECT parent.id, parent.parent_id, parent.owner
+                       FROM file_system_items parent
+                                JOIN ancestors a ON parent.id = a.parent_id
+                   )
+                   SELECT CASE
+                              WHEN bool_or(a.owner = input_user_id) THEN ''OWNER''
+                              WHEN bool_or(isp.permission = ''EDITOR''
+                                  OR pub.permission = ''EDITOR'') THEN ''EDITOR''
+                              WHEN bool_or(isp.permission = ''VIEWER''
+                                  OR pub.permission = ''VIEWER'') THEN ''VIEWER''
+                              ELSE ''NO_ACCESS''
+                              END
+                   FROM ancestors a
+                            LEFT JOIN shared_items_private isp
+                                      ON isp.item_id = a.id
+                                          AND isp.shared_with = input_user_id
+                            LEFT JOIN shared_items_public pub
+                                      ON pub.item_id = a.id
+                                          AND (pub.expires_at IS NULL OR pub.expires_at > NOW())
+               )
+               END;
+' LANGUAGE sql STABLE;
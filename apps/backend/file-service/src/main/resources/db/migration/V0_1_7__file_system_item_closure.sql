@@ -0,0 +1,121 @@
+-- Closure table holding one row per (ancestor, descendant) pair, including the item itself at
+-- depth 0, so that ancestor and subtree questions are answered with a single indexed lookup.
+create table file_system_item_closure
+(
+    ancestor_id   uuid    not null,
+    descendant_id uuid    not null,
+    depth         integer not null,
+    constraint pk_file_system_item_closure primary key (ancestor_id, descendant_id)
+);
+
+alter table file_system_item_closure
+    add constraint fk_file_system_item_closure_on_ancestor foreign key (ancestor_id)
+        references file_system_items (id) on delete cascade;
+
+alter table file_system_item_closure
+    add constraint fk_file_system_item_closure_on_descendant foreign key (descendant_id)
+        references file_system_items (id) on delete cascade;
+
+create index idx_file_system_item_closure_descendant
+    on file_system_item_closure (descendant_id, ancestor_id, depth);
+
+insert into file_system_item_closure (ancestor_id, descendant_id, depth)
+with recursive paths as (
+    select id as ancestor_id, id as descendant_id, 0 as depth
+    from file_system_items
+    union all
+    select p.ancestor_id, c.id, p.depth + 1
+    from paths p
+             join file_system_items c on c.parent_id = p.descendant_id
+)
+select ancestor_id, descendant_id, depth
+from paths;
+
+create or replace function file_system_item_closure_on_insert()
+    returns trigger as '
+begin
+    insert into file_system_item_closure (ancestor_id, descendant_id, depth)
+    values (new.id, new.id, 0);
+
+    if new.parent_id is not null then
+        insert into file_system_item_closure (ancestor_id, descendant_id, depth)
+        select c.ancestor_id, new.id, c.depth + 1
+        from file_system_item_closure c
+        where c.descendant_id = new.parent_id;
+    end if;
+
+    return null;
+end;
+' language plpgsql;
+
+create trigger trg_file_system_item_closure_on_insert
+    after insert
+    on file_system_items
+    for each row
+execute function file_system_item_closure_on_insert();
+
+create or replace function file_system_item_closure_on_move()
+    returns trigger as '
+begin
+    -- Detach the moved subtree from every ancestor above the moved item
+    delete
+    from file_system_item_closure link
+        using file_system_item_closure subtree,
+            file_system_item_closure former
+    where subtree.ancestor_id = new.id
+      and former.descendant_id = new.id
+      and former.ancestor_id <> new.id
+      and link.ancestor_id = former.ancestor_id
+      and link.descendant_id = subtree.descendant_id;
+
+    -- Attach it below the new parent and all of its ancestors
+    if new.parent_id is not null then
+        insert into file_system_item_closure (ancestor_id, descendant_id, depth)
+        select above.ancestor_id, subtree.descendant_id, above.depth + subtree.depth + 1
+        from file_system_item_closure above
+                 cross join file_system_item_closure subtree
+        where above.descendant_id = new.parent_id
+          and subtree.ancestor_id = new.id;
+    end if;
+
+    return null;
+end;
+' language plpgsql;
+
+create trigger trg_file_system_item_closure_on_move
+    after update of parent_id
+    on file_system_items
+    for each row
+    when (old.parent_id is distinct from new.parent_id)
+execute function file_system_item_closure_on_move();
+
+-- Permission resolution reads every ancestor from the closure table in one range scan
+create or replace function get_permission_recursive(
+    input_item_id uuid,
+    input_user_id uuid
+)
+    returns text as '
+    select case
+               when not exists (select 1 from users_snapshot where user_id = input_user_id)
+                   then ''NO_USER_FOUND''
+               else (
+                   select case
+                              when bool_or(a.owner = input_user_id) then ''OWNER''
+                              when bool_or(isp.permission = ''EDITOR''
+                                  or pub.permission = ''EDITOR'') then ''EDITOR''
+                              when bool_or(isp.permission = ''VIEWER''
+                                  or pub.permission = ''VIEWER'') then ''VIEWER''
+                              else ''NO_ACCESS''
+                              end
+                   from file_system_item_closure c
+                            join file_system_items a on a.id = c.ancestor_id
+                            left join shared_items_private isp
+                                      on isp.item_id = a.id
+                                          and isp.shared_with = input_user_id
+                            left join shared_items_public pub
+                                      on pub.item_id = a.id
+                                          and (pub.expires_at is null or pub.expires_at > now())
+                   where c.descendant_id = input_item_id
+               )
+               end;
+' language sql stable;
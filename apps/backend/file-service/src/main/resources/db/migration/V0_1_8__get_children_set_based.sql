@@ -0,0 +1,56 @@
+-- Lists the children of a folder with one set-based query. Owners, public and private shares
+-- and stars are joined once, and the inherited permission of the parent is resolved a single
+-- time and combined with the grants found on each child.
+create index idx_file_system_items_parent on file_system_items (parent_id);
+
+create or replace function children_of(
+    input_parent_id uuid,
+    input_user_id uuid
+)
+    returns setof child as '
+    select c.id,
+           c.created_at,
+           c.updated_at,
+           owner_user.email::text,
+           shared_by_user.email::text,
+           c.type::text,
+           pub.password_hash is not null,
+           c.name::text,
+           c.s3url::text,
+           c.mime_type::text,
+           (starred.id is not null)::text,
+           c.parent_id,
+           case
+               when parent.permission = ''NO_USER_FOUND'' then ''NO_USER_FOUND''
+               when parent.permission = ''OWNER'' or c.owner = input_user_id then ''OWNER''
+               when parent.permission = ''EDITOR''
+                   or isp.permission = ''EDITOR''
+                   or (pub.permission = ''EDITOR''
+                       and (pub.expires_at is null or pub.expires_at > now())) then ''EDITOR''
+               when parent.permission = ''VIEWER''
+                   or isp.permission = ''VIEWER''
+                   or (pub.permission = ''VIEWER''
+                       and (pub.expires_at is null or pub.expires_at > now())) then ''VIEWER''
+               else ''NO_ACCESS''
+               end,
+           c.size
+    from (select get_permission_recursive(input_parent_id, input_user_id) as permission) parent
+             cross join file_system_items c
+             left join users_snapshot owner_user on owner_user.user_id = c.owner
+             left join shared_items_public pub on pub.item_id = c.id
+             left join users_snapshot shared_by_user on shared_by_user.user_id = pub.shared_by
+             left join shared_items_private isp
+                       on isp.item_id = c.id and isp.shared_with = input_user_id
+             left join items_starred starred
+                       on starred.item_id = c.id and starred.user_id = input_user_id
+    where c.parent_id = input_parent_id;
+' language sql stable;
+
+create or replace function get_children(
+    input_parent_id uuid,
+    input_user_id uuid
+)
+    returns child[] as '
+    select coalesce(array_agg(c), array []::child[])
+    from children_of(input_parent_id, input_user_id) c;
+' language sql stable;
@@ -0,0 +1,244 @@
+-- Keyset pagination over the children of a folder. Every supported sort key is backed by an
+-- index on (parent_id, sort key, id) so that fetching any page is a bounded index range scan.
+drop index if exists idx_file_system_items_parent;
+
+create index idx_file_system_items_parent_name
+    on file_system_items (parent_id, name, id);
+
+create index idx_file_system_items_parent_updated_at
+    on file_system_items (parent_id, updated_at, id);
+
+create index idx_file_system_items_parent_size
+    on file_system_items (parent_id, coalesce(size, 0), id);
+
+create index idx_file_system_items_parent_type
+    on file_system_items (parent_id, type, id);
+
+create or replace function get_children_page(
+    input_parent_id uuid,
+    input_user_id uuid,
+    input_sort_key text,
+    input_descending boolean,
+    input_after_value text,
+    input_after_id uuid,
+    input_page_size integer
+) returns table (
+                    output_children jsonb,
+                    output_next_value text,
+                    output_next_id uuid
+                ) as $$
+declare
+    sort_expression text;
+    sort_type text;
+    direction text := case when input_descending then 'desc' else 'asc' end;
+    reverse_direction text := case when input_descending then 'asc' else 'desc' end;
+    seek_condition text := '';
+begin
+    case input_sort_key
+        when 'name' then
+            sort_expression := 'c.name';
+            sort_type := 'text';
+        when 'updated_at' then
+            sort_expression := 'c.updated_at';
+            sort_type := 'timestamp';
+        when 'size' then
+            sort_expression := 'coalesce(c.size, 0)';
+            sort_type := 'bigint';
+        when 'type' then
+            sort_expression := 'c.item_type';
+            sort_type := 'text';
+        else
+            raise exception 'Unsupported sort key %', input_sort_key
+                using errcode = '22023';
+    end case;
+
+    if input_after_id is not null then
+        seek_condition := format(
+            'where (%s, c.item_id) %s ($3::%s, $4)',
+            sort_expression,
+            case when input_descending then '<' else '>' end,
+            sort_type
+        );
+    end if;
+
+    return query execute format(
+        'select coalesce(jsonb_agg(to_jsonb(c) order by %1$s %2$s, c.item_id %2$s), ''[]''),
+                case when count(*) = $5
+                     then (array_agg(%1$s::text order by %1$s %3$s, c.item_id %3$s))[1] end,
+                case when count(*) = $5
+                     then (array_agg(c.item_id order by %1$s %3$s, c.item_id %3$s))[1] end
+         from (select *
+               from children_of($1, $2) c
+               %4$s
+               order by %1$s %2$s, c.item_id %2$s
+               limit $5) c',
+        sort_expression,
+        direction,
+        reverse_direction,
+        seek_condition
+    ) using input_parent_id, input_user_id, input_after_value, input_after_id, input_page_size;
+end;
+$$ language plpgsql stable;
+
+drop function if exists item_view(uuid, uuid, text);
+
+create or replace function item_view(
+    input_item_id uuid,
+    input_user_id uuid,
+    input_user_permission text,
+    input_include_children boolean default true
+) returns table (
+                    output_item_id uuid,
+                    output_created_at timestamp,
+                    output_updated_at timestamp,
+                    output_owner_email text,
+                    output_shared_by_email text,
+                    output_item_type text,
+                    output_is_item_password_protected boolean,
+                    output_name text,
+                    output_s3Url text,
+                    output_mime_type text,
+                    output_is_starred text,
+                    output_parent_id uuid,
+                    output_permission text,
+                    output_children jsonb,
+                    output_size bigint
+                ) as '
+    declare
+        basic_record record;
+    begin
+        -- Fetch parent info
+        select id,
+               created_at,
+               updated_at,
+               type,
+               name,
+               s3url,
+               mime_type,
+               parent_id,
+               owner,
+               size
+        into basic_record
+        from file_system_items
+        where id = input_item_id;
+
+        if basic_record.id is null then
+            raise exception ''Item not found with ID %'', input_item_id
+                using errcode = ''P0002'';
+        end if;
+
+        -- Set fields
+        output_item_id := basic_record.id;
+        output_created_at := basic_record.created_at;
+        output_updated_at := basic_record.updated_at;
+        output_item_type := basic_record.type;
+        output_name := basic_record.name;
+        output_s3url := basic_record.s3url;
+        output_mime_type := basic_record.mime_type;
+        output_parent_id := basic_record.parent_id;
+        output_size := basic_record.size;
+
+        -- get owner email
+        output_owner_email := get_owner_email(basic_record.owner);
+
+        -- Shared by email
+        output_shared_by_email := get_shared_by_email(input_item_id);
+
+        -- Password protected
+        output_is_item_password_protected := is_password_protected(input_item_id);
+
+        -- Is starred
+        output_is_starred := is_item_starred(input_item_id, input_user_id);
+
+        -- Permission
+        output_permission := get_permission_recursive(input_item_id, input_user_id);
+
+        -- Children, left out when the caller pages through them separately
+        if input_include_children then
+            output_children := to_jsonB(get_children(input_item_id, input_user_id));
+        end if;
+
+        return next;
+    end;
+' language plpgsql;
+
+drop function if exists user_items(input_user_id uuid);
+
+create or replace function user_items(
+    input_user_id uuid,
+    input_include_children boolean default true
+) returns table (
+                    output_item_id uuid,
+                    output_created_at timestamp,
+                    output_updated_at timestamp,
+                    output_owner_email text,
+                    output_shared_by_email text,
+                    output_item_type text,
+                    output_is_item_password_protected boolean,
+                    output_name text,
+                    output_s3Url text,
+                    output_mime_type text,
+                    output_is_starred text,
+                    output_parent_id uuid,
+                    output_permission text,
+                    output_children jsonb,
+                    output_size bigint
+                ) as '
+    declare
+        basic_record record;
+    begin
+        -- Fetch parent info
+        select id,
+               created_at,
+               updated_at,
+               type,
+               name,
+               s3url,
+               mime_type,
+               parent_id,
+               owner,
+               size
+        into basic_record
+        from file_system_items
+        where owner = input_user_id and parent_id is null
+        limit 1;
+
+        if basic_record.id is null then
+            raise exception ''No item is found for user''
+                using errcode = ''P0002'';
+        end if;
+
+        -- Set fields
+        output_item_id := basic_record.id;
+        output_created_at := basic_record.created_at;
+        output_updated_at := basic_record.updated_at;
+        output_item_type := basic_record.type;
+        output_name := basic_record.name;
+        output_s3url := basic_record.s3url;
+        output_mime_type := basic_record.mime_type;
+        output_parent_id := basic_record.parent_id;
+        output_size := basic_record.size;
+
+        -- get owner email
+        output_owner_email := get_owner_email(basic_record.owner);
+
+        -- Shared by email
+        --         output_shared_by_email := get_shared_by_email(input_item_id);
+
+        -- Password protected
+        --         output_is_item_password_protected := is_password_protected(input_item_id);
+
+        -- Is starred
+        --         output_is_starred := is_item_starred(input_item_id, input_user_id);
+
+        -- Permission
+        --         output_permission := get_permission_recursive(input_item_id, input_user_id);
+
+        -- Children, left out when the caller pages through them separately
+        if input_include_children then
+            output_children := to_jsonB(get_children(basic_record.id, input_user_id));
+        end if;
+
+        return next;
+    end;
+' language plpgsql;
@@ -0,0 +1,216 @@
+-- Lets callers hand over a permission they already resolved so that the same ancestor walk is
+-- not repeated by item_view and by the listing of its children.
+drop function if exists children_of(uuid, uuid);
+drop function if exists get_children(uuid, uuid);
+drop function if exists get_children_page(uuid, uuid, text, boolean, text, uuid, integer);
+
+create or replace function children_of(
+    input_parent_id uuid,
+    input_user_id uuid,
+    input_parent_permission text default null
+)
+    returns setof child as '
+    select c.id,
+           c.created_at,
+           c.updated_at,
+           owner_user.email::text,
+           shared_by_user.email::text,
+           c.type::text,
+           pub.password_hash is not null,
+           c.name::text,
+           c.s3url::text,
+           c.mime_type::text,
+           (starred.id is not null)::text,
+           c.parent_id,
+           case
+               when parent.permission = ''NO_USER_FOUND'' then ''NO_USER_FOUND''
+               when parent.permission = ''OWNER'' or c.owner = input_user_id then ''OWNER''
+               when parent.permission = ''EDITOR''
+                   or isp.permission = ''EDITOR''
+                   or (pub.permission = ''EDITOR''
+                       and (pub.expires_at is null or pub.expires_at > now())) then ''EDITOR''
+               when parent.permission = ''VIEWER''
+                   or isp.permission = ''VIEWER''
+                   or (pub.permission = ''VIEWER''
+                       and (pub.expires_at is null or pub.expires_at > now())) then ''VIEWER''
+               else ''NO_ACCESS''
+               end,
+           c.size
+    from (select coalesce(input_parent_permission,
+                          get_permission_recursive(input_parent_id, input_user_id))
+                     as permission) parent
+             cross join file_system_items c
+             left join users_snapshot owner_user on owner_user.user_id = c.owner
+             left join shared_items_public pub on pub.item_id = c.id
+             left join users_snapshot shared_by_user on shared_by_user.user_id = pub.shared_by
+             left join shared_items_private isp
+                       on isp.item_id = c.id and isp.shared_with = input_user_id
+             left join items_starred starred
+                       on starred.item_id = c.id and starred.user_id = input_user_id
+    where c.parent_id = input_parent_id;
+' language sql stable;
+
+create or replace function get_children(
+    input_parent_id uuid,
+    input_user_id uuid,
+    input_parent_permission text default null
+)
+    returns child[] as '
+    select coalesce(array_agg(c), array []::child[])
+    from children_of(input_parent_id, input_user_id, input_parent_permission) c;
+' language sql stable;
+
+create or replace function get_children_page(
+    input_parent_id uuid,
+    input_user_id uuid,
+    input_sort_key text,
+    input_descending boolean,
+    input_after_value text,
+    input_after_id uuid,
+    input_page_size integer,
+    input_parent_permission text default null
+) returns table (
+                    output_children jsonb,
+                    output_next_value text,
+                    output_next_id uuid
+                ) as $$
+declare
+    sort_expression text;
+    sort_type text;
+    direction text := case when input_descending then 'desc' else 'asc' end;
+    reverse_direction text := case when input_descending then 'asc' else 'desc' end;
+    seek_condition text := '';
+begin
+    case input_sort_key
+        when 'name' then
+            sort_expression := 'c.name';
+            sort_type := 'text';
+        when 'updated_at' then
+            sort_expression := 'c.updated_at';
+            sort_type := 'timestamp';
+        when 'size' then
+            sort_expression := 'coalesce(c.size, 0)';
+            sort_type := 'bigint';
+        when 'type' then
+            sort_expression := 'c.item_type';
+            sort_type := 'text';
+        else
+            raise exception 'Unsupported sort key %', input_sort_key
+                using errcode = '22023';
+    end case;
+
+    if input_after_id is not null then
+        seek_condition := format(
+            'where (%s, c.item_id) %s ($3::%s, $4)',
+            sort_expression,
+            case when input_descending then '<' else '>' end,
+            sort_type
+        );
+    end if;
+
+    return query execute format(
+        'select coalesce(jsonb_agg(to_jsonb(c) order by %1$s %2$s, c.item_id %2$s), ''[]''),
+                case when count(*) = $5
+                     then (array_agg(%1$s::text order by %1$s %3$s, c.item_id %3$s))[1] end,
+                case when count(*) = $5
+                     then (array_agg(c.item_id order by %1$s %3$s, c.item_id %3$s))[1] end
+         from (select *
+               from children_of($1, $2, $6) c
+               %4$s
+               order by %1$s %2$s, c.item_id %2$s
+               limit $5) c',
+        sort_expression,
+        direction,
+        reverse_direction,
+        seek_condition
+    ) using input_parent_id, input_user_id, input_after_value, input_after_id, input_page_size,
+        input_parent_permission;
+end;
+$$ language plpgsql stable;
+
+drop function if exists item_view(uuid, uuid, text, boolean);
+
+create or replace function item_view(
+    input_item_id uuid,
+    input_user_id uuid,
+    input_user_permission text,
+    input_include_children boolean default true
+) returns table (
+                    output_item_id uuid,
+                    output_created_at timestamp,
+                    output_updated_at timestamp,
+                    output_owner_email text,
+                    output_shared_by_email text,
+                    output_item_type text,
+                    output_is_item_password_protected boolean,
+                    output_name text,
+                    output_s3Url text,
+                    output_mime_type text,
+                    output_is_starred text,
+                    output_parent_id uuid,
+                    output_permission text,
+                    output_children jsonb,
+                    output_size bigint
+                ) as '
+    declare
+        basic_record record;
+    begin
+        -- Fetch parent info
+        select id,
+               created_at,
+               updated_at,
+               type,
+               name,
+               s3url,
+               mime_type,
+               parent_id,
+               owner,
+               size
+        into basic_record
+        from file_system_items
+        where id = input_item_id;
+
+        if basic_record.id is null then
+            raise exception ''Item not found with ID %'', input_item_id
+                using errcode = ''P0002'';
+        end if;
+
+        -- Set fields
+        output_item_id := basic_record.id;
+        output_created_at := basic_record.created_at;
+        output_updated_at := basic_record.updated_at;
+        output_item_type := basic_record.type;
+        output_name := basic_record.name;
+        output_s3url := basic_record.s3url;
+        output_mime_type := basic_record.mime_type;
+        output_parent_id := basic_record.parent_id;
+        output_size := basic_record.size;
+
+        -- get owner email
+        output_owner_email := get_owner_email(basic_record.owner);
+
+        -- Shared by email
+        output_shared_by_email := get_shared_by_email(input_item_id);
+
+        -- Password protected
+        output_is_item_password_protected := is_password_protected(input_item_id);
+
+        -- Is starred
+        output_is_starred := is_item_starred(input_item_id, input_user_id);
+
+        -- Permission, reusing the one already resolved by the caller when given
+        output_permission := coalesce(
+            input_user_permission,
+            get_permission_recursive(input_item_id, input_user_id)
+        );
+
+        -- Children, left out when the caller pages through them separately
+        if input_include_children then
+            output_children := to_jsonB(
+                get_children(input_item_id, input_user_id, output_permission)
+            );
+        end if;
+
+        return next;
+    end;
+' language plpgsql;
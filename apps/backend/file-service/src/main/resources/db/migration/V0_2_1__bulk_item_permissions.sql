@@ -0,0 +1,34 @@
+-- Resolves the permission of a user on many items at once, walking every ancestor chain in a
+-- single pass over the closure table. Items that do not exist are left out of the result.
+create or replace function get_permissions(
+    input_item_ids uuid[],
+    input_user_id uuid
+)
+    returns table
+            (
+                output_item_id    uuid,
+                output_permission text
+            )
+as '
+    select c.descendant_id,
+           case
+               when not exists (select 1 from users_snapshot where user_id = input_user_id)
+                   then ''NO_USER_FOUND''
+               when bool_or(a.owner = input_user_id) then ''OWNER''
+               when bool_or(isp.permission = ''EDITOR''
+                   or pub.permission = ''EDITOR'') then ''EDITOR''
+               when bool_or(isp.permission = ''VIEWER''
+                   or pub.permission = ''VIEWER'') then ''VIEWER''
+               else ''NO_ACCESS''
+               end
+    from file_system_item_closure c
+             join file_system_items a on a.id = c.ancestor_id
+             left join shared_items_private isp
+                       on isp.item_id = a.id
+                           and isp.shared_with = input_user_id
+             left join shared_items_public pub
+                       on pub.item_id = a.id
+                           and (pub.expires_at is null or pub.expires_at > now())
+    where c.descendant_id = any (input_item_ids)
+    group by c.descendant_id;
+' language sql stable;
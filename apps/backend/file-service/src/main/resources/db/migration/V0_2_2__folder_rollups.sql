@@ -0,0 +1,351 @@
+-- Folders carry the total size, file count and folder count of everything below them. The
+-- columns are kept up to date by triggers that push each change up the ancestor chain through
+-- the closure table, so reading the usage of a folder no longer walks its subtree.
+--
+-- The contribution of an item to each of its ancestors is its own size and type plus its own
+-- rollups. Transactions that maintain rollups themselves, like subtree copies, can set
+-- app.defer_rollups to on to skip the triggers.
+alter table file_system_items
+    add column total_size   bigint not null default 0,
+    add column file_count   bigint not null default 0,
+    add column folder_count bigint not null default 0;
+
+update file_system_items folder
+set total_size   = rollup.total_size,
+    file_count   = rollup.file_count,
+    folder_count = rollup.folder_count
+from (select c.ancestor_id,
+             coalesce(sum(d.size), 0)                  as total_size,
+             count(*) filter (where d.type = 'FILE')   as file_count,
+             count(*) filter (where d.type = 'FOLDER') as folder_count
+      from file_system_item_closure c
+               join file_system_items d on d.id = c.descendant_id
+      where c.depth > 0
+      group by c.ancestor_id) rollup
+where folder.id = rollup.ancestor_id;
+
+-- Adds the deltas to an item and all of its ancestors. Rows are locked in id order first so that
+-- concurrent changes below overlapping ancestors cannot deadlock.
+create or replace function apply_rollup_delta(
+    input_item_id uuid,
+    input_size_delta bigint,
+    input_file_delta bigint,
+    input_folder_delta bigint
+)
+    returns void as '
+begin
+    if input_size_delta = 0 and input_file_delta = 0 and input_folder_delta = 0 then
+        return;
+    end if;
+
+    perform 1
+    from file_system_items i
+             join file_system_item_closure c on c.ancestor_id = i.id
+    where c.descendant_id = input_item_id
+    order by i.id
+        for update of i;
+
+    update file_system_items i
+    set total_size   = i.total_size + input_size_delta,
+        file_count   = i.file_count + input_file_delta,
+        folder_count = i.folder_count + input_folder_delta
+    from file_system_item_closure c
+    where c.descendant_id = input_item_id
+      and i.id = c.ancestor_id;
+end;
+' language plpgsql;
+
+create or replace function rollups_deferred()
+    returns boolean as '
+    select coalesce(current_setting(''app.defer_rollups'', true), '''') = ''on'';
+' language sql stable;
+
+-- Runs after the closure trigger of the same event, which sorts before it by name
+create or replace function file_system_item_rollup_on_insert()
+    returns trigger as '
+begin
+    if new.parent_id is null or rollups_deferred() then
+        return null;
+    end if;
+
+    perform apply_rollup_delta(
+            new.parent_id,
+            coalesce(new.size, 0) + new.total_size,
+            new.file_count + (new.type = ''FILE'')::int,
+            new.folder_count + (new.type = ''FOLDER'')::int
+        );
+    return null;
+end;
+' language plpgsql;
+
+create trigger trg_file_system_item_rollup_on_insert
+    after insert
+    on file_system_items
+    for each row
+execute function file_system_item_rollup_on_insert();
+
+-- Only the topmost deleted item of a subtree still has its parent, and its rollups already
+-- cover every other deleted item, so items whose parent is gone as well are skipped.
+create or replace function file_system_item_rollup_on_delete()
+    returns trigger as '
+begin
+    if old.parent_id is null
+        or rollups_deferred()
+        or not exists (select 1 from file_system_items where id = old.parent_id) then
+        return null;
+    end if;
+
+    perform apply_rollup_delta(
+            old.parent_id,
+            -(coalesce(old.size, 0) + old.total_size),
+            -(old.file_count + (old.type = ''FILE'')::int),
+            -(old.folder_count + (old.type = ''FOLDER'')::int)
+        );
+    return null;
+end;
+' language plpgsql;
+
+create trigger trg_file_system_item_rollup_on_delete
+    after delete
+    on file_system_items
+    for each row
+execute function file_system_item_rollup_on_delete();
+
+-- Rollups are read back from the table rather than from new, since moving several nested items
+-- in one statement changes the rollups of items moved later by the same statement.
+create or replace function file_system_item_rollup_on_update()
+    returns trigger as '
+declare
+    current_item record;
+begin
+    if rollups_deferred() then
+        return null;
+    end if;
+
+    if old.parent_id is not distinct from new.parent_id then
+        if new.parent_id is not null then
+            perform apply_rollup_delta(
+                    new.parent_id,
+                    coalesce(new.size, 0) - coalesce(old.size, 0),
+                    0,
+                    0
+                );
+        end if;
+        return null;
+    end if;
+
+    select total_size, file_count, folder_count
+    into current_item
+    from file_system_items
+    where id = new.id;
+
+    if old.parent_id is not null then
+        perform apply_rollup_delta(
+                old.parent_id,
+                -(coalesce(old.size, 0) + current_item.total_size),
+                -(current_item.file_count + (old.type = ''FILE'')::int),
+                -(current_item.folder_count + (old.type = ''FOLDER'')::int)
+            );
+    end if;
+    if new.parent_id is not null then
+        perform apply_rollup_delta(
+                new.parent_id,
+                coalesce(new.size, 0) + current_item.total_size,
+                current_item.file_count + (new.type = ''FILE'')::int,
+                current_item.folder_count + (new.type = ''FOLDER'')::int
+            );
+    end if;
+    return null;
+end;
+' language plpgsql;
+
+create trigger trg_file_system_item_rollup_on_update
+    after update of parent_id, size
+    on file_system_items
+    for each row
+    when (old.parent_id is distinct from new.parent_id or old.size is distinct from new.size)
+execute function file_system_item_rollup_on_update();
+
+drop function if exists item_view(uuid, uuid, text, boolean);
+
+create or replace function item_view(
+    input_item_id uuid,
+    input_user_id uuid,
+    input_user_permission text,
+    input_include_children boolean default true
+) returns table (
+                    output_item_id uuid,
+                    output_created_at timestamp,
+                    output_updated_at timestamp,
+                    output_owner_email text,
+                    output_shared_by_email text,
+                    output_item_type text,
+                    output_is_item_password_protected boolean,
+                    output_name text,
+                    output_s3Url text,
+                    output_mime_type text,
+                    output_is_starred text,
+                    output_parent_id uuid,
+                    output_permission text,
+                    output_children jsonb,
+                    output_size bigint,
+                    output_file_count bigint,
+                    output_folder_count bigint
+                ) as '
+    declare
+        basic_record record;
+    begin
+        -- Fetch parent info
+        select id,
+               created_at,
+               updated_at,
+               type,
+               name,
+               s3url,
+               mime_type,
+               parent_id,
+               owner,
+               size,
+               total_size,
+               file_count,
+               folder_count
+        into basic_record
+        from file_system_items
+        where id = input_item_id;
+
+        if basic_record.id is null then
+            raise exception ''Item not found with ID %'', input_item_id
+                using errcode = ''P0002'';
+        end if;
+
+        -- Set fields
+        output_item_id := basic_record.id;
+        output_created_at := basic_record.created_at;
+        output_updated_at := basic_record.updated_at;
+        output_item_type := basic_record.type;
+        output_name := basic_record.name;
+        output_s3url := basic_record.s3url;
+        output_mime_type := basic_record.mime_type;
+        output_parent_id := basic_record.parent_id;
+        -- Folders report the size and item counts of their whole subtree
+        output_size := coalesce(basic_record.size, basic_record.total_size);
+        output_file_count := basic_record.file_count;
+        output_folder_count := basic_record.folder_count;
+
+        -- get owner email
+        output_owner_email := get_owner_email(basic_record.owner);
+
+        -- Shared by email
+        output_shared_by_email := get_shared_by_email(input_item_id);
+
+        -- Password protected
+        output_is_item_password_protected := is_password_protected(input_item_id);
+
+        -- Is starred
+        output_is_starred := is_item_starred(input_item_id, input_user_id);
+
+        -- Permission, reusing the one already resolved by the caller when given
+        output_permission := coalesce(
+            input_user_permission,
+            get_permission_recursive(input_item_id, input_user_id)
+        );
+
+        -- Children, left out when the caller pages through them separately
+        if input_include_children then
+            output_children := to_jsonB(
+                get_children(input_item_id, input_user_id, output_permission)
+            );
+        end if;
+
+        return next;
+    end;
+' language plpgsql;
+
+drop function if exists user_items(uuid, boolean);
+
+create or replace function user_items(
+    input_user_id uuid,
+    input_include_children boolean default true
+) returns table (
+                    output_item_id uuid,
+                    output_created_at timestamp,
+                    output_updated_at timestamp,
+                    output_owner_email text,
+                    output_shared_by_email text,
+                    output_item_type text,
+                    output_is_item_password_protected boolean,
+                    output_name text,
+                    output_s3Url text,
+                    output_mime_type text,
+                    output_is_starred text,
+                    output_parent_id uuid,
+                    output_permission text,
+                    output_children jsonb,
+                    output_size bigint,
+                    output_file_count bigint,
+                    output_folder_count bigint
+                ) as '
+    declare
+        basic_record record;
+    begin
+        -- Fetch parent info
+        select id,
+               created_at,
+               updated_at,
+               type,
+               name,
+               s3url,
+               mime_type,
+               parent_id,
+               owner,
+               size,
+               total_size,
+               file_count,
+               folder_count
+        into basic_record
+        from file_system_items
+        where owner = input_user_id and parent_id is null
+        limit 1;
+
+        if basic_record.id is null then
+            raise exception ''No item is found for user''
+                using errcode = ''P0002'';
+        end if;
+
+        -- Set fields
+        output_item_id := basic_record.id;
+        output_created_at := basic_record.created_at;
+        output_updated_at := basic_record.updated_at;
+        output_item_type := basic_record.type;
+        output_name := basic_record.name;
+        output_s3url := basic_record.s3url;
+        output_mime_type := basic_record.mime_type;
+        output_parent_id := basic_record.parent_id;
+        -- Folders report the size and item counts of their whole subtree
+        output_size := coalesce(basic_record.size, basic_record.total_size);
+        output_file_count := basic_record.file_count;
+        output_folder_count := basic_record.folder_count;
+
+        -- get owner email
+        output_owner_email := get_owner_email(basic_record.owner);
+
+        -- Shared by email
+        --         output_shared_by_email := get_shared_by_email(input_item_id);
+
+        -- Password protected
+        --         output_is_item_password_protected := is_password_protected(input_item_id);
+
+        -- Is starred
+        --         output_is_starred := is_item_starred(input_item_id, input_user_id);
+
+        -- Permission
+        --         output_permission := get_permission_recursive(input_item_id, input_user_id);
+
+        -- Children, left out when the caller pages through them separately
+        if input_include_children then
+            output_children := to_jsonB(get_children(basic_record.id, input_user_id));
+        end if;
+
+        return next;
+    end;
+' language plpgsql;
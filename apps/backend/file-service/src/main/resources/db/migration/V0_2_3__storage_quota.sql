@@ -0,0 +1,92 @@
+-- Storage used by each user, counted over the files they own. Usage is spread over striped rows
+-- so that concurrent uploads of the same user update different rows instead of queueing on one;
+-- the usage of a user is the sum of their stripes. Each session writes to the stripe picked by
+-- its backend pid, so a transaction keeps hitting the row it already holds.
+create table user_storage_usage
+(
+    user_id    uuid     not null,
+    stripe     smallint not null,
+    used_bytes bigint   not null default 0,
+    primary key (user_id, stripe)
+);
+
+insert into user_storage_usage (user_id, stripe, used_bytes)
+select owner, 0, sum(size)
+from file_system_items
+where size is not null
+group by owner;
+
+create or replace function usage_stripe()
+    returns smallint as '
+    select (pg_backend_pid() % 8)::smallint;
+' language sql volatile;
+
+-- Inserts and deletes are aggregated per owner by statement triggers, so a batch of inserts or a
+-- subtree delete touches one stripe row per owner rather than one per item.
+create or replace function user_storage_usage_on_insert()
+    returns trigger as '
+begin
+    insert into user_storage_usage (user_id, stripe, used_bytes)
+    select owner, usage_stripe(), sum(size)
+    from new_items
+    where size is not null
+    group by owner
+    order by owner
+    on conflict (user_id, stripe) do update
+        set used_bytes = user_storage_usage.used_bytes + excluded.used_bytes;
+    return null;
+end;
+' language plpgsql;
+
+create or replace function user_storage_usage_on_delete()
+    returns trigger as '
+begin
+    insert into user_storage_usage (user_id, stripe, used_bytes)
+    select owner, usage_stripe(), -sum(size)
+    from old_items
+    where size is not null
+    group by owner
+    order by owner
+    on conflict (user_id, stripe) do update
+        set used_bytes = user_storage_usage.used_bytes + excluded.used_bytes;
+    return null;
+end;
+' language plpgsql;
+
+-- Size and owner changes are rare and come one row at a time, so they are handled per row. This
+-- keeps the rollup updates of ancestor folders, which change neither, from firing the trigger.
+create or replace function user_storage_usage_on_update()
+    returns trigger as '
+begin
+    insert into user_storage_usage (user_id, stripe, used_bytes)
+    select delta.owner, usage_stripe(), sum(delta.size)
+    from (values (old.owner, -old.size), (new.owner, new.size)) delta(owner, size)
+    where delta.size is not null
+    group by delta.owner
+    order by delta.owner
+    on conflict (user_id, stripe) do update
+        set used_bytes = user_storage_usage.used_bytes + excluded.used_bytes;
+    return null;
+end;
+' language plpgsql;
+
+create trigger trg_file_system_item_usage_on_insert
+    after insert
+    on file_system_items
+    referencing new table as new_items
+    for each statement
+execute function user_storage_usage_on_insert();
+
+create trigger trg_file_system_item_usage_on_delete
+    after delete
+    on file_system_items
+    referencing old table as old_items
+    for each statement
+execute function user_storage_usage_on_delete();
+
+create trigger trg_file_system_item_usage_on_update
+    after update of size, owner
+    on file_system_items
+    for each row
+    when (old.size is distinct from new.size or old.owner <> new.owner)
+execute function user_storage_usage_on_update();
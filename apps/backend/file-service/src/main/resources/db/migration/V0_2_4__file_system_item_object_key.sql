@@ -0,0 +1,9 @@
+-- The key of the stored object of a file, so that storage events, which only carry the key, can
+-- find the items they complete. Copies share the object of their original, hence the index is
+-- not unique.
+alter table file_system_items
+    add column object_key text;
+
+create index idx_file_system_items_object_key
+    on file_system_items (object_key)
+    where object_key is not null;
@@ -0,0 +1,92 @@
+-- Stored objects keyed by the SHA-256 of their content, so that identical uploads, re-uploads and
+-- copies share one object. The reference count is the number of files pointing at the blob and is
+-- kept by the triggers below; a blob nobody references is purged once its grace period is over.
+create table blobs
+(
+    content_hash text primary key,
+    object_key   text                     not null unique,
+    size         bigint                   not null,
+    ref_count    integer                  not null default 0,
+    created_at   timestamp with time zone not null default now(),
+    updated_at   timestamp with time zone not null default now()
+);
+
+create index idx_blobs_unreferenced
+    on blobs (updated_at)
+    where ref_count = 0;
+
+alter table file_system_items
+    add column content_hash text references blobs (content_hash);
+
+create index idx_file_system_items_content_hash
+    on file_system_items (content_hash)
+    where content_hash is not null;
+
+-- Inserts and deletes are aggregated per blob by statement triggers, so copying or deleting a
+-- subtree updates each blob once rather than once per file.
+create or replace function blob_refs_on_insert()
+    returns trigger as '
+begin
+    update blobs
+    set ref_count  = blobs.ref_count + refs.count,
+        updated_at = now()
+    from (select content_hash, count(*) as count
+          from new_items
+          where content_hash is not null
+          group by content_hash) refs
+    where blobs.content_hash = refs.content_hash;
+    return null;
+end;
+' language plpgsql;
+
+create or replace function blob_refs_on_delete()
+    returns trigger as '
+begin
+    update blobs
+    set ref_count  = blobs.ref_count - refs.count,
+        updated_at = now()
+    from (select content_hash, count(*) as count
+          from old_items
+          where content_hash is not null
+          group by content_hash) refs
+    where blobs.content_hash = refs.content_hash;
+    return null;
+end;
+' language plpgsql;
+
+-- A file gets its hash once its upload completes, one row at a time.
+create or replace function blob_refs_on_update()
+    returns trigger as '
+begin
+    update blobs
+    set ref_count  = blobs.ref_count - 1,
+        updated_at = now()
+    where content_hash = old.content_hash;
+    update blobs
+    set ref_count  = blobs.ref_count + 1,
+        updated_at = now()
+    where content_hash = new.content_hash;
+    return null;
+end;
+' language plpgsql;
+
+create trigger trg_file_system_item_blob_refs_on_insert
+    after insert
+    on file_system_items
+    referencing new table as new_items
+    for each statement
+execute function blob_refs_on_insert();
+
+create trigger trg_file_system_item_blob_refs_on_delete
+    after delete
+    on file_system_items
+    referencing old table as old_items
+    for each statement
+execute function blob_refs_on_delete();
+
+create trigger trg_file_system_item_blob_refs_on_update
+    after update of content_hash
+    on file_system_items
+    for each row
+    when (old.content_hash is distinct from new.content_hash)
+execute function blob_refs_on_update();
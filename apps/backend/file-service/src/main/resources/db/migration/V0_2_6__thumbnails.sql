@@ -0,0 +1,55 @@
+-- Thumbnails are made once per stored content, so they live on the blob and are shared by every
+-- file with that content, copies included. Listings carry the URL of the thumbnail of each child
+-- that has one.
+alter table blobs
+    add column thumbnail_key text;
+
+alter type child add attribute thumbnail_url text;
+
+create or replace function children_of(
+    input_parent_id uuid,
+    input_user_id uuid,
+    input_parent_permission text default null
+)
+    returns setof child as '
+    select c.id,
+           c.created_at,
+           c.updated_at,
+           owner_user.email::text,
+           shared_by_user.email::text,
+           c.type::text,
+           pub.password_hash is not null,
+           c.name::text,
+           c.s3url::text,
+           c.mime_type::text,
+           (starred.id is not null)::text,
+           c.parent_id,
+           case
+               when parent.permission = ''NO_USER_FOUND'' then ''NO_USER_FOUND''
+               when parent.permission = ''OWNER'' or c.owner = input_user_id then ''OWNER''
+               when parent.permission = ''EDITOR''
+                   or isp.permission = ''EDITOR''
+                   or (pub.permission = ''EDITOR''
+                       and (pub.expires_at is null or pub.expires_at > now())) then ''EDITOR''
+               when parent.permission = ''VIEWER''
+                   or isp.permission = ''VIEWER''
+                   or (pub.permission = ''VIEWER''
+                       and (pub.expires_at is null or pub.expires_at > now())) then ''VIEWER''
+               else ''NO_ACCESS''
+               end,
+           c.size,
+           case when blob.thumbnail_key is not null then ''/thumbnails/'' || c.id end
+    from (select coalesce(input_parent_permission,
+                          get_permission_recursive(input_parent_id, input_user_id))
+                     as permission) parent
+             cross join file_system_items c
+             left join users_snapshot owner_user on owner_user.user_id = c.owner
+             left join shared_items_public pub on pub.item_id = c.id
+             left join users_snapshot shared_by_user on shared_by_user.user_id = pub.shared_by
+             left join shared_items_private isp
+                       on isp.item_id = c.id and isp.shared_with = input_user_id
+             left join items_starred starred
+                       on starred.item_id = c.id and starred.user_id = input_user_id
+             left join blobs blob on blob.content_hash = c.content_hash
+    where c.parent_id = input_parent_id;
+' language sql stable;
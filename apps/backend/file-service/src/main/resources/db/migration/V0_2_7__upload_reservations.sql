@@ -0,0 +1,17 @@
+-- Objects handed out for upload through presigned URLs, with the user they were presigned for and
+-- the size they were signed for. A file can only be created on an object reserved for its owner,
+-- so that nobody can point a file at an object uploaded by someone else. A reservation ends when
+-- its file is created, or is purged once it expires.
+create table upload_reservations
+(
+    object_key text primary key,
+    user_id    uuid                     not null,
+    size       bigint                   not null,
+    expires_at timestamp with time zone not null
+);
+
+create index idx_upload_reservations_user_id
+    on upload_reservations (user_id, expires_at);
+
+create index idx_upload_reservations_expires_at
+    on upload_reservations (expires_at);
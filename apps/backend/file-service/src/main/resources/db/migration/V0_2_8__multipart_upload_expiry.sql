@@ -0,0 +1,5 @@
+-- Files with a multipart upload in progress, so that the uploads abandoned for longer than the
+-- upload expiry can be found and aborted without scanning every file.
+create index idx_file_system_items_uploading
+    on file_system_items (created_at)
+    where chunks -> 'uploadId' is not null;
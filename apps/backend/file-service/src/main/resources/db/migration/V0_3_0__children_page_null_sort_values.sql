@@ -0,0 +1,79 @@
+-- Lets a page resume after a child without sort value, such as a child never updated when
+-- sorting by update time. The row comparison of the seek condition is null for such children,
+-- so they were skipped, and a cursor positioned on one of them matched no child at all.
+create or replace function get_children_page(
+    input_parent_id uuid,
+    input_user_id uuid,
+    input_sort_key text,
+    input_descending boolean,
+    input_after_value text,
+    input_after_id uuid,
+    input_page_size integer,
+    input_parent_permission text default null
+) returns table (
+                    output_children jsonb,
+                    output_next_value text,
+                    output_next_id uuid
+                ) as $$
+declare
+    sort_expression text;
+    sort_type text;
+    direction text := case when input_descending then 'desc' else 'asc' end;
+    reverse_direction text := case when input_descending then 'asc' else 'desc' end;
+    seek_condition text := '';
+begin
+    case input_sort_key
+        when 'name' then
+            sort_expression := 'c.name';
+            sort_type := 'text';
+        when 'updated_at' then
+            sort_expression := 'c.updated_at';
+            sort_type := 'timestamp';
+        when 'size' then
+            sort_expression := 'coalesce(c.size, 0)';
+            sort_type := 'bigint';
+        when 'type' then
+            sort_expression := 'c.item_type';
+            sort_type := 'text';
+        else
+            raise exception 'Unsupported sort key %', input_sort_key
+                using errcode = '22023';
+    end case;
+
+    -- Nulls sort after every value ascending and before every value descending
+    if input_after_id is not null and input_after_value is null then
+        seek_condition := format(
+            'where (%1$s is null and c.item_id %2$s $4)%3$s',
+            sort_expression,
+            case when input_descending then '<' else '>' end,
+            case when input_descending then format(' or %s is not null', sort_expression) else '' end
+        );
+    elsif input_after_id is not null then
+        seek_condition := format(
+            'where ((%1$s, c.item_id) %2$s ($3::%3$s, $4)%4$s)',
+            sort_expression,
+            case when input_descending then '<' else '>' end,
+            sort_type,
+            case when input_descending then '' else format(' or %s is null', sort_expression) end
+        );
+    end if;
+
+    return query execute format(
+        'select coalesce(jsonb_agg(to_jsonb(c) order by %1$s %2$s, c.item_id %2$s), ''[]''),
+                case when count(*) = $5
+                     then (array_agg(%1$s::text order by %1$s %3$s, c.item_id %3$s))[1] end,
+                case when count(*) = $5
+                     then (array_agg(c.item_id order by %1$s %3$s, c.item_id %3$s))[1] end
+         from (select *
+               from children_of($1, $2, $6) c
+               %4$s
+               order by %1$s %2$s, c.item_id %2$s
+               limit $5) c',
+        sort_expression,
+        direction,
+        reverse_direction,
+        seek_condition
+    ) using input_parent_id, input_user_id, input_after_value, input_after_id, input_page_size,
+        input_parent_permission;
+end;
+$$ language plpgsql stable;
@@ -0,0 +1,140 @@
+-- Seeks and orders the page on file_system_items itself, so that the (parent_id, sort key, id)
+-- indexes serve it as a bounded range scan. Filtering and sorting the output of children_of()
+-- read and decorated every child of the folder before the limit applied. Only the children of
+-- the page are joined with their owner, shares, star and blob afterwards.
+create or replace function get_children_page(
+    input_parent_id uuid,
+    input_user_id uuid,
+    input_sort_key text,
+    input_descending boolean,
+    input_after_value text,
+    input_after_id uuid,
+    input_page_size integer,
+    input_parent_permission text default null
+) returns table (
+                    output_children jsonb,
+                    output_next_value text,
+                    output_next_id uuid
+                ) as $$
+declare
+    sort_expression text;
+    sort_type text;
+    nullable boolean := false;
+    direction text := case when input_descending then 'desc' else 'asc' end;
+    reverse_direction text := case when input_descending then 'asc' else 'desc' end;
+    seek_condition text := '';
+begin
+    case input_sort_key
+        when 'name' then
+            sort_expression := 'i.name';
+            sort_type := 'text';
+        when 'updated_at' then
+            sort_expression := 'i.updated_at';
+            sort_type := 'timestamp';
+            nullable := true;
+        when 'size' then
+            sort_expression := 'coalesce(i.size, 0)';
+            sort_type := 'bigint';
+        when 'type' then
+            sort_expression := 'i.type';
+            sort_type := 'text';
+        else
+            raise exception 'Unsupported sort key %', input_sort_key
+                using errcode = '22023';
+    end case;
+
+    -- Nulls sort after every value ascending and before every value descending
+    if input_after_id is not null and input_after_value is null then
+        seek_condition := format(
+            'and (%1$s is null and i.id %2$s $4)%3$s',
+            sort_expression,
+            case when input_descending then '<' else '>' end,
+            case
+                when input_descending then format(' or %s is not null', sort_expression)
+                else ''
+                end
+        );
+    elsif input_after_id is not null then
+        seek_condition := format(
+            'and ((%1$s, i.id) %2$s ($3::%3$s, $4)%4$s)',
+            sort_expression,
+            case when input_descending then '<' else '>' end,
+            sort_type,
+            case
+                when nullable and not input_descending
+                    then format(' or %s is null', sort_expression)
+                else ''
+                end
+        );
+    end if;
+
+    return query execute format(
+        'with page as (select i.*
+                       from file_system_items i
+                       where i.parent_id = $1 %4$s
+                       order by %1$s %2$s, i.id %2$s
+                       limit $5),
+              children as (
+                  select i.id,
+                         %1$s as sort_value,
+                         row (i.id,
+                             i.created_at,
+                             i.updated_at,
+                             owner_user.email::text,
+                             shared_by_user.email::text,
+                             i.type::text,
+                             pub.password_hash is not null,
+                             i.name::text,
+                             i.s3url::text,
+                             i.mime_type::text,
+                             (starred.id is not null)::text,
+                             i.parent_id,
+                             case
+                                 when parent.permission = ''NO_USER_FOUND'' then ''NO_USER_FOUND''
+                                 when parent.permission = ''OWNER'' or i.owner = $2 then ''OWNER''
+                                 when parent.permission = ''EDITOR''
+                                     or isp.permission = ''EDITOR''
+                                     or (pub.permission = ''EDITOR''
+                                         and (pub.expires_at is null or pub.expires_at > now()))
+                                     then ''EDITOR''
+                                 when parent.permission = ''VIEWER''
+                                     or isp.permission = ''VIEWER''
+                                     or (pub.permission = ''VIEWER''
+                                         and (pub.expires_at is null or pub.expires_at > now()))
+                                     then ''VIEWER''
+                                 else ''NO_ACCESS''
+                                 end,
+                             i.size,
+                             case
+                                 when blob.thumbnail_key is not null
+                                     and (pub.password_hash is null or i.owner = $2)
+                                     then ''/api/v1/file/thumbnails/'' || i.id
+                                 end
+                             )::child as child
+                  from (select coalesce($6, get_permission_recursive($1, $2)) as permission) parent
+                           cross join page i
+                           left join users_snapshot owner_user on owner_user.user_id = i.owner
+                           left join shared_items_public pub on pub.item_id = i.id
+                           left join users_snapshot shared_by_user
+                                     on shared_by_user.user_id = pub.shared_by
+                           left join shared_items_private isp
+                                     on isp.item_id = i.id and isp.shared_with = $2
+                           left join items_starred starred
+                                     on starred.item_id = i.id and starred.user_id = $2
+                           left join blobs blob on blob.content_hash = i.content_hash)
+         select coalesce(jsonb_agg(to_jsonb(c.child) order by c.sort_value %2$s, c.id %2$s),
+                         ''[]''),
+                case when count(*) = $5
+                     then (array_agg(c.sort_value::text
+                                     order by c.sort_value %3$s, c.id %3$s))[1] end,
+                case when count(*) = $5
+                     then (array_agg(c.id order by c.sort_value %3$s, c.id %3$s))[1] end
+         from children c',
+        sort_expression,
+        direction,
+        reverse_direction,
+        seek_condition
+    ) using input_parent_id, input_user_id, input_after_value, input_after_id, input_page_size,
+        input_parent_permission;
+end;
+$$ language plpgsql stable;
@@ -0,0 +1,81 @@
+package com.bytebandit.fileservice.configurer;
+
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.enums.UploadStatus;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Creates the folders and files integration tests work on, owned by the user of the test unless
+ * told otherwise, and reads back the rollups the database keeps for them.
+ */
+public class FileSystemItemFixtures {
+
+    private final FileSystemItemRepository fileSystemItemRepository;
+    private final UUID ownerId;
+
+    /**
+     * Constructor for FileSystemItemFixtures.
+     *
+     * @param fileSystemItemRepository FileSystemItemRepository
+     * @param ownerId                  the ID of the user owning the created items
+     */
+    public FileSystemItemFixtures(FileSystemItemRepository fileSystemItemRepository, UUID ownerId) {
+        this.fileSystemItemRepository = fileSystemItemRepository;
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Creates a folder below the given parent, or a root folder without parent.
+     */
+    public FileSystemItemEntity createFolder(String name, FileSystemItemEntity parent) {
+        return createFolder(name, parent, ownerId);
+    }
+
+    /**
+     * Creates a folder owned by another user than the one of the test.
+     */
+    public FileSystemItemEntity createFolder(
+        String name,
+        FileSystemItemEntity parent,
+        UUID owner
+    ) {
+        return fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name(name)
+                .owner(owner)
+                .status(UploadStatus.NOT_UPLOADED)
+                .type(FileSystemItemType.FOLDER)
+                .parent(parent)
+                .build()
+        );
+    }
+
+    /**
+     * Creates an uploaded text file of the given size.
+     */
+    public FileSystemItemEntity createFile(String name, long size, FileSystemItemEntity parent) {
+        return fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name(name)
+                .owner(ownerId)
+                .status(UploadStatus.UPLOADED)
+                .type(FileSystemItemType.FILE)
+                .size(size)
+                .mimeType("text/plain")
+                .s3Url("s3://test-bucket/" + name)
+                .parent(parent)
+                .build()
+        );
+    }
+
+    /**
+     * Returns the total size, file count and folder count below an item, in that order.
+     */
+    public List<Long> rollup(UUID itemId) {
+        FileSystemItemEntity item = fileSystemItemRepository.findById(itemId).orElseThrow();
+        return List.of(item.getTotalSize(), item.getFileCount(), item.getFolderCount());
+    }
+}
@@ -10,10 +10,14 @@ import com.bytebandit.fileservice.enums.UploadStatus;
 import com.bytebandit.fileservice.model.FileSystemItemEntity;
 import com.bytebandit.fileservice.model.UserSnapshotEntity;
 import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.bytebandit.fileservice.repository.UploadReservationRepository;
 import com.bytebandit.fileservice.repository.UserSnapshotRepository;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.specification.RequestSpecification;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
 import java.util.UUID;
 import lib.core.enums.CustomHttpHeader;
 import lombok.extern.slf4j.Slf4j;
@@ -43,6 +47,9 @@ class CreateItemControllerIT extends AbstractPostgresContainer {
     @Autowired
     private UserSnapshotRepository userSnapshotRepository;
     
+    @Autowired
+    private UploadReservationRepository uploadReservationRepository;
+    
     private final UUID ownerId = UUID.randomUUID();
     
     
@@ -72,6 +79,11 @@ class CreateItemControllerIT extends AbstractPostgresContainer {
         );
         FileSystemItemEntity parentFolder = createAFolder(ownerId);
         fileSystemItemRepository.save(parentFolder);
+        uploadReservationRepository.reserve(
+            ownerId,
+            Map.of("new_file.txt", 1234L),
+            Instant.now().plus(Duration.ofHours(1))
+        );
         
         String requestBody = """
             {
@@ -103,6 +115,86 @@ class CreateItemControllerIT extends AbstractPostgresContainer {
             .body("data.type", equalTo("FILE"));
     }
     
+    /**
+     * A file takes the size its object was presigned for, whatever size the client claims.
+     */
+    @Test
+    void shouldTakeReservedSize_WhenClientClaimsAnotherSize() {
+        userSnapshotRepository.save(
+            new UserSnapshotEntity(ownerId, "valid-mail@domain.com")
+        );
+        FileSystemItemEntity parentFolder = createAFolder(ownerId);
+        fileSystemItemRepository.save(parentFolder);
+        uploadReservationRepository.reserve(
+            ownerId,
+            Map.of("large_file.bin", 10_000_000L),
+            Instant.now().plus(Duration.ofHours(1))
+        );
+        
+        String requestBody = """
+            {
+                "name": "large_file.bin",
+                "size": 0,
+                "mimeType": "application/octet-stream",
+                "status": "UPLOADED",
+                "type": "FILE",
+                "chunks": null,
+                "s3Url": "large_file.bin",
+                "parentId": "%s"
+            }
+            """.formatted(parentFolder.getId());
+        
+        requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), ownerId)
+            .body(requestBody)
+            .when()
+            .post("/create")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("data.size", equalTo(10_000_000));
+    }
+    
+    /**
+     * A file can only be created on an object presigned for its owner, so the request should
+     * fail when the object was presigned for someone else.
+     */
+    @Test
+    void shouldFailToCreateFile_WhenObjectNotReservedForOwner() {
+        userSnapshotRepository.save(
+            new UserSnapshotEntity(ownerId, "valid-mail@domain.com")
+        );
+        FileSystemItemEntity parentFolder = createAFolder(ownerId);
+        fileSystemItemRepository.save(parentFolder);
+        uploadReservationRepository.reserve(
+            UUID.randomUUID(),
+            Map.of("someone_elses_file.txt", 1234L),
+            Instant.now().plus(Duration.ofHours(1))
+        );
+        
+        String requestBody = """
+            {
+                "name": "someone_elses_file.txt",
+                "size": 1234,
+                "mimeType": "text/plain",
+                "status": "UPLOADED",
+                "type": "FILE",
+                "chunks": null,
+                "s3Url": "https://s3.bucket.com/someone_elses_file.txt",
+                "parentId": "%s"
+            }
+            """.formatted(parentFolder.getId());
+        
+        requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), ownerId)
+            .body(requestBody)
+            .when()
+            .post("/create")
+            .then()
+            .statusCode(HttpStatus.FORBIDDEN.value())
+            .body("errorCode", equalTo("PERM-01"))
+            .body("details", containsString("was not presigned for you"));
+    }
+    
     /**
      * When user has no permission to create an item, the request should fail. with proper
      * ErrorResponse.
@@ -1,5 +1,7 @@
 package com.bytebandit.fileservice.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
@@ -8,6 +10,8 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
 import com.bytebandit.fileservice.enums.FileSystemItemType;
@@ -26,15 +30,19 @@ import com.bytebandit.fileservice.repository.UserSnapshotRepository;
 import com.bytebandit.fileservice.service.RoleBasedAccessControlService;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
 import io.restassured.specification.RequestSpecification;
 import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.IntStream;
 import lib.core.enums.CustomHttpHeader;
 import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -44,6 +52,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -70,6 +79,9 @@ class ItemViewControllerIT extends AbstractPostgresContainer {
     @Autowired
     private SharedItemsPublicRepository sharedItemsPublicRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @MockitoBean
     private RoleBasedAccessControlService roleBasedAccessControlService;
 
@@ -501,6 +513,162 @@ class ItemViewControllerIT extends AbstractPostgresContainer {
             .body("data.permission", equalTo("EDITOR"));
     }
 
+    /**
+     * This test verifies that the unlock token returned after a correct password lets the user
+     * view the protected folder again without entering the password.
+     */
+    @Test
+    void shouldSkipPasswordCheck_WhenUnlockTokenIssuedForItem() {
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, "owner@domain.com"));
+        userSnapshotRepository.save(new UserSnapshotEntity(anotherUserId, "guest@domain.com"));
+
+        FileSystemItemEntity folder = fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name("Shared Folder")
+                .type(FileSystemItemType.FOLDER)
+                .owner(ownerId)
+                .status(UploadStatus.UPLOADED)
+                .build()
+        );
+
+        Mockito.when(roleBasedAccessControlService.getPermission(
+            folder.getId().toString(),
+            anotherUserId
+        )).thenReturn("VIEWER");
+        Mockito.when(roleBasedAccessControlService.isPasswordProtected(
+            folder.getId().toString()
+        )).thenReturn(true);
+        doNothing()
+            .when(roleBasedAccessControlService)
+            .validatePassword(folder.getId(), rawPassword);
+
+        String unlockToken = unlock(folder.getId(), rawPassword);
+
+        requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), anotherUserId)
+            .body("""
+                {
+                    "itemId": "%s",
+                    "unlockToken": "%s"
+                }
+                """.formatted(folder.getId().toString(), unlockToken))
+            .when()
+            .post("/view")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("data.itemId", equalTo(folder.getId().toString()))
+            .body("data.unlockToken", nullValue());
+
+        verify(roleBasedAccessControlService, times(1))
+            .validatePassword(folder.getId(), rawPassword);
+    }
+
+    /**
+     * This test verifies that the unlock token of a protected folder does not unlock a protected
+     * item inside it, which keeps asking for its own password.
+     */
+    @Test
+    void shouldRequireOwnPassword_WhenNestedItemProtectedWithAnotherPassword() {
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, "owner@domain.com"));
+        userSnapshotRepository.save(new UserSnapshotEntity(anotherUserId, "guest@domain.com"));
+
+        FileSystemItemEntity folder = fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name("Shared Folder")
+                .type(FileSystemItemType.FOLDER)
+                .owner(ownerId)
+                .status(UploadStatus.UPLOADED)
+                .build()
+        );
+        FileSystemItemEntity child = fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name("Nested Folder")
+                .type(FileSystemItemType.FOLDER)
+                .owner(ownerId)
+                .status(UploadStatus.UPLOADED)
+                .parent(folder)
+                .build()
+        );
+        final String childPassword = "anotherPassword";
+
+        Mockito.when(roleBasedAccessControlService.getPermission(
+            folder.getId().toString(),
+            anotherUserId
+        )).thenReturn("VIEWER");
+        Mockito.when(roleBasedAccessControlService.getPermission(
+            child.getId().toString(),
+            anotherUserId
+        )).thenReturn("VIEWER");
+        Mockito.when(roleBasedAccessControlService.isPasswordProtected(
+            folder.getId().toString()
+        )).thenReturn(true);
+        Mockito.when(roleBasedAccessControlService.isPasswordProtected(
+            child.getId().toString()
+        )).thenReturn(true);
+        doNothing()
+            .when(roleBasedAccessControlService)
+            .validatePassword(folder.getId(), rawPassword);
+        doNothing()
+            .when(roleBasedAccessControlService)
+            .validatePassword(child.getId(), childPassword);
+        doThrow(
+            new ItemProtectedWithPasswordException("The item you are trying to access is "
+                + "protected by  password")
+        ).when(
+            roleBasedAccessControlService
+        ).validatePassword(child.getId(), null);
+
+        String folderToken = unlock(folder.getId(), rawPassword);
+
+        requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), anotherUserId)
+            .body("""
+                {
+                    "itemId": "%s",
+                    "unlockToken": "%s"
+                }
+                """.formatted(child.getId().toString(), folderToken))
+            .when()
+            .post("/view")
+            .then()
+            .statusCode(HttpStatus.FORBIDDEN.value())
+            .body("errorCode", equalTo("ITEM-03"));
+
+        String childToken = unlock(child.getId(), childPassword);
+
+        requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), anotherUserId)
+            .body("""
+                {
+                    "itemId": "%s",
+                    "unlockToken": "%s"
+                }
+                """.formatted(child.getId().toString(), childToken))
+            .when()
+            .post("/view")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("data.itemId", equalTo(child.getId().toString()));
+    }
+
+    private String unlock(UUID itemId, String password) {
+        return requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), anotherUserId)
+            .body("""
+                {
+                    "itemId": "%s",
+                    "password": "%s"
+                }
+                """.formatted(itemId.toString(), password))
+            .when()
+            .post("/view")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("data.unlockToken", notNullValue())
+            .extract()
+            .path("data.unlockToken");
+    }
+
     /**
      * This test verifies that the item view request returns an error when the user does not have.
      * access to the item.
@@ -574,6 +742,221 @@ class ItemViewControllerIT extends AbstractPostgresContainer {
             .body("message", containsString("Error occurred while viewing the item."));
     }
     
+    /**
+     * This test verifies that asking for a sort order alone returns the children in that order.
+     */
+    @Test
+    void shouldSortChildren_WhenOnlySortOrderIsProvided() {
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, "owner-1@example.com"));
+        FileSystemItemEntity folder = fileSystemItemRepository.save(createAFolder(ownerId, "root"));
+        for (String name : List.of("b", "c", "a")) {
+            FileSystemItemEntity child = createAFolder(ownerId, name);
+            child.setParent(folder);
+            fileSystemItemRepository.save(child);
+        }
+        Mockito.when(roleBasedAccessControlService.getPermission(folder.getId().toString(),
+                ownerId))
+            .thenReturn("OWNER");
+
+        requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), ownerId.toString())
+            .body("""
+                {
+                    "itemId": "%s",
+                    "sortBy": "name",
+                    "descending": true
+                }
+                """.formatted(folder.getId()))
+            .when()
+            .post("/view")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .body("data.children.name", contains("c", "b", "a"));
+    }
+
+    /**
+     * This test verifies that paging by update time visits every child exactly once, including
+     * the children that were never updated, in both directions.
+     */
+    @Test
+    void shouldPageThroughChildrenWithoutSortValue() {
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, "owner-1@example.com"));
+        FileSystemItemEntity folder = fileSystemItemRepository.save(createAFolder(ownerId, "root"));
+        List<String> childIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            FileSystemItemEntity child = createAFolder(ownerId, "child-" + i);
+            child.setParent(folder);
+            childIds.add(fileSystemItemRepository.save(child).getId().toString());
+        }
+        jdbcTemplate.update(
+            "update file_system_items set updated_at = null where id in (?::uuid, ?::uuid)",
+            childIds.get(1),
+            childIds.get(3)
+        );
+        Mockito.when(roleBasedAccessControlService.getPermission(folder.getId().toString(),
+                ownerId))
+            .thenReturn("OWNER");
+
+        for (boolean descending : List.of(false, true)) {
+            List<String> visited = new ArrayList<>();
+            String cursor = null;
+            do {
+                String requestBody = """
+                    {
+                        "itemId": "%s",
+                        "pageSize": 2,
+                        "sortBy": "updated_at",
+                        "descending": %s,
+                        "cursor": %s
+                    }
+                    """.formatted(
+                    folder.getId(),
+                    descending,
+                    cursor == null ? "null" : "\"" + cursor + "\""
+                );
+                ValidatableResponse response = requestSpecification()
+                    .header(CustomHttpHeader.USER_ID.getValue(), ownerId.toString())
+                    .body(requestBody)
+                    .when()
+                    .post("/view")
+                    .then()
+                    .statusCode(HttpStatus.OK.value());
+                visited.addAll(response.extract().path("data.children.item_id"));
+                cursor = response.extract().path("data.nextCursor");
+            } while (cursor != null);
+
+            assertThat(visited).containsExactlyInAnyOrderElementsOf(childIds);
+        }
+    }
+
+    /**
+     * This test verifies that the streamed item view holds the same item and children as the
+     * regular item view, with the children in name order.
+     */
+    @Test
+    void shouldStreamSameItemViewAsRegularView() {
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, "owner-1@example.com"));
+        FileSystemItemEntity folder = fileSystemItemRepository.save(createAFolder(ownerId, "root"));
+        for (String name : List.of("b", "c", "a")) {
+            FileSystemItemEntity child = createAFolder(ownerId, name);
+            child.setParent(folder);
+            fileSystemItemRepository.save(child);
+        }
+        fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name("notes.txt")
+                .type(FileSystemItemType.FILE)
+                .size(1024L)
+                .owner(ownerId)
+                .status(UploadStatus.UPLOADED)
+                .mimeType("text/plain")
+                .s3Url("https://s3.com/notes.txt")
+                .parent(folder)
+                .build()
+        );
+        Mockito.when(roleBasedAccessControlService.getPermission(folder.getId().toString(),
+                ownerId))
+            .thenReturn("OWNER");
+        String requestBody = """
+            {
+                "itemId": "%s"
+            }
+            """.formatted(folder.getId());
+
+        Map<String, Object> viewed = requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), ownerId.toString())
+            .body(requestBody)
+            .when()
+            .post("/view")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .extract()
+            .jsonPath()
+            .getMap("data");
+        Map<String, Object> streamed = requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), ownerId.toString())
+            .body(requestBody)
+            .when()
+            .post("/view/stream")
+            .then()
+            .statusCode(HttpStatus.OK.value())
+            .contentType(ContentType.JSON)
+            .body("status", equalTo(HttpStatus.OK.value()))
+            .body("message", equalTo("Viewed item successfully"))
+            .body("timestamp", notNullValue())
+            .body("data.children.name", contains("a", "b", "c", "notes.txt"))
+            .extract()
+            .jsonPath()
+            .getMap("data");
+
+        assertThat(streamed.get("children"))
+            .asInstanceOf(InstanceOfAssertFactories.LIST)
+            .containsExactlyInAnyOrderElementsOf((List<?>) viewed.get("children"));
+        viewed.remove("children");
+        viewed.remove("nextCursor");
+        streamed.remove("children");
+        assertThat(streamed).isEqualTo(viewed);
+    }
+
+    /**
+     * This test verifies that streaming the view of a missing item fails the same way as the
+     * regular item view, before any content is streamed.
+     */
+    @Test
+    void shouldReturnError_WhenStreamedItemNotFound() {
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, "user@example.com"));
+        UUID randomItemId = UUID.randomUUID();
+        Mockito.when(roleBasedAccessControlService.getPermission(randomItemId.toString(), ownerId))
+            .thenReturn("OWNER");
+
+        requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), ownerId.toString())
+            .body("""
+                {
+                    "itemId": "%s"
+                }
+                """.formatted(randomItemId))
+            .when()
+            .post("/view/stream")
+            .then()
+            .statusCode(HttpStatus.NOT_FOUND.value())
+            .body("errorCode", equalTo("ITEM-02"))
+            .body("error", equalTo("Not Found"))
+            .body("message", equalTo("Error occurred while viewing the item."));
+    }
+
+    /**
+     * This test verifies that streaming the view of an item the user has no access to is refused
+     * without streaming any of its children.
+     */
+    @Test
+    void shouldRejectStream_WhenUserHasNoAccess() {
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, "owner@domain.com"));
+        userSnapshotRepository.save(new UserSnapshotEntity(anotherUserId, "guest@domain.com"));
+        FileSystemItemEntity folder = fileSystemItemRepository.save(createAFolder(ownerId, "root"));
+        FileSystemItemEntity child = createAFolder(ownerId, "private");
+        child.setParent(folder);
+        fileSystemItemRepository.save(child);
+        Mockito.when(roleBasedAccessControlService.getPermission(folder.getId().toString(),
+                anotherUserId))
+            .thenReturn("NO_ACCESS");
+
+        requestSpecification()
+            .header(CustomHttpHeader.USER_ID.getValue(), anotherUserId.toString())
+            .body("""
+                {
+                    "itemId": "%s"
+                }
+                """.formatted(folder.getId()))
+            .when()
+            .post("/view/stream")
+            .then()
+            .statusCode(HttpStatus.NOT_FOUND.value())
+            .body("errorCode", equalTo("ITEM-02"))
+            .body("details", equalTo("You do not have access to this item."))
+            .body("data", nullValue());
+    }
+
     private FileSystemItemEntity createAFolder(UUID ownerId, String folderName) {
         return FileSystemItemEntity.builder()
             .name(folderName)
@@ -5,9 +5,13 @@ import static org.mockito.Mockito.when;
 
 import com.bytebandit.fileservice.dto.FileNameRequest;
 import com.bytebandit.fileservice.exception.InvalidFileNameException;
+import com.bytebandit.fileservice.service.BatchUploadPresignService;
 import com.bytebandit.fileservice.service.S3FileService;
+import jakarta.servlet.http.HttpServletRequest;
 import java.time.Instant;
+import java.util.UUID;
 import lib.core.dto.response.ApiResponse;
+import lib.core.enums.CustomHttpHeader;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,9 +28,17 @@ class UploadControllerTest {
     @Mock
     private S3FileService s3FileService;
     
+    @Mock
+    private BatchUploadPresignService batchUploadPresignService;
+    
+    @Mock
+    private HttpServletRequest servletRequest;
+    
     @InjectMocks
     private UploadController uploadController;
     
+    private final UUID userId = UUID.randomUUID();
+    
     private FileNameRequest fileNameRequest;
     private ApiResponse<String> successResponse;
     
@@ -36,6 +48,9 @@ class UploadControllerTest {
     @BeforeEach
     void setUp() {
         fileNameRequest = new FileNameRequest();
+        fileNameRequest.setSize(1024L);
+        when(servletRequest.getHeader(CustomHttpHeader.USER_ID.getValue()))
+            .thenReturn(userId.toString());
         successResponse = ApiResponse.<String>builder()
             .status(200)
             .message("Pre-signed URL generated successfully")
@@ -51,10 +66,11 @@ class UploadControllerTest {
     @Test
     void testGeneratePresignedUrl_Success() {
         fileNameRequest.setFileName("test-file.txt");
-        when(s3FileService.generateUploadPresignedUrl("test-file.txt")).thenReturn(successResponse);
+        when(s3FileService.generateUploadPresignedUrl("test-file.txt", 1024L, userId))
+            .thenReturn(successResponse);
         
         ResponseEntity<ApiResponse<String>> response =
-            uploadController.generateUploadPresignedUrl(fileNameRequest);
+            uploadController.generateUploadPresignedUrl(fileNameRequest, servletRequest);
         
         assertEquals(HttpStatus.OK.value(), response.getStatusCode().value());
         assertEquals(successResponse, response.getBody());
@@ -68,11 +84,11 @@ class UploadControllerTest {
     @Test
     void testGeneratePresignedUrl_EmptyFileName() {
         fileNameRequest.setFileName("");
-        when(s3FileService.generateUploadPresignedUrl(""))
+        when(s3FileService.generateUploadPresignedUrl("", 1024L, userId))
             .thenThrow(new InvalidFileNameException("File name cannot be empty"));
         
         try {
-            uploadController.generateUploadPresignedUrl(fileNameRequest);
+            uploadController.generateUploadPresignedUrl(fileNameRequest, servletRequest);
         } catch (InvalidFileNameException ex) {
             assertEquals("File name cannot be empty", ex.getMessage());
         }
@@ -84,11 +100,11 @@ class UploadControllerTest {
     @Test
     void testGeneratePresignedUrl_NullFileName() {
         fileNameRequest.setFileName(null);
-        when(s3FileService.generateUploadPresignedUrl(null))
+        when(s3FileService.generateUploadPresignedUrl(null, 1024L, userId))
             .thenThrow(new InvalidFileNameException("File name cannot be empty"));
         
         try {
-            uploadController.generateUploadPresignedUrl(fileNameRequest);
+            uploadController.generateUploadPresignedUrl(fileNameRequest, servletRequest);
         } catch (InvalidFileNameException ex) {
             assertEquals("File name cannot be empty", ex.getMessage());
         }
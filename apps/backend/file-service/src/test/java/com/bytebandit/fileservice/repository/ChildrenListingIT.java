@@ -0,0 +1,265 @@
+package com.bytebandit.fileservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import com.bytebandit.fileservice.configurer.FileSystemItemFixtures;
+import com.bytebandit.fileservice.enums.FileSystemPermission;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.model.SharedItemsPrivateEntity;
+import com.bytebandit.fileservice.model.SharedItemsPublicEntity;
+import com.bytebandit.fileservice.model.UserSnapshotEntity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ChildrenListingIT extends AbstractPostgresContainer {
+
+    @Autowired
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Autowired
+    private UserSnapshotRepository userSnapshotRepository;
+
+    @Autowired
+    private SharedItemsPrivateRepository sharedItemsPrivateRepository;
+
+    @Autowired
+    private SharedItemsPublicRepository sharedItemsPublicRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UUID ownerId;
+    private UUID userId;
+    private FileSystemItemFixtures items;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, ownerId + "@domain.com"));
+        userSnapshotRepository.save(new UserSnapshotEntity(userId, userId + "@domain.com"));
+        items = new FileSystemItemFixtures(fileSystemItemRepository, ownerId);
+    }
+
+    /**
+     * Test for the permission of each child combining the permission on the folder, which the
+     * user has none of, with the grants found on the child itself.
+     */
+    @Test
+    void shouldResolvePermissionOfEachChildFromItsOwnGrants() {
+        FileSystemItemEntity root = items.createFolder("root", null);
+        items.createFolder("private", root);
+        FileSystemItemEntity edited = items.createFolder("edited", root);
+        FileSystemItemEntity published = items.createFolder("published", root);
+        FileSystemItemEntity expired = items.createFolder("expired", root);
+        items.createFolder("own", root, userId);
+        items.createFolder("grandchild", edited);
+        sharePrivately(edited, FileSystemPermission.EDITOR);
+        sharePublicly(published, FileSystemPermission.VIEWER, null);
+        sharePublicly(
+            expired,
+            FileSystemPermission.EDITOR,
+            Timestamp.from(Instant.now().minus(Duration.ofHours(1)))
+        );
+
+        Map<String, Map<String, Object>> children = children(root.getId(), userId);
+
+        assertThat(children).containsOnlyKeys("private", "edited", "published", "expired", "own");
+        assertThat(children.get("private")).containsEntry("permission", "NO_ACCESS");
+        assertThat(children.get("edited")).containsEntry("permission", "EDITOR");
+        assertThat(children.get("published"))
+            .containsEntry("permission", "VIEWER")
+            .containsEntry("shared_by_email", ownerId + "@domain.com");
+        assertThat(children.get("expired")).containsEntry("permission", "NO_ACCESS");
+        assertThat(children.get("own"))
+            .containsEntry("permission", "OWNER")
+            .containsEntry("owner_email", userId + "@domain.com");
+    }
+
+    /**
+     * Test for the permission on the folder being inherited by every child, and raised by a
+     * stronger grant on a child.
+     */
+    @Test
+    void shouldInheritPermissionOfFolder() {
+        FileSystemItemEntity root = items.createFolder("root", null);
+        sharePrivately(root, FileSystemPermission.VIEWER);
+        items.createFolder("viewed", root);
+        items.createFile("notes.txt", 12L, root);
+        sharePrivately(items.createFolder("edited", root), FileSystemPermission.EDITOR);
+
+        Map<String, Map<String, Object>> children = children(root.getId(), userId);
+
+        assertThat(children.get("viewed")).containsEntry("permission", "VIEWER");
+        assertThat(children.get("notes.txt"))
+            .containsEntry("permission", "VIEWER")
+            .containsEntry("item_type", "FILE")
+            .containsEntry("size", 12L)
+            .containsEntry("mime_type", "text/plain");
+        assertThat(children.get("edited")).containsEntry("permission", "EDITOR");
+        assertThat(children(root.getId(), ownerId).values())
+            .allSatisfy(child -> assertThat(child).containsEntry("permission", "OWNER"));
+    }
+
+    /**
+     * Test for stars only being reported to the user who starred the child.
+     */
+    @Test
+    void shouldReportStarsOfUser() {
+        FileSystemItemEntity root = items.createFolder("root", null);
+        FileSystemItemEntity starred = items.createFolder("starred", root);
+        items.createFolder("plain", root);
+        jdbcTemplate.update(
+            "insert into items_starred (id, user_id, item_id) values (?, ?, ?)",
+            UUID.randomUUID(), ownerId, starred.getId()
+        );
+
+        assertThat(children(root.getId(), ownerId).get("starred"))
+            .containsEntry("is_starred", "true");
+        assertThat(children(root.getId(), ownerId).get("plain"))
+            .containsEntry("is_starred", "false");
+        sharePrivately(root, FileSystemPermission.VIEWER);
+        assertThat(children(root.getId(), userId).get("starred"))
+            .containsEntry("is_starred", "false");
+    }
+
+    /**
+     * Test for an empty folder listing no children, and for an unknown user being reported on
+     * every child.
+     */
+    @Test
+    void shouldListNoChildrenOfEmptyFolderAndFlagUnknownUser() {
+        FileSystemItemEntity empty = items.createFolder("empty", null);
+        FileSystemItemEntity root = items.createFolder("root", null);
+        items.createFolder("child", root);
+
+        assertThat(jdbcTemplate.queryForObject(
+            "select cardinality(get_children(?, ?))", Integer.class, empty.getId(), ownerId
+        )).isZero();
+        assertThat(children(root.getId(), UUID.randomUUID()).get("child"))
+            .containsEntry("permission", "NO_USER_FOUND");
+    }
+
+    /**
+     * Test for paging by every sort key, in both directions, listing each child once, in order,
+     * and with the same details as the unpaged listing.
+     */
+    @Test
+    void shouldPageThroughChildrenInSortOrder() {
+        FileSystemItemEntity root = items.createFolder("root", null);
+        sharePrivately(items.createFolder("edited", root), FileSystemPermission.EDITOR);
+        items.createFile("b.txt", 30L, root);
+        items.createFile("a.txt", 10L, root);
+        items.createFolder("folder", root);
+        items.createFile("c.txt", 20L, root);
+        jdbcTemplate.update(
+            "update file_system_items set updated_at = null where name = 'a.txt' and parent_id = ?",
+            root.getId()
+        );
+        Map<String, Map<String, Object>> children = children(root.getId(), userId);
+
+        for (String sortKey : List.of("name", "updated_at", "size", "type")) {
+            for (boolean descending : List.of(false, true)) {
+                List<JsonNode> paged = page(root.getId(), sortKey, descending);
+
+                assertThat(paged).extracting(child -> child.get("name").asText())
+                    .containsExactlyInAnyOrderElementsOf(children.keySet());
+                assertThat(paged).allSatisfy(child ->
+                    assertThat(child.get("permission").asText()).isEqualTo(
+                        children.get(child.get("name").asText()).get("permission")
+                    )
+                );
+                if (sortKey.equals("name")) {
+                    List<String> names = paged.stream()
+                        .map(child -> child.get("name").asText())
+                        .toList();
+                    assertThat(names).isSortedAccordingTo(
+                        descending ? Comparator.reverseOrder() : Comparator.naturalOrder()
+                    );
+                }
+            }
+        }
+    }
+
+    private List<JsonNode> page(UUID parentId, String sortKey, boolean descending) {
+        List<JsonNode> paged = new ArrayList<>();
+        String afterValue = null;
+        UUID afterId = null;
+        do {
+            Map<String, Object> page = jdbcTemplate.queryForMap(
+                "select output_children::text as children, output_next_value, output_next_id "
+                    + "from get_children_page(?, ?, ?, ?, ?::text, ?::uuid, 2)",
+                parentId, userId, sortKey, descending, afterValue, afterId
+            );
+            try {
+                for (JsonNode child : objectMapper.readTree((String) page.get("children"))) {
+                    paged.add(child);
+                }
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            afterValue = (String) page.get("output_next_value");
+            afterId = (UUID) page.get("output_next_id");
+        } while (afterId != null);
+        return paged;
+    }
+
+    private Map<String, Map<String, Object>> children(UUID parentId, UUID userId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+            "select * from unnest(get_children(?, ?))", parentId, userId
+        );
+        Map<String, Map<String, Object>> children = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            children.put((String) row.get("name"), row);
+        }
+        return children;
+    }
+
+    private void sharePrivately(FileSystemItemEntity item, FileSystemPermission permission) {
+        sharedItemsPrivateRepository.save(
+            SharedItemsPrivateEntity.builder()
+                .sharedWith(userId)
+                .permission(permission)
+                .item(item)
+                .userId(ownerId)
+                .build()
+        );
+    }
+
+    private void sharePublicly(
+        FileSystemItemEntity item,
+        FileSystemPermission permission,
+        Timestamp expiresAt
+    ) {
+        sharedItemsPublicRepository.save(
+            SharedItemsPublicEntity.builder()
+                .permission(permission)
+                .sharedBy(ownerId)
+                .item(item)
+                .expiresAt(expiresAt)
+                .build()
+        );
+    }
+}
@@ -0,0 +1,77 @@
+package com.bytebandit.fileservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import com.bytebandit.fileservice.configurer.FileSystemItemFixtures;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class FileSystemItemClosureIT extends AbstractPostgresContainer {
+
+    @Autowired
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID ownerId;
+    private FileSystemItemFixtures items;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        items = new FileSystemItemFixtures(fileSystemItemRepository, ownerId);
+    }
+
+    /**
+     * Test for closure rows written when an item is created below a parent.
+     */
+    @Test
+    void shouldLinkNewItemToEveryAncestor() {
+        FileSystemItemEntity root = items.createFolder("root", null);
+        FileSystemItemEntity middle = items.createFolder("middle", root);
+        FileSystemItemEntity leaf = items.createFolder("leaf", middle);
+
+        assertThat(depth(root.getId(), leaf.getId())).isEqualTo(2);
+        assertThat(depth(middle.getId(), leaf.getId())).isEqualTo(1);
+        assertThat(depth(leaf.getId(), leaf.getId())).isZero();
+        assertThat(fileSystemItemRepository.isAncestorOrSelf(root.getId(), leaf.getId())).isTrue();
+        assertThat(fileSystemItemRepository.isAncestorOrSelf(leaf.getId(), root.getId())).isFalse();
+    }
+
+    /**
+     * Test for closure rows rewritten when a subtree is moved to another parent.
+     */
+    @Test
+    void shouldRelinkSubtreeWhenItemIsMoved() {
+        FileSystemItemEntity source = items.createFolder("source", null);
+        FileSystemItemEntity target = items.createFolder("target", null);
+        FileSystemItemEntity moved = items.createFolder("moved", source);
+        FileSystemItemEntity child = items.createFolder("child", moved);
+
+        moved.setParent(target);
+        fileSystemItemRepository.save(moved);
+
+        assertThat(fileSystemItemRepository.isAncestorOrSelf(source.getId(), child.getId()))
+            .isFalse();
+        assertThat(depth(target.getId(), child.getId())).isEqualTo(2);
+        assertThat(depth(moved.getId(), child.getId())).isEqualTo(1);
+    }
+
+    private Integer depth(UUID ancestorId, UUID descendantId) {
+        return jdbcTemplate.queryForObject(
+            "select depth from file_system_item_closure "
+                + "where ancestor_id = ? and descendant_id = ?",
+            Integer.class, ancestorId, descendantId
+        );
+    }
+}
@@ -0,0 +1,101 @@
+package com.bytebandit.fileservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import com.bytebandit.fileservice.configurer.FileSystemItemFixtures;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class FolderRollupIT extends AbstractPostgresContainer {
+
+    @Autowired
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Autowired
+    private BulkItemRepository bulkItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID ownerId;
+    private FileSystemItemFixtures items;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        items = new FileSystemItemFixtures(fileSystemItemRepository, ownerId);
+    }
+
+    /**
+     * Test for rollups growing on every ancestor when items are created.
+     */
+    @Test
+    void shouldAddCreatedItemsToEveryAncestor() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        FileSystemItemEntity folder = items.createFolder("folder", home);
+        items.createFile("a.txt", 100L, folder);
+        items.createFile("b.txt", 50L, home);
+
+        assertThat(items.rollup(home.getId())).containsExactly(150L, 2L, 1L);
+        assertThat(items.rollup(folder.getId())).containsExactly(100L, 1L, 0L);
+    }
+
+    /**
+     * Test for rollups following a subtree when it is moved.
+     */
+    @Test
+    void shouldShiftRollupsWhenSubtreeIsMoved() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        FileSystemItemEntity source = items.createFolder("source", home);
+        FileSystemItemEntity target = items.createFolder("target", home);
+        FileSystemItemEntity moved = items.createFolder("moved", source);
+        items.createFile("a.txt", 70L, moved);
+
+        moved.setParent(target);
+        fileSystemItemRepository.save(moved);
+
+        assertThat(items.rollup(source.getId())).containsExactly(0L, 0L, 0L);
+        assertThat(items.rollup(target.getId())).containsExactly(70L, 1L, 1L);
+        assertThat(items.rollup(home.getId())).containsExactly(70L, 1L, 3L);
+    }
+
+    /**
+     * Test for rollups shrinking once when a whole subtree is deleted in one statement.
+     */
+    @Test
+    void shouldSubtractDeletedSubtreeOnce() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        FileSystemItemEntity folder = items.createFolder("folder", home);
+        FileSystemItemEntity nested = items.createFolder("nested", folder);
+        items.createFile("a.txt", 10L, nested);
+        items.createFile("b.txt", 20L, folder);
+        items.createFile("c.txt", 5L, home);
+
+        bulkItemRepository.deleteSubtrees(List.of(folder.getId()));
+
+        assertThat(items.rollup(home.getId())).containsExactly(5L, 1L, 0L);
+    }
+
+    /**
+     * Test for rollups following a change in the size of a file.
+     */
+    @Test
+    void shouldApplySizeChanges() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        FileSystemItemEntity file = items.createFile("a.txt", 10L, home);
+
+        jdbcTemplate.update("update file_system_items set size = 25 where id = ?", file.getId());
+
+        assertThat(items.rollup(home.getId())).containsExactly(25L, 1L, 0L);
+    }
+}
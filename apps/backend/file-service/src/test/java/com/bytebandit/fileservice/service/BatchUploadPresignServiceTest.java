@@ -0,0 +1,118 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bytebandit.fileservice.dto.FileNameRequest;
+import com.bytebandit.fileservice.dto.PresignedUploadResponse;
+import com.bytebandit.fileservice.exception.InvalidFileNameException;
+import com.bytebandit.fileservice.exception.QuotaExceededException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BatchUploadPresignServiceTest {
+
+    @Mock
+    private S3FileService s3FileService;
+
+    @Mock
+    private UploadReservationService uploadReservationService;
+
+    private BatchUploadPresignService batchUploadPresignService;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        batchUploadPresignService = new BatchUploadPresignService(
+            s3FileService,
+            uploadReservationService,
+            4,
+            2
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchUploadPresignService.shutdown();
+    }
+
+    /**
+     * Test for reserving every presigned object in one call and keeping the request order.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldPresignAllFilesInRequestOrder() {
+        when(s3FileService.presignUpload(anyString(), anyLong()))
+            .thenAnswer(invocation -> "https://bucket/" + invocation.getArgument(0));
+        List<FileNameRequest> files = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            files.add(file("file-" + i, 10L));
+        }
+
+        List<PresignedUploadResponse> urls =
+            batchUploadPresignService.presignUploads(files, userId);
+
+        ArgumentCaptor<Map<String, Long>> reserved = ArgumentCaptor.forClass(Map.class);
+        verify(uploadReservationService).reserve(eq(userId), reserved.capture());
+        assertThat(reserved.getValue()).hasSize(25);
+        assertThat(reserved.getValue().values()).containsOnly(10L);
+        assertThat(urls).hasSize(25);
+        for (int i = 0; i < 25; i++) {
+            assertThat(urls.get(i).getFileName()).isEqualTo("file-" + i);
+            assertThat(urls.get(i).getUrl()).endsWith("-file-" + i);
+            assertThat(reserved.getValue())
+                .containsKey(urls.get(i).getUrl().substring("https://bucket/".length()));
+        }
+    }
+
+    /**
+     * Test for signing nothing when the batch does not fit in the quota.
+     */
+    @Test
+    void shouldNotSignWhenBatchExceedsQuota() {
+        doThrow(new QuotaExceededException("Quota exceeded"))
+            .when(uploadReservationService).reserve(eq(userId), any());
+
+        assertThatThrownBy(() -> batchUploadPresignService.presignUploads(
+            List.of(file("a.txt", 10L), file("b.txt", 20L)), userId
+        )).isInstanceOf(QuotaExceededException.class);
+        verify(s3FileService, never()).presignUpload(anyString(), anyLong());
+        verify(uploadReservationService, never()).reserve(any(UUID.class), any());
+    }
+
+    /**
+     * Test for rejecting a batch containing an empty file name.
+     */
+    @Test
+    void shouldRejectEmptyFileName() {
+        assertThatThrownBy(() -> batchUploadPresignService.presignUploads(
+            List.of(file("a.txt", 10L), file(" ", 20L)), userId
+        )).isInstanceOf(InvalidFileNameException.class);
+    }
+
+    private FileNameRequest file(String name, long size) {
+        FileNameRequest file = new FileNameRequest();
+        file.setFileName(name);
+        file.setSize(size);
+        return file;
+    }
+}
@@ -0,0 +1,248 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import com.bytebandit.fileservice.configurer.FileSystemItemFixtures;
+import com.bytebandit.fileservice.dto.BulkDeleteRequest;
+import com.bytebandit.fileservice.dto.BulkItemResult;
+import com.bytebandit.fileservice.dto.BulkMoveRequest;
+import com.bytebandit.fileservice.dto.BulkRenameRequest;
+import com.bytebandit.fileservice.dto.UpdateItemRequest;
+import com.bytebandit.fileservice.enums.BulkItemStatus;
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.enums.UploadStatus;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.model.UserSnapshotEntity;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.bytebandit.fileservice.repository.UserSnapshotRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkUpdateItemServiceIT extends AbstractPostgresContainer {
+
+    @Autowired
+    private BulkUpdateItemService bulkUpdateItemService;
+
+    @Autowired
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Autowired
+    private UserSnapshotRepository userSnapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private S3Client s3Client;
+
+    private UUID ownerId;
+    private FileSystemItemFixtures items;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        items = new FileSystemItemFixtures(fileSystemItemRepository, ownerId);
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, ownerId + "@domain.com"));
+    }
+
+    /**
+     * Test for renaming owned items while reporting items that do not exist.
+     */
+    @Test
+    void shouldRenameOwnedItemsAndReportMissingOnes() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        FileSystemItemEntity first = items.createFolder("first", home);
+        UUID missingId = UUID.randomUUID();
+
+        BulkRenameRequest request = new BulkRenameRequest();
+        request.setItems(List.of(
+            renameEntry(first.getId(), "renamed"),
+            renameEntry(missingId, "ghost")
+        ));
+
+        List<BulkItemResult> results =
+            bulkUpdateItemService.renameItems(request, ownerId.toString());
+
+        assertThat(results).extracting(BulkItemResult::getStatus)
+            .containsExactly(BulkItemStatus.SUCCESS, BulkItemStatus.NOT_FOUND);
+        assertThat(fileSystemItemRepository.findById(first.getId()).orElseThrow().getName())
+            .isEqualTo("renamed");
+    }
+
+    /**
+     * Test for moving a set of items, rejecting the one the target lies inside of and denying the
+     * one owned by someone else.
+     */
+    @Test
+    void shouldMoveItemsWithPerItemResults() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        FileSystemItemEntity movable = items.createFolder("movable", home);
+        FileSystemItemEntity container = items.createFolder("container", home);
+        FileSystemItemEntity target = items.createFolder("target", container);
+        FileSystemItemEntity foreign = items.createFolder("foreign", null, UUID.randomUUID());
+
+        BulkMoveRequest request = new BulkMoveRequest();
+        request.setItemIds(List.of(movable.getId(), container.getId(), foreign.getId()));
+        request.setParentId(target.getId().toString());
+
+        List<BulkItemResult> results =
+            bulkUpdateItemService.moveItems(request, ownerId.toString());
+
+        assertThat(results).extracting(BulkItemResult::getStatus).containsExactly(
+            BulkItemStatus.SUCCESS,
+            BulkItemStatus.REJECTED,
+            BulkItemStatus.FORBIDDEN
+        );
+        assertThat(fileSystemItemRepository.isAncestorOrSelf(target.getId(), movable.getId()))
+            .isTrue();
+        assertThat(fileSystemItemRepository.isAncestorOrSelf(home.getId(), movable.getId()))
+            .isTrue();
+    }
+
+    /**
+     * Test for deleting a subtree together with the stars of its descendants.
+     */
+    @Test
+    void shouldDeleteSubtreeWithDependentRows() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        FileSystemItemEntity folder = items.createFolder("folder", home);
+        FileSystemItemEntity nested = items.createFolder("nested", folder);
+        jdbcTemplate.update(
+            "insert into items_starred (id, user_id, item_id) values (?, ?, ?)",
+            UUID.randomUUID(), ownerId, nested.getId()
+        );
+
+        BulkDeleteRequest request = new BulkDeleteRequest();
+        request.setItemIds(List.of(folder.getId(), home.getId()));
+
+        List<BulkItemResult> results =
+            bulkUpdateItemService.deleteItems(request, ownerId.toString());
+
+        assertThat(results).extracting(BulkItemResult::getStatus)
+            .containsExactly(BulkItemStatus.SUCCESS, BulkItemStatus.REJECTED);
+        assertThat(fileSystemItemRepository.existsById(folder.getId())).isFalse();
+        assertThat(fileSystemItemRepository.existsById(nested.getId())).isFalse();
+        assertThat(fileSystemItemRepository.existsById(home.getId())).isTrue();
+        assertThat(jdbcTemplate.queryForObject(
+            "select count(*) from items_starred where item_id = ?", Long.class, nested.getId()
+        )).isZero();
+    }
+
+    /**
+     * Test for deleting a subtree aborting the uploads in progress below it and deleting the
+     * objects no remaining file points at, while blobs are left to their reference counts.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReleaseStoredObjectsOfDeletedFiles() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        FileSystemItemEntity folder = items.createFolder("folder", home);
+        createStoredFile("plain.txt", "plain-key", folder, null);
+        createStoredFile("copied.txt", "copied-key", folder, null);
+        createStoredFile("copy.txt", "copied-key", home, null);
+        createStoredFile(
+            "upload.bin",
+            "upload-key",
+            folder,
+            JsonNodeFactory.instance.objectNode()
+                .put("uploadId", "upload-id")
+                .put("key", "upload-key")
+        );
+        FileSystemItemEntity hashed = createStoredFile("hashed.txt", "blob-key", folder, null);
+        String contentHash = UUID.randomUUID().toString();
+        jdbcTemplate.update(
+            "insert into blobs (content_hash, object_key, size) values (?, ?, 10)",
+            contentHash, "blob-key"
+        );
+        fileSystemItemRepository.markUploaded("blob-key", "blob-key", contentHash, 10L, null);
+
+        BulkDeleteRequest request = new BulkDeleteRequest();
+        request.setItemIds(List.of(folder.getId()));
+        bulkUpdateItemService.deleteItems(request, ownerId.toString());
+
+        ArgumentCaptor<Consumer<AbortMultipartUploadRequest.Builder>> aborted =
+            ArgumentCaptor.forClass(Consumer.class);
+        verify(s3Client).abortMultipartUpload(aborted.capture());
+        AbortMultipartUploadRequest.Builder abort = AbortMultipartUploadRequest.builder();
+        aborted.getValue().accept(abort);
+        assertThat(abort.build().key()).isEqualTo("upload-key");
+        assertThat(abort.build().uploadId()).isEqualTo("upload-id");
+
+        ArgumentCaptor<Consumer<DeleteObjectRequest.Builder>> deleted =
+            ArgumentCaptor.forClass(Consumer.class);
+        verify(s3Client, times(2)).deleteObject(deleted.capture());
+        assertThat(deleted.getAllValues()).map(consumer -> {
+            DeleteObjectRequest.Builder delete = DeleteObjectRequest.builder();
+            consumer.accept(delete);
+            return delete.build().key();
+        }).containsExactlyInAnyOrder("plain-key", "upload-key");
+        assertThat(jdbcTemplate.queryForObject(
+            "select ref_count from blobs where content_hash = ?", Integer.class, contentHash
+        )).isZero();
+        assertThat(fileSystemItemRepository.existsById(hashed.getId())).isFalse();
+    }
+
+    /**
+     * Test for deleting folders without files leaving the storage alone.
+     */
+    @Test
+    void shouldNotTouchStorage_WhenNoFileIsDeleted() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        FileSystemItemEntity folder = items.createFolder("folder", home);
+
+        BulkDeleteRequest request = new BulkDeleteRequest();
+        request.setItemIds(List.of(folder.getId()));
+        bulkUpdateItemService.deleteItems(request, ownerId.toString());
+
+        verifyNoInteractions(s3Client);
+    }
+
+    private FileSystemItemEntity createStoredFile(
+        String name,
+        String objectKey,
+        FileSystemItemEntity parent,
+        JsonNode chunks
+    ) {
+        return fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name(name)
+                .owner(ownerId)
+                .status(chunks == null ? UploadStatus.UPLOADED : UploadStatus.NOT_UPLOADED)
+                .type(FileSystemItemType.FILE)
+                .size(10L)
+                .mimeType("text/plain")
+                .s3Url(objectKey)
+                .objectKey(objectKey)
+                .chunks(chunks)
+                .parent(parent)
+                .build()
+        );
+    }
+
+    private UpdateItemRequest renameEntry(UUID itemId, String name) {
+        UpdateItemRequest entry = new UpdateItemRequest();
+        entry.setItemId(itemId.toString());
+        entry.setName(name);
+        return entry;
+    }
+}
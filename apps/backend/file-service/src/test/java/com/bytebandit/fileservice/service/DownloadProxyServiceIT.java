@@ -0,0 +1,234 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.enums.UploadStatus;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.model.UserSnapshotEntity;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.bytebandit.fileservice.repository.UserSnapshotRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DownloadProxyServiceIT extends AbstractPostgresContainer {
+
+    private static final String BUCKET = "oakcan-bucket";
+
+    private static final String CONTENT = "0123456789";
+
+    private static final LocalStackContainer LOCALSTACK_CONTAINER;
+
+    static {
+        LOCALSTACK_CONTAINER =
+            new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.8"))
+                .withServices(LocalStackContainer.Service.S3);
+        LOCALSTACK_CONTAINER.start();
+        System.setProperty("aws.accessKeyId", LOCALSTACK_CONTAINER.getAccessKey());
+        System.setProperty("aws.secretAccessKey", LOCALSTACK_CONTAINER.getSecretKey());
+    }
+
+    @Autowired
+    private DownloadProxyService downloadProxyService;
+
+    @Autowired
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Autowired
+    private UserSnapshotRepository userSnapshotRepository;
+
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private S3Client s3Client;
+
+    private UUID ownerId;
+    private FileSystemItemEntity home;
+
+    @DynamicPropertySource
+    static void s3Properties(DynamicPropertyRegistry registry) {
+        registry.add("aws.s3.endpoint", () -> LOCALSTACK_CONTAINER.getEndpoint().toString());
+        registry.add("aws.region", LOCALSTACK_CONTAINER::getRegion);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, ownerId + "@domain.com"));
+        home = fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name("home")
+                .owner(ownerId)
+                .type(FileSystemItemType.FOLDER)
+                .status(UploadStatus.UPLOADED)
+                .build()
+        );
+        if (s3Client.listBuckets().buckets().stream()
+            .noneMatch(bucket -> bucket.name().equals(BUCKET))) {
+            s3Client.createBucket(builder -> builder.bucket(BUCKET));
+        }
+    }
+
+    /**
+     * Test for a single byte range being served as partial content.
+     */
+    @Test
+    void shouldServeRangeAsPartialContent() throws IOException {
+        FileSystemItemEntity file = storeFile(true);
+
+        DownloadProxyService.ObjectDownload download = open(file, "bytes=2-5", null, null);
+
+        assertThat(download.status()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(download.headers().getFirst(HttpHeaders.CONTENT_RANGE))
+            .isEqualTo("bytes 2-5/10");
+        assertThat(download.headers().getContentLength()).isEqualTo(4);
+        assertThat(download.headers().getETag()).isEqualTo(etag(file));
+        assertThat(read(download)).isEqualTo("2345");
+    }
+
+    /**
+     * Test for a range starting past the end of the file being refused with its size.
+     */
+    @Test
+    void shouldRefuseRangePastEndOfFile() {
+        FileSystemItemEntity file = storeFile(true);
+
+        DownloadProxyService.ObjectDownload download = open(file, "bytes=20-", null, null);
+
+        assertThat(download.status()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(download.headers().getFirst(HttpHeaders.CONTENT_RANGE))
+            .isEqualTo("bytes */10");
+        assertThat(download.content()).isNull();
+    }
+
+    /**
+     * Test for a revalidated file being answered without content.
+     */
+    @Test
+    void shouldAnswerNotModified_WhenContentHashMatches() {
+        FileSystemItemEntity file = storeFile(true);
+
+        DownloadProxyService.ObjectDownload download = open(file, null, etag(file), null);
+
+        assertThat(download.status()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(download.headers().getETag()).isEqualTo(etag(file));
+        assertThat(download.content()).isNull();
+    }
+
+    /**
+     * Test for a range conditioned on another version of the file being served as the whole
+     * file.
+     */
+    @Test
+    void shouldServeWholeFile_WhenIfRangeDoesNotMatch() throws IOException {
+        FileSystemItemEntity file = storeFile(true);
+
+        DownloadProxyService.ObjectDownload download =
+            open(file, "bytes=2-5", null, "\"other\"");
+
+        assertThat(download.status()).isEqualTo(HttpStatus.OK);
+        assertThat(download.headers().getFirst(HttpHeaders.CONTENT_RANGE)).isNull();
+        assertThat(read(download)).isEqualTo(CONTENT);
+    }
+
+    /**
+     * Test for a file without content hash being served and revalidated with the ETag of its
+     * stored object.
+     */
+    @Test
+    void shouldFallBackToStorageEtag_WhenFileHasNoContentHash() throws IOException {
+        FileSystemItemEntity file = storeFile(false);
+        String storageEtag = s3Client.headObject(builder -> builder
+            .bucket(BUCKET)
+            .key(file.getObjectKey())
+        ).eTag();
+
+        DownloadProxyService.ObjectDownload download = open(file, null, null, null);
+        assertThat(download.status()).isEqualTo(HttpStatus.OK);
+        assertThat(download.headers().getETag()).isEqualTo(storageEtag);
+        assertThat(read(download)).isEqualTo(CONTENT);
+
+        DownloadProxyService.ObjectDownload revalidated = open(file, null, storageEtag, null);
+        assertThat(revalidated.status()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(revalidated.content()).isNull();
+    }
+
+    private DownloadProxyService.ObjectDownload open(
+        FileSystemItemEntity file,
+        String range,
+        String ifNoneMatch,
+        String ifRange
+    ) {
+        return downloadProxyService.open(
+            file.getId().toString(),
+            null,
+            ownerId,
+            range,
+            ifNoneMatch,
+            ifRange
+        );
+    }
+
+    private static String etag(FileSystemItemEntity file) {
+        return "\"" + file.getContentHash() + "\"";
+    }
+
+    private static String read(DownloadProxyService.ObjectDownload download)
+        throws IOException {
+        try (InputStream content = download.content()) {
+            return new String(content.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Stores a file the way a completed upload does. Files stored without content hash stand for
+     * uploads whose content was not hashed yet.
+     */
+    private FileSystemItemEntity storeFile(boolean hashed) {
+        String key = ownerId + "/" + UUID.randomUUID();
+        s3Client.putObject(
+            builder -> builder.bucket(BUCKET).key(key).contentType("text/plain"),
+            RequestBody.fromString(CONTENT)
+        );
+        FileSystemItemEntity file = fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name("digits.txt")
+                .owner(ownerId)
+                .type(FileSystemItemType.FILE)
+                .status(UploadStatus.UPLOADED)
+                .size((long) CONTENT.length())
+                .mimeType("text/plain")
+                .s3Url(key)
+                .objectKey(key)
+                .parent(home)
+                .build()
+        );
+        if (hashed) {
+            String contentHash = UUID.randomUUID().toString();
+            String storedKey = blobService.register(contentHash, key, CONTENT.length());
+            fileSystemItemRepository.markUploaded(
+                key, storedKey, contentHash, CONTENT.length(), null
+            );
+        }
+        return fileSystemItemRepository.findById(file.getId()).orElseThrow();
+    }
+}
@@ -5,6 +5,7 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import com.bytebandit.fileservice.exception.InvalidFileNameException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -32,6 +33,8 @@ class FileUploadServiceTest {
     private SdkHttpFullRequest sdkHttpRequest;
 
 
+    private final UUID userId = UUID.randomUUID();
+
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(fileUploadService, "bucketName", "test-bucket");
@@ -45,7 +48,7 @@ class FileUploadServiceTest {
      */
     @Test
     void shouldThrowExceptionWhenFileNameIsNull() {
-        assertThatThrownBy(() -> fileUploadService.generateUploadPresignedUrl(null))
+        assertThatThrownBy(() -> fileUploadService.generateUploadPresignedUrl(null, 10L, userId))
             .isInstanceOf(InvalidFileNameException.class)
             .hasMessageContaining("File name cannot be empty");
     }
@@ -61,7 +64,8 @@ class FileUploadServiceTest {
         List<String> inputs = Arrays.asList("", "   ", "\n\t");
 
         for (String input : inputs) {
-            assertThatThrownBy(() -> fileUploadService.generateUploadPresignedUrl(input))
+            assertThatThrownBy(
+                () -> fileUploadService.generateUploadPresignedUrl(input, 10L, userId))
                 .isInstanceOf(InvalidFileNameException.class)
                 .hasMessageContaining("File name cannot be empty");
         }
@@ -0,0 +1,210 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import com.bytebandit.fileservice.dto.MultipartUploadRequest;
+import com.bytebandit.fileservice.dto.MultipartUploadResponse;
+import com.bytebandit.fileservice.dto.PartUrlResponse;
+import com.bytebandit.fileservice.dto.UploadedPart;
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.enums.UploadStatus;
+import com.bytebandit.fileservice.exception.MultipartUploadException;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.model.UserSnapshotEntity;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.bytebandit.fileservice.repository.UserSnapshotRepository;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+
+@SpringBootTest(properties = "app.upload.multipart.part-size=5MB")
+@ActiveProfiles("test")
+class MultipartUploadServiceIT extends AbstractPostgresContainer {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private static final LocalStackContainer LOCALSTACK_CONTAINER;
+
+    static {
+        LOCALSTACK_CONTAINER =
+            new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.8"))
+                .withServices(LocalStackContainer.Service.S3);
+        LOCALSTACK_CONTAINER.start();
+        System.setProperty("aws.accessKeyId", LOCALSTACK_CONTAINER.getAccessKey());
+        System.setProperty("aws.secretAccessKey", LOCALSTACK_CONTAINER.getSecretKey());
+    }
+
+    @Autowired
+    private MultipartUploadService multipartUploadService;
+
+    @Autowired
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Autowired
+    private UserSnapshotRepository userSnapshotRepository;
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private UUID ownerId;
+    private FileSystemItemEntity home;
+
+    @DynamicPropertySource
+    static void s3Properties(DynamicPropertyRegistry registry) {
+        registry.add("aws.s3.endpoint", () -> LOCALSTACK_CONTAINER.getEndpoint().toString());
+        registry.add("aws.region", LOCALSTACK_CONTAINER::getRegion);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, ownerId + "@domain.com"));
+        home = fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name("home")
+                .owner(ownerId)
+                .type(FileSystemItemType.FOLDER)
+                .status(UploadStatus.UPLOADED)
+                .build()
+        );
+        if (s3Client.listBuckets().buckets().stream()
+            .noneMatch(bucket -> bucket.name().equals("oakcan-bucket"))) {
+            s3Client.createBucket(builder -> builder.bucket("oakcan-bucket"));
+        }
+    }
+
+    /**
+     * Test for uploading a file in two parts, resuming after the first one was recorded.
+     */
+    @Test
+    void shouldUploadPartsAndComplete() throws IOException, InterruptedException {
+        MultipartUploadResponse upload =
+            multipartUploadService.initiate(request(PART_SIZE + 1024L), ownerId);
+        assertThat(upload.getPartCount()).isEqualTo(2);
+        assertThat(upload.getPartSize()).isEqualTo(PART_SIZE);
+
+        List<PartUrlResponse> urls =
+            multipartUploadService.presignParts(upload.getItemId(), List.of(1, 2), ownerId);
+        multipartUploadService.recordParts(
+            upload.getItemId(), List.of(uploadPart(urls.get(0), PART_SIZE)), ownerId
+        );
+        assertThatThrownBy(() -> multipartUploadService.complete(upload.getItemId(), ownerId))
+            .isInstanceOf(MultipartUploadException.class);
+
+        MultipartUploadResponse resumed =
+            multipartUploadService.getUpload(upload.getItemId(), ownerId);
+        assertThat(resumed.getUploadedParts()).containsExactly(1);
+        multipartUploadService.recordParts(
+            upload.getItemId(), List.of(uploadPart(urls.get(1), 1024)), ownerId
+        );
+        multipartUploadService.complete(upload.getItemId(), ownerId);
+
+        FileSystemItemEntity item =
+            fileSystemItemRepository.findById(upload.getItemId()).orElseThrow();
+        assertThat(item.getStatus()).isEqualTo(UploadStatus.UPLOADED);
+        assertThat(item.getChunks()).isNull();
+        assertThat(item.getS3Url()).isEqualTo(s3Client.utilities().getUrl(builder -> builder
+            .bucket("oakcan-bucket")
+            .key(item.getObjectKey())
+        ).toString());
+        assertThat(s3Client.headObject(builder -> builder
+            .bucket("oakcan-bucket")
+            .key(item.getObjectKey())
+        ).contentLength()).isEqualTo(PART_SIZE + 1024L);
+    }
+
+    /**
+     * Test for aborting an upload removing the file item.
+     */
+    @Test
+    void shouldAbortUpload() {
+        MultipartUploadResponse upload = multipartUploadService.initiate(request(1024L), ownerId);
+
+        multipartUploadService.abort(upload.getItemId(), ownerId);
+
+        assertThat(fileSystemItemRepository.existsById(upload.getItemId())).isFalse();
+    }
+
+    /**
+     * Test for a completed object that does not have the declared size being discarded.
+     */
+    @Test
+    void shouldDiscardUpload_WhenCompletedSizeDiffersFromDeclaredSize() {
+        MultipartUploadResponse upload = multipartUploadService.initiate(request(1024L), ownerId);
+        UploadedPart part = multipartUploadService.uploadPart(
+            upload.getItemId(), 1, RequestBody.fromBytes(new byte[2048]), ownerId
+        );
+        multipartUploadService.recordParts(upload.getItemId(), List.of(part), ownerId);
+
+        assertThatThrownBy(() -> multipartUploadService.complete(upload.getItemId(), ownerId))
+            .isInstanceOf(MultipartUploadException.class);
+
+        assertThat(fileSystemItemRepository.existsById(upload.getItemId())).isFalse();
+    }
+
+    /**
+     * Test for the sweep aborting the uploads started before the upload expiry only.
+     */
+    @Test
+    void shouldAbortExpiredUploads() {
+        MultipartUploadResponse expired = multipartUploadService.initiate(request(1024L), ownerId);
+        MultipartUploadResponse recent = multipartUploadService.initiate(request(1024L), ownerId);
+        jdbcTemplate.update(
+            "update file_system_items set created_at = now() - interval '8 days' where id = ?",
+            expired.getItemId()
+        );
+
+        multipartUploadService.abortExpired();
+
+        assertThat(fileSystemItemRepository.existsById(expired.getItemId())).isFalse();
+        assertThat(fileSystemItemRepository.existsById(recent.getItemId())).isTrue();
+    }
+
+    private MultipartUploadRequest request(long size) {
+        MultipartUploadRequest request = new MultipartUploadRequest();
+        request.setFileName("large file.bin");
+        request.setSize(size);
+        request.setMimeType("application/octet-stream");
+        request.setParentId(home.getId().toString());
+        return request;
+    }
+
+    private UploadedPart uploadPart(PartUrlResponse url, int size)
+        throws IOException, InterruptedException {
+        HttpResponse<Void> response = httpClient.send(
+            HttpRequest.newBuilder(URI.create(url.getUrl()))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(new byte[size]))
+                .build(),
+            HttpResponse.BodyHandlers.discarding()
+        );
+        assertThat(response.statusCode()).isEqualTo(200);
+
+        UploadedPart part = new UploadedPart();
+        part.setPartNumber(url.getPartNumber());
+        part.setEtag(response.headers().firstValue("ETag").orElseThrow());
+        return part;
+    }
+}
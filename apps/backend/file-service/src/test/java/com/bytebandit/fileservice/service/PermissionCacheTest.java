@@ -0,0 +1,156 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bytebandit.fileservice.projection.PermissionProjection;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import lib.core.events.PermissionInvalidationEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionCacheTest {
+
+    private static final String TOPIC = "permission-invalidations";
+
+    @Mock
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Mock
+    private PasswordProtectionCache passwordProtectionCache;
+
+    @Mock
+    private ObjectProvider<KafkaTemplate<String, PermissionInvalidationEvent>>
+        kafkaTemplateProvider;
+
+    @Mock
+    private KafkaTemplate<String, PermissionInvalidationEvent> kafkaTemplate;
+
+    private PermissionCache permissionCache;
+
+    private final UUID folderId = UUID.randomUUID();
+    private final UUID fileId = UUID.randomUUID();
+    private final UUID otherId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        permissionCache = new PermissionCache(
+            fileSystemItemRepository,
+            passwordProtectionCache,
+            kafkaTemplateProvider,
+            new SimpleMeterRegistry(),
+            100,
+            Duration.ofMinutes(5),
+            true,
+            TOPIC
+        );
+        lenient().when(fileSystemItemRepository.findDescendantsAfter(eq(folderId), any(), anyInt()))
+            .thenReturn(List.of(folderId, fileId));
+    }
+
+    /**
+     * Test for a lookup racing with an eviction not caching the permission it resolved.
+     */
+    @Test
+    void shouldNotCachePermission_WhenEvictedDuringLookup() {
+        when(fileSystemItemRepository.getPermissionWithExpiry(fileId, userId)).thenAnswer(
+            invocation -> {
+                permissionCache.evictLocal(List.of(folderId));
+                return permission("OWNER", null);
+            }
+        );
+
+        permissionCache.get(fileId, userId);
+        permissionCache.get(fileId, userId);
+
+        verify(fileSystemItemRepository, times(2)).getPermissionWithExpiry(fileId, userId);
+    }
+
+    /**
+     * Test for a permission granted by a public share not outliving the share.
+     */
+    @Test
+    void shouldExpirePermission_WhenShareExpires() {
+        when(fileSystemItemRepository.getPermissionWithExpiry(fileId, userId))
+            .thenReturn(permission("VIEWER", Instant.now().minusSeconds(1)));
+        when(fileSystemItemRepository.getPermissionWithExpiry(otherId, userId))
+            .thenReturn(permission("VIEWER", Instant.now().plus(Duration.ofHours(1))));
+
+        permissionCache.get(fileId, userId);
+        permissionCache.get(fileId, userId);
+        permissionCache.get(otherId, userId);
+        permissionCache.get(otherId, userId);
+
+        verify(fileSystemItemRepository, times(2)).getPermissionWithExpiry(fileId, userId);
+        verify(fileSystemItemRepository, times(1)).getPermissionWithExpiry(otherId, userId);
+    }
+
+    /**
+     * Test for an invalidation received from Kafka evicting the subtree of the changed item only.
+     */
+    @Test
+    void shouldEvictSubtree_WhenInvalidationIsConsumed() {
+        when(fileSystemItemRepository.getPermissionWithExpiry(any(), eq(userId)))
+            .thenReturn(permission("EDITOR", null));
+        permissionCache.get(fileId, userId);
+        permissionCache.get(otherId, userId);
+
+        new PermissionInvalidationConsumer(permissionCache)
+            .consumePermissionInvalidation(new PermissionInvalidationEvent(List.of(folderId)));
+        permissionCache.get(fileId, userId);
+        permissionCache.get(otherId, userId);
+
+        verify(fileSystemItemRepository, times(2)).getPermissionWithExpiry(fileId, userId);
+        verify(fileSystemItemRepository, times(1)).getPermissionWithExpiry(otherId, userId);
+        verify(passwordProtectionCache).evict(List.of(folderId));
+    }
+
+    /**
+     * Test for an eviction being published for the other instances.
+     */
+    @Test
+    void shouldBroadcastEviction() {
+        when(kafkaTemplateProvider.getIfAvailable()).thenReturn(kafkaTemplate);
+
+        permissionCache.evictSubtree(folderId);
+
+        ArgumentCaptor<PermissionInvalidationEvent> event =
+            ArgumentCaptor.forClass(PermissionInvalidationEvent.class);
+        verify(kafkaTemplate).send(eq(TOPIC), event.capture());
+        assertThat(event.getValue().getItemIds()).containsExactly(folderId);
+    }
+
+    private static PermissionProjection permission(String permission, Instant expiresAt) {
+        return new PermissionProjection() {
+            @Override
+            public String getOutputPermission() {
+                return permission;
+            }
+
+            @Override
+            public Timestamp getOutputExpiresAt() {
+                return expiresAt == null ? null : Timestamp.from(expiresAt);
+            }
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bytebandit.fileservice.dto.ItemSharePrivateRequest;
+import com.bytebandit.fileservice.repository.SharedItemsPrivateRepository;
+import com.bytebandit.fileservice.repository.SharedItemsPublicRepository;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionResolutionContextTest {
+
+    @Mock
+    private SharedItemsPublicRepository sharedItemsPublicRepository;
+
+    @Mock
+    private SharedItemsPrivateRepository sharedItemsPrivateRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private PermissionCache permissionCache;
+
+    @Mock
+    private PasswordProtectionCache passwordProtectionCache;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private RoleBasedAccessControlService roleBasedAccessControlService;
+    private PrivatePermissionService privatePermissionService;
+
+    private final UUID folderId = UUID.randomUUID();
+    private final UUID fileId = UUID.randomUUID();
+    private final UUID ownerId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        PermissionResolutionContext permissionResolutionContext =
+            new PermissionResolutionContext();
+        roleBasedAccessControlService = new RoleBasedAccessControlService(
+            sharedItemsPublicRepository,
+            passwordEncoder,
+            permissionResolutionContext,
+            permissionCache,
+            passwordProtectionCache
+        );
+        privatePermissionService = new PrivatePermissionService(
+            sharedItemsPrivateRepository,
+            transactionTemplate,
+            permissionCache,
+            permissionResolutionContext
+        );
+        startRequest();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Test for the permission of each item being resolved once per request, however often it is
+     * asked for, and again in the next request.
+     */
+    @Test
+    void shouldResolveEachPermissionOncePerRequest() {
+        when(permissionCache.get(folderId, userId)).thenReturn("EDITOR");
+        when(permissionCache.get(fileId, userId)).thenReturn("VIEWER");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(roleBasedAccessControlService.getPermission(folderId.toString(), userId))
+                .isEqualTo("EDITOR");
+            assertThat(roleBasedAccessControlService.getPermission(fileId.toString(), userId))
+                .isEqualTo("VIEWER");
+        }
+        verify(permissionCache).get(folderId, userId);
+        verify(permissionCache).get(fileId, userId);
+
+        startRequest();
+        roleBasedAccessControlService.getPermission(folderId.toString(), userId);
+        verify(permissionCache, times(2)).get(folderId, userId);
+    }
+
+    /**
+     * Test for sharing an item forcing the permissions resolved earlier in the same request to be
+     * resolved again.
+     */
+    @Test
+    void shouldResolveAgain_WhenItemIsSharedInSameRequest() {
+        when(permissionCache.get(folderId, userId)).thenReturn("NO_ACCESS", "EDITOR");
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<String[]>>getArgument(0).doInTransaction(null)
+        );
+        when(sharedItemsPrivateRepository.shareItemPrivate(
+            folderId,
+            ownerId,
+            new String[] {"user@domain.com"},
+            new String[] {"EDITOR"}
+        )).thenReturn(new String[] {"EDITOR"});
+
+        assertThat(roleBasedAccessControlService.getPermission(folderId.toString(), userId))
+            .isEqualTo("NO_ACCESS");
+        privatePermissionService.givePermissionToUsers(new ItemSharePrivateRequest(
+            folderId.toString(),
+            List.of("user@domain.com"),
+            ownerId.toString(),
+            List.of("EDITOR")
+        ));
+
+        assertThat(roleBasedAccessControlService.getPermission(folderId.toString(), userId))
+            .isEqualTo("EDITOR");
+        verify(permissionCache, times(2)).get(folderId, userId);
+        verify(permissionCache).evictSubtree(folderId);
+    }
+
+    private static void startRequest() {
+        RequestContextHolder.setRequestAttributes(
+            new ServletRequestAttributes(new MockHttpServletRequest())
+        );
+    }
+}
@@ -0,0 +1,125 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares the set-based get_permission_recursive against the original per-level loop, which
+ * is loaded under the name get_permission_recursive_legacy for the duration of the test.
+ */
+@Slf4j
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ActiveProfiles("test")
+class PermissionResolverBenchmarkIT extends AbstractPostgresContainer {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Installs the legacy resolver next to the current one.
+     */
+    @BeforeAll
+    void installLegacyResolver() throws IOException {
+        jdbcTemplate.execute(
+            new ClassPathResource("functions/get_permission_recursive_legacy.sql")
+                .getContentAsString(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Test for both resolvers on a chain where the only grant sits on the root, forcing a walk
+     * over every ancestor.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {5, 50, 500})
+    void shouldResolveSamePermissionAndReportTimings(int depth) {
+        UUID ownerId = createUser("owner-" + depth + "@domain.com");
+        UUID viewerId = createUser("viewer-" + depth + "@domain.com");
+        UUID strangerId = createUser("stranger-" + depth + "@domain.com");
+
+        UUID rootId = null;
+        UUID leafId = null;
+        for (int level = 0; level < depth; level++) {
+            leafId = createFolder("level-" + level, ownerId, leafId);
+            if (rootId == null) {
+                rootId = leafId;
+            }
+        }
+        jdbcTemplate.update(
+            "insert into shared_items_private "
+                + "(id, shared_with, user_id, permission, created_at, updated_at, item_id) "
+                + "values (?, ?, ?, 'VIEWER', now(), now(), ?)",
+            UUID.randomUUID(), viewerId, ownerId, rootId
+        );
+
+        for (UUID userId : new UUID[] {ownerId, viewerId, strangerId, UUID.randomUUID()}) {
+            assertThat(resolve("get_permission_recursive", leafId, userId))
+                .isEqualTo(resolve("get_permission_recursive_legacy", leafId, userId));
+        }
+        assertThat(resolve("get_permission_recursive", leafId, viewerId)).isEqualTo("VIEWER");
+
+        double legacyMicros = measure("get_permission_recursive_legacy", leafId, viewerId);
+        double setBasedMicros = measure("get_permission_recursive", leafId, viewerId);
+        log.info(
+            "depth={} legacy={}us set-based={}us speedup={}x",
+            depth,
+            String.format("%.1f", legacyMicros),
+            String.format("%.1f", setBasedMicros),
+            String.format("%.2f", legacyMicros / setBasedMicros)
+        );
+    }
+
+    private double measure(String function, UUID itemId, UUID userId) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            resolve(function, itemId, userId);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            resolve(function, itemId, userId);
+        }
+        return (System.nanoTime() - start) / 1_000.0 / MEASURED_ITERATIONS;
+    }
+
+    private String resolve(String function, UUID itemId, UUID userId) {
+        return jdbcTemplate.queryForObject(
+            "select " + function + "(?, ?)", String.class, itemId, userId
+        );
+    }
+
+    private UUID createUser(String email) {
+        UUID userId = UUID.randomUUID();
+        jdbcTemplate.update(
+            "insert into users_snapshot (user_id, email) values (?, ?)", userId, email
+        );
+        return userId;
+    }
+
+    private UUID createFolder(String name, UUID ownerId, UUID parentId) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+            "insert into file_system_items "
+                + "(id, name, owner, status, type, created_at, updated_at, parent_id) "
+                + "values (?, ?, ?, 'UPLOADED', 'FOLDER', now(), now(), ?)",
+            id, name, ownerId, parentId
+        );
+        return id;
+    }
+}
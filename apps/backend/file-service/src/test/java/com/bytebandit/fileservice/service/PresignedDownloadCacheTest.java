@@ -0,0 +1,88 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+class PresignedDownloadCacheTest {
+
+    private S3Presigner s3Presigner;
+    private PresignedDownloadCache presignedDownloadCache;
+
+    @BeforeEach
+    void setUp() {
+        s3Presigner = S3Presigner.builder()
+            .region(Region.US_EAST_1)
+            .credentialsProvider(
+                StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret"))
+            )
+            .build();
+        presignedDownloadCache = new PresignedDownloadCache(
+            s3Presigner,
+            new SimpleMeterRegistry(),
+            100,
+            Duration.ofMinutes(15),
+            Duration.ofMinutes(2)
+        );
+        ReflectionTestUtils.setField(presignedDownloadCache, "bucketName", "test-bucket");
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Presigner.close();
+    }
+
+    /**
+     * Test for the same object and disposition being signed only once.
+     */
+    @Test
+    void shouldReuseSignedUrlForSameObjectAndDisposition() {
+        PresignedDownloadCache.PresignedUrl first =
+            presignedDownloadCache.get("photo.jpg", "inline");
+        PresignedDownloadCache.PresignedUrl second =
+            presignedDownloadCache.get("photo.jpg", "inline");
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.url()).contains("test-bucket").contains("photo.jpg");
+        assertThat(first.expiresAt()).isAfter(Instant.now().plus(Duration.ofMinutes(14)));
+    }
+
+    /**
+     * Test for each disposition getting its own signed URL.
+     */
+    @Test
+    void shouldSignEachDispositionSeparately() {
+        PresignedDownloadCache.PresignedUrl inline =
+            presignedDownloadCache.get("photo.jpg", "inline");
+        PresignedDownloadCache.PresignedUrl attachment =
+            presignedDownloadCache.get("photo.jpg", "attachment");
+
+        assertThat(attachment.url()).isNotEqualTo(inline.url());
+        assertThat(attachment.url()).contains("response-content-disposition=attachment");
+    }
+
+    /**
+     * Test for rejecting a refresh margin that would never serve a URL from cache.
+     */
+    @Test
+    void shouldRejectRefreshMarginNotShorterThanTtl() {
+        assertThatThrownBy(() -> new PresignedDownloadCache(
+            s3Presigner,
+            new SimpleMeterRegistry(),
+            100,
+            Duration.ofMinutes(2),
+            Duration.ofMinutes(2)
+        )).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,178 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.http.Abortable;
+
+class ReadAheadStreamerTest {
+
+    private ReadAheadStreamer readAheadStreamer;
+
+    @BeforeEach
+    void setUp() {
+        readAheadStreamer = new ReadAheadStreamer(
+            DataSize.ofBytes(1024), 2, 1, Duration.ofSeconds(5)
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        readAheadStreamer.shutdown();
+    }
+
+    /**
+     * Test for copying content spanning many chunks unchanged.
+     */
+    @Test
+    void shouldCopyWholeContent() throws IOException {
+        byte[] content = new byte[10 * 1024 + 17];
+        ThreadLocalRandom.current().nextBytes(content);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        readAheadStreamer.copy(new ByteArrayInputStream(content), target);
+
+        assertThat(target.toByteArray()).isEqualTo(content);
+    }
+
+    /**
+     * Test for a failure reading the source reaching the client after the chunks read before it.
+     */
+    @Test
+    void shouldReportReadFailure() {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        InputStream source = new InputStream() {
+            private int remaining = 1500;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining-- == 0) {
+                    throw new IOException("Connection reset");
+                }
+                return 1;
+            }
+        };
+
+        assertThatThrownBy(() -> readAheadStreamer.copy(source, target))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Connection reset");
+        assertThat(target.size()).isEqualTo(1024);
+    }
+
+    /**
+     * Test for an unchecked failure of the source, such as a checksum mismatch, ending the copy
+     * instead of leaving the client waiting.
+     */
+    @Test
+    void shouldReportUncheckedReadFailure() {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        InputStream source = new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("Checksum mismatch");
+            }
+        };
+
+        assertThatThrownBy(() -> readAheadStreamer.copy(source, target))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Checksum mismatch")
+            .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(target.size()).isZero();
+    }
+
+    /**
+     * Test for a source that stops answering failing the copy after the read timeout and
+     * aborting the source.
+     */
+    @Test
+    void shouldTimeOut_WhenSourceStalls() {
+        ReadAheadStreamer streamer = new ReadAheadStreamer(
+            DataSize.ofBytes(1024), 2, 1, Duration.ofMillis(100)
+        );
+        StalledSource source = new StalledSource();
+        try {
+            assertThatThrownBy(() -> streamer.copy(source, new ByteArrayOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Timed out waiting for the content of the object");
+            assertThat(source.aborted).isTrue();
+        } finally {
+            source.stall.countDown();
+            streamer.shutdown();
+        }
+    }
+
+    /**
+     * Test for a client going away aborting the source instead of draining it.
+     */
+    @Test
+    void shouldAbortSourceWhenClientGoesAway() {
+        AbortableSource source = new AbortableSource(new byte[64 * 1024]);
+        OutputStream target = new OutputStream() {
+            @Override
+            public void write(int value) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> readAheadStreamer.copy(source, target))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Broken pipe");
+        assertThat(source.aborted).isTrue();
+        assertThat(source.closed).isFalse();
+    }
+
+    private static final class StalledSource extends InputStream implements Abortable {
+
+        private final CountDownLatch stall = new CountDownLatch(1);
+        private volatile boolean aborted;
+
+        @Override
+        public int read() throws IOException {
+            try {
+                stall.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            return -1;
+        }
+
+        @Override
+        public void abort() {
+            aborted = true;
+        }
+    }
+
+    private static final class AbortableSource extends ByteArrayInputStream implements Abortable {
+
+        private volatile boolean aborted;
+        private volatile boolean closed;
+
+        private AbortableSource(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public void abort() {
+            aborted = true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import com.bytebandit.fileservice.configurer.FileSystemItemFixtures;
+import com.bytebandit.fileservice.exception.QuotaExceededException;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.repository.BulkItemRepository;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.bytebandit.fileservice.repository.StorageUsageRepository;
+import com.bytebandit.fileservice.repository.UploadReservationRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = "app.quota.default-limit=100B")
+@ActiveProfiles("test")
+class StorageQuotaServiceIT extends AbstractPostgresContainer {
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private StorageUsageRepository storageUsageRepository;
+
+    @Autowired
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Autowired
+    private BulkItemRepository bulkItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UploadReservationService uploadReservationService;
+
+    @Autowired
+    private UploadReservationRepository uploadReservationRepository;
+
+    private UUID ownerId;
+    private FileSystemItemFixtures items;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        items = new FileSystemItemFixtures(fileSystemItemRepository, ownerId);
+    }
+
+    /**
+     * Test for usage following created, resized and deleted files.
+     */
+    @Test
+    void shouldTrackUsageOfOwnedFiles() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        FileSystemItemEntity folder = items.createFolder("folder", home);
+        FileSystemItemEntity file = items.createFile("a.txt", 30L, home);
+        items.createFile("b.txt", 20L, folder);
+        assertThat(storageUsageRepository.getUsedBytes(ownerId)).isEqualTo(50L);
+
+        jdbcTemplate.update("update file_system_items set size = 45 where id = ?", file.getId());
+        assertThat(storageUsageRepository.getUsedBytes(ownerId)).isEqualTo(65L);
+
+        bulkItemRepository.deleteSubtrees(List.of(folder.getId()));
+        assertThat(storageUsageRepository.getUsedBytes(ownerId)).isEqualTo(45L);
+    }
+
+    /**
+     * Test for rejecting files that do not fit in the remaining quota.
+     */
+    @Test
+    void shouldRejectFilesBeyondQuota() {
+        FileSystemItemEntity home = items.createFolder("home", null);
+        items.createFile("a.txt", 60L, home);
+
+        assertThatNoException().isThrownBy(() -> storageQuotaService.checkQuota(ownerId, 40L));
+        assertThatThrownBy(() -> storageQuotaService.checkQuota(ownerId, 41L))
+            .isInstanceOf(QuotaExceededException.class);
+        assertThatNoException()
+            .isThrownBy(() -> storageQuotaService.checkQuota(UUID.randomUUID(), 100L));
+    }
+
+    /**
+     * Test for counting unexpired upload reservations against the quota.
+     */
+    @Test
+    void shouldCountReservedUploadsAgainstQuota() {
+        uploadReservationService.reserve(ownerId, Map.of(ownerId + "/reserved.txt", 60L));
+        uploadReservationRepository.reserve(
+            ownerId,
+            Map.of(ownerId + "/expired.txt", 40L),
+            Instant.now().minus(Duration.ofMinutes(1))
+        );
+
+        assertThatNoException().isThrownBy(() -> storageQuotaService.checkQuota(ownerId, 40L));
+        assertThatThrownBy(() -> storageQuotaService.checkQuota(ownerId, 41L))
+            .isInstanceOf(QuotaExceededException.class);
+        assertThatThrownBy(
+            () -> uploadReservationService.reserve(
+                ownerId,
+                Map.of(ownerId + "/a.txt", 20L, ownerId + "/b.txt", 21L)
+            )
+        ).isInstanceOf(QuotaExceededException.class);
+        assertThat(uploadReservationRepository.getReservedBytes(ownerId)).isEqualTo(60L);
+    }
+
+    /**
+     * Test for concurrent reservations of the same user never passing the quota together.
+     */
+    @Test
+    void shouldNotOverbookQuota_WhenReservingConcurrently() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Boolean>> reservations = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String key = ownerId + "/file-" + i;
+            reservations.add(() -> {
+                try {
+                    uploadReservationService.reserve(ownerId, Map.of(key, 30L));
+                    return true;
+                } catch (QuotaExceededException e) {
+                    return false;
+                }
+            });
+        }
+
+        long reserved = 0;
+        try {
+            for (Future<Boolean> result : executor.invokeAll(reservations)) {
+                if (result.get()) {
+                    reserved++;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new AssertionError(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(reserved).isEqualTo(3);
+        assertThat(uploadReservationRepository.getReservedBytes(ownerId)).isEqualTo(90L);
+    }
+}
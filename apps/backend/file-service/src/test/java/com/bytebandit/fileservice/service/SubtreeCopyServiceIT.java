@@ -0,0 +1,161 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import com.bytebandit.fileservice.configurer.FileSystemItemFixtures;
+import com.bytebandit.fileservice.dto.CopyJobResponse;
+import com.bytebandit.fileservice.enums.CopyJobStatus;
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.enums.UploadStatus;
+import com.bytebandit.fileservice.exception.ItemNotFoundException;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = "app.copy.batch-size=3")
+@ActiveProfiles("test")
+class SubtreeCopyServiceIT extends AbstractPostgresContainer {
+
+    private static final long POLL_TIMEOUT_MILLIS = 30_000;
+
+    @Autowired
+    private SubtreeCopyService subtreeCopyService;
+
+    @Autowired
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID ownerId;
+    private FileSystemItemFixtures items;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        items = new FileSystemItemFixtures(fileSystemItemRepository, ownerId);
+    }
+
+    /**
+     * Test for copying a folder with nested folders and files, spanning several batches.
+     */
+    @Test
+    void shouldCopyWholeSubtree() throws InterruptedException {
+        FileSystemItemEntity source = items.createFolder("source", null);
+        for (int i = 0; i < 3; i++) {
+            FileSystemItemEntity folder = items.createFolder("folder-" + i, source);
+            FileSystemItemEntity nested = items.createFolder("nested-" + i, folder);
+            for (int j = 0; j < 4; j++) {
+                items.createFile("file-" + i + "-" + j, 10L, nested);
+            }
+        }
+        items.createFile("top-level-file", 10L, source);
+        FileSystemItemEntity target = items.createFolder("target", null);
+
+        CopyJobResponse job = awaitFinished(
+            subtreeCopyService.startCopy(source.getId(), target.getId(), ownerId)
+        );
+
+        assertThat(job.getStatus()).isEqualTo(CopyJobStatus.COMPLETED);
+        assertThat(job.getTotalItems()).isEqualTo(20);
+        assertThat(job.getCopiedItems()).isEqualTo(20);
+        assertThat(subtreeSize(job.getCopiedItemId())).isEqualTo(20);
+        assertThat(subtreeSize(source.getId())).isEqualTo(20);
+        assertThat(
+            fileSystemItemRepository.isAncestorOrSelf(target.getId(), job.getCopiedItemId())
+        ).isTrue();
+        assertThat(maxDepth(target.getId())).isEqualTo(4);
+        assertThat(items.rollup(target.getId())).containsExactly(130L, 13L, 7L);
+        assertThat(items.rollup(job.getCopiedItemId())).isEqualTo(items.rollup(source.getId()));
+    }
+
+    /**
+     * Test for uploads in progress being left out of the rollups of a copy, like they are left
+     * out of the copy itself.
+     */
+    @Test
+    void shouldLeaveUploadsInProgressOutOfRollups() throws InterruptedException {
+        FileSystemItemEntity source = items.createFolder("source", null);
+        FileSystemItemEntity nested = items.createFolder("nested", source);
+        items.createFile("file", 10L, nested);
+        fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name("upload")
+                .owner(ownerId)
+                .status(UploadStatus.NOT_UPLOADED)
+                .type(FileSystemItemType.FILE)
+                .size(100L)
+                .mimeType("text/plain")
+                .s3Url("s3://test-bucket/upload")
+                .chunks(JsonNodeFactory.instance.objectNode().put("uploadId", "upload-id"))
+                .parent(nested)
+                .build()
+        );
+        FileSystemItemEntity target = items.createFolder("target", null);
+
+        CopyJobResponse job = awaitFinished(
+            subtreeCopyService.startCopy(source.getId(), target.getId(), ownerId)
+        );
+
+        assertThat(job.getStatus()).isEqualTo(CopyJobStatus.COMPLETED);
+        assertThat(items.rollup(source.getId())).containsExactly(110L, 2L, 1L);
+        assertThat(items.rollup(job.getCopiedItemId())).containsExactly(10L, 1L, 1L);
+        assertThat(items.rollup(target.getId())).containsExactly(10L, 1L, 2L);
+        UUID copiedNestedId = jdbcTemplate.queryForObject(
+            "select id from file_system_items where parent_id = ?",
+            UUID.class, job.getCopiedItemId()
+        );
+        assertThat(items.rollup(copiedNestedId)).containsExactly(10L, 1L, 0L);
+    }
+
+    /**
+     * Test for jobs only being visible to the user who started them.
+     */
+    @Test
+    void shouldHideJobFromOtherUsers() throws InterruptedException {
+        FileSystemItemEntity source = items.createFolder("source", null);
+        FileSystemItemEntity target = items.createFolder("target", null);
+
+        CopyJobResponse job = awaitFinished(
+            subtreeCopyService.startCopy(source.getId(), target.getId(), ownerId)
+        );
+
+        assertThatThrownBy(() -> subtreeCopyService.getJob(job.getJobId(), UUID.randomUUID()))
+            .isInstanceOf(ItemNotFoundException.class);
+    }
+
+    private CopyJobResponse awaitFinished(CopyJobResponse job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + POLL_TIMEOUT_MILLIS;
+        CopyJobResponse current = job;
+        while (current.getStatus() != CopyJobStatus.COMPLETED
+            && current.getStatus() != CopyJobStatus.FAILED
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            current = subtreeCopyService.getJob(job.getJobId(), ownerId);
+        }
+        return current;
+    }
+
+    private Long subtreeSize(UUID rootId) {
+        return jdbcTemplate.queryForObject(
+            "select count(*) from file_system_item_closure where ancestor_id = ?",
+            Long.class, rootId
+        );
+    }
+
+    private Integer maxDepth(UUID rootId) {
+        return jdbcTemplate.queryForObject(
+            "select max(depth) from file_system_item_closure where ancestor_id = ?",
+            Integer.class, rootId
+        );
+    }
+}
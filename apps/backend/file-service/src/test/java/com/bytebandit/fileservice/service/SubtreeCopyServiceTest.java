@@ -0,0 +1,122 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bytebandit.fileservice.dto.CopyJobResponse;
+import com.bytebandit.fileservice.enums.CopyJobStatus;
+import com.bytebandit.fileservice.exception.QuotaExceededException;
+import com.bytebandit.fileservice.exception.ServiceBusyException;
+import com.bytebandit.fileservice.repository.SubtreeCopyRepository;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SubtreeCopyServiceTest {
+
+    @Mock
+    private SubtreeCopyRepository subtreeCopyRepository;
+
+    @Mock
+    private UploadReservationService uploadReservationService;
+
+    private SubtreeCopyService subtreeCopyService;
+
+    private final CountDownLatch runningJobs = new CountDownLatch(1);
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        subtreeCopyService = new SubtreeCopyService(
+            subtreeCopyRepository,
+            uploadReservationService,
+            1,
+            1,
+            1,
+            1,
+            Duration.ofMinutes(1),
+            Duration.ofHours(1)
+        );
+        lenient().when(subtreeCopyRepository.countSubtree(any())).thenAnswer(invocation -> {
+            runningJobs.await();
+            return 1L;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        runningJobs.countDown();
+        subtreeCopyService.shutdown();
+    }
+
+    /**
+     * Test for refusing new copies once the running job and the job queue are taken.
+     */
+    @Test
+    void shouldRefuseCopy_WhenJobQueueIsFull() {
+        CopyJobResponse running =
+            subtreeCopyService.startCopy(UUID.randomUUID(), UUID.randomUUID(), userId);
+        CopyJobResponse queued =
+            subtreeCopyService.startCopy(UUID.randomUUID(), UUID.randomUUID(), userId);
+
+        assertThatThrownBy(
+            () -> subtreeCopyService.startCopy(UUID.randomUUID(), UUID.randomUUID(), userId)
+        ).isInstanceOf(ServiceBusyException.class);
+
+        assertThat(subtreeCopyService.getJob(queued.getJobId(), userId).getStatus())
+            .isEqualTo(CopyJobStatus.PENDING);
+        assertThat(subtreeCopyService.getJob(running.getJobId(), userId)).isNotNull();
+    }
+
+    /**
+     * Test for the size of the subtree being reserved for the duration of the job, and released
+     * once it finishes.
+     */
+    @Test
+    void shouldReserveSubtreeSizeUntilJobFinishes() {
+        UUID itemId = UUID.randomUUID();
+        when(subtreeCopyRepository.subtreeSize(itemId)).thenReturn(42L);
+
+        CopyJobResponse job = subtreeCopyService.startCopy(itemId, UUID.randomUUID(), userId);
+
+        String reservationKey = "copies/" + job.getJobId();
+        verify(uploadReservationService)
+            .reserve(userId, Map.of(reservationKey, 42L), Duration.ofHours(1));
+        verify(uploadReservationService, never()).release(any());
+
+        runningJobs.countDown();
+        verify(uploadReservationService, timeout(5_000)).release(reservationKey);
+    }
+
+    /**
+     * Test for a copy that does not fit in the remaining quota not being started.
+     */
+    @Test
+    void shouldRefuseCopy_WhenSubtreeExceedsQuota() {
+        UUID itemId = UUID.randomUUID();
+        when(subtreeCopyRepository.subtreeSize(itemId)).thenReturn(42L);
+        doThrow(new QuotaExceededException("Quota exceeded"))
+            .when(uploadReservationService).reserve(eq(userId), any(), any());
+
+        assertThatThrownBy(() -> subtreeCopyService.startCopy(itemId, UUID.randomUUID(), userId))
+            .isInstanceOf(QuotaExceededException.class);
+        verify(subtreeCopyRepository, never()).countSubtree(any());
+    }
+}
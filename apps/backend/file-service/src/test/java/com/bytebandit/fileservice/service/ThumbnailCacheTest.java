@@ -0,0 +1,112 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class ThumbnailCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private ThumbnailCache thumbnailCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        thumbnailCache = new ThumbnailCache(
+            directory,
+            DataSize.ofBytes(4096),
+            new SimpleMeterRegistry()
+        );
+        loads = new AtomicInteger();
+    }
+
+    /**
+     * Test for a thumbnail being loaded once and then read from disk.
+     */
+    @Test
+    void shouldLoadThumbnailOnce() throws IOException {
+        byte[] first = thumbnailCache.get("a.thumbnail.jpg", this::load);
+        byte[] second = thumbnailCache.get("a.thumbnail.jpg", this::load);
+
+        assertThat(second).isEqualTo(first).isEqualTo(content("a.thumbnail.jpg"));
+        assertThat(loads).hasValue(1);
+        assertThat(cachedFiles()).isEqualTo(1);
+    }
+
+    /**
+     * Test for the cached files staying within the maximum size, evicted files being deleted.
+     */
+    @Test
+    void shouldDeleteEvictedFiles() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            thumbnailCache.get(i + ".thumbnail.jpg", this::load);
+        }
+
+        assertThat(cachedSize()).isLessThanOrEqualTo(4096);
+        assertThat(cachedFiles()).isLessThan(20);
+    }
+
+    /**
+     * Test for an evicted thumbnail being loaded again.
+     */
+    @Test
+    void shouldReloadEvictedThumbnail() {
+        thumbnailCache.get("a.thumbnail.jpg", this::load);
+        for (int i = 0; i < 20; i++) {
+            thumbnailCache.get(i + ".thumbnail.jpg", this::load);
+        }
+        int loadsBefore = loads.get();
+
+        byte[] content = thumbnailCache.get("a.thumbnail.jpg", this::load);
+
+        assertThat(content).isEqualTo(content("a.thumbnail.jpg"));
+        assertThat(loads).hasValue(loadsBefore + 1);
+    }
+
+    /**
+     * Test for the files of a previous run being removed at startup.
+     */
+    @Test
+    void shouldClearDirectoryAtStartup() throws IOException {
+        thumbnailCache.get("a.thumbnail.jpg", this::load);
+
+        new ThumbnailCache(directory, DataSize.ofBytes(4096), new SimpleMeterRegistry());
+
+        assertThat(cachedFiles()).isZero();
+    }
+
+    private byte[] load(String key) {
+        loads.incrementAndGet();
+        return content(key);
+    }
+
+    private static byte[] content(String key) {
+        byte[] content = new byte[1024];
+        byte[] name = key.getBytes();
+        System.arraycopy(name, 0, content, 0, name.length);
+        return content;
+    }
+
+    private long cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private long cachedSize() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.bytebandit.fileservice.exception.ItemNotFoundException;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.repository.BlobRepository;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+@ExtendWith(MockitoExtension.class)
+class ThumbnailServiceTest {
+
+    private static final String CONTENT_HASH = "abc123";
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private BlobRepository blobRepository;
+
+    @Mock
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Mock
+    private ItemViewService itemViewService;
+
+    private ThumbnailService thumbnailService;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        thumbnailService = new ThumbnailService(
+            s3Client,
+            blobRepository,
+            fileSystemItemRepository,
+            itemViewService,
+            new ThumbnailCache(cacheDirectory, DataSize.ofMegabytes(1), new SimpleMeterRegistry()),
+            256,
+            DataSize.ofMegabytes(32),
+            1,
+            10
+        );
+        ReflectionTestUtils.setField(thumbnailService, "bucketName", "test-bucket");
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailService.shutdown();
+    }
+
+    /**
+     * Test for a large image being read subsampled and scaled so its longer side fits the
+     * thumbnail size, keeping its aspect ratio.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldScaleLargeImageToThumbnailSize() throws IOException {
+        when(blobRepository.findThumbnailKey(CONTENT_HASH)).thenReturn(Optional.empty());
+        when(s3Client.getObject(any(Consumer.class))).thenReturn(object(png(3000, 1500)));
+
+        thumbnailService.requestThumbnail(CONTENT_HASH, "photo.png", "image/png", 1024L);
+
+        verify(blobRepository, timeout(5000))
+            .setThumbnailKey(CONTENT_HASH, ThumbnailService.thumbnailKey("photo.png"));
+        ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3Client).putObject(any(Consumer.class), body.capture());
+        BufferedImage thumbnail;
+        try (InputStream content = body.getValue().contentStreamProvider().newStream()) {
+            thumbnail = ImageIO.read(content);
+        }
+        assertThat(thumbnail.getWidth()).isEqualTo(256);
+        assertThat(thumbnail.getHeight()).isEqualTo(128);
+    }
+
+    /**
+     * Test for an image smaller than the thumbnail size not being enlarged.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldKeepSizeOfSmallImage() throws IOException {
+        when(blobRepository.findThumbnailKey(CONTENT_HASH)).thenReturn(Optional.empty());
+        when(s3Client.getObject(any(Consumer.class))).thenReturn(object(png(100, 40)));
+
+        thumbnailService.requestThumbnail(CONTENT_HASH, "icon.png", "image/png", 1024L);
+
+        verify(blobRepository, timeout(5000))
+            .setThumbnailKey(CONTENT_HASH, ThumbnailService.thumbnailKey("icon.png"));
+        ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3Client).putObject(any(Consumer.class), body.capture());
+        BufferedImage thumbnail;
+        try (InputStream content = body.getValue().contentStreamProvider().newStream()) {
+            thumbnail = ImageIO.read(content);
+        }
+        assertThat(thumbnail.getWidth()).isEqualTo(100);
+        assertThat(thumbnail.getHeight()).isEqualTo(40);
+    }
+
+    /**
+     * Test for files that are not supported images, or too large, getting no thumbnail.
+     */
+    @Test
+    void shouldSkipUnsupportedAndOversizedFiles() {
+        thumbnailService.requestThumbnail(CONTENT_HASH, "doc.pdf", "application/pdf", 1024L);
+        thumbnailService.requestThumbnail(CONTENT_HASH, "unknown", null, 1024L);
+        thumbnailService.requestThumbnail(
+            CONTENT_HASH, "huge.png", "image/png", DataSize.ofMegabytes(33).toBytes()
+        );
+
+        verifyNoInteractions(s3Client, blobRepository);
+    }
+
+    /**
+     * Test for content that is not a readable image being stored without thumbnail.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSkipUnreadableImage() {
+        when(blobRepository.findThumbnailKey(CONTENT_HASH)).thenReturn(Optional.empty());
+        when(s3Client.getObject(any(Consumer.class))).thenReturn(object(new byte[] {1, 2, 3}));
+
+        thumbnailService.requestThumbnail(CONTENT_HASH, "fake.png", "image/png", 3L);
+
+        verify(s3Client, timeout(5000)).getObject(any(Consumer.class));
+        verify(s3Client, never()).putObject(any(Consumer.class), any(RequestBody.class));
+        verify(blobRepository, never()).setThumbnailKey(any(), any());
+    }
+
+    /**
+     * Test for a file without content yet having no thumbnail, rather than an ETag of nothing.
+     */
+    @Test
+    void shouldFailToGetThumbnail_WhenFileHasNoContentHash() {
+        UUID itemId = UUID.randomUUID();
+        FileSystemItemEntity item = new FileSystemItemEntity();
+        item.setId(itemId);
+        when(fileSystemItemRepository.findById(itemId)).thenReturn(Optional.of(item));
+
+        assertThatThrownBy(
+            () -> thumbnailService.getThumbnail(itemId.toString(), null, userId, "\"null\"")
+        ).isInstanceOf(ItemNotFoundException.class);
+
+        verifyNoInteractions(blobRepository, s3Client);
+    }
+
+    /**
+     * Test for a revalidated thumbnail being answered without reading it.
+     */
+    @Test
+    void shouldAnswerWithoutContent_WhenClientHasThumbnail() {
+        UUID itemId = UUID.randomUUID();
+        FileSystemItemEntity item = new FileSystemItemEntity();
+        item.setId(itemId);
+        item.setContentHash(CONTENT_HASH);
+        when(fileSystemItemRepository.findById(itemId)).thenReturn(Optional.of(item));
+
+        ThumbnailService.Thumbnail thumbnail = thumbnailService.getThumbnail(
+            itemId.toString(), null, userId, "\"" + CONTENT_HASH + "\""
+        );
+
+        assertThat(thumbnail.etag()).isEqualTo("\"" + CONTENT_HASH + "\"");
+        assertThat(thumbnail.content()).isNull();
+        verifyNoInteractions(blobRepository, s3Client);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", content);
+        return content.toByteArray();
+    }
+
+    private static ResponseInputStream<GetObjectResponse> object(byte[] content) {
+        return new ResponseInputStream<>(
+            GetObjectResponse.builder().contentLength((long) content.length).build(),
+            AbortableInputStream.create(new ByteArrayInputStream(content))
+        );
+    }
+}
@@ -0,0 +1,67 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class UnlockTokenServiceTest {
+
+    private final UnlockTokenService unlockTokenService =
+        new UnlockTokenService("test-secret", Duration.ofMinutes(15));
+
+    /**
+     * Test for a token unlocking the item it was issued for.
+     */
+    @Test
+    void shouldVerifyIssuedToken() {
+        UUID itemId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        String token = unlockTokenService.issue(itemId, userId);
+
+        assertThat(unlockTokenService.verify(token, userId)).contains(itemId);
+    }
+
+    /**
+     * Test for a token presented by another user.
+     */
+    @Test
+    void shouldRejectTokenOfAnotherUser() {
+        String token = unlockTokenService.issue(UUID.randomUUID(), UUID.randomUUID());
+
+        assertThat(unlockTokenService.verify(token, UUID.randomUUID())).isEmpty();
+    }
+
+    /**
+     * Test for expired tokens.
+     */
+    @Test
+    void shouldRejectExpiredToken() {
+        UnlockTokenService expiredTokenService =
+            new UnlockTokenService("test-secret", Duration.ofSeconds(-1));
+        UUID userId = UUID.randomUUID();
+
+        String token = expiredTokenService.issue(UUID.randomUUID(), userId);
+
+        assertThat(unlockTokenService.verify(token, userId)).isEmpty();
+    }
+
+    /**
+     * Test for tokens signed with another secret, tampered with or malformed.
+     */
+    @Test
+    void shouldRejectForgedOrMalformedToken() {
+        UUID userId = UUID.randomUUID();
+        String foreignToken = new UnlockTokenService("other-secret", Duration.ofMinutes(15))
+            .issue(UUID.randomUUID(), userId);
+        String token = unlockTokenService.issue(UUID.randomUUID(), userId);
+        String tampered = (token.charAt(0) == 'A' ? "B" : "A") + token.substring(1);
+
+        assertThat(unlockTokenService.verify(foreignToken, userId)).isEmpty();
+        assertThat(unlockTokenService.verify(tampered, userId)).isEmpty();
+        assertThat(unlockTokenService.verify("not a token", userId)).isEmpty();
+        assertThat(unlockTokenService.verify(null, userId)).isEmpty();
+    }
+}
@@ -0,0 +1,328 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.enums.UploadStatus;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.model.UserSnapshotEntity;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.bytebandit.fileservice.repository.UserSnapshotRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+@SpringBootTest(properties = {
+    "aws.sqs.enabled=true",
+    "app.upload.events.wait-time=PT1S",
+    "app.upload.events.max-receives=5"
+})
+@ActiveProfiles("test")
+class UploadEventConsumerIT extends AbstractPostgresContainer {
+
+    private static final String BUCKET = "oakcan-bucket";
+
+    private static final LocalStackContainer LOCALSTACK_CONTAINER;
+    private static final String QUEUE_URL;
+
+    static {
+        LOCALSTACK_CONTAINER =
+            new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.8"))
+                .withServices(LocalStackContainer.Service.S3, LocalStackContainer.Service.SQS);
+        LOCALSTACK_CONTAINER.start();
+        System.setProperty("aws.accessKeyId", LOCALSTACK_CONTAINER.getAccessKey());
+        System.setProperty("aws.secretAccessKey", LOCALSTACK_CONTAINER.getSecretKey());
+        try (SqsClient sqsClient = SqsClient.builder()
+            .endpointOverride(LOCALSTACK_CONTAINER.getEndpoint())
+            .region(Region.of(LOCALSTACK_CONTAINER.getRegion()))
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(
+                LOCALSTACK_CONTAINER.getAccessKey(),
+                LOCALSTACK_CONTAINER.getSecretKey()
+            )))
+            .build()) {
+            QUEUE_URL = sqsClient.createQueue(builder -> builder
+                .queueName("upload-events")
+                .attributes(Map.of(QueueAttributeName.VISIBILITY_TIMEOUT, "1"))
+            ).queueUrl();
+        }
+    }
+
+    @Autowired
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Autowired
+    private UserSnapshotRepository userSnapshotRepository;
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Autowired
+    private SqsClient sqsClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID ownerId;
+    private FileSystemItemEntity home;
+
+    @DynamicPropertySource
+    static void awsProperties(DynamicPropertyRegistry registry) {
+        registry.add("aws.s3.endpoint", () -> LOCALSTACK_CONTAINER.getEndpoint().toString());
+        registry.add("aws.sqs.endpoint", () -> LOCALSTACK_CONTAINER.getEndpoint().toString());
+        registry.add("aws.sqs.queue-url", () -> QUEUE_URL);
+        registry.add("aws.region", LOCALSTACK_CONTAINER::getRegion);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, ownerId + "@domain.com"));
+        home = fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name("home")
+                .owner(ownerId)
+                .type(FileSystemItemType.FOLDER)
+                .status(UploadStatus.UPLOADED)
+                .build()
+        );
+        if (s3Client.listBuckets().buckets().stream()
+            .noneMatch(bucket -> bucket.name().equals(BUCKET))) {
+            s3Client.createBucket(builder -> builder.bucket(BUCKET));
+        }
+    }
+
+    /**
+     * Test for an object created event filling in the real size and type of a pending file, and
+     * for a redelivered event leaving the file unchanged.
+     */
+    @Test
+    void shouldMarkPendingFileAsUploaded() throws InterruptedException {
+        String key = putObject("report 2024.pdf", "application/pdf", randomBytes(42));
+        FileSystemItemEntity file = savePendingFile(key);
+
+        sendEvent(key);
+        FileSystemItemEntity uploaded =
+            awaitFile(file.getId(), item -> item.getStatus() == UploadStatus.UPLOADED);
+        assertThat(uploaded.getSize()).isEqualTo(42L);
+        assertThat(uploaded.getMimeType()).isEqualTo("application/pdf");
+
+        sendEvent(key);
+        sendEvent(key);
+        Thread.sleep(2000);
+        FileSystemItemEntity redelivered =
+            fileSystemItemRepository.findById(file.getId()).orElseThrow();
+        assertThat(redelivered.getStatus()).isEqualTo(UploadStatus.UPLOADED);
+        assertThat(redelivered.getSize()).isEqualTo(42L);
+        assertThat(redelivered.getMimeType()).isEqualTo("application/pdf");
+    }
+
+    /**
+     * Test for an event arriving before its file is recorded being applied once it is redelivered.
+     */
+    @Test
+    void shouldApplyEventRedeliveredAfterFileIsRecorded() throws InterruptedException {
+        String key = putObject("early.png", "image/png", randomBytes(7));
+
+        sendEvent(key);
+        Thread.sleep(1500);
+        FileSystemItemEntity file = savePendingFile(key);
+
+        FileSystemItemEntity uploaded =
+            awaitFile(file.getId(), item -> item.getStatus() == UploadStatus.UPLOADED);
+        assertThat(uploaded.getSize()).isEqualTo(7L);
+        assertThat(uploaded.getMimeType()).isEqualTo("image/png");
+    }
+
+    /**
+     * Test for files with identical content sharing the object of their blob, for the blob
+     * counting both files, and for both uploads being deleted.
+     */
+    @Test
+    void shouldShareObjectOfIdenticalContent() throws InterruptedException {
+        byte[] content = randomBytes(128);
+        String firstKey = putObject("first.bin", "application/octet-stream", content);
+        FileSystemItemEntity first = savePendingFile(firstKey);
+        sendEvent(firstKey);
+        FileSystemItemEntity stored =
+            awaitFile(first.getId(), item -> item.getStatus() == UploadStatus.UPLOADED);
+
+        String secondKey = putObject("second.bin", "application/octet-stream", content);
+        FileSystemItemEntity second = savePendingFile(secondKey);
+        sendEvent(secondKey);
+        FileSystemItemEntity deduplicated =
+            awaitFile(second.getId(), item -> item.getStatus() == UploadStatus.UPLOADED);
+
+        assertThat(deduplicated.getContentHash()).isNotNull();
+        assertThat(stored.getObjectKey())
+            .isEqualTo(BlobService.blobKey(deduplicated.getContentHash()));
+        assertThat(deduplicated.getObjectKey()).isEqualTo(stored.getObjectKey());
+        assertThat(readObject(stored.getObjectKey())).isEqualTo(content);
+        assertThat(refCount(deduplicated.getContentHash())).isEqualTo(2);
+        assertNoObject(firstKey);
+        assertNoObject(secondKey);
+
+        fileSystemItemRepository.deleteById(second.getId());
+        assertThat(refCount(deduplicated.getContentHash())).isEqualTo(1);
+    }
+
+    /**
+     * Test for an upload overwritten through its presigned URL after completing leaving the
+     * content of its blob unchanged.
+     */
+    @Test
+    void shouldKeepBlobContent_WhenUploadIsOverwritten() throws InterruptedException {
+        byte[] content = randomBytes(64);
+        String key = putObject("shared.bin", "application/octet-stream", content);
+        FileSystemItemEntity file = savePendingFile(key);
+        sendEvent(key);
+        FileSystemItemEntity uploaded =
+            awaitFile(file.getId(), item -> item.getStatus() == UploadStatus.UPLOADED);
+
+        s3Client.putObject(
+            builder -> builder.bucket(BUCKET).key(key).contentType("application/octet-stream"),
+            RequestBody.fromBytes(randomBytes(64))
+        );
+        sendEvent(key);
+        Thread.sleep(2000);
+
+        FileSystemItemEntity unchanged =
+            fileSystemItemRepository.findById(file.getId()).orElseThrow();
+        assertThat(unchanged.getObjectKey()).isEqualTo(uploaded.getObjectKey());
+        assertThat(unchanged.getContentHash()).isEqualTo(uploaded.getContentHash());
+        assertThat(readObject(unchanged.getObjectKey())).isEqualTo(content);
+    }
+
+    /**
+     * Test for events of thumbnails, and of objects whose file is never recorded, leaving the
+     * queue instead of being redelivered until retention expires.
+     */
+    @Test
+    void shouldDropEventsWithoutFile() throws InterruptedException {
+        String key = putObject("orphan.png", "image/png", randomBytes(5));
+
+        sendEvent(ThumbnailService.thumbnailKey(key));
+        sendEvent(key);
+
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(20));
+        while (queuedMessages() > 0 && Instant.now().isBefore(deadline)) {
+            Thread.sleep(500);
+        }
+        assertThat(queuedMessages()).isZero();
+    }
+
+    private int queuedMessages() {
+        Map<QueueAttributeName, String> attributes = sqsClient.getQueueAttributes(builder -> builder
+            .queueUrl(QUEUE_URL)
+            .attributeNames(
+                QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE
+            )
+        ).attributes();
+        return Integer.parseInt(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES))
+            + Integer.parseInt(
+                attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)
+            );
+    }
+
+    private byte[] readObject(String key) {
+        return s3Client.getObjectAsBytes(builder -> builder.bucket(BUCKET).key(key)).asByteArray();
+    }
+
+    private void assertNoObject(String key) {
+        assertThatThrownBy(() -> s3Client.headObject(builder -> builder
+            .bucket(BUCKET)
+            .key(key)
+        )).isInstanceOf(NoSuchKeyException.class);
+    }
+
+    private int refCount(String contentHash) {
+        Integer refCount = jdbcTemplate.queryForObject(
+            "select ref_count from blobs where content_hash = ?",
+            Integer.class,
+            contentHash
+        );
+        return refCount == null ? 0 : refCount;
+    }
+
+    private String putObject(String fileName, String contentType, byte[] content) {
+        String key = S3FileService.objectKey(fileName);
+        s3Client.putObject(
+            builder -> builder.bucket(BUCKET).key(key).contentType(contentType),
+            RequestBody.fromBytes(content)
+        );
+        return key;
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+        return content;
+    }
+
+    private FileSystemItemEntity savePendingFile(String key) {
+        return fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name(key)
+                .owner(ownerId)
+                .parent(home)
+                .type(FileSystemItemType.FILE)
+                .status(UploadStatus.NOT_UPLOADED)
+                .size(1L)
+                .mimeType("application/octet-stream")
+                .s3Url(key)
+                .objectKey(key)
+                .build()
+        );
+    }
+
+    /**
+     * Sends the notification S3 publishes for a created object, with the key URL-encoded the way
+     * S3 encodes it.
+     */
+    private void sendEvent(String key) {
+        String encodedKey = key.replace(" ", "+");
+        String body = """
+            {"Records": [{
+              "eventSource": "aws:s3",
+              "eventName": "ObjectCreated:Put",
+              "s3": {"bucket": {"name": "%s"}, "object": {"key": "%s"}}
+            }]}
+            """.formatted(BUCKET, encodedKey);
+        sqsClient.sendMessage(builder -> builder.queueUrl(QUEUE_URL).messageBody(body));
+    }
+
+    private FileSystemItemEntity awaitFile(UUID itemId, Predicate<FileSystemItemEntity> condition)
+        throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(15));
+        FileSystemItemEntity item = fileSystemItemRepository.findById(itemId).orElseThrow();
+        while (!condition.test(item) && Instant.now().isBefore(deadline)) {
+            Thread.sleep(200);
+            item = fileSystemItemRepository.findById(itemId).orElseThrow();
+        }
+        assertThat(condition).accepts(item);
+        return item;
+    }
+}
@@ -0,0 +1,140 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bytebandit.fileservice.configurer.AbstractPostgresContainer;
+import com.bytebandit.fileservice.dto.MultipartUploadRequest;
+import com.bytebandit.fileservice.dto.MultipartUploadResponse;
+import com.bytebandit.fileservice.enums.FileSystemItemType;
+import com.bytebandit.fileservice.enums.UploadStatus;
+import com.bytebandit.fileservice.exception.MultipartUploadException;
+import com.bytebandit.fileservice.model.FileSystemItemEntity;
+import com.bytebandit.fileservice.model.UserSnapshotEntity;
+import com.bytebandit.fileservice.repository.FileSystemItemRepository;
+import com.bytebandit.fileservice.repository.UserSnapshotRepository;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.services.s3.S3Client;
+
+@SpringBootTest(properties = {
+    "app.upload.proxy.enabled=true",
+    "app.upload.proxy.part-size=5MB",
+    "app.upload.proxy.window=2",
+    "app.upload.proxy.max-buffers=3"
+})
+@ActiveProfiles("test")
+class UploadProxyServiceIT extends AbstractPostgresContainer {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private static final LocalStackContainer LOCALSTACK_CONTAINER;
+
+    static {
+        LOCALSTACK_CONTAINER =
+            new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.8"))
+                .withServices(LocalStackContainer.Service.S3);
+        LOCALSTACK_CONTAINER.start();
+        System.setProperty("aws.accessKeyId", LOCALSTACK_CONTAINER.getAccessKey());
+        System.setProperty("aws.secretAccessKey", LOCALSTACK_CONTAINER.getSecretKey());
+    }
+
+    @Autowired
+    private UploadProxyService uploadProxyService;
+
+    @Autowired
+    private FileSystemItemRepository fileSystemItemRepository;
+
+    @Autowired
+    private UserSnapshotRepository userSnapshotRepository;
+
+    @Autowired
+    private S3Client s3Client;
+
+    private UUID ownerId;
+    private FileSystemItemEntity home;
+
+    @DynamicPropertySource
+    static void s3Properties(DynamicPropertyRegistry registry) {
+        registry.add("aws.s3.endpoint", () -> LOCALSTACK_CONTAINER.getEndpoint().toString());
+        registry.add("aws.region", LOCALSTACK_CONTAINER::getRegion);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        userSnapshotRepository.save(new UserSnapshotEntity(ownerId, ownerId + "@domain.com"));
+        home = fileSystemItemRepository.save(
+            FileSystemItemEntity.builder()
+                .name("home")
+                .owner(ownerId)
+                .type(FileSystemItemType.FOLDER)
+                .status(UploadStatus.UPLOADED)
+                .build()
+        );
+        if (s3Client.listBuckets().buckets().stream()
+            .noneMatch(bucket -> bucket.name().equals("oakcan-bucket"))) {
+            s3Client.createBucket(builder -> builder.bucket("oakcan-bucket"));
+        }
+    }
+
+    /**
+     * Test for streaming a body of more parts than the window into one stored object.
+     */
+    @Test
+    void shouldStreamBodyIntoStoredObject() throws IOException {
+        byte[] content = new byte[2 * PART_SIZE + 1024];
+        ThreadLocalRandom.current().nextBytes(content);
+
+        MultipartUploadResponse upload = uploadProxyService.upload(
+            request(content.length),
+            new ByteArrayInputStream(content),
+            ownerId
+        );
+
+        assertThat(upload.getPartCount()).isEqualTo(3);
+        assertThat(upload.getUploadedParts()).containsExactly(1, 2, 3);
+        FileSystemItemEntity item =
+            fileSystemItemRepository.findById(upload.getItemId()).orElseThrow();
+        assertThat(item.getStatus()).isEqualTo(UploadStatus.UPLOADED);
+        assertThat(s3Client.getObjectAsBytes(builder -> builder
+            .bucket("oakcan-bucket")
+            .key(item.getS3Url())
+        ).asByteArray()).isEqualTo(content);
+    }
+
+    /**
+     * Test for a body shorter than its declared size aborting the upload and removing the item.
+     */
+    @Test
+    void shouldAbortWhenBodyEndsEarly() {
+        long itemsBefore = fileSystemItemRepository.count();
+
+        assertThatThrownBy(() -> uploadProxyService.upload(
+            request(PART_SIZE + 1024L),
+            new ByteArrayInputStream(new byte[1024]),
+            ownerId
+        )).isInstanceOf(MultipartUploadException.class);
+        assertThat(fileSystemItemRepository.count()).isEqualTo(itemsBefore);
+    }
+
+    private MultipartUploadRequest request(long size) {
+        MultipartUploadRequest request = new MultipartUploadRequest();
+        request.setFileName("streamed.bin");
+        request.setSize(size);
+        request.setMimeType("application/octet-stream");
+        request.setParentId(home.getId().toString());
+        return request;
+    }
+}
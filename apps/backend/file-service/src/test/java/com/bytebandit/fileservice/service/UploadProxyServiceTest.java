@@ -0,0 +1,92 @@
+package com.bytebandit.fileservice.service;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bytebandit.fileservice.dto.MultipartUploadRequest;
+import com.bytebandit.fileservice.dto.MultipartUploadResponse;
+import com.bytebandit.fileservice.dto.UploadedPart;
+import com.bytebandit.fileservice.exception.ServiceBusyException;
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+@ExtendWith(MockitoExtension.class)
+class UploadProxyServiceTest {
+
+    private static final DataSize PART_SIZE = DataSize.ofMegabytes(5);
+
+    @Mock
+    private MultipartUploadService multipartUploadService;
+
+    private UploadProxyService uploadProxyService;
+
+    private final UUID itemId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        uploadProxyService = new UploadProxyService(
+            multipartUploadService,
+            PART_SIZE,
+            2,
+            1,
+            2,
+            Duration.ofMillis(100)
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadProxyService.shutdown();
+    }
+
+    /**
+     * Test for an upload giving up as busy, and being aborted, when no buffer frees up in time.
+     */
+    @Test
+    void shouldRefuseUpload_WhenNoBufferFreesUpInTime() {
+        MultipartUploadRequest request = new MultipartUploadRequest();
+        request.setFileName("large.bin");
+        request.setSize(PART_SIZE.toBytes() * 2);
+        request.setParentId(UUID.randomUUID().toString());
+        when(multipartUploadService.initiate(eq(request), eq(userId), anyLong())).thenReturn(
+            MultipartUploadResponse.builder()
+                .itemId(itemId)
+                .partSize(PART_SIZE.toBytes())
+                .partCount(2)
+                .build()
+        );
+        when(multipartUploadService.uploadPart(eq(itemId), anyInt(), any(), eq(userId)))
+            .thenAnswer(invocation -> {
+                // Holds the only buffer well past the timeout of the next part
+                Thread.sleep(500);
+                UploadedPart part = new UploadedPart();
+                part.setPartNumber(invocation.getArgument(1));
+                part.setEtag("etag");
+                return part;
+            });
+
+        assertThatThrownBy(() -> uploadProxyService.upload(
+            request,
+            new ByteArrayInputStream(new byte[request.getSize().intValue()]),
+            userId
+        )).isInstanceOf(ServiceBusyException.class);
+
+        verify(multipartUploadService).abort(itemId, userId);
+        verify(multipartUploadService, never()).complete(itemId, userId);
+    }
+}
@@ -0,0 +1,69 @@
+package com.bytebandit.fileservice.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bytebandit.fileservice.enums.ChildrenSortKey;
+import com.bytebandit.fileservice.exception.InvalidPageRequestException;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ChildrenPageCursorTest {
+
+    /**
+     * Test for a cursor surviving an encode and decode round trip.
+     */
+    @Test
+    void shouldDecodeWhatWasEncoded() {
+        ChildrenPageCursor cursor = new ChildrenPageCursor(
+            ChildrenSortKey.UPDATED_AT,
+            true,
+            "2025-05-01 10:15:30.123456",
+            UUID.randomUUID()
+        );
+
+        assertThat(ChildrenPageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    /**
+     * Test for sort values containing the separator.
+     */
+    @Test
+    void shouldKeepSeparatorInsideSortValue() {
+        ChildrenPageCursor cursor = new ChildrenPageCursor(
+            ChildrenSortKey.NAME, false, "line\nbreak", UUID.randomUUID()
+        );
+
+        assertThat(ChildrenPageCursor.decode(cursor.encode()).lastValue())
+            .isEqualTo("line\nbreak");
+    }
+
+    /**
+     * Test for a last child without sort value, which must not come back as the text "null".
+     */
+    @Test
+    void shouldKeepMissingSortValueApartFromNullText() {
+        UUID lastId = UUID.randomUUID();
+        ChildrenPageCursor missing =
+            new ChildrenPageCursor(ChildrenSortKey.UPDATED_AT, false, null, lastId);
+        ChildrenPageCursor nullText =
+            new ChildrenPageCursor(ChildrenSortKey.NAME, false, "null", lastId);
+        ChildrenPageCursor empty =
+            new ChildrenPageCursor(ChildrenSortKey.NAME, false, "", lastId);
+
+        assertThat(ChildrenPageCursor.decode(missing.encode())).isEqualTo(missing);
+        assertThat(ChildrenPageCursor.decode(nullText.encode())).isEqualTo(nullText);
+        assertThat(ChildrenPageCursor.decode(empty.encode())).isEqualTo(empty);
+    }
+
+    /**
+     * Test for malformed cursors.
+     */
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> ChildrenPageCursor.decode("not a cursor"))
+            .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> ChildrenPageCursor.decode("bmFtZQphc2M"))
+            .isInstanceOf(InvalidPageRequestException.class);
+    }
+}
@@ -4,7 +4,10 @@ import com.bytebandit.gateway.config.PermittedRoutesConfig;
 import com.bytebandit.gateway.enums.CookieKey;
 import com.bytebandit.gateway.exception.InvalidTokenException;
 import com.bytebandit.gateway.service.CustomUserDetailsService;
+import com.bytebandit.gateway.service.RefreshTokenRotator;
+import com.bytebandit.gateway.service.TokenRevocationService;
 import com.bytebandit.gateway.service.TokenService;
+import com.bytebandit.gateway.service.VerifiedTokenCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,39 +27,49 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
  * Filters incoming requests to authenticate via JWT in cookies and add X-User-Id header. Bypasses
- * authentication for permitted routes (e.g., public endpoints).
+ * authentication for permitted routes (e.g., public endpoints). In stateless mode, the principal
+ * of a request with an unexpired token is built from the verified claims, without loading the
+ * user, and revoked tokens are denied through the {@link TokenRevocationService}. Tokens verified
+ * by a previous request are taken from the {@link VerifiedTokenCache}.
  */
 @Component
 public class AuthCookieFilter extends OncePerRequestFilter {
     
-    private final List<String> permittedRoutes;
+    private final PermittedRouteMatcher permittedRouteMatcher;
     private final TokenService tokenService;
     private final CustomUserDetailsService userDetailsService;
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final TokenRevocationService tokenRevocationService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RefreshTokenRotator refreshTokenRotator;
     
-    @Value("${app.access-token-expiration}")
-    private long accessTokenExpirationTime;
-    
-    @Value("${app.refresh-token-expiration}")
-    private long refreshTokenExpirationTime;
+    @Value("${app.auth.stateless:false}")
+    private boolean statelessAuthentication;
     
     /**
      * Constructs a new instance of the AuthCookieFilter.
      *
-     * @param permittedRoutesConfig the configuration object containing permitted routes
-     * @param tokenService          the service responsible for handling token-related operations
-     * @param userDetailsService    the service responsible for retrieving user details
+     * @param permittedRoutesConfig  the configuration object containing permitted routes
+     * @param tokenService           the service responsible for handling token-related operations
+     * @param userDetailsService     the service responsible for retrieving user details
+     * @param tokenRevocationService the service keeping the deny-list of revoked tokens
+     * @param verifiedTokenCache     the cache of tokens verified by previous requests
+     * @param refreshTokenRotator    the rotator of the tokens of expired sessions
      */
     public AuthCookieFilter(PermittedRoutesConfig permittedRoutesConfig, TokenService tokenService,
-                            CustomUserDetailsService userDetailsService) {
-        this.permittedRoutes = permittedRoutesConfig.getRoutes();
+                            CustomUserDetailsService userDetailsService,
+                            TokenRevocationService tokenRevocationService,
+                            VerifiedTokenCache verifiedTokenCache,
+                            RefreshTokenRotator refreshTokenRotator) {
+        this.permittedRouteMatcher = new PermittedRouteMatcher(permittedRoutesConfig.getRoutes());
         this.tokenService = tokenService;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.refreshTokenRotator = refreshTokenRotator;
     }
     
     @Override
@@ -65,10 +78,7 @@ public class AuthCookieFilter extends OncePerRequestFilter {
         @NonNull HttpServletResponse response,
         @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
-        logger.debug("permittedRoutes: " + permittedRoutes);
-        logger.debug("request.getServletPath(): " + request.getServletPath());
-        
-        if (isPermittedRoute(request.getServletPath())) {
+        if (permittedRouteMatcher.matches(request.getServletPath())) {
             logger.debug("Permitted route, bypassing authentication");
             SecurityContextHolder.clearContext();
             filterChain.doFilter(request, response);
@@ -76,50 +86,54 @@ public class AuthCookieFilter extends OncePerRequestFilter {
         }
         
         String accessToken = getAccessToken(request);
-        String username = tokenService.extractUsername(accessToken);
-        UserDetails user = userDetailsService.loadUserByUsername(username);
-        UUID userId = processToken(accessToken, user, request, response);
+        VerifiedTokenCache.VerifiedSession session = verifiedTokenCache.getIfPresent(accessToken);
+        TokenService.VerifiedToken token =
+            session != null ? session.token() : tokenService.parseToken(accessToken);
+        if (tokenRevocationService.isRevoked(token)) {
+            throw new InvalidTokenException("Token has been revoked");
+        }
+        UUID userId;
+        if (session != null) {
+            setAuthentication(session.user(), request);
+            userId = token.userId();
+        } else {
+            UserDetails user = statelessAuthentication && !token.isExpired()
+                ? token.toPrincipal()
+                : userDetailsService.loadUserByUsername(token.username());
+            userId = processToken(accessToken, token, user, request, response);
+            verifiedTokenCache.put(accessToken, token, user);
+        }
         HttpServletRequest wrappedRequest = wrapRequestWithUserId(request, userId);
         logger.debug("Added X-User-Id: " + userId);
         filterChain.doFilter(wrappedRequest, response);
     }
     
-    private boolean isPermittedRoute(String path) {
-        return permittedRoutes.stream().anyMatch(route -> pathMatcher.match(route, path));
-    }
-    
     private String getAccessToken(HttpServletRequest request) {
         return CookieUtil.getCookieValue(request, CookieKey.ACCESS_TOKEN.getKey());
     }
     
     /**
-     * Processes the access token to authenticate the user and handle token expiration.
+     * Processes the access token to authenticate the user and handle token expiration. The token
+     * is parsed once by the caller and its verified claims are reused for every check.
      *
      * @param accessToken the access token to process
+     * @param token       the verified claims of the access token
      * @param user        the user details
      * @param request     the HTTP request
      * @param response    the HTTP response
      *
      * @return the user ID extracted from the token
      */
-    UUID processToken(String accessToken, UserDetails user, HttpServletRequest request,
-                      HttpServletResponse response) {
-        try {
-            UUID userId = tokenService.extractUserId(accessToken);
-            if (tokenService.isValidToken(accessToken, user)) {
-                setAuthentication(user, request);
-                return userId;
-            }
-            
-            if (tokenService.isTokenExpired(accessToken)) {
-                userId = handleExpiredToken(accessToken, user, response);
-                setAuthentication(user, request);
-                return userId;
-            }
+    UUID processToken(String accessToken, TokenService.VerifiedToken token, UserDetails user,
+                      HttpServletRequest request, HttpServletResponse response) {
+        if (!token.username().equals(user.getUsername())) {
             throw new InvalidTokenException("Invalid token");
-        } catch (InvalidTokenException e) {
-            throw new InvalidTokenException(e.getMessage());
         }
+        if (token.isExpired()) {
+            handleExpiredToken(accessToken, token.userId(), user, response);
+        }
+        setAuthentication(user, request);
+        return token.userId();
     }
     
     private void setAuthentication(UserDetails user, HttpServletRequest request) {
@@ -129,14 +143,11 @@ public class AuthCookieFilter extends OncePerRequestFilter {
         SecurityContextHolder.getContext().setAuthentication(token);
     }
     
-    private UUID handleExpiredToken(String accessToken, UserDetails user,
+    private void handleExpiredToken(String accessToken, UUID userId, UserDetails user,
                                     HttpServletResponse response) {
-        UUID userId = tokenService.extractUserId(accessToken);
-        String newAccessToken = tokenService.generateToken(user, accessTokenExpirationTime, userId);
-        tokenService.generateAndSaveRefreshToken(user, refreshTokenExpirationTime, accessToken);
+        String newAccessToken = refreshTokenRotator.rotate(user, userId, accessToken);
         CookieUtil.setCookie(response, CookieKey.ACCESS_TOKEN.getKey(), newAccessToken, true,
             24 * 60 * 60, "/", false);
-        return userId;
     }
     
     private HttpServletRequest wrapRequestWithUserId(HttpServletRequest request, UUID userId) {
@@ -0,0 +1,157 @@
+package com.bytebandit.gateway.filter;
+
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Matches request paths against the permitted routes with the semantics of
+ * {@link AntPathMatcher}, compiled once into a character trie of the literal prefixes of the
+ * routes. A lookup walks the path down the trie once, so it costs O(path length) whatever the
+ * number of routes, and allocates nothing for exact routes and for routes ending in {@code /*}
+ * or {@code /**}. Other patterns are handed to {@link AntPathMatcher}, but only for the paths
+ * that start with their literal prefix.
+ */
+final class PermittedRouteMatcher {
+
+    private final Node root = new Node();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    PermittedRouteMatcher(List<String> routes) {
+        if (routes != null) {
+            routes.forEach(this::add);
+        }
+    }
+
+    /**
+     * Checks whether a path matches any permitted route.
+     *
+     * @param path the servlet path of the request
+     *
+     * @return whether the path matches a permitted route
+     */
+    boolean matches(String path) {
+        Node node = root;
+        int index = 0;
+        while (true) {
+            for (Route route : node.routes) {
+                if (route.matches(path, index)) {
+                    return true;
+                }
+            }
+            if (index == path.length()) {
+                return node.exact;
+            }
+            node = node.child(path.charAt(index++));
+            if (node == null) {
+                return false;
+            }
+        }
+    }
+
+    private void add(String route) {
+        int wildcard = firstWildcard(route);
+        if (wildcard == route.length()) {
+            nodeFor(route).exact = true;
+        } else if (route.endsWith("/**") && wildcard == route.length() - 2) {
+            String prefix = route.substring(0, route.length() - 3);
+            nodeFor(prefix).addRoute(new Route(Kind.SUBTREE, route));
+        } else if (route.endsWith("/*") && wildcard == route.length() - 1) {
+            String prefix = route.substring(0, route.length() - 1);
+            nodeFor(prefix).addRoute(new Route(Kind.SEGMENT, route));
+        } else {
+            String prefix = route.substring(0, wildcard);
+            nodeFor(prefix).addRoute(new Route(Kind.PATTERN, route));
+        }
+    }
+
+    private Node nodeFor(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.childOrCreate(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    private static int firstWildcard(String route) {
+        for (int i = 0; i < route.length(); i++) {
+            char c = route.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return i;
+            }
+        }
+        return route.length();
+    }
+
+    private enum Kind {
+        /**
+         * {@code prefix/**}: the prefix itself or anything below it.
+         */
+        SUBTREE,
+        /**
+         * {@code prefix/*}: a single segment right below the prefix, possibly empty.
+         */
+        SEGMENT,
+        /**
+         * Any other pattern, matched by {@link AntPathMatcher}.
+         */
+        PATTERN
+    }
+
+    private final class Route {
+
+        private final Kind kind;
+        private final String pattern;
+
+        private Route(Kind kind, String pattern) {
+            this.kind = kind;
+            this.pattern = pattern;
+        }
+
+        /**
+         * Checks the rest of the path, the part from {@code index} on, the literal prefix of the
+         * route having matched already.
+         */
+        private boolean matches(String path, int index) {
+            return switch (kind) {
+                case SUBTREE -> index == path.length() || path.charAt(index) == '/';
+                case SEGMENT -> path.indexOf('/', index) == -1;
+                case PATTERN -> pathMatcher.match(pattern, path);
+            };
+        }
+    }
+
+    private static final class Node {
+
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private Route[] routes = new Route[0];
+        private boolean exact;
+
+        private Node child(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node childOrCreate(char key) {
+            Node child = child(key);
+            if (child == null) {
+                child = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                keys[keys.length - 1] = key;
+                children = Arrays.copyOf(children, children.length + 1);
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+
+        private void addRoute(Route route) {
+            routes = Arrays.copyOf(routes, routes.length + 1);
+            routes[routes.length - 1] = route;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bytebandit.gateway.repository;
+
+import com.bytebandit.gateway.model.TokenRevocationEntity;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocationEntity, UUID> {
+    
+    List<TokenRevocationEntity> findAllByRevokedAtAfter(Timestamp revokedAfter);
+    
+    /**
+     * Delete the revocations older than any access token they could still deny.
+     *
+     * @param revokedBefore the revocations made before this time are deleted
+     *
+     * @return the number of deleted revocations
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from TokenRevocationEntity r where r.revokedAt < :revoked_before")
+    int deleteAllRevokedBefore(@Param("revoked_before") Timestamp revokedBefore);
+}
@@ -0,0 +1,101 @@
+package com.bytebandit.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rotates the tokens of a user whose access token expired, once for all the requests that find
+ * it expired at the same time. When a browser fires parallel requests with an expired token,
+ * the first one rotates the refresh token and issues a new access token, and the others wait for
+ * it and share the same new access token instead of each invalidating the refresh token the
+ * previous one just saved. The result stays shared for a short grace window after the rotation,
+ * for requests that were sent with the expired token but arrive late. Coalescing is per gateway
+ * instance.
+ */
+@Component
+public class RefreshTokenRotator {
+    
+    private final TokenService tokenService;
+    private final long accessTokenExpirationTime;
+    private final long refreshTokenExpirationTime;
+    private final Cache<UUID, CompletableFuture<String>> rotations;
+    
+    /**
+     * Constructor for RefreshTokenRotator.
+     *
+     * @param tokenService               TokenService
+     * @param accessTokenExpirationTime  lifetime of access tokens, in seconds
+     * @param refreshTokenExpirationTime lifetime of refresh tokens, in seconds
+     * @param gracePeriod                how long a rotation is shared after it completes
+     */
+    public RefreshTokenRotator(
+        TokenService tokenService,
+        @Value("${app.access-token-expiration}") long accessTokenExpirationTime,
+        @Value("${app.refresh-token-expiration}") long refreshTokenExpirationTime,
+        @Value("${app.auth.rotation-grace-period:PT10S}") Duration gracePeriod
+    ) {
+        this.tokenService = tokenService;
+        this.accessTokenExpirationTime = accessTokenExpirationTime;
+        this.refreshTokenExpirationTime = refreshTokenExpirationTime;
+        this.rotations = Caffeine.newBuilder()
+            .expireAfterWrite(gracePeriod)
+            .build();
+    }
+    
+    /**
+     * Rotates the refresh token of a user and returns a new access token, or returns the access
+     * token of the rotation already made for the user within the grace window.
+     *
+     * @param user               the user whose access token expired
+     * @param userId             the ID of the user
+     * @param expiredAccessToken the expired access token
+     *
+     * @return the new access token
+     */
+    public String rotate(UserDetails user, UUID userId, String expiredAccessToken) {
+        CompletableFuture<String> rotation = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = rotations.asMap().putIfAbsent(userId, rotation);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            String accessToken =
+                tokenService.generateToken(user, accessTokenExpirationTime, userId);
+            tokenService.generateAndSaveRefreshToken(
+                user,
+                refreshTokenExpirationTime,
+                expiredAccessToken
+            );
+            rotation.complete(accessToken);
+            // restart the grace window from the end of the rotation
+            rotations.asMap().replace(
+                userId,
+                rotation,
+                CompletableFuture.completedFuture(accessToken)
+            );
+            return accessToken;
+        } catch (RuntimeException e) {
+            rotations.asMap().remove(userId, rotation);
+            rotation.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    private String await(CompletableFuture<String> rotation) {
+        try {
+            return rotation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
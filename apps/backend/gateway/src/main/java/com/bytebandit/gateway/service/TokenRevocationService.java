@@ -0,0 +1,115 @@
+package com.bytebandit.gateway.service;
+
+import com.bytebandit.gateway.model.TokenRevocationEntity;
+import com.bytebandit.gateway.repository.TokenRevocationRepository;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the deny-list of revoked access tokens. Since access tokens are verified from their
+ * claims alone, revoking the sessions of a user records the time of the revocation, and the
+ * tokens of that user issued until then are denied. Each gateway keeps the revocations in memory
+ * and reloads them periodically, so a revocation made elsewhere takes effect within one refresh
+ * interval. Only revocations younger than the access token lifetime are kept, since older ones
+ * could only deny expired tokens, which are refreshed against the database anyway.
+ *
+ * <p>The issue time of a token only has a precision of seconds, so revocations are recorded at
+ * the second they were made and deny the tokens issued before that second. A token issued in the
+ * same second as a revocation, such as the one of a login right after a logout, stays valid.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+    
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final Duration retention;
+    private final Map<UUID, Instant> revocations = new ConcurrentHashMap<>();
+    
+    /**
+     * Constructor for TokenRevocationService.
+     *
+     * @param tokenRevocationRepository TokenRevocationRepository
+     * @param accessTokenExpiration     lifetime of access tokens, in seconds
+     */
+    public TokenRevocationService(
+        TokenRevocationRepository tokenRevocationRepository,
+        @Value("${app.access-token-expiration}") long accessTokenExpiration
+    ) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.retention = Duration.ofSeconds(accessTokenExpiration);
+    }
+    
+    /**
+     * Revokes every access token issued to the user so far.
+     *
+     * @param userId the ID of the user
+     */
+    public void revoke(UUID userId) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        tokenRevocationRepository.save(TokenRevocationEntity.builder()
+            .userId(userId)
+            .revokedAt(Timestamp.from(now))
+            .build());
+        revocations.merge(userId, now, this::latest);
+    }
+    
+    /**
+     * Checks whether a token was issued before the second the sessions of its user were revoked.
+     *
+     * @param token the verified claims of the token
+     *
+     * @return whether the token is revoked
+     */
+    public boolean isRevoked(TokenService.VerifiedToken token) {
+        Instant revokedAt = revocations.get(token.userId());
+        return revokedAt != null
+            && (token.issuedAt() == null || token.issuedAt().toInstant().isBefore(revokedAt));
+    }
+    
+    /**
+     * Reloads the revocations made within the access token lifetime. Revocations are merged
+     * rather than replaced, so one made locally while the query runs is not lost.
+     */
+    @Scheduled(
+        initialDelay = 0,
+        fixedDelayString = "${app.auth.revocations.refresh-interval:PT30S}"
+    )
+    public void refresh() {
+        Instant cutoff = Instant.now().minus(retention);
+        for (TokenRevocationEntity revocation :
+            tokenRevocationRepository.findAllByRevokedAtAfter(Timestamp.from(cutoff))) {
+            revocations.merge(
+                revocation.getUserId(),
+                revocation.getRevokedAt().toInstant().truncatedTo(ChronoUnit.SECONDS),
+                this::latest
+            );
+        }
+        revocations.values().removeIf(revokedAt -> revokedAt.isBefore(cutoff));
+    }
+    
+    /**
+     * Deletes the revocations that can no longer deny any unexpired token.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.revocations.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int deleted = tokenRevocationRepository.deleteAllRevokedBefore(
+            Timestamp.from(Instant.now().minus(retention))
+        );
+        if (deleted > 0) {
+            log.debug("Deleted {} expired token revocations", deleted);
+        }
+    }
+    
+    private Instant latest(Instant first, Instant second) {
+        return first.isAfter(second) ? first : second;
+    }
+}
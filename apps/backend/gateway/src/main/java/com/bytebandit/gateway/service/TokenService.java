@@ -7,6 +7,7 @@ import com.bytebandit.gateway.repository.TokenRepository;
 import com.bytebandit.gateway.repository.UserRepository;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
@@ -23,6 +24,7 @@ import lib.user.enums.TokenType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
@@ -36,6 +38,12 @@ public class TokenService {
     private final TokenRepository tokenRepository;
     private final UserRepository userRepository;
     
+    /**
+     * The signing key and the parser verifying against it, built once from the secret. Both are
+     * immutable and thread-safe, so a benign race on first use only builds them twice.
+     */
+    private volatile SigningKey signingKey;
+    
     /**
      * This method generates a JWT token for the given user with the specified expiration time.
      */
@@ -156,18 +164,26 @@ public class TokenService {
      * This method extracts the username from the JWT token.
      */
     public boolean isValidToken(String token, UserDetails user) {
-        final String username = extractUsername(token);
-        return (username.equals(user.getUsername())
-            && !isTokenExpired(token));
+        VerifiedToken verifiedToken = parseToken(token);
+        return verifiedToken.username().equals(user.getUsername()) && !verifiedToken.isExpired();
     }
     
     public boolean isExpiredToken(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+        return parseToken(token).isExpired();
+    }
+    
+    private SigningKey getSigningKey() {
+        SigningKey key = signingKey;
+        if (key == null) {
+            Key hmacKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+            key = new SigningKey(hmacKey, Jwts.parserBuilder().setSigningKey(hmacKey).build());
+            signingKey = key;
+        }
+        return key;
     }
     
     private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return getSigningKey().key();
     }
     
     private <T> T extractClaim(String token, Function<Claims, T> claimResolver) {
@@ -175,14 +191,36 @@ public class TokenService {
         return claimResolver.apply(claims);
     }
     
+    /**
+     * Verifies a token once and returns the claims callers need, so that a request does not
+     * parse the same token for each of them. Expired tokens are returned as well, since they are
+     * still used to refresh the session.
+     *
+     * @param token the JWT token
+     *
+     * @return the verified claims of the token
+     */
+    public VerifiedToken parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        String userId = claims.get("userid", String.class);
+        List<?> authorities = claims.get("authorities", List.class);
+        return new VerifiedToken(
+            claims.getSubject(),
+            userId == null ? null : UUID.fromString(userId),
+            authorities == null
+                ? List.of()
+                : authorities.stream().map(String::valueOf).toList(),
+            claims.getIssuedAt(),
+            claims.getExpiration()
+        );
+    }
+    
     /**
      * This method extracts all claims from the JWT token.
      */
     public Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+            return getSigningKey().parser()
                 .parseClaimsJws(token)
                 .getBody();
         } catch (ExpiredJwtException e) {
@@ -211,6 +249,43 @@ public class TokenService {
     }
     
     public boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+        return parseToken(token).isExpired();
+    }
+    
+    /**
+     * The claims of a token whose signature has been verified.
+     *
+     * @param username    the subject of the token
+     * @param userId      the ID of the user the token was issued to
+     * @param authorities the authorities granted to the user when the token was issued
+     * @param issuedAt    when the token was issued
+     * @param expiration  when the token expires
+     */
+    public record VerifiedToken(
+        String username,
+        UUID userId,
+        List<String> authorities,
+        Date issuedAt,
+        Date expiration
+    ) {
+        
+        public boolean isExpired() {
+            return expiration.before(new Date());
+        }
+        
+        /**
+         * Builds the principal of the request from the claims alone, without loading the user.
+         *
+         * @return the principal of the token
+         */
+        public UserDetails toPrincipal() {
+            return User.withUsername(username)
+                .password("")
+                .authorities(authorities.toArray(String[]::new))
+                .build();
+        }
+    }
+    
+    private record SigningKey(Key key, JwtParser parser) {
     }
 }
@@ -55,6 +55,7 @@ public class UserLoginService {
     private final TokenService tokenService;
     private final AuthenticationManager authenticationManager;
     private final CustomUserDetailsService customUserDetailsService;
+    private final TokenRevocationService tokenRevocationService;
     private final UserRepository userRepository;
     private final RestTemplate restTemplate;
     private final UserServiceClient userServiceClient;
@@ -155,7 +156,11 @@ public class UserLoginService {
             throw new UserNotAuthenticatedException("User not authenticated");
         }
         try {
-            UserEntityTemplate user = (UserEntityTemplate) authentication.getPrincipal();
+            // a principal built from the token alone lacks the profile, which is loaded here
+            UserEntityTemplate user =
+                authentication.getPrincipal() instanceof UserEntityTemplate entity
+                    ? entity
+                    : customUserDetailsService.loadUserByUsername(authentication.getName());
             return ApiResponse.<AuthenticatedUserDto>builder()
                 .status(HttpStatus.OK.value())
                 .message("Authenticated user confirmed.")
@@ -347,6 +352,7 @@ public class UserLoginService {
                 UUID userId = userRepository.findByEmail(username)
                     .orElseThrow(() -> new UsernameNotFoundException("User not found")).getId();
                 tokenService.invalidateAllRefreshToken(userId);
+                tokenRevocationService.revoke(userId);
             } catch (Exception e) {
                 log.warn("Error during logout: {}", e.getMessage());
             }
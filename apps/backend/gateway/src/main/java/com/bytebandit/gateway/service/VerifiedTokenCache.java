@@ -0,0 +1,113 @@
+package com.bytebandit.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of the access tokens already verified by the gateway, along with the principal
+ * they authenticate. Browsers send the same token with every request, so a hit skips the
+ * signature check, the claim parsing and the user lookup. Entries are keyed by a SHA-256 of the
+ * token, so tokens are not kept in memory, and expire with the token itself. Revocation is not
+ * cached and is checked by the caller on every request.
+ */
+@Component
+public class VerifiedTokenCache {
+    
+    private final Cache<String, VerifiedSession> cache;
+    
+    /**
+     * Constructor for VerifiedTokenCache.
+     *
+     * @param meterRegistry registry receiving the hit, miss and eviction metrics
+     * @param maximumSize   maximum number of cached tokens
+     */
+    public VerifiedTokenCache(
+        MeterRegistry meterRegistry,
+        @Value("${app.auth.token-cache.maximum-size:10000}") long maximumSize
+    ) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new UntilTokenExpires())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verified-tokens");
+    }
+    
+    /**
+     * Returns the verified session of a token, if the token was verified before and has not
+     * expired since.
+     *
+     * @param accessToken the access token
+     *
+     * @return the verified session, or null on a miss
+     */
+    public VerifiedSession getIfPresent(String accessToken) {
+        return cache.getIfPresent(keyOf(accessToken));
+    }
+    
+    /**
+     * Caches a verified token along with its principal until the token expires.
+     *
+     * @param accessToken the access token
+     * @param token       the verified claims of the token
+     * @param user        the principal the token authenticates
+     */
+    public void put(String accessToken, TokenService.VerifiedToken token, UserDetails user) {
+        if (!token.isExpired()) {
+            cache.put(keyOf(accessToken), new VerifiedSession(token, user));
+        }
+    }
+    
+    private static String keyOf(String accessToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(accessToken.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * A verified token along with the principal it authenticates.
+     *
+     * @param token the verified claims of the token
+     * @param user  the principal of the requests carrying the token
+     */
+    public record VerifiedSession(TokenService.VerifiedToken token, UserDetails user) {
+    }
+    
+    private static final class UntilTokenExpires implements Expiry<String, VerifiedSession> {
+        
+        @Override
+        public long expireAfterCreate(String key, VerifiedSession session, long currentTime) {
+            long remainingMillis =
+                session.token().expiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, VerifiedSession session, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, session, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, VerifiedSession session, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- Access tokens are verified without reaching the database, so revoking a user's sessions
+-- records when it happened; tokens issued up to that time are denied by every gateway once it
+-- refreshes its deny-list.
+CREATE TABLE IF NOT EXISTS token_revocations
+(
+    user_id    UUID                        NOT NULL,
+    revoked_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_token_revocations PRIMARY KEY (user_id),
+    CONSTRAINT fk_token_revocations_on_user FOREIGN KEY (user_id)
+        REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_token_revocations_revoked_at ON token_revocations (revoked_at);
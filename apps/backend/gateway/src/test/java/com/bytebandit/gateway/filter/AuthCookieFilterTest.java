@@ -2,16 +2,26 @@ package com.bytebandit.gateway.filter;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.bytebandit.gateway.config.PermittedRoutesConfig;
+import com.bytebandit.gateway.exception.InvalidTokenException;
 import com.bytebandit.gateway.model.UserEntity;
 import com.bytebandit.gateway.service.CustomUserDetailsService;
+import com.bytebandit.gateway.service.RefreshTokenRotator;
+import com.bytebandit.gateway.service.TokenRevocationService;
 import com.bytebandit.gateway.service.TokenService;
+import com.bytebandit.gateway.service.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import lib.core.exception.CookieNotFoundException;
@@ -39,6 +49,15 @@ class AuthCookieFilterTest {
     @Mock
     private PermittedRoutesConfig permittedRoutesConfig;
     
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+    
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+    
+    @Mock
+    private RefreshTokenRotator refreshTokenRotator;
+    
     @InjectMocks
     private AuthCookieFilter authFilter;
     
@@ -55,8 +74,6 @@ class AuthCookieFilterTest {
      */
     @BeforeEach
     void setup() {
-        ReflectionTestUtils.setField(authFilter, "accessTokenExpirationTime", 3600L);
-        ReflectionTestUtils.setField(authFilter, "refreshTokenExpirationTime", 86400L);
         mockUser.setEmail(username);
         mockUser.setId(userId);
     }
@@ -73,7 +90,10 @@ class AuthCookieFilterTest {
         authFilter = new AuthCookieFilter(
             permittedRoutesConfig,
             tokenService,
-            customUserDetailsService
+            customUserDetailsService,
+            tokenRevocationService,
+            verifiedTokenCache,
+            refreshTokenRotator
         );
         
         authFilter.doFilterInternal(request, response, mockFilterChain);
@@ -93,7 +113,10 @@ class AuthCookieFilterTest {
         authFilter = new AuthCookieFilter(
             permittedRoutesConfig,
             tokenService,
-            customUserDetailsService
+            customUserDetailsService,
+            tokenRevocationService,
+            verifiedTokenCache,
+            refreshTokenRotator
         );
         
         assertThrows(
@@ -114,15 +137,17 @@ class AuthCookieFilterTest {
         request.setCookies(cookie);
         
         when(permittedRoutesConfig.getRoutes()).thenReturn(List.of("/public"));
-        when(tokenService.extractUsername(accessToken)).thenReturn(username);
+        when(tokenService.parseToken(accessToken)).thenReturn(verifiedToken());
         when(customUserDetailsService.loadUserByUsername(username)).thenReturn(
             mockUser);
-        when(tokenService.isValidToken(accessToken, mockUser)).thenReturn(true);
         
         authFilter = new AuthCookieFilter(
             permittedRoutesConfig,
             tokenService,
-            customUserDetailsService
+            customUserDetailsService,
+            tokenRevocationService,
+            verifiedTokenCache,
+            refreshTokenRotator
         );
         authFilter.doFilterInternal(request, response, mockFilterChain);
         
@@ -132,4 +157,109 @@ class AuthCookieFilterTest {
         ).isEqualTo(username);
     }
     
+    /**
+     * Test method to verify that the filter builds the principal from the token claims without
+     * loading the user in stateless mode.
+     */
+    @Test
+    void shouldAuthenticateFromClaimsInStatelessMode() throws ServletException, IOException {
+        request.setServletPath("/secure");
+        String accessToken = "mocked.token.value";
+        request.setCookies(new Cookie("access_token", accessToken));
+        
+        when(permittedRoutesConfig.getRoutes()).thenReturn(List.of("/public"));
+        when(tokenService.parseToken(accessToken)).thenReturn(verifiedToken());
+        
+        authFilter = new AuthCookieFilter(
+            permittedRoutesConfig,
+            tokenService,
+            customUserDetailsService,
+            tokenRevocationService,
+            verifiedTokenCache,
+            refreshTokenRotator
+        );
+        ReflectionTestUtils.setField(authFilter, "statelessAuthentication", true);
+        authFilter.doFilterInternal(request, response, mockFilterChain);
+        
+        verifyNoInteractions(customUserDetailsService);
+        assertThat(
+            SecurityContextHolder.getContext().getAuthentication().getName()
+        ).isEqualTo(username);
+        assertThat(
+            ((HttpServletRequest) mockFilterChain.getRequest()).getHeader("X-User-Id")
+        ).isEqualTo(userId.toString());
+    }
+    
+    /**
+     * Test method to verify that the filter rejects a token revoked through the deny-list.
+     */
+    @Test
+    void shouldRejectRevokedToken() {
+        request.setServletPath("/secure");
+        String accessToken = "mocked.token.value";
+        request.setCookies(new Cookie("access_token", accessToken));
+        TokenService.VerifiedToken token = verifiedToken();
+        
+        when(permittedRoutesConfig.getRoutes()).thenReturn(List.of("/public"));
+        when(tokenService.parseToken(accessToken)).thenReturn(token);
+        when(tokenRevocationService.isRevoked(token)).thenReturn(true);
+        
+        authFilter = new AuthCookieFilter(
+            permittedRoutesConfig,
+            tokenService,
+            customUserDetailsService,
+            tokenRevocationService,
+            verifiedTokenCache,
+            refreshTokenRotator
+        );
+        
+        assertThrows(
+            InvalidTokenException.class,
+            () -> authFilter.doFilterInternal(request, response, mockFilterChain)
+        );
+        verifyNoInteractions(customUserDetailsService);
+    }
+    
+    /**
+     * Test method to verify that a token verified by a previous request is neither parsed nor
+     * looked up again.
+     */
+    @Test
+    void shouldReuseTokenVerifiedByPreviousRequest() throws ServletException, IOException {
+        request.setServletPath("/secure");
+        String accessToken = "mocked.token.value";
+        request.setCookies(new Cookie("access_token", accessToken));
+        
+        when(permittedRoutesConfig.getRoutes()).thenReturn(List.of("/public"));
+        when(tokenService.parseToken(accessToken)).thenReturn(verifiedToken());
+        when(customUserDetailsService.loadUserByUsername(username)).thenReturn(mockUser);
+        
+        authFilter = new AuthCookieFilter(
+            permittedRoutesConfig,
+            tokenService,
+            customUserDetailsService,
+            tokenRevocationService,
+            new VerifiedTokenCache(new SimpleMeterRegistry(), 100),
+            refreshTokenRotator
+        );
+        authFilter.doFilterInternal(request, response, new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        authFilter.doFilterInternal(request, response, mockFilterChain);
+        
+        verify(tokenService, times(1)).parseToken(accessToken);
+        verify(customUserDetailsService, times(1)).loadUserByUsername(username);
+        assertThat(
+            SecurityContextHolder.getContext().getAuthentication().getPrincipal()
+        ).isSameAs(mockUser);
+    }
+    
+    private TokenService.VerifiedToken verifiedToken() {
+        return new TokenService.VerifiedToken(
+            username,
+            userId,
+            List.of(),
+            new Date(),
+            new Date(System.currentTimeMillis() + 60_000)
+        );
+    }
 }
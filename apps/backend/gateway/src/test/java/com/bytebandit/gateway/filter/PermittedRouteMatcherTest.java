@@ -0,0 +1,74 @@
+package com.bytebandit.gateway.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.AntPathMatcher;
+
+class PermittedRouteMatcherTest {
+    
+    static final List<String> ROUTES = List.of(
+        "/api/v1/auth/login",
+        "/api/v1/user/register",
+        "/api/v1/user/verify",
+        "/api/v1/auth/csrf",
+        "/actuator/*",
+        "/api/v1/auth/refresh-token",
+        "/api/v1/auth/logout",
+        "/api/v1/auth/google",
+        "/api/v1/auth/google/callback",
+        "/swagger-ui/**",
+        "/v3/api-docs*/**",
+        "/swagger-ui.html",
+        "/favicon.ico",
+        "/api/v1/share/{id}/preview"
+    );
+    
+    private final PermittedRouteMatcher permittedRouteMatcher = new PermittedRouteMatcher(ROUTES);
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+    
+    /**
+     * Test for the compiled matcher deciding every path the same way as matching each route with
+     * AntPathMatcher.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "/api/v1/auth/login",
+        "/api/v1/auth/login/",
+        "/api/v1/auth/logins",
+        "/api/v1/auth/log",
+        "/api/v1/auth/google",
+        "/api/v1/auth/google/callback",
+        "/api/v1/auth/google/callback/x",
+        "/actuator",
+        "/actuator/",
+        "/actuator/health",
+        "/actuator/health/",
+        "/actuator/health/liveness",
+        "/swagger-ui",
+        "/swagger-ui/",
+        "/swagger-ui/index.html",
+        "/swagger-ui/a/b/c",
+        "/swagger-uix",
+        "/swagger-ui.html",
+        "/v3/api-docs",
+        "/v3/api-docs/",
+        "/v3/api-docs/swagger-config",
+        "/v3/api-docs.yaml",
+        "/v3/api",
+        "/api/v1/share/42/preview",
+        "/api/v1/share/42/preview/x",
+        "/api/v1/share/42",
+        "/api/v1/file/items",
+        "/favicon.ico",
+        "/",
+        ""
+    })
+    void shouldMatchLikeAntPathMatcher(String path) {
+        boolean expected = ROUTES.stream().anyMatch(route -> antPathMatcher.match(route, path));
+        
+        assertThat(permittedRouteMatcher.matches(path)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,109 @@
+package com.bytebandit.gateway.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bytebandit.gateway.exception.InvalidTokenException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenRotatorTest {
+    
+    private static final int PARALLEL_REQUESTS = 12;
+    
+    @Mock
+    private TokenService tokenService;
+    
+    private RefreshTokenRotator refreshTokenRotator;
+    private final UUID userId = UUID.randomUUID();
+    private final UserDetails user =
+        new User("test@example.com", "password", Collections.emptyList());
+    
+    /**
+     * This method sets up the rotator with a grace window of one minute.
+     */
+    @BeforeEach
+    void setUp() {
+        refreshTokenRotator =
+            new RefreshTokenRotator(tokenService, 3600, 86400, Duration.ofMinutes(1));
+    }
+    
+    /**
+     * This method tests that parallel requests with the same expired token rotate once and all
+     * get the same new access token.
+     */
+    @Test
+    void rotate_ShouldRotateOnce_ForParallelRequests() throws Exception {
+        CountDownLatch rotating = new CountDownLatch(1);
+        CountDownLatch waiting = new CountDownLatch(1);
+        when(tokenService.generateToken(user, 3600, userId)).thenReturn("new-access-token");
+        doAnswer(invocation -> {
+            rotating.countDown();
+            waiting.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(tokenService).generateAndSaveRefreshToken(user, 86400L, "expired-access-token");
+        
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_REQUESTS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> rotate()));
+            rotating.await(5, TimeUnit.SECONDS);
+            for (int i = 1; i < PARALLEL_REQUESTS; i++) {
+                results.add(executor.submit(() -> rotate()));
+            }
+            waiting.countDown();
+            for (Future<String> result : results) {
+                assertEquals("new-access-token", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        verify(tokenService, times(1))
+            .generateAndSaveRefreshToken(user, 86400L, "expired-access-token");
+        assertEquals("new-access-token", rotate());
+    }
+    
+    /**
+     * This method tests that a failed rotation is reported and not shared with later requests.
+     */
+    @Test
+    void rotate_ShouldRetry_AfterFailedRotation() {
+        when(tokenService.generateToken(user, 3600, userId)).thenReturn("new-access-token");
+        doThrow(new InvalidTokenException("Valid refresh token not found"))
+            .doNothing()
+            .when(tokenService)
+            .generateAndSaveRefreshToken(any(UserDetails.class), anyLong(), anyString());
+        
+        assertThrows(InvalidTokenException.class, this::rotate);
+        assertEquals("new-access-token", rotate());
+    }
+    
+    private String rotate() {
+        return refreshTokenRotator.rotate(user, userId, "expired-access-token");
+    }
+}
@@ -0,0 +1,97 @@
+package com.bytebandit.gateway.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bytebandit.gateway.repository.TokenRepository;
+import com.bytebandit.gateway.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares the per-request cost of authenticating a token once parsed with the shared parser
+ * against the original path, which built the key and the parser again for each of the four
+ * claims the filter read.
+ */
+@Slf4j
+class TokenParsingBenchmarkTest {
+
+    private static final String SECRET_KEY = "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=";
+    private static final int WARMUP_ITERATIONS = 2_000;
+    private static final int MEASURED_ITERATIONS = 10_000;
+
+    /**
+     * Test for both paths reading the same claims, reporting the time each takes per request.
+     */
+    @Test
+    void shouldReadSameClaimsAndReportTimings() {
+        TokenService tokenService = new TokenService(
+            Mockito.mock(TokenRepository.class),
+            Mockito.mock(UserRepository.class)
+        );
+        ReflectionTestUtils.setField(tokenService, "secretKey", SECRET_KEY);
+        UUID userId = UUID.randomUUID();
+        UserDetails user = new User("test@example.com", "password", Collections.emptyList());
+        String token = tokenService.generateToken(user, 900, userId);
+
+        assertThat(legacyAuthenticate(token, user)).isEqualTo(userId);
+        assertThat(authenticate(tokenService, token, user)).isEqualTo(userId);
+
+        double legacyMicros = measure(() -> legacyAuthenticate(token, user));
+        double cachedMicros = measure(() -> authenticate(tokenService, token, user));
+        log.info(
+            "legacy={}us cached={}us speedup={}x",
+            String.format("%.1f", legacyMicros),
+            String.format("%.1f", cachedMicros),
+            String.format("%.2f", legacyMicros / cachedMicros)
+        );
+    }
+
+    private double measure(Runnable request) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            request.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            request.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / MEASURED_ITERATIONS;
+    }
+
+    private UUID authenticate(TokenService tokenService, String token, UserDetails user) {
+        TokenService.VerifiedToken verifiedToken = tokenService.parseToken(token);
+        assertThat(verifiedToken.username()).isEqualTo(user.getUsername());
+        assertThat(verifiedToken.isExpired()).isFalse();
+        return verifiedToken.userId();
+    }
+
+    /**
+     * The original filter path: extractUsername, extractUserId, then isValidToken reading the
+     * subject and the expiration, each through a freshly built key and parser.
+     */
+    private UUID legacyAuthenticate(String token, UserDetails user) {
+        assertThat(legacyParse(token).getSubject()).isEqualTo(user.getUsername());
+        UUID userId = UUID.fromString(legacyParse(token).get("userid", String.class));
+        assertThat(legacyParse(token).getSubject()).isEqualTo(user.getUsername());
+        assertThat(legacyParse(token).getExpiration()).isAfter(new Date());
+        return userId;
+    }
+
+    private Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+            .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)))
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+    }
+}
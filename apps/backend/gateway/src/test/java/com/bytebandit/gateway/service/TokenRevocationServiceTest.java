@@ -0,0 +1,93 @@
+package com.bytebandit.gateway.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bytebandit.gateway.model.TokenRevocationEntity;
+import com.bytebandit.gateway.repository.TokenRevocationRepository;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+    
+    @Mock
+    private TokenRevocationRepository tokenRevocationRepository;
+    
+    private TokenRevocationService tokenRevocationService;
+    private final UUID userId = UUID.randomUUID();
+    
+    /**
+     * This method sets up the service with an access token lifetime of one hour.
+     */
+    @BeforeEach
+    void setUp() {
+        tokenRevocationService = new TokenRevocationService(tokenRevocationRepository, 3600);
+    }
+    
+    /**
+     * This method tests that revoking a user denies the tokens issued before, but not after.
+     */
+    @Test
+    void revoke_ShouldDenyTokensIssuedBefore() {
+        Instant issuedBefore = Instant.now().minusSeconds(60);
+        
+        tokenRevocationService.revoke(userId);
+        
+        verify(tokenRevocationRepository).save(any(TokenRevocationEntity.class));
+        assertTrue(tokenRevocationService.isRevoked(token(userId, issuedBefore)));
+        assertFalse(tokenRevocationService.isRevoked(token(userId, Instant.now().plusSeconds(1))));
+        assertFalse(tokenRevocationService.isRevoked(token(UUID.randomUUID(), issuedBefore)));
+    }
+    
+    /**
+     * This method tests that a login right after a logout, within the same second, is not denied
+     * by the revocation of the logout.
+     */
+    @Test
+    void revoke_ShouldNotDenyTokenIssuedInSameSecondAfterLogout() {
+        Instant loggedOutAt = Instant.now();
+        
+        tokenRevocationService.revoke(userId);
+        
+        assertFalse(tokenRevocationService.isRevoked(token(userId, Instant.now())));
+        assertTrue(tokenRevocationService.isRevoked(token(userId, loggedOutAt.minusSeconds(1))));
+    }
+    
+    /**
+     * This method tests that refreshing loads the revocations made by other gateways.
+     */
+    @Test
+    void refresh_ShouldLoadRevocationsMadeElsewhere() {
+        Instant revokedAt = Instant.now().minusSeconds(10);
+        when(tokenRevocationRepository.findAllByRevokedAtAfter(any(Timestamp.class)))
+            .thenReturn(List.of(new TokenRevocationEntity(userId, Timestamp.from(revokedAt))));
+        
+        tokenRevocationService.refresh();
+        
+        assertTrue(tokenRevocationService.isRevoked(token(userId, revokedAt.minusSeconds(5))));
+        assertFalse(tokenRevocationService.isRevoked(token(userId, revokedAt.plusSeconds(5))));
+    }
+    
+    private TokenService.VerifiedToken token(UUID userId, Instant issuedAt) {
+        return new TokenService.VerifiedToken(
+            "test@example.com",
+            userId,
+            List.of(),
+            Date.from(issuedAt.truncatedTo(ChronoUnit.SECONDS)),
+            Date.from(issuedAt.truncatedTo(ChronoUnit.SECONDS).plusSeconds(3600))
+        );
+    }
+}
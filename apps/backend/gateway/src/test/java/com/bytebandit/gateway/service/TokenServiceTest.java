@@ -439,4 +439,40 @@ class TokenServiceTest {
         boolean isExpired = tokenService.isTokenExpired(token);
         assertTrue(isExpired);
     }
+    
+    /**
+     * This method tests if parseToken returns the verified claims of a valid token.
+     */
+    @Test
+    void parseToken_ShouldReturnVerifiedClaims_ForValidToken() {
+        String token = tokenService.generateToken(userDetails, accessTokenExpiration, userId);
+        
+        TokenService.VerifiedToken verifiedToken = tokenService.parseToken(token);
+        
+        assertEquals(userDetails.getUsername(), verifiedToken.username());
+        assertEquals(userId, verifiedToken.userId());
+        assertFalse(verifiedToken.isExpired());
+    }
+    
+    /**
+     * This method tests if parseToken returns the claims of an expired token, marked as expired.
+     */
+    @Test
+    void parseToken_ShouldReturnExpiredClaims_ForExpiredToken() {
+        String token = tokenService.generateToken(userDetails, -1, userId);
+        
+        TokenService.VerifiedToken verifiedToken = tokenService.parseToken(token);
+        
+        assertEquals(userId, verifiedToken.userId());
+        assertTrue(verifiedToken.isExpired());
+    }
+    
+    /**
+     * This method tests if parseToken rejects a malformed token.
+     */
+    @Test
+    void parseToken_ShouldThrowException_ForInvalidToken() {
+        assertThrows(InvalidTokenException.class,
+            () -> tokenService.parseToken("invalid.token.here"));
+    }
 }
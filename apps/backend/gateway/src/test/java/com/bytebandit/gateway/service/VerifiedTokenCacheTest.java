@@ -0,0 +1,65 @@
+package com.bytebandit.gateway.service;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+class VerifiedTokenCacheTest {
+    
+    private VerifiedTokenCache verifiedTokenCache;
+    private final UserDetails user =
+        new User("test@example.com", "password", Collections.emptyList());
+    
+    /**
+     * This method sets up a cache holding at most 100 tokens.
+     */
+    @BeforeEach
+    void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), 100);
+    }
+    
+    /**
+     * This method tests that a verified token is served from cache with its principal.
+     */
+    @Test
+    void getIfPresent_ShouldReturnCachedSession_ForVerifiedToken() {
+        TokenService.VerifiedToken token = token(60_000);
+        
+        verifiedTokenCache.put("header.payload.signature", token, user);
+        VerifiedTokenCache.VerifiedSession session =
+            verifiedTokenCache.getIfPresent("header.payload.signature");
+        
+        assertSame(token, session.token());
+        assertSame(user, session.user());
+        assertNull(verifiedTokenCache.getIfPresent("header.payload.other-signature"));
+    }
+    
+    /**
+     * This method tests that an expired token is never served from cache.
+     */
+    @Test
+    void getIfPresent_ShouldReturnNull_ForExpiredToken() {
+        verifiedTokenCache.put("header.payload.signature", token(-1_000), user);
+        
+        assertNull(verifiedTokenCache.getIfPresent("header.payload.signature"));
+    }
+    
+    private TokenService.VerifiedToken token(long expiresInMillis) {
+        return new TokenService.VerifiedToken(
+            user.getUsername(),
+            UUID.randomUUID(),
+            List.of(),
+            new Date(),
+            new Date(System.currentTimeMillis() + expiresInMillis)
+        );
+    }
+}
@@ -48,7 +48,10 @@ export const UploadForm = ({folderId, onSubmit, onCancel}: UploadFormProps) => {
         setIsUploading(true);
         try {
             // Fetch presigned URL
-            const response = await AxiosInstance.post('/api/v1/file/upload/presigned-url', {fileName: data.file.name});
+            const response = await AxiosInstance.post('/api/v1/file/upload/presigned-url', {
+                fileName: data.file.name,
+                size: data.file.size,
+            });
             console.log("presigned_url: ", response);
             const presignedUrl = response.data.data;
 
@@ -64,7 +67,7 @@ export const UploadForm = ({folderId, onSubmit, onCancel}: UploadFormProps) => {
                 status: 'UPLOADED',
                 mimeType: data.file.type,
                 chunks: {}, // Empty object as specified
-                s3Url: ``, // Construct S3 URL
+                s3Url: presignedUrl.split('?')[0], // Object URL without the signature
                 size: data.file.size,
             });
             console.log("Metadata created: ", metadataResponse.data);